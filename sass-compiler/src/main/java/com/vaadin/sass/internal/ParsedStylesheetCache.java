@@ -0,0 +1,122 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.vaadin.sass.internal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of parsed stylesheets that can be shared by many compilations, so
+ * that imported partials are parsed only once. Stylesheets are cached by their
+ * resolved URI together with their version; only stylesheets resolved as a
+ * {@link com.vaadin.sass.internal.resolver.VersionedInputSource} are cached.
+ * 
+ * Compilation changes the tree, so the cache keeps a private tree that is
+ * never compiled and hands out a deep copy for every use.
+ * 
+ * The cache is thread safe and keeps at most a fixed number of stylesheets,
+ * dropping the least recently used one.
+ * 
+ * To use it set it on the root stylesheet with
+ * {@link ScssStylesheet#setParsedStylesheetCache(ParsedStylesheetCache)};
+ * imported stylesheets inherit it.
+ */
+public class ParsedStylesheetCache {
+
+    private static class Entry {
+        private final long version;
+
+        private final ScssStylesheet stylesheet;
+
+        Entry(long version, ScssStylesheet stylesheet) {
+            this.version = version;
+            this.stylesheet = stylesheet;
+        }
+    }
+
+    private final int maxSize;
+
+    private final LinkedHashMap<String, Entry> map;
+
+    private long hits;
+
+    private long misses;
+
+    public ParsedStylesheetCache(final int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be > 0");
+        }
+        this.maxSize = maxSize;
+        map = new LinkedHashMap<String, Entry>(64, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ParsedStylesheetCache.this.maxSize;
+            }
+        };
+    }
+
+    public ParsedStylesheetCache() {
+        this(500);
+    }
+
+    /**
+     * Returns the parsed, not yet compiled stylesheet for the URI if it was
+     * cached with the same version, else null. The result must not be
+     * changed; compile a copy of it instead.
+     */
+    synchronized ScssStylesheet get(String uri, long version) {
+        Entry e = map.get(uri);
+        if (e == null || e.version != version) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return e.stylesheet;
+    }
+
+    /**
+     * Store a parsed stylesheet. The stylesheet passed must not be changed
+     * anymore after this.
+     */
+    synchronized void put(String uri, long version, ScssStylesheet stylesheet) {
+        map.put(uri, new Entry(version, stylesheet));
+    }
+
+    public synchronized void clear() {
+        map.clear();
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ParsedStylesheetCache[" + map.size() + " stylesheets, " + hits
+                + " hits, " + misses + " misses]";
+    }
+}
@@ -41,6 +41,7 @@ import com.vaadin.sass.internal.parser.SCSSParseException;
 import com.vaadin.sass.internal.resolver.ClassloaderResolver;
 import com.vaadin.sass.internal.resolver.FilesystemResolver;
 import com.vaadin.sass.internal.resolver.ScssStylesheetResolver;
+import com.vaadin.sass.internal.resolver.VersionedInputSource;
 import com.vaadin.sass.internal.tree.Node;
 import com.vaadin.sass.internal.visitor.ExtendNodeHandler;
 
@@ -59,6 +60,9 @@ public class ScssStylesheet extends Node {
 
     private List<String> sourceUris = new ArrayList<String>();
 
+    // shared cache of parsed stylesheets, inherited by imported stylesheets
+    private ParsedStylesheetCache parsedStylesheetCache;
+
     /**
      * Read in a file SCSS and parse it into a ScssStylesheet
      * 
@@ -155,6 +159,8 @@ public class ScssStylesheet extends Node {
         } else {
             // Use parent resolvers
             stylesheet.setResolvers(parentStylesheet.getResolvers());
+            stylesheet.setParsedStylesheetCache(parentStylesheet
+                    .getParsedStylesheetCache());
         }
         InputSource source = stylesheet.resolveStylesheet(identifier,
                 parentStylesheet);
@@ -164,6 +170,24 @@ public class ScssStylesheet extends Node {
         if (parentStylesheet != null) {
             source.setEncoding(parentStylesheet.getCharset());
         }
+
+        // Reuse an earlier parse of the same version of the stylesheet
+        ParsedStylesheetCache cache = stylesheet.getParsedStylesheetCache();
+        VersionedInputSource versioned = null;
+        if (cache != null && source instanceof VersionedInputSource
+                && ((VersionedInputSource) source).isCacheable()) {
+            versioned = (VersionedInputSource) source;
+            ScssStylesheet parsed = cache.get(versioned.getURI(),
+                    versioned.getVersion());
+            if (parsed != null) {
+                stylesheet.setChildren(parsed.copyChildren());
+                stylesheet.setCharset(parsed.getCharset());
+                stylesheet.sourceUris.add(source.getURI());
+                return stylesheet;
+            }
+        }
+        boolean hadErrors = errorHandler.isErrorsDetected();
+
         Parser parser = new Parser();
         parser.setErrorHandler(errorHandler);
         parser.setDocumentHandler(documentHandler);
@@ -179,6 +203,15 @@ public class ScssStylesheet extends Node {
         stylesheet.setCharset(parser.getInputSource().getEncoding());
         stylesheet.sourceUris.add(source.getURI());
 
+        // Cache a private copy, as compiling changes the tree
+        if (versioned != null && !hadErrors
+                && !errorHandler.isErrorsDetected()) {
+            ScssStylesheet parsed = new ScssStylesheet();
+            parsed.setChildren(stylesheet.copyChildren());
+            parsed.setCharset(stylesheet.getCharset());
+            cache.put(versioned.getURI(), versioned.getVersion(), parsed);
+        }
+
         return stylesheet;
     }
 
@@ -225,6 +258,19 @@ public class ScssStylesheet extends Node {
         resolvers.add(resolver);
     }
 
+    public ParsedStylesheetCache getParsedStylesheetCache() {
+        return parsedStylesheetCache;
+    }
+
+    /**
+     * Sets the cache of parsed stylesheets to use for this stylesheet and the
+     * stylesheets it imports, or null to always parse.
+     */
+    public void setParsedStylesheetCache(
+            ParsedStylesheetCache parsedStylesheetCache) {
+        this.parsedStylesheetCache = parsedStylesheetCache;
+    }
+
     public List<String> getSourceUris() {
         return Collections.unmodifiableList(sourceUris);
     }
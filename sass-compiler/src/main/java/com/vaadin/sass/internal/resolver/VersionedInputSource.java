@@ -0,0 +1,76 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.vaadin.sass.internal.resolver;
+
+import java.io.Reader;
+import java.io.StringReader;
+
+import org.w3c.css.sac.InputSource;
+
+/**
+ * An input source for a stylesheet whose content is already known, together
+ * with a version (usually the last modification time of the resource it was
+ * read from). A resolver returns this to allow the parsed stylesheet to be
+ * taken from a {@link com.vaadin.sass.internal.ParsedStylesheetCache}: the
+ * parsed tree is reused as long as the URI and the version are the same.
+ * 
+ * The content can be read more than once, so the same instance can be
+ * returned for every import of the same stylesheet.
+ */
+public class VersionedInputSource extends InputSource {
+
+    /** Version to use when the content must never be cached. */
+    public static final long UNVERSIONED = -1;
+
+    private final String content;
+
+    private final long version;
+
+    /**
+     * @param uri
+     *            The resolved URI of the stylesheet, which is the cache key
+     * @param content
+     *            The stylesheet's text
+     * @param version
+     *            The version of the content, or {@link #UNVERSIONED}
+     */
+    public VersionedInputSource(String uri, String content, long version) {
+        super(uri);
+        this.content = content;
+        this.version = version;
+    }
+
+    /**
+     * Returns a new reader on the content for every call.
+     */
+    @Override
+    public Reader getCharacterStream() {
+        return new StringReader(content);
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isCacheable() {
+        return version != UNVERSIONED;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2000-2014 Vaadin Ltd.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.vaadin.sass.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.w3c.css.sac.InputSource;
+
+import com.vaadin.sass.internal.ParsedStylesheetCache;
+import com.vaadin.sass.internal.ScssStylesheet;
+import com.vaadin.sass.internal.handler.SCSSDocumentHandlerImpl;
+import com.vaadin.sass.internal.handler.SCSSErrorHandler;
+import com.vaadin.sass.internal.resolver.ScssStylesheetResolver;
+import com.vaadin.sass.internal.resolver.VersionedInputSource;
+
+public class ParsedStylesheetCacheTest {
+
+    private final Map<String, String> files = new HashMap<String, String>();
+
+    private long version = 1;
+
+    private final ScssStylesheetResolver resolver = new ScssStylesheetResolver() {
+        @Override
+        public InputSource resolve(ScssStylesheet parentStylesheet,
+                String identifier) {
+            String name = identifier.endsWith(".scss") ? identifier
+                    : identifier + ".scss";
+            String content = files.get(name);
+            if (content == null) {
+                return null;
+            }
+            return new VersionedInputSource(name, content, version);
+        }
+    };
+
+    private String compile(ParsedStylesheetCache cache) throws Exception {
+        ScssStylesheet parent = new ScssStylesheet();
+        parent.addResolver(resolver);
+        parent.setParsedStylesheetCache(cache);
+        SCSSErrorHandler errorHandler = new SCSSErrorHandler();
+        ScssStylesheet scss = ScssStylesheet.get("main.scss", parent,
+                new SCSSDocumentHandlerImpl(), errorHandler);
+        scss.compile();
+        Assert.assertFalse(errorHandler.isErrorsDetected());
+        return scss.printState();
+    }
+
+    private void setup() {
+        files.put("colors.scss", "$color: red;\n.shared { color: $color; }");
+        files.put("main.scss",
+                "@import \"colors\";\n.a { color: $color; .b { width: 1px; } }");
+    }
+
+    @Test
+    public void testReusedParseGivesSameResult() throws Exception {
+        setup();
+        String expected = compile(null);
+
+        ParsedStylesheetCache cache = new ParsedStylesheetCache();
+        Assert.assertEquals(expected, compile(cache));
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(0, cache.getHits());
+
+        Assert.assertEquals(expected, compile(cache));
+        Assert.assertEquals(expected, compile(cache));
+        Assert.assertEquals(4, cache.getHits());
+    }
+
+    @Test
+    public void testNewVersionIsParsedAgain() throws Exception {
+        setup();
+        ParsedStylesheetCache cache = new ParsedStylesheetCache();
+        compile(cache);
+
+        files.put("colors.scss", "$color: blue;\n.shared { color: $color; }");
+        version++;
+        String css = compile(cache);
+        Assert.assertTrue(css.contains("blue"));
+        Assert.assertFalse(css.contains("red"));
+        Assert.assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    public void testUnversionedIsNotCached() throws Exception {
+        setup();
+        version = VersionedInputSource.UNVERSIONED;
+        ParsedStylesheetCache cache = new ParsedStylesheetCache();
+        compile(cache);
+        compile(cache);
+        Assert.assertEquals(0, cache.size());
+    }
+}
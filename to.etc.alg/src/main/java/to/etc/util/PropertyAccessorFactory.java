@@ -0,0 +1,346 @@
+/*
+ * DomUI Java User Interface - shared code
+ * Copyright (c) 2010 by Frits Jalvingh, Itris B.V.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * See the "sponsors" file for a list of supporters.
+ *
+ * The latest version of DomUI and related code, support and documentation
+ * can be found at http://www.domui.org/
+ * The contact for the project is Frits Jalvingh <jal@etc.to>.
+ */
+package to.etc.util;
+
+import java.lang.invoke.*;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import javax.annotation.*;
+
+/**
+ * Creates accessors for property getter and setter methods that call the method directly instead of
+ * through {@link Method#invoke(Object, Object...)}. An accessor is generated once per method using
+ * {@link LambdaMetafactory}, so that calling it costs about as much as calling the method in code. When
+ * that is not possible (the class or method is not public, or the class is not visible from this
+ * class' classloader) a {@link MethodHandle} is used, and if that fails too plain reflection.
+ *
+ * <p>Accessors are cached per method, and are shared by everything that asks for the same method
+ * (the DomUI metamodel and the JDBC mapper). The cache is kept with the class itself, so it does
+ * not keep classloaders alive.</p>
+ *
+ * <p>The accessors behave like Method.invoke: exceptions thrown by the method are thrown as-is (not
+ * wrapped in InvocationTargetException), and values that do not fit the method are handled by the
+ * reflective call, which also does the primitive widening conversions. When a setter cannot be called
+ * with the instance or value passed an {@link InvalidValueException} is thrown.</p>
+ */
+final public class PropertyAccessorFactory {
+	/**
+	 * Gets a property value.
+	 */
+	public interface IGetter {
+		@Nullable
+		Object getValue(@Nullable Object instance) throws Exception;
+	}
+
+	/**
+	 * Sets a property value.
+	 */
+	public interface ISetter {
+		void setValue(@Nullable Object instance, @Nullable Object value) throws Exception;
+	}
+
+	/**
+	 * Thrown by a setter accessor when the instance or value does not fit the setter method.
+	 */
+	static public class InvalidValueException extends IllegalArgumentException {
+		public InvalidValueException(@Nonnull String message, @Nullable Throwable cause) {
+			super(message, cause);
+		}
+	}
+
+	static private final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	static private final ClassValue<Map<Method, IGetter>> GETTERS = new ClassValue<Map<Method, IGetter>>() {
+		@Override
+		protected Map<Method, IGetter> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	static private final ClassValue<Map<Method, ISetter>> SETTERS = new ClassValue<Map<Method, ISetter>>() {
+		@Override
+		protected Map<Method, ISetter> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	/** Set to false (-Dto.etc.util.generatedAccessors=false) to always use reflection, for comparing. */
+	static private final boolean GENERATE = !"false".equals(System.getProperty("to.etc.util.generatedAccessors"));
+
+	private PropertyAccessorFactory() {
+	}
+
+	/**
+	 * Get the accessor calling the specified getter, which must be an instance method without parameters.
+	 */
+	@Nonnull
+	static public IGetter getter(@Nonnull Method getter) {
+		return GETTERS.get(getter.getDeclaringClass()).computeIfAbsent(getter, PropertyAccessorFactory::createGetter);
+	}
+
+	/**
+	 * Get the accessor calling the specified setter, which must be an instance method with one parameter.
+	 */
+	@Nonnull
+	static public ISetter setter(@Nonnull Method setter) {
+		return SETTERS.get(setter.getDeclaringClass()).computeIfAbsent(setter, PropertyAccessorFactory::createSetter);
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Getters.											*/
+	/*--------------------------------------------------------------*/
+
+	@Nonnull
+	static private IGetter createGetter(@Nonnull Method m) {
+		if(m.getParameterTypes().length != 0 || Modifier.isStatic(m.getModifiers()))
+			throw new IllegalArgumentException(m + " is not a getter");
+		makeAccessible(m);
+		if(!GENERATE)
+			return instance -> invoke(m, instance);
+
+		IGetter direct = null;
+		try {
+			if(isGeneratable(m)) {
+				MethodHandle mh = LOOKUP.unreflect(m);
+				MethodType type = MethodType.methodType(IGetter.class);
+				CallSite cs = LambdaMetafactory.metafactory(LOOKUP, "getValue", type, MethodType.methodType(Object.class, Object.class), mh
+					, MethodType.methodType(box(m.getReturnType()), m.getDeclaringClass()));
+				direct = (IGetter) cs.getTarget().invoke();
+			}
+		} catch(Throwable x) {
+			//-- Cannot generate: try a method handle, below.
+		}
+
+		if(null == direct) {
+			try {
+				MethodHandle mh = LOOKUP.unreflect(m).asType(MethodType.methodType(Object.class, Object.class));
+				direct = instance -> {
+					try {
+						return (Object) mh.invokeExact(instance);
+					} catch(Exception | Error x) {
+						throw x;
+					} catch(Throwable x) {
+						throw new WrappedException(x.toString(), x);
+					}
+				};
+			} catch(Exception x) {
+				return instance -> invoke(m, instance);
+			}
+		}
+		return new CheckedGetter(m, direct);
+	}
+
+	/**
+	 * Calls the direct accessor when the instance has the right type; else the reflective call
+	 * throws the same exception Method.invoke would.
+	 */
+	static private final class CheckedGetter implements IGetter {
+		@Nonnull
+		final private Method m_method;
+
+		@Nonnull
+		final private Class<?> m_type;
+
+		@Nonnull
+		final private IGetter m_direct;
+
+		CheckedGetter(@Nonnull Method method, @Nonnull IGetter direct) {
+			m_method = method;
+			m_type = method.getDeclaringClass();
+			m_direct = direct;
+		}
+
+		@Nullable
+		@Override
+		public Object getValue(@Nullable Object instance) throws Exception {
+			if(m_type.isInstance(instance))
+				return m_direct.getValue(instance);
+			return invoke(m_method, instance);
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Setters.											*/
+	/*--------------------------------------------------------------*/
+
+	@Nonnull
+	static private ISetter createSetter(@Nonnull Method m) {
+		if(m.getParameterTypes().length != 1 || Modifier.isStatic(m.getModifiers()))
+			throw new IllegalArgumentException(m + " is not a setter");
+		makeAccessible(m);
+		if(!GENERATE)
+			return (instance, value) -> invoke(m, instance, value);
+
+		ISetter direct = null;
+		Class<?> valueType = m.getParameterTypes()[0];
+		try {
+			if(isGeneratable(m)) {
+				MethodHandle mh = LOOKUP.unreflect(m);
+				MethodType type = MethodType.methodType(ISetter.class);
+				CallSite cs = LambdaMetafactory.metafactory(LOOKUP, "setValue", type, MethodType.methodType(void.class, Object.class, Object.class), mh
+					, MethodType.methodType(void.class, m.getDeclaringClass(), box(valueType)));
+				direct = (ISetter) cs.getTarget().invoke();
+			}
+		} catch(Throwable x) {
+			//-- Cannot generate: try a method handle, below.
+		}
+
+		if(null == direct) {
+			try {
+				MethodHandle mh = LOOKUP.unreflect(m).asType(MethodType.methodType(void.class, Object.class, Object.class));
+				direct = (instance, value) -> {
+					try {
+						mh.invokeExact(instance, value);
+					} catch(Exception | Error x) {
+						throw x;
+					} catch(Throwable x) {
+						throw new WrappedException(x.toString(), x);
+					}
+				};
+			} catch(Exception x) {
+				return (instance, value) -> invoke(m, instance, value);
+			}
+		}
+		return new CheckedSetter(m, box(valueType), direct);
+	}
+
+	/**
+	 * Calls the direct accessor when the instance and value have the right type; else the reflective
+	 * call does the conversion, or throws the same exception Method.invoke would.
+	 */
+	static private final class CheckedSetter implements ISetter {
+		@Nonnull
+		final private Method m_method;
+
+		@Nonnull
+		final private Class<?> m_type;
+
+		/** The (boxed) value type. */
+		@Nonnull
+		final private Class<?> m_valueType;
+
+		final private boolean m_nullable;
+
+		@Nonnull
+		final private ISetter m_direct;
+
+		CheckedSetter(@Nonnull Method method, @Nonnull Class<?> valueType, @Nonnull ISetter direct) {
+			m_method = method;
+			m_type = method.getDeclaringClass();
+			m_valueType = valueType;
+			m_nullable = !method.getParameterTypes()[0].isPrimitive();
+			m_direct = direct;
+		}
+
+		@Override
+		public void setValue(@Nullable Object instance, @Nullable Object value) throws Exception {
+			if(m_type.isInstance(instance) && (value == null ? m_nullable : m_valueType.isInstance(value)))
+				m_direct.setValue(instance, value);
+			else
+				invoke(m_method, instance, value);
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Helpers.											*/
+	/*--------------------------------------------------------------*/
+
+	/**
+	 * The generated class is defined in this class' classloader, so everything in the method's
+	 * signature must be public and visible from there.
+	 */
+	static private boolean isGeneratable(@Nonnull Method m) {
+		if(!Modifier.isPublic(m.getModifiers()) || !Modifier.isPublic(m.getDeclaringClass().getModifiers()))
+			return false;
+		if(!isVisible(m.getDeclaringClass()) || !isVisible(m.getReturnType()))
+			return false;
+		for(Class<?> pt : m.getParameterTypes()) {
+			if(!isVisible(pt))
+				return false;
+		}
+		return true;
+	}
+
+	static private boolean isVisible(@Nonnull Class<?> type) {
+		while(type.isArray())
+			type = type.getComponentType();
+		if(type.isPrimitive())
+			return true;
+		try {
+			return Class.forName(type.getName(), false, PropertyAccessorFactory.class.getClassLoader()) == type;
+		} catch(ClassNotFoundException | LinkageError x) {
+			return false;
+		}
+	}
+
+	static private void makeAccessible(@Nonnull Method m) {
+		try {
+			m.setAccessible(true);
+		} catch(RuntimeException x) {
+			//-- Not allowed; the public method might still be callable.
+		}
+	}
+
+	@Nullable
+	static private Object invoke(@Nonnull Method m, @Nullable Object instance, Object... args) throws Exception {
+		try {
+			return m.invoke(instance, args);
+		} catch(InvocationTargetException itx) {
+			Throwable c = itx.getCause();
+			if(c instanceof Error)
+				throw (Error) c;
+			throw WrappedException.unwrap(itx);
+		} catch(IllegalArgumentException x) {
+			if(args.length == 1)								// Instance or value does not fit the setter
+				throw new InvalidValueException("Cannot call " + m + " with value " + args[0] + ": " + x.getMessage(), x);
+			throw x;
+		}
+	}
+
+	@Nonnull
+	static private Class<?> box(@Nonnull Class<?> type) {
+		if(!type.isPrimitive())
+			return type;
+		if(type == int.class)
+			return Integer.class;
+		if(type == long.class)
+			return Long.class;
+		if(type == boolean.class)
+			return Boolean.class;
+		if(type == double.class)
+			return Double.class;
+		if(type == float.class)
+			return Float.class;
+		if(type == short.class)
+			return Short.class;
+		if(type == byte.class)
+			return Byte.class;
+		if(type == char.class)
+			return Character.class;
+		return Void.class;
+	}
+}
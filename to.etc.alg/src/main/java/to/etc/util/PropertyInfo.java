@@ -44,6 +44,13 @@ final public class PropertyInfo implements IPropertyAccessor {
 
 	final private Method	m_setter;
 
+	/** The accessors calling the getter and setter, created when first used. */
+	@Nullable
+	private volatile PropertyAccessorFactory.IGetter m_getterAccessor;
+
+	@Nullable
+	private volatile PropertyAccessorFactory.ISetter m_setterAccessor;
+
 	public PropertyInfo(String name, Method getter, Method setter) {
 		if(getter == null || name == null)
 			throw new IllegalStateException("Name or getter null not allowed");
@@ -104,25 +111,30 @@ final public class PropertyInfo implements IPropertyAccessor {
 			return null;
 	}
 
+	/**
+	 * Get the property value by calling the getter through a generated accessor, see {@link PropertyAccessorFactory}.
+	 */
 	@Nullable
 	public Object getValue(@Nullable Object instance) throws Exception {
 		if(null == m_getter)
 			throw new IllegalAccessException("The property " + this + " does not have a getter method - it is writeonly");
-		try {
-			return m_getter.invoke(instance);
-		} catch(InvocationTargetException xte) {
-			throw WrappedException.unwrap(xte);
-		}
+		PropertyAccessorFactory.IGetter accessor = m_getterAccessor;
+		if(null == accessor)
+			accessor = m_getterAccessor = PropertyAccessorFactory.getter(m_getter);
+		return accessor.getValue(instance);
 	}
 
+	/**
+	 * Set the property value by calling the setter through a generated accessor. When the instance or value does
+	 * not fit the setter this throws {@link PropertyAccessorFactory.InvalidValueException}.
+	 */
 	public void setValue(@Nullable Object instance, @Nullable Object value) throws Exception {
 		if(null == m_setter)
-			throw new IllegalAccessException("The property " + this + " does not have a getter method - it is writeonly");
-		try {
-			m_setter.invoke(instance, value);
-		} catch(InvocationTargetException xte) {
-			throw WrappedException.unwrap(xte);
-		}
+			throw new IllegalAccessException("The property " + this + " does not have a setter method - it is readonly");
+		PropertyAccessorFactory.ISetter accessor = m_setterAccessor;
+		if(null == accessor)
+			accessor = m_setterAccessor = PropertyAccessorFactory.setter(m_setter);
+		accessor.setValue(instance, value);
 	}
 
 	@Override
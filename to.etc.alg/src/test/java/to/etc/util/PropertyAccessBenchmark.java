@@ -0,0 +1,129 @@
+package to.etc.util;
+
+import java.lang.reflect.*;
+
+/**
+ * Compares reading and writing properties through {@link Method#invoke(Object, Object...)} with
+ * the generated accessors from {@link PropertyAccessorFactory}, for a table-like load: 50 properties
+ * times 1000 rows per round. This is not a unit test: run it as a main program.
+ */
+public class PropertyAccessBenchmark {
+	static private final int ROWS = 1000;
+
+	static private final int ROUNDS = 200;
+
+	static private final int COLUMNS = 50;
+
+	static public class Row {
+		private String m_name;
+
+		private int m_number;
+
+		private Long m_id;
+
+		public String getName() {
+			return m_name;
+		}
+
+		public void setName(String name) {
+			m_name = name;
+		}
+
+		public int getNumber() {
+			return m_number;
+		}
+
+		public void setNumber(int number) {
+			m_number = number;
+		}
+
+		public Long getId() {
+			return m_id;
+		}
+
+		public void setId(Long id) {
+			m_id = id;
+		}
+	}
+
+	private interface IAccess {
+		Object get(int column, Object row) throws Exception;
+
+		void set(int column, Object row, Object value) throws Exception;
+	}
+
+	public static void main(String[] args) throws Exception {
+		String[] names = {"Name", "Number", "Id"};
+		Class<?>[] types = {String.class, int.class, Long.class};
+		Object[] values = {"abc", Integer.valueOf(12), Long.valueOf(1234)};
+		Method[] getters = new Method[COLUMNS];
+		Method[] setters = new Method[COLUMNS];
+		PropertyAccessorFactory.IGetter[] ga = new PropertyAccessorFactory.IGetter[COLUMNS];
+		PropertyAccessorFactory.ISetter[] sa = new PropertyAccessorFactory.ISetter[COLUMNS];
+		for(int i = 0; i < COLUMNS; i++) {
+			int p = i % names.length;
+			getters[i] = Row.class.getMethod("get" + names[p]);
+			setters[i] = Row.class.getMethod("set" + names[p], types[p]);
+			ga[i] = PropertyAccessorFactory.getter(getters[i]);
+			sa[i] = PropertyAccessorFactory.setter(setters[i]);
+		}
+
+		Row[] rows = new Row[ROWS];
+		for(int i = 0; i < ROWS; i++)
+			rows[i] = new Row();
+
+		IAccess reflective = new IAccess() {
+			@Override
+			public Object get(int column, Object row) throws Exception {
+				return getters[column].invoke(row);
+			}
+
+			@Override
+			public void set(int column, Object row, Object value) throws Exception {
+				setters[column].invoke(row, value);
+			}
+		};
+		IAccess generated = new IAccess() {
+			@Override
+			public Object get(int column, Object row) throws Exception {
+				return ga[column].getValue(row);
+			}
+
+			@Override
+			public void set(int column, Object row, Object value) throws Exception {
+				sa[column].setValue(row, value);
+			}
+		};
+
+		for(int pass = 0; pass < 3; pass++) {
+			System.out.println("Pass " + pass);
+			run("Method.invoke", reflective, rows, values);
+			run("generated accessor", generated, rows, values);
+		}
+	}
+
+	static private void run(String what, IAccess access, Row[] rows, Object[] values) throws Exception {
+		long hash = 0;
+		long ts = System.nanoTime();
+		for(int round = 0; round < ROUNDS; round++) {
+			for(Row row : rows) {
+				for(int c = 0; c < COLUMNS; c++)
+					access.set(c, row, values[c % values.length]);
+			}
+		}
+		long setTime = System.nanoTime() - ts;
+
+		ts = System.nanoTime();
+		for(int round = 0; round < ROUNDS; round++) {
+			for(Row row : rows) {
+				for(int c = 0; c < COLUMNS; c++) {
+					if(access.get(c, row) != null)
+						hash++;
+				}
+			}
+		}
+		long getTime = System.nanoTime() - ts;
+		long calls = (long) ROUNDS * ROWS * COLUMNS;
+		System.out.println(String.format("  %-20s get %6.1f ns/call, set %6.1f ns/call (%d)", what, Double.valueOf((double) getTime / calls), Double.valueOf((double) setTime / calls), Long.valueOf(hash)));
+	}
+}
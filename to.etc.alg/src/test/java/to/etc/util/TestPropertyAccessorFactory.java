@@ -0,0 +1,113 @@
+package to.etc.util;
+
+import java.lang.reflect.*;
+
+import org.junit.*;
+
+/**
+ * Checks that generated property accessors behave like calling the methods through reflection.
+ */
+public class TestPropertyAccessorFactory {
+	static public class Bean {
+		private String m_name;
+
+		private long m_count;
+
+		public String getName() {
+			return m_name;
+		}
+
+		public void setName(String name) {
+			if("bad".equals(name))
+				throw new IllegalArgumentException("bad name");
+			m_name = name;
+		}
+
+		public long getCount() {
+			return m_count;
+		}
+
+		public void setCount(long count) {
+			m_count = count;
+		}
+	}
+
+	/** Not public, so it cannot be used by a generated accessor. */
+	static class HiddenBean {
+		private int m_value;
+
+		public int getValue() {
+			return m_value;
+		}
+
+		public void setValue(int value) {
+			m_value = value;
+		}
+	}
+
+	static private Method method(Class<?> clz, String name, Class<?>... args) throws Exception {
+		return clz.getMethod(name, args);
+	}
+
+	@Test
+	public void testGetAndSet() throws Exception {
+		Bean b = new Bean();
+		PropertyAccessorFactory.setter(method(Bean.class, "setName", String.class)).setValue(b, "frits");
+		PropertyAccessorFactory.setter(method(Bean.class, "setCount", long.class)).setValue(b, Long.valueOf(12));
+		Assert.assertEquals("frits", PropertyAccessorFactory.getter(method(Bean.class, "getName")).getValue(b));
+		Assert.assertEquals(Long.valueOf(12), PropertyAccessorFactory.getter(method(Bean.class, "getCount")).getValue(b));
+	}
+
+	@Test
+	public void testAccessorsAreShared() throws Exception {
+		Method m = method(Bean.class, "getName");
+		Assert.assertSame(PropertyAccessorFactory.getter(m), PropertyAccessorFactory.getter(method(Bean.class, "getName")));
+	}
+
+	@Test
+	public void testNotPublicClass() throws Exception {
+		HiddenBean b = new HiddenBean();
+		PropertyAccessorFactory.setter(method(HiddenBean.class, "setValue", int.class)).setValue(b, Integer.valueOf(42));
+		Assert.assertEquals(Integer.valueOf(42), PropertyAccessorFactory.getter(method(HiddenBean.class, "getValue")).getValue(b));
+	}
+
+	/**
+	 * Like Method.invoke, a smaller primitive value must be widened.
+	 */
+	@Test
+	public void testWidening() throws Exception {
+		Bean b = new Bean();
+		PropertyAccessorFactory.setter(method(Bean.class, "setCount", long.class)).setValue(b, Integer.valueOf(7));
+		Assert.assertEquals(7L, b.getCount());
+	}
+
+	@Test(expected = PropertyAccessorFactory.InvalidValueException.class)
+	public void testNullPrimitive() throws Exception {
+		PropertyAccessorFactory.setter(method(Bean.class, "setCount", long.class)).setValue(new Bean(), null);
+	}
+
+	@Test(expected = PropertyAccessorFactory.InvalidValueException.class)
+	public void testWrongValueType() throws Exception {
+		PropertyAccessorFactory.setter(method(Bean.class, "setName", String.class)).setValue(new Bean(), Integer.valueOf(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWrongInstance() throws Exception {
+		PropertyAccessorFactory.getter(method(Bean.class, "getName")).getValue("not a bean");
+	}
+
+	/**
+	 * An exception thrown by the setter itself must be passed as-is, not as an invalid value.
+	 */
+	@Test
+	public void testSetterException() throws Exception {
+		try {
+			PropertyAccessorFactory.setter(method(Bean.class, "setName", String.class)).setValue(new Bean(), "bad");
+			Assert.fail("Expected an exception");
+		} catch(PropertyAccessorFactory.InvalidValueException x) {
+			Assert.fail("The setter's exception was reported as an invalid value");
+		} catch(IllegalArgumentException x) {
+			Assert.assertEquals("bad name", x.getMessage());
+		}
+	}
+}
@@ -203,7 +203,7 @@ final public class ConnectionPool {
 	private boolean m_destroyed;
 
 	/** The dbtype obtained from the driver. */
-	private DbType m_dbType = DbType.UNKNOWN;
+	private volatile DbType m_dbType = DbType.UNKNOWN;
 
 	/** The CALCULATED SQL statement that is to be sent as a check for valid cnnections, if m_check is null. */
 	private String m_check_calc;
@@ -215,6 +215,9 @@ final public class ConnectionPool {
 	/** All connection entries that are allocated but free for use. */
 	private Stack<PoolEntry> m_freeList = new Stack<PoolEntry>();
 
+	/** When the pool is configured as {@link PoolConfig#isFair()} this holds the free entries instead of m_freeList. */
+	final private PoolEntryBag m_freeBag = new PoolEntryBag();
+
 	/** The connections that are currently in use (both pooled and unpooled), */
 	private Set<PoolEntry> m_usedSet = new HashSet<PoolEntry>();
 
@@ -613,7 +616,10 @@ final public class ConnectionPool {
 			for(int i = 0; i < c().getMinConns(); i++) {
 				Connection c = getCheckedConnection();
 				PoolEntry pe = new PoolEntry(c, this, m_entryidgen++, c().getUid());
-				m_freeList.add(pe);
+				if(c().isFair())
+					m_freeBag.add(pe);
+				else
+					m_freeList.add(pe);
 				if(c().isSqlTraceMode())
 					pe.setSqlTraceMode(true);
 				m_pooledAllocatedCount++;
@@ -636,14 +642,15 @@ final public class ConnectionPool {
 
 		//-- We are no longer reachable from the pool manager- destroy ourself in piece.
 		Set<PoolEntry> usedset;
-		Stack<PoolEntry> freelist;
+		List<PoolEntry> freelist;
 		synchronized(this) {
 			if(m_destroyed)
 				return;
 			m_destroyed = true;
 
 			usedset = m_usedSet;
-			freelist = m_freeList;
+			freelist = new ArrayList<PoolEntry>(m_freeList);
+			freelist.addAll(m_freeBag.drain());
 			m_usedSet = new HashSet<PoolEntry>();
 			m_freeList = new Stack<PoolEntry>();
 			m_statementTotalPrepareCount = 0;
@@ -658,6 +665,7 @@ final public class ConnectionPool {
 			m_peak_open_stmt = 0;
 		}
 
+		m_freeBag.wakeAll();								// Waiters will find the pool destroyed
 		deinitPool(freelist);
 		deinitPool(usedset);
 	}
@@ -703,7 +711,7 @@ final public class ConnectionPool {
 			return;
 		StringBuilder sb = new StringBuilder();
 		sb.append("ALLOCATE pool(" + m_id + ") " + what + " database[allocated for pool=" + m_pooledAllocatedCount + ", allocated unpooled=" + m_unpooledAllocatedCount + "] pool[inuse=" + m_pooledUsedCount
-			+ ", free=" + m_freeList.size() + "]");
+			+ ", free=" + getFreeCount() + "]");
 		sb.append("\nConnection: " + dbc + "\n");
 		DbPoolUtil.getThreadAndLocation(sb);
 		ALLOC.fine(sb.toString());
@@ -720,13 +728,18 @@ final public class ConnectionPool {
 			return;
 		StringBuilder sb = new StringBuilder();
 		sb.append("RELEASED pool(" + m_id + ") " + what + " database[allocated for pool=" + m_pooledAllocatedCount + ", allocated unpooled=" + m_unpooledAllocatedCount + "] pool[inuse=" + m_pooledUsedCount
-			+ ", free=" + m_freeList.size() + "]");
+			+ ", free=" + getFreeCount() + "]");
 		if(dbc != null)
 			sb.append("\nConnection: " + dbc + "\n");
 		DbPoolUtil.getThreadAndLocation(sb);
 		ALLOC.fine(sb.toString());
 	}
 
+	@GuardedBy("this")
+	private int getFreeCount() {
+		return c().isFair() ? m_freeBag.size() : m_freeList.size();
+	}
+
 	/*--------------------------------------------------------------*/
 	/*	CODING:	Pool Entry allocation and release.					*/
 	/*--------------------------------------------------------------*/
@@ -746,6 +759,9 @@ final public class ConnectionPool {
 	 * @throws SQLException
 	 */
 	private PoolEntry allocateConnectionInner(final boolean unpooled) throws SQLException {
+		if(c().isFair())
+			return allocateConnectionFair(unpooled);
+
 		int newid = 0;
 		long ets = -1; // No end time yet known
 
@@ -755,61 +771,20 @@ final public class ConnectionPool {
 				usable();
 
 				//-- 1. Is a connection available in the free pool?
-				while(!m_freeList.isEmpty()) {
-					PoolEntry pe = m_freeList.pop();
-					m_usedSet.add(pe); // Saved used entry.
-					pe.setUnpooled(unpooled); // Tell the entry whether it is a pooled one or not
-
-					if(unpooled) {
-						/*
-						 * Unpooled connections are no longer part of the pool. Because
-						 * this connection was gotten from the pooled set we decrement
-						 * the "connections allocated" for the pool.
-						 */
-						m_pooledAllocatedCount--; // One less allocated in the poolset.
-						m_unpooledAllocatedCount++; // And one more in use
-						if(m_unpooledAllocatedCount > m_unpooledMaxUsed)
-							m_unpooledMaxUsed = m_unpooledAllocatedCount;
-					} else {
-						//-- Unpooled connections influence the "used" count.
-						m_pooledUsedCount++;
-						if(m_pooledUsedCount > m_pooledMaxUsed)
-							m_pooledMaxUsed = m_pooledUsedCount;
-					}
-					return pe;
-				}
+				if(!m_freeList.isEmpty())
+					return useFreeEntry(m_freeList.pop(), unpooled);
 
 				//-- 2. No free connections. Can we allocate another one?
-				if(m_pooledAllocatedCount < c().getMaxConns() || unpooled) {
-					/*
-					 * We may allocate a new connection. Update data to show
-					 * that we allocate one, then break the loop to do the
-					 * actual allocation OUTSIDE the lock. This makes sure that
-					 * the connection count is not exceeded while we allocate
-					 * another connection.
-					 */
-					if(!unpooled) {
-						m_pooledAllocatedCount++; // Increment actual allocation count
-						m_pooledUsedCount++; // One more used,
-						if(m_pooledUsedCount > m_pooledMaxUsed)
-							m_pooledMaxUsed = m_pooledUsedCount;
-					} else {
-						m_unpooledAllocatedCount++;
-						if(m_unpooledAllocatedCount > m_unpooledMaxUsed)
-							m_unpooledMaxUsed = m_unpooledAllocatedCount;
-					}
-
-					//-- Save data for the creation later,
-					newid = m_entryidgen++;
+				newid = reserveNewEntry(unpooled);
+				if(newid >= 0)
 					break; // Enter the "allocate new" code.
-				}
 
 				//-- 3. Auch! Nothing! Wait till a connection is released!!
 				m_n_connectionwaits++;
 				long cts = System.currentTimeMillis();
 				if(ets == -1) {
 					//-- This is the 1st time through the loop: set the end time;
-					ets = cts + 10 * 1000; // Delay max. 10 secs
+					ets = cts + c().getWaitTimeout() * 1000L; // Delay max. waittimeout secs
 				} else if(cts >= ets) {
 					//-- We have waited too long- return failure and release lock
 					return null;
@@ -817,18 +792,115 @@ final public class ConnectionPool {
 
 				//-- We're allowed to wait.
 				try {
-					wait(10000); // Wait max. 10 secs,
+					wait(ets - cts);
 				} catch(InterruptedException e) {
 					throw new SQLException("dbPool " + m_id + ": interrupted while waiting for connection to become available");
 				}
 			}
 		}
+		return createNewEntry(newid, unpooled);
+	}
 
-		/*
-		 * When here we're NO longer locking the pool AND we are allowed to allocate a
-		 * new connection. The connection has already been counted in. This
-		 * must be done outside a lock because JDBC (Oracle driver) may lock also.
-		 */
+	/**
+	 * The allocation loop for a fair pool. Free entries are taken from the {@link PoolEntryBag} without
+	 * locking the pool; the pool is locked only for the short time needed to update the accounting.
+	 * When nothing is free and no new connection may be allocated the thread waits in FIFO order for
+	 * a connection to be returned.
+	 */
+	private PoolEntry allocateConnectionFair(final boolean unpooled) throws SQLException {
+		long ets = System.nanoTime() + c().getWaitTimeout() * 1000000000L;
+		for(;;) {
+			usable();
+
+			//-- 1. Is a connection available in the free pool?
+			PoolEntry pe = m_freeBag.poll();
+			if(null != pe)
+				return useFreeEntry(pe, unpooled);
+
+			//-- 2. No free connections. Can we allocate another one?
+			int newid = reserveNewEntry(unpooled);
+			if(newid >= 0)
+				return createNewEntry(newid, unpooled);
+
+			//-- 3. Wait in line for a connection to be released, or for a slot to become available.
+			long left = ets - System.nanoTime();
+			if(left <= 0)
+				return null;
+			synchronized(this) {
+				m_n_connectionwaits++;
+			}
+			try {
+				pe = m_freeBag.await(left, this::mayAllocateOrDestroyed);
+			} catch(InterruptedException e) {
+				throw new SQLException("dbPool " + m_id + ": interrupted while waiting for connection to become available");
+			}
+			if(null != pe)
+				return useFreeEntry(pe, unpooled);
+		}
+	}
+
+	/**
+	 * Accounts for an entry taken from the free list, and returns it.
+	 */
+	private synchronized PoolEntry useFreeEntry(PoolEntry pe, final boolean unpooled) {
+		m_usedSet.add(pe); // Saved used entry.
+		pe.setUnpooled(unpooled); // Tell the entry whether it is a pooled one or not
+
+		if(unpooled) {
+			/*
+			 * Unpooled connections are no longer part of the pool. Because
+			 * this connection was gotten from the pooled set we decrement
+			 * the "connections allocated" for the pool.
+			 */
+			m_pooledAllocatedCount--; // One less allocated in the poolset.
+			m_unpooledAllocatedCount++; // And one more in use
+			if(m_unpooledAllocatedCount > m_unpooledMaxUsed)
+				m_unpooledMaxUsed = m_unpooledAllocatedCount;
+		} else {
+			//-- Unpooled connections influence the "used" count.
+			m_pooledUsedCount++;
+			if(m_pooledUsedCount > m_pooledMaxUsed)
+				m_pooledMaxUsed = m_pooledUsedCount;
+		}
+		return pe;
+	}
+
+	/**
+	 * If another connection may be allocated this updates the data to show that we allocate one,
+	 * and returns the id for the new entry. The actual allocation is then done OUTSIDE the lock
+	 * by {@link #createNewEntry(int, boolean)}. This makes sure that the connection count is not
+	 * exceeded while we allocate another connection. Returns -1 if the pool is full.
+	 */
+	private synchronized int reserveNewEntry(final boolean unpooled) {
+		if(m_pooledAllocatedCount >= c().getMaxConns() && !unpooled)
+			return -1;
+		if(!unpooled) {
+			m_pooledAllocatedCount++; // Increment actual allocation count
+			m_pooledUsedCount++; // One more used,
+			if(m_pooledUsedCount > m_pooledMaxUsed)
+				m_pooledMaxUsed = m_pooledUsedCount;
+		} else {
+			m_unpooledAllocatedCount++;
+			if(m_unpooledAllocatedCount > m_unpooledMaxUsed)
+				m_unpooledMaxUsed = m_unpooledAllocatedCount;
+		}
+		return m_entryidgen++;
+	}
+
+	/**
+	 * Used by a waiting thread to check whether it should retry allocating instead of waiting:
+	 * either a new pooled connection may be allocated, or the pool was destroyed.
+	 */
+	private synchronized boolean mayAllocateOrDestroyed() {
+		return m_destroyed || m_pooledAllocatedCount < c().getMaxConns();
+	}
+
+	/**
+	 * When here we're NO longer locking the pool AND we are allowed to allocate a
+	 * new connection. The connection has already been counted in. This
+	 * must be done outside a lock because JDBC (Oracle driver) may lock also.
+	 */
+	private PoolEntry createNewEntry(int newid, final boolean unpooled) throws SQLException {
 		boolean ok = false;
 		PoolEntry pe = null;
 		try {
@@ -850,6 +922,8 @@ final public class ConnectionPool {
 					if(!unpooled) {
 						m_pooledAllocatedCount--;
 						m_pooledUsedCount--;
+						if(c().isFair())
+							m_freeBag.signalCapacity();
 					} else
 						m_unpooledAllocatedCount--;
 				}
@@ -958,6 +1032,7 @@ final public class ConnectionPool {
 			ex.printStackTrace();
 			throw ex;
 		} finally {
+			boolean fair = c().isFair();
 			synchronized(this) {
 				/*
 				 * If the reset was okay AND the connection count does not exceed
@@ -989,16 +1064,21 @@ final public class ConnectionPool {
 						m_pooledAllocatedCount++; // Unpooled means another allocated one now
 					} else
 						m_pooledUsedCount--; // Decrement pool use count for pooled,
-					m_freeList.push(pe);
+					if(fair)
+						m_freeBag.release(pe); // Hands it to the oldest waiter, if any
+					else
+						m_freeList.push(pe);
 					pe = null; // Make sure we do not use this again ;-)
 					dbgRelease("returned to pool", pc);
 				}
 
 				//-- Notify any waiters that another slot is available
 				//				System.out.println("POOL["+m_id+"]: connection returned, #used is "+m_n_used);
-				try {
-					notify();
-				} catch(Exception x) {}
+				if(!fair) {
+					try {
+						notify();
+					} catch(Exception x) {}
+				}
 			}
 			if(ok)
 				return;
@@ -1021,6 +1101,8 @@ final public class ConnectionPool {
 		else {
 			m_pooledUsedCount--;
 			m_pooledAllocatedCount--; // One less allocated because it's connection will be/is freed.
+			if(c().isFair())
+				m_freeBag.signalCapacity();
 		}
 		if(!m_usedSet.remove(pe)) {
 			//-- cannot happen.
@@ -1047,6 +1129,8 @@ final public class ConnectionPool {
 			if(!pe.isUnpooled()) { // Discarding pooled means current allocation count must be decremented.
 				m_pooledAllocatedCount--; // One less allocated in the pool
 				m_pooledUsedCount--; // And one less used,
+				if(c().isFair())
+					m_freeBag.signalCapacity();
 			} else
 				m_unpooledAllocatedCount--;
 			//System.out.println("DISCARD pool=" + m_id + " connection discarded to server; conns=" + m_pooledAllocatedCount + ", #unpooled=" + m_unpooledAllocatedCount);
@@ -1062,9 +1146,11 @@ final public class ConnectionPool {
 				saveError(subj, msg);
 			}
 
-			try {
-				notify();
-			} catch(Exception x) {}
+			if(!c().isFair()) {
+				try {
+					notify();
+				} catch(Exception x) {}
+			}
 		}
 
 		/*
@@ -1695,6 +1781,13 @@ final public class ConnectionPool {
 		return m_check_calc;
 	}
 
+	/**
+	 * The type of database this pool connects to, as determined from the driver when the pool was defined.
+	 */
+	public DbType getDbType() {
+		return m_dbType;
+	}
+
 	synchronized public boolean isPooledMode() {
 		return m_isPooled;
 	}
@@ -431,6 +431,16 @@ public class DbPoolUtil {
 		}
 	}
 
+	/**
+	 * Get the type of database a connection is for. For pooled connections this uses the type the pool
+	 * determined when it was defined; for others it asks the connection's metadata.
+	 */
+	static public DbType getDbType(Connection dbc) throws SQLException {
+		if(dbc instanceof ConnectionProxy)
+			return ((ConnectionProxy) dbc).getPool().getDbType();
+		return getDbTypeByDriverName(dbc.getMetaData().getDriverName());
+	}
+
 	static public DbType getDbTypeByDriverName(String dn) {
 		dn = dn.toLowerCase();
 		//		System.out.println("Reported driver name is "+dn);
@@ -78,6 +78,12 @@ final public class PoolConfig {
 
 	private File m_binaryLogFile;
 
+	/** When T the pool uses the lock-free, fair {@link PoolEntryBag} for its free connections. */
+	private boolean m_fair;
+
+	/** The max. #of seconds to wait for a free connection before the pool reports exhaustion and retries. */
+	private int m_waitTimeout = 10;
+
 	static public class Template {
 		/** The max. #of connections that can be allocated before the pool blocks */
 		private int m_max_conns;
@@ -123,6 +129,12 @@ final public class PoolConfig {
 
 		private File m_binaryLogFile;
 
+		/** When T the pool uses the lock-free, fair {@link PoolEntryBag} for its free connections. */
+		private boolean m_fair;
+
+		/** The max. #of seconds to wait for a free connection before the pool reports exhaustion and retries. */
+		private int m_waitTimeout = 10;
+
 		public void setDriverPath(File driverPath) {
 			m_driverPath = driverPath;
 		}
@@ -179,6 +191,14 @@ final public class PoolConfig {
 			m_binaryLogFile = binaryLogFile;
 		}
 
+		public void setFair(boolean fair) {
+			m_fair = fair;
+		}
+
+		public void setWaitTimeout(int waitTimeout) {
+			m_waitTimeout = waitTimeout;
+		}
+
 		public void setUrl(String url) {
 			m_url = url;
 		}
@@ -237,6 +257,8 @@ final public class PoolConfig {
 		m_sqlTraceMode = tpl.m_sqlTraceMode;
 		m_uid = tpl.m_uid;
 		m_url = tpl.m_url;
+		m_fair = tpl.m_fair;
+		m_waitTimeout = tpl.m_waitTimeout < 1 ? 1 : tpl.m_waitTimeout;
 
 	}
 
@@ -267,6 +289,9 @@ final public class PoolConfig {
 			m_min_conns = minc;
 			m_max_conns = maxc;
 			m_printExceptions = cs.getBool(id, "printexceptions", false);
+			m_fair = cs.getBool(id, "fair", false);
+			int wt = cs.getInt(id, "waittimeout", 10);
+			m_waitTimeout = wt < 1 ? 1 : wt;
 
 			String dp = cs.getProperty(id, "scan");
 			if(dp == null)
@@ -430,6 +455,23 @@ final public class PoolConfig {
 		return 5 * 60;
 	}
 
+	/**
+	 * When T the pool keeps its free connections in a lock-free structure, prefers to give a thread
+	 * the connection it used last, and serves threads waiting for a connection strictly in FIFO order.
+	 * When F the classic synchronized pool core with wait/notify is used.
+	 */
+	public boolean isFair() {
+		return m_fair;
+	}
+
+	/**
+	 * The max. #of seconds a thread waits for a connection to become available before the pool
+	 * reports that it is out of connections. The wait is retried a few times before the request fails.
+	 */
+	public int getWaitTimeout() {
+		return m_waitTimeout;
+	}
+
 	public synchronized void setLogStatements(boolean logStatements) {
 		m_logStatements = logStatements;
 	}
@@ -0,0 +1,245 @@
+/*
+ * DomUI Java User Interface - shared code
+ * Copyright (c) 2010 by Frits Jalvingh, Itris B.V.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * See the "sponsors" file for a list of supporters.
+ *
+ * The latest version of DomUI and related code, support and documentation
+ * can be found at http://www.domui.org/
+ * The contact for the project is Frits Jalvingh <jal@etc.to>.
+ */
+package to.etc.dbpool;
+
+import java.lang.ref.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+import java.util.function.*;
+
+import javax.annotation.*;
+
+/**
+ * The free connections of a pool running in "fair" mode (see {@link PoolConfig#isFair()}). This
+ * replaces the synchronized free stack and wait/notify of the classic pool core with lock-free
+ * structures:
+ * <ul>
+ *	<li>Free entries are kept in a concurrent deque. Entries are returned at the head so that
+ *		recently used (warm) connections are used first.</li>
+ *	<li>Every thread remembers the entry it last released. When that entry is still free the
+ *		thread gets it back, which keeps the connection's caches (and its statement cache) warm
+ *		for the code that used it.</li>
+ *	<li>Threads that have to wait are queued in FIFO order, and a released entry is handed
+ *		directly to the longest waiting thread. New threads do not take free entries while others
+ *		are waiting, so no thread can be starved by threads arriving later.</li>
+ * </ul>
+ * This only manages the entries themselves; all accounting remains in {@link ConnectionPool}.
+ */
+final class PoolEntryBag {
+	/** Marks a waiter that gave up waiting. */
+	static private final Object CANCELLED = new Object();
+
+	/** Marks a waiter that was woken without an entry because the pool can allocate a new connection. */
+	static private final Object RETRY = new Object();
+
+	private final ConcurrentLinkedDeque<PoolEntry> m_free = new ConcurrentLinkedDeque<>();
+
+	private final ConcurrentLinkedQueue<Waiter> m_waiters = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * The entry last released by a thread, which that thread prefers to use again. This is a weak
+	 * reference so that the hint in long-living threads does not keep entries of a destroyed pool alive.
+	 */
+	private final ThreadLocal<WeakReference<PoolEntry>> m_lastUsed = new ThreadLocal<>();
+
+	static private final class Waiter {
+		final Thread m_thread = Thread.currentThread();
+
+		/** null while waiting, then a PoolEntry, RETRY or CANCELLED. */
+		final AtomicReference<Object> m_slot = new AtomicReference<>();
+
+		boolean offer(@Nonnull Object what) {
+			if(!m_slot.compareAndSet(null, what))
+				return false;
+			LockSupport.unpark(m_thread);
+			return true;
+		}
+	}
+
+	/**
+	 * Add an entry that was never used, for instance when the pool is initialized.
+	 */
+	void add(@Nonnull PoolEntry pe) {
+		m_free.addLast(pe);
+		dispatch();
+	}
+
+	/**
+	 * Return an entry that is free for use again. It is handed directly to the oldest waiting
+	 * thread, if any.
+	 */
+	void release(@Nonnull PoolEntry pe) {
+		m_lastUsed.set(new WeakReference<>(pe));
+		m_free.addFirst(pe);
+		dispatch();
+	}
+
+	/**
+	 * Try to get a free entry without waiting. This fails when there are no free entries, and also
+	 * when other threads are already waiting for one.
+	 */
+	@Nullable
+	PoolEntry poll() {
+		if(!m_waiters.isEmpty())
+			return null;
+		WeakReference<PoolEntry> ref = m_lastUsed.get();
+		if(null != ref) {
+			m_lastUsed.remove();
+			PoolEntry pe = ref.get();
+			if(null != pe && m_free.removeFirstOccurrence(pe))
+				return pe;
+		}
+		return m_free.pollFirst();
+	}
+
+	/**
+	 * Wait, in FIFO order with other waiters, for an entry to be released. This returns null when the
+	 * timeout expires, and also when the thread was woken by {@link #signalCapacity()} or when
+	 * mayAllocate reports that a new connection may be allocated; the caller should then try to
+	 * allocate a new connection. mayAllocate is checked after the waiter has been queued, so that a
+	 * capacity signal sent between the caller's failed allocation and the queueing is not missed.
+	 */
+	@Nullable
+	PoolEntry await(long timeoutNanos, @Nonnull BooleanSupplier mayAllocate) throws InterruptedException {
+		Waiter w = new Waiter();
+		m_waiters.add(w);
+
+		//-- An entry may have been released, or capacity freed, just before we queued ourselves.
+		dispatch();
+		if(mayAllocate.getAsBoolean())
+			return cancel(w);
+
+		long end = System.nanoTime() + timeoutNanos;
+		for(;;) {
+			if(Thread.interrupted()) {
+				abandon(w);
+				throw new InterruptedException();
+			}
+			Object v = w.m_slot.get();
+			if(null != v)
+				return v instanceof PoolEntry ? (PoolEntry) v : null;
+			long left = end - System.nanoTime();
+			if(left <= 0) {
+				return cancel(w);
+			}
+			LockSupport.parkNanos(this, left);
+		}
+	}
+
+	/**
+	 * Stop waiting. If an entry was handed to the waiter in the meantime that entry is returned.
+	 */
+	@Nullable
+	private PoolEntry cancel(@Nonnull Waiter w) {
+		if(w.m_slot.compareAndSet(null, CANCELLED)) {
+			m_waiters.remove(w);
+			return null;
+		}
+		Object v = w.m_slot.get();
+		return v instanceof PoolEntry ? (PoolEntry) v : null;
+	}
+
+	/**
+	 * Stop waiting without using what the waiter got: an entry handed to it is returned to the free
+	 * entries, and a capacity signal is passed on to the next waiter.
+	 */
+	private void abandon(@Nonnull Waiter w) {
+		PoolEntry pe = cancel(w);
+		if(null != pe) {
+			m_free.addFirst(pe);
+			dispatch();
+		} else if(w.m_slot.get() == RETRY) {
+			signalCapacity();
+		}
+	}
+
+	/**
+	 * Wake the oldest waiter without an entry, because the pool is now allowed to allocate
+	 * another connection (a connection was discarded).
+	 */
+	void signalCapacity() {
+		Waiter w;
+		while(null != (w = m_waiters.poll())) {
+			if(w.offer(RETRY))
+				return;
+		}
+	}
+
+	/**
+	 * Wake all waiters without an entry, for instance because the pool is destroyed.
+	 */
+	void wakeAll() {
+		Waiter w;
+		while(null != (w = m_waiters.poll()))
+			w.offer(RETRY);
+	}
+
+	/**
+	 * Hand free entries to waiters for as long as there are both.
+	 */
+	private void dispatch() {
+		while(!m_waiters.isEmpty()) {
+			PoolEntry pe = m_free.pollFirst();
+			if(null == pe)
+				return;
+			if(!handOff(pe)) {
+				m_free.addFirst(pe);
+				return;
+			}
+		}
+	}
+
+	private boolean handOff(@Nonnull PoolEntry pe) {
+		Waiter w;
+		while(null != (w = m_waiters.poll())) {
+			if(w.offer(pe))
+				return true;
+		}
+		return false;
+	}
+
+	int size() {
+		return m_free.size();
+	}
+
+	int getWaiterCount() {
+		return m_waiters.size();
+	}
+
+	/**
+	 * Removes and returns all free entries.
+	 */
+	@Nonnull
+	List<PoolEntry> drain() {
+		m_lastUsed.remove();
+		List<PoolEntry> res = new ArrayList<>();
+		PoolEntry pe;
+		while(null != (pe = m_free.pollFirst()))
+			res.add(pe);
+		return res;
+	}
+}
@@ -0,0 +1,223 @@
+package to.etc.dbpool;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.junit.*;
+
+/**
+ * Checks the free entry handling of a fair pool: reuse of the last released entry, waiting in FIFO order,
+ * handing released entries directly to waiters and timeouts.
+ */
+public class TestPoolEntryBag {
+	static private final long WAIT = TimeUnit.SECONDS.toNanos(10);
+
+	private ConnectionPool m_pool;
+
+	private final List<Thread> m_threads = new ArrayList<>();
+
+	@Before
+	public void setUp() throws Exception {
+		m_pool = new ConnectionPool(null, "test", null);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		for(Thread t : m_threads) {
+			t.interrupt();
+			t.join(1000);
+		}
+	}
+
+	private PoolEntry entry(int id) throws Exception {
+		return new PoolEntry(null, m_pool, id, "test");
+	}
+
+	/**
+	 * Start a thread that waits for an entry and stores what it got, and wait until it is queued.
+	 */
+	private AtomicReference<Object> startWaiter(PoolEntryBag bag) throws Exception {
+		AtomicReference<Object> result = new AtomicReference<>();
+		int waiters = bag.getWaiterCount();
+		Thread t = new Thread(() -> {
+			try {
+				PoolEntry pe = bag.await(WAIT, () -> false);
+				result.set(pe == null ? "none" : pe);
+			} catch(InterruptedException x) {
+				result.set(x);
+			}
+		});
+		m_threads.add(t);
+		t.start();
+		long end = System.currentTimeMillis() + 5000;
+		while(bag.getWaiterCount() == waiters) {
+			if(System.currentTimeMillis() > end)
+				Assert.fail("The waiter did not queue itself");
+			Thread.sleep(1);
+		}
+		return result;
+	}
+
+	static private Object waitFor(AtomicReference<Object> result) throws Exception {
+		long end = System.currentTimeMillis() + 5000;
+		while(result.get() == null) {
+			if(System.currentTimeMillis() > end)
+				Assert.fail("The waiter did not get a result");
+			Thread.sleep(1);
+		}
+		return result.get();
+	}
+
+	@Test
+	public void testPollPrefersLastReleased() throws Exception {
+		PoolEntryBag bag = new PoolEntryBag();
+		PoolEntry a = entry(1);
+		PoolEntry b = entry(2);
+		bag.release(a);
+
+		//-- Another thread releases b, which puts it in front of a
+		Thread t = new Thread(() -> bag.release(b));
+		t.start();
+		t.join();
+
+		Assert.assertSame(a, bag.poll());
+		Assert.assertSame(b, bag.poll());
+		Assert.assertNull(bag.poll());
+	}
+
+	@Test
+	public void testTimeout() throws Exception {
+		PoolEntryBag bag = new PoolEntryBag();
+		long ts = System.nanoTime();
+		Assert.assertNull(bag.await(TimeUnit.MILLISECONDS.toNanos(50), () -> false));
+		Assert.assertTrue(System.nanoTime() - ts >= TimeUnit.MILLISECONDS.toNanos(50));
+		Assert.assertEquals(0, bag.getWaiterCount());
+
+		//-- An entry released after the timeout must stay free.
+		PoolEntry a = entry(1);
+		bag.release(a);
+		Assert.assertEquals(1, bag.size());
+		Assert.assertSame(a, bag.poll());
+	}
+
+	@Test
+	public void testHandOffToWaiter() throws Exception {
+		PoolEntryBag bag = new PoolEntryBag();
+		AtomicReference<Object> result = startWaiter(bag);
+
+		//-- While a thread waits, new threads must not get entries ahead of it.
+		Assert.assertNull(bag.poll());
+		PoolEntry a = entry(1);
+		bag.release(a);
+		Assert.assertSame(a, waitFor(result));
+		Assert.assertEquals(0, bag.size());
+		Assert.assertEquals(0, bag.getWaiterCount());
+	}
+
+	@Test
+	public void testWaitersAreServedInOrder() throws Exception {
+		PoolEntryBag bag = new PoolEntryBag();
+		List<AtomicReference<Object>> results = new ArrayList<>();
+		for(int i = 0; i < 3; i++)
+			results.add(startWaiter(bag));
+
+		List<PoolEntry> entries = new ArrayList<>();
+		for(int i = 0; i < 3; i++) {
+			PoolEntry pe = entry(i);
+			entries.add(pe);
+			bag.release(pe);
+			Assert.assertSame(pe, waitFor(results.get(i)));
+			for(int j = i + 1; j < 3; j++)
+				Assert.assertNull(results.get(j).get());
+		}
+		Assert.assertEquals(0, bag.size());
+	}
+
+	@Test
+	public void testSignalCapacityWakesOldestWaiter() throws Exception {
+		PoolEntryBag bag = new PoolEntryBag();
+		AtomicReference<Object> first = startWaiter(bag);
+		AtomicReference<Object> second = startWaiter(bag);
+		bag.signalCapacity();
+		Assert.assertEquals("none", waitFor(first));
+		Assert.assertNull(second.get());
+		Assert.assertEquals(1, bag.getWaiterCount());
+	}
+
+	/**
+	 * An entry handed to a waiter at the moment it is interrupted must go back to the free entries.
+	 * The capacity check runs after the waiter has queued, so it is used to release an entry (which
+	 * is handed to this waiter) and interrupt the waiter at exactly that point.
+	 */
+	@Test
+	public void testInterruptRacingReleaseKeepsEntry() throws Exception {
+		PoolEntryBag bag = new PoolEntryBag();
+		PoolEntry a = entry(1);
+		try {
+			bag.await(WAIT, () -> {
+				bag.release(a);
+				Thread.currentThread().interrupt();
+				return false;
+			});
+			Assert.fail("Expected an InterruptedException");
+		} catch(InterruptedException x) {
+			//-- Expected
+		}
+		Assert.assertEquals(0, bag.getWaiterCount());
+		Assert.assertEquals(1, bag.size());
+		Assert.assertSame(a, bag.poll());
+	}
+
+	/**
+	 * A capacity signal given to a waiter at the moment it is interrupted is passed on to the next waiter.
+	 */
+	@Test
+	public void testInterruptPassesCapacitySignalOn() throws Exception {
+		PoolEntryBag bag = new PoolEntryBag();
+		AtomicReference<AtomicReference<Object>> other = new AtomicReference<>();
+		try {
+			bag.await(WAIT, () -> {
+				try {
+					other.set(startWaiter(bag));
+				} catch(Exception x) {
+					throw new RuntimeException(x);
+				}
+				bag.signalCapacity();							// Wakes this thread, the oldest waiter
+				Thread.currentThread().interrupt();
+				return false;
+			});
+			Assert.fail("Expected an InterruptedException");
+		} catch(InterruptedException x) {
+			//-- Expected
+		}
+		Assert.assertEquals("none", waitFor(other.get()));
+		Assert.assertEquals(0, bag.getWaiterCount());
+	}
+
+	/**
+	 * A capacity signal sent before a thread queued itself is not lost: the thread checks for
+	 * capacity after queueing and returns at once.
+	 */
+	@Test
+	public void testCapacityFreedBeforeQueueing() throws Exception {
+		PoolEntryBag bag = new PoolEntryBag();
+		bag.signalCapacity();									// Nobody waits yet, so this wakes no one
+		long ts = System.nanoTime();
+		Assert.assertNull(bag.await(WAIT, () -> true));
+		Assert.assertTrue(System.nanoTime() - ts < WAIT / 2);
+		Assert.assertEquals(0, bag.getWaiterCount());
+	}
+
+	/**
+	 * When mayAllocate is true but an entry was handed to the thread while it queued, it gets that entry.
+	 */
+	@Test
+	public void testCapacityCheckKeepsHandedEntry() throws Exception {
+		PoolEntryBag bag = new PoolEntryBag();
+		PoolEntry a = entry(1);
+		bag.add(a);
+		Assert.assertSame(a, bag.await(WAIT, () -> true));
+		Assert.assertEquals(0, bag.size());
+	}
+}
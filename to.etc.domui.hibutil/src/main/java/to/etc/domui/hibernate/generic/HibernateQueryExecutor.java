@@ -118,6 +118,70 @@ public class HibernateQueryExecutor implements IQueryExecutor<BuggyHibernateBase
 		return resl;
 	}
 
+	/**
+	 * Scrolls through the result with a forward-only cursor. To keep memory use constant the loaded
+	 * instances are released from the session: if the session was empty when the scroll started it
+	 * is cleared (never flushed) every {@link #getClearInterval(int)} rows; otherwise every row is evicted
+	 * after it was visited, so that instances that were already loaded stay attached.
+	 */
+	@Override
+	public <T> int visit(BuggyHibernateBaseContext root, QCriteria<T> q, int fetchSize, IQRowVisitor<T> visitor) throws Exception {
+		Criteria crit = GenericHibernateHandler.createCriteria(root.getSession(), q);
+		return scroll(root.getSession(), crit, fetchSize, sr -> (T) sr.get(0), visitor);
+	}
+
+	@Override
+	public int visit(BuggyHibernateBaseContext root, QSelection< ? > sel, int fetchSize, IQRowVisitor<Object[]> visitor) throws Exception {
+		Criteria crit = GenericHibernateHandler.createCriteria(root.getSession(), sel);
+		return scroll(root.getSession(), crit, fetchSize, ScrollableResults::get, visitor);
+	}
+
+	private interface IRowGetter<T> {
+		T get(ScrollableResults sr) throws Exception;
+	}
+
+	private <T> int scroll(Session session, Criteria crit, int fetchSize, IRowGetter<T> getter, IQRowVisitor<T> visitor) throws Exception {
+		if(fetchSize > 0)
+			crit.setFetchSize(fetchSize);
+		crit.setReadOnly(true);
+		int clearInterval = getClearInterval(fetchSize);
+		boolean canClear = session.getStatistics().getEntityCount() == 0 && session.getStatistics().getCollectionCount() == 0;
+		ScrollableResults sr = crit.scroll(ScrollMode.FORWARD_ONLY);
+		try {
+			int count = 0;
+			while(sr.next()) {
+				count++;
+				T row = getter.get(sr);
+				if(!visitor.visit(row))
+					break;
+				if(canClear) {
+					if(count % clearInterval == 0)
+						session.clear();
+				} else if(row instanceof Object[]) {
+					for(Object o : (Object[]) row)
+						evict(session, o);
+				} else {
+					evict(session, row);
+				}
+			}
+			return count;
+		} finally {
+			sr.close();
+		}
+	}
+
+	static private void evict(Session session, Object o) {
+		if(null != o && session.contains(o))
+			session.evict(o);
+	}
+
+	/**
+	 * The #of rows after which the session is cleared while scrolling.
+	 */
+	protected int getClearInterval(int fetchSize) {
+		return fetchSize > 0 ? fetchSize : 100;
+	}
+
 	@Override
 	public void refresh(BuggyHibernateBaseContext root, Object o) throws Exception {
 		root.getSession().refresh(o);
@@ -105,6 +105,14 @@ public class TestRequestResponse implements IRequestResponse {
 		return m_testInfo.getUserAgent();
 	}
 
+	@Override
+	@Nullable
+	public String getRequestHeader(@Nonnull String name) {
+		if("user-agent".equalsIgnoreCase(name))
+			return m_testInfo.getUserAgent();
+		return null;
+	}
+
 	@Override
 	@Nonnull
 	public String getApplicationURL() {
@@ -193,6 +201,11 @@ public class TestRequestResponse implements IRequestResponse {
 		m_redirectURL = newUrl;
 	}
 
+	@Override
+	public void sendNotModified() throws Exception {
+		throw new IllegalStateException("Unsupported");
+	}
+
 	@Override
 	public void sendError(int httpErrorCode, @Nonnull String message) throws Exception {
 		setType(TestResponseType.ERROR);
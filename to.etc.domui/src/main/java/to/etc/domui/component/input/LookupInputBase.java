@@ -38,6 +38,8 @@ import to.etc.domui.component.tbl.ICellClicked;
 import to.etc.domui.component.tbl.IClickableRowRenderer;
 import to.etc.domui.component.tbl.IRowRenderer;
 import to.etc.domui.component.tbl.ITableModel;
+import to.etc.domui.component.tbl.ITruncateableDataModel;
+import to.etc.domui.component.tbl.SimpleListModel;
 import to.etc.domui.component2.lookupinput.DefaultLookupInputDialog;
 import to.etc.domui.dom.errors.IErrorMessageListener;
 import to.etc.domui.dom.errors.UIMessage;
@@ -57,16 +59,22 @@ import to.etc.webapp.query.QCriteria;
 import to.etc.webapp.query.QLiteral;
 import to.etc.webapp.query.QOperation;
 import to.etc.webapp.query.QPropertyComparison;
+import to.etc.webapp.query.QQueryTimeoutException;
 import to.etc.webapp.query.QRestrictor;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Pattern;
 
 abstract public class LookupInputBase<QT, OT> extends AbstractLookupInputBase<QT, OT> implements IControl<OT>, ITypedControl<OT>, IHasModifiedIndication {
 	public static final String MAGIC_ID_MARKER = "?id?";
 
+	/** The time a quick search result can be reused while typing, in milliseconds. */
+	static private final long KEYWORD_RESULT_REUSE_TIME = 30 * 1000;
+
 	@Nullable
 	private LookupForm<QT> m_lookupForm;
 
@@ -106,6 +114,73 @@ abstract public class LookupInputBase<QT, OT> extends AbstractLookupInputBase<QT
 
 	private int m_keyWordSearchPopupWidth;
 
+	/** The query timeout for quick search queries in seconds, or -1 to use the default timeout. */
+	private int m_keyWordSearchTimeout = -1;
+
+	/** When T (default) quick search results are reused while typing, see {@link #setKeyWordSearchCache(boolean)}. */
+	private boolean m_keyWordSearchCache = true;
+
+	/** The last quick search done while typing. */
+	@Nullable
+	private KeyWordResult<OT> m_lastKeyWordResult;
+
+	/**
+	 * The result of a quick search done while typing, kept to answer the next search if possible.
+	 */
+	static private final class KeyWordResult<T> {
+		/** The search string with wildcards replaced by %. */
+		@Nonnull
+		final private String m_searchString;
+
+		/** The string properties that were searched, or null if the result cannot be narrowed in memory. */
+		@Nullable
+		final private List<SearchPropertyMetaModel> m_properties;
+
+		@Nonnull
+		final private ITableModel<T> m_model;
+
+		/** T if the model is a filtered copy of an earlier complete result, so it is complete too. */
+		final private boolean m_narrowed;
+
+		final private long m_time;
+
+		KeyWordResult(@Nonnull String searchString, @Nullable List<SearchPropertyMetaModel> properties, @Nonnull ITableModel<T> model, boolean narrowed, long time) {
+			m_searchString = searchString;
+			m_properties = properties;
+			m_model = model;
+			m_narrowed = narrowed;
+			m_time = time;
+		}
+
+		@Nonnull
+		String getSearchString() {
+			return m_searchString;
+		}
+
+		@Nullable
+		List<SearchPropertyMetaModel> getProperties() {
+			return m_properties;
+		}
+
+		@Nonnull
+		ITableModel<T> getModel() {
+			return m_model;
+		}
+
+		long getTime() {
+			return m_time;
+		}
+
+		/**
+		 * T if the model holds all rows that matched, i.e. the query result was not truncated.
+		 */
+		boolean isComplete() {
+			if(m_narrowed)
+				return true;
+			return m_model instanceof ITruncateableDataModel && !((ITruncateableDataModel) m_model).isTruncated();
+		}
+	}
+
 	///**
 	// * SPECIAL QUIRK MODE, USUALLY YOU DO NOT NEED IT.
 	// * When T (default is F), it renders lookup input in a way that pop-up with search as you type results rolls down exceeding the boundaries of parent control.
@@ -253,7 +328,7 @@ abstract public class LookupInputBase<QT, OT> extends AbstractLookupInputBase<QT
 		ks.setResultsHintPopupRowRenderer(rr);
 
 		ks.setOnLookupTyping(component -> {
-			ITableModel<OT> keySearchModel = searchKeyWord(component.getKeySearchValue());
+			ITableModel<OT> keySearchModel = searchKeyWordWhileTyping(component.getKeySearchValue());
 			component.showResultsHintPopup(null);
 			if(keySearchModel == null) {
 				//in case of insufficient searchString data cancel search and return.
@@ -261,6 +336,14 @@ abstract public class LookupInputBase<QT, OT> extends AbstractLookupInputBase<QT
 				component.setFocus(); //focus must be set manually.
 				return;
 			}
+			try {
+				keySearchModel.getRows();
+			} catch(QQueryTimeoutException x) {
+				//-- Too slow to be of use while typing: show nothing.
+				m_lastKeyWordResult = null;
+				component.setResultsCount(-1);
+				return;
+			}
 			if(keySearchModel.getRows() == 1) {
 				//in case of single match select value.
 				handleSetValue(keySearchModel.getItems(0, 1).get(0));
@@ -274,6 +357,7 @@ abstract public class LookupInputBase<QT, OT> extends AbstractLookupInputBase<QT
 		});
 
 		ks.setOnShowResults(component -> {
+			clearKeyWordSearchCache();
 			ITableModel<OT> keySearchModel = searchKeyWord(component.getKeySearchValue());
 			component.showResultsHintPopup(null);
 			if(keySearchModel == null) {
@@ -308,6 +392,7 @@ abstract public class LookupInputBase<QT, OT> extends AbstractLookupInputBase<QT
 
 	@Override protected void clearKeySearch() {
 		m_keySearch = null;
+		clearKeyWordSearchCache();
 	}
 
 	/**
@@ -352,10 +437,131 @@ abstract public class LookupInputBase<QT, OT> extends AbstractLookupInputBase<QT
 			//in case of cancelled search by query manipulator return
 			return null;
 		}
+		if(m_keyWordSearchTimeout != -1)
+			searchQuery.setTimeout(m_keyWordSearchTimeout);
 
 		return createTableModel(searchQuery);
 	}
 
+	/**
+	 * Quick search for the typeahead popup. This reuses the previous result when the search string
+	 * did not change, and when the new search string extends the previous one and the previous result
+	 * was complete the new result is found by filtering the previous result in memory, without a query.
+	 */
+	@Nullable
+	private ITableModel<OT> searchKeyWordWhileTyping(@Nullable String searchString) throws Exception {
+		if(!m_keyWordSearchCache)
+			return searchKeyWord(searchString);
+		if(searchString == null || searchString.trim().length() == 0) {
+			m_lastKeyWordResult = null;
+			return null;
+		}
+		String pattern = DomUtil.nullChecked(searchString.replace("*", "%"));
+		long now = System.currentTimeMillis();
+		KeyWordResult<OT> last = m_lastKeyWordResult;
+		if(last != null && now - last.getTime() > KEYWORD_RESULT_REUSE_TIME)
+			last = null;
+		if(last != null && last.getSearchString().equals(pattern))
+			return last.getModel();
+
+		List<SearchPropertyMetaModel> properties = getNarrowableProperties(pattern);
+		if(last != null && properties != null && properties.equals(last.getProperties()) && pattern.startsWith(last.getSearchString()) && last.isComplete()) {
+			ITableModel<OT> model = narrowKeyWordResult(last.getModel(), properties, pattern);
+			m_lastKeyWordResult = new KeyWordResult<>(pattern, properties, model, true, last.getTime());
+			return model;
+		}
+
+		ITableModel<OT> model = searchKeyWord(searchString);
+		m_lastKeyWordResult = model == null ? null : new KeyWordResult<>(pattern, properties, model, false, now);
+		return model;
+	}
+
+	/**
+	 * Return the string properties that a standard quick search on the pattern uses, if its result
+	 * can be narrowed in memory. This returns null if the search uses a custom query factory, if the
+	 * query and result types differ, or if a property is searched on with an exact match, because a
+	 * longer search string does not give a subset of the results then. It also returns null if a property
+	 * is searched with a case-sensitive like: whether that is case-sensitive depends on the database's
+	 * collation, so only the database can filter it.
+	 */
+	@Nullable
+	private List<SearchPropertyMetaModel> getNarrowableProperties(@Nonnull String pattern) {
+		if(getKeyWordSearchHandler() != null || getQueryClass() != getOutputClass())
+			return null;
+		if(pattern.startsWith("$$") || getMagicString(pattern) != null)
+			return null;
+		List<SearchPropertyMetaModel> kwl = getKeywordLookupPropertyList();
+		List<SearchPropertyMetaModel> spml = kwl == null ? getQueryMetaModel().getKeyWordSearchProperties() : kwl;
+		List<SearchPropertyMetaModel> res = new ArrayList<>();
+		for(SearchPropertyMetaModel spm : spml) {
+			if(spm.getMinLength() > pattern.length())
+				continue;
+			String name = spm.getPropertyName();
+			if(null == name)
+				return null;
+			PropertyMetaModel< ? > pmm = getQueryMetaModel().findProperty(name);
+			if(null == pmm || DomUtil.isIntegerType(pmm.getActualType()) || pmm.getActualType() == BigDecimal.class)
+				return null;
+			if(pmm.getActualType().isAssignableFrom(String.class)) {
+				if(!spm.isIgnoreCase())
+					return null;
+				res.add(spm);
+			}
+		}
+		return res.isEmpty() ? null : res;
+	}
+
+	/**
+	 * Filter a complete earlier result in memory using the same ilike conditions the query would use.
+	 */
+	@Nonnull
+	private ITableModel<OT> narrowKeyWordResult(@Nonnull ITableModel<OT> model, @Nonnull List<SearchPropertyMetaModel> properties, @Nonnull String pattern) throws Exception {
+		List<PropertyMetaModel< ? >> pmml = new ArrayList<>(properties.size());
+		List<Pattern> matchers = new ArrayList<>(properties.size());
+		for(SearchPropertyMetaModel spm : properties) {
+			pmml.add(DomUtil.nullChecked(getQueryMetaModel().findProperty(DomUtil.nullChecked(spm.getPropertyName()))));
+			matchers.add(ilikeToPattern(pattern + "%"));
+		}
+
+		List<OT> res = new ArrayList<>();
+		for(OT item : model.getItems(0, model.getRows())) {
+			for(int i = 0; i < pmml.size(); i++) {
+				Object value = pmml.get(i).getValue(item);
+				if(value instanceof String && matchers.get(i).matcher((String) value).matches()) {
+					res.add(item);
+					break;
+				}
+			}
+		}
+		return new SimpleListModel<>(res);
+	}
+
+	@Nonnull
+	static private Pattern ilikeToPattern(@Nonnull String like) {
+		StringBuilder sb = new StringBuilder(like.length() + 16);
+		int start = 0;
+		for(int i = 0; i < like.length(); i++) {
+			char c = like.charAt(i);
+			if(c == '%' || c == '_') {
+				if(i > start)
+					sb.append(Pattern.quote(like.substring(start, i)));
+				sb.append(c == '%' ? ".*" : ".");
+				start = i + 1;
+			}
+		}
+		if(start < like.length())
+			sb.append(Pattern.quote(like.substring(start)));
+		return Pattern.compile(sb.toString(), Pattern.DOTALL | Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+	}
+
+	/**
+	 * Forget the quick search result kept while typing, so that the next quick search queries the database.
+	 * Call this when something changes that influences the search, like the base query.
+	 */
+	public void clearKeyWordSearchCache() {
+		m_lastKeyWordResult = null;
+	}
+
 	/**
 	 * Extracting object id from magic string.
 	 * @param searchString
@@ -761,6 +967,38 @@ abstract public class LookupInputBase<QT, OT> extends AbstractLookupInputBase<QT
 
 	public void setKeyWordSearchHandler(@Nullable IKeyWordSearchQueryFactory<QT> keyWordSearchManipulator) {
 		m_keyWordSearchHandler = keyWordSearchManipulator;
+		clearKeyWordSearchCache();
+	}
+
+	/**
+	 * The query timeout for quick search queries, in seconds. -1 (default) uses the default timeout of the data context.
+	 */
+	public int getKeyWordSearchTimeout() {
+		return m_keyWordSearchTimeout;
+	}
+
+	/**
+	 * Set a query timeout, in seconds, for quick search queries. When a query takes longer while typing
+	 * no results are shown instead of waiting for it. Use -1 for the default timeout, 0 for no timeout.
+	 */
+	public void setKeyWordSearchTimeout(int keyWordSearchTimeout) {
+		m_keyWordSearchTimeout = keyWordSearchTimeout;
+	}
+
+	public boolean isKeyWordSearchCache() {
+		return m_keyWordSearchCache;
+	}
+
+	/**
+	 * When T (the default) the quick search results while typing are kept for a short time. When the
+	 * search string is the same the result is reused, and when it extends the previous search string and
+	 * that result was not truncated the previous result is filtered in memory instead of queried again.
+	 * Filtering in memory is only done when all searched string properties are case-insensitive (ilike).
+	 */
+	public void setKeyWordSearchCache(boolean keyWordSearchCache) {
+		m_keyWordSearchCache = keyWordSearchCache;
+		if(!keyWordSearchCache)
+			clearKeyWordSearchCache();
 	}
 
 	/**
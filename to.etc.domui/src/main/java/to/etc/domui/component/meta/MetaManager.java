@@ -31,6 +31,7 @@ import to.etc.domui.component.meta.impl.MetaModelException;
 import to.etc.domui.component.meta.impl.SearchPropertyMetaModelImpl;
 import to.etc.domui.component.meta.init.IClassMetaModelFactory;
 import to.etc.domui.component.meta.init.MetaInitializer;
+import to.etc.domui.component.meta.init.MetaPrecomputer;
 import to.etc.domui.converter.CompoundComparator;
 import to.etc.domui.converter.IValueValidator;
 import to.etc.domui.converter.MaxMinValidator;
@@ -94,6 +95,24 @@ final public class MetaManager {
 		MetaInitializer.registerModel(model);
 	}
 
+	/**
+	 * Register a package containing entity classes, so that {@link #precomputeClassMeta(int)} can
+	 * build their metamodels at startup.
+	 */
+	static public void registerEntityPackage(@Nonnull String packageName) {
+		MetaInitializer.registerEntityPackage(packageName);
+	}
+
+	/**
+	 * Build the metamodels for all entities in the registered entity packages using multiple threads,
+	 * so that the first users do not have to wait for it. Call this at startup after the packages have
+	 * been registered; it returns the #of classes that failed.
+	 */
+	static public int precomputeClassMeta(int threads) throws Exception {
+		ClassLoader loader = Thread.currentThread().getContextClassLoader();
+		return new MetaPrecomputer(loader == null ? MetaManager.class.getClassLoader() : loader).precompute(threads);
+	}
+
 	@Nonnull
 	static private synchronized List<IClassMetaModelFactory> getList() {
 		return MetaInitializer.getList();
@@ -887,7 +906,7 @@ final public class MetaManager {
 	 * @return
 	 */
 	@Nullable
-	static synchronized public ClassMetaModel findClassByTable(@Nonnull String tableName) {
+	static public ClassMetaModel findClassByTable(@Nonnull String tableName) {
 		for(ClassMetaModel cmm : MetaInitializer.getAllMetaClasses()) {
 			if(tableName.equalsIgnoreCase(cmm.getTableName()))
 				return cmm;
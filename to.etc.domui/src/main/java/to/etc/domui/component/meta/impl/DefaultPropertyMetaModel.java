@@ -151,26 +151,12 @@ public class DefaultPropertyMetaModel<T> extends BasicPropertyMetaModel<T> imple
 	public void setValue(Object target, T value) throws Exception {
 		if(target == null)
 			throw new IllegalStateException("The 'target' object is null");
-		Method setter = m_descriptor.getSetter();
-		if(setter == null)
+		if(m_descriptor.getSetter() == null)
 			throw new IllegalAccessException("The property " + this + " is read-only.");
 		try {
-			setter.setAccessible(true);
-			setter.invoke(target, value);
-		} catch(InvocationTargetException itx) {
-			Throwable c = itx.getCause();
-//			System.err.println("(in calling " + setter + " with input object " + target + " and value " + value + ")");
-			if(c instanceof Exception) {
-				throw (Exception) c;
-			} else if(c instanceof Error)
-				throw (Error) c;
-			else
-				throw itx;
-		} catch(IllegalArgumentException x) {
+			m_descriptor.setValue(target, value);
+		} catch(PropertyAccessorFactory.InvalidValueException x) {
 			throw new PropertyValueInvalidException(value, target, this);
-		} catch(Exception x) {
-//			System.err.println("(in calling " + setter + " with input object " + target + " and value " + value + ")");
-			throw x;
 		}
 	}
 
@@ -189,18 +175,8 @@ public class DefaultPropertyMetaModel<T> extends BasicPropertyMetaModel<T> imple
 		if(in == null)
 			throw new IllegalStateException("The 'input' object is null (getter method=" + m_descriptor.getGetter() + ")");
 		try {
-			m_descriptor.getGetter().setAccessible(true);
-			return (T) m_descriptor.getGetter().invoke(in);
-		} catch(InvocationTargetException itx) {
-//			System.err.println(itx + " (in calling " + m_descriptor.getGetter() + " with input object " + in + ")");
-			Throwable c = itx.getCause();
-			if(c instanceof Exception)
-				throw (Exception) c;
-			else if(c instanceof Error)
-				throw (Error) c;
-			else
-				throw itx;
-		} catch(Exception x) {
+			return (T) m_descriptor.getValue(in);
+		} catch(IllegalArgumentException x) {
 			try {
 				System.err.println(x + " in calling " + m_descriptor.getGetter() + " with input object " + in);
 			} catch(Exception xx) {}
@@ -24,6 +24,9 @@ final public class MetaInitContext {
 	/** The list of class objects under construction. */
 	private Map<Object, ClassInfo> m_constructionMap = new HashMap<>();
 
+	/** Models that are complete but not yet published in the class map, because others they refer to might not be. */
+	private Map<Object, ClassMetaModel> m_completedMap = new HashMap<>();
+
 	/** The list of classes that need their metadata constructed. */
 	private List<ClassAction> m_todoProviderClassList = new ArrayList<>();
 
@@ -142,6 +145,9 @@ final public class MetaInitContext {
 	public ClassMetaModel getModel(Object type) {
 		//-- Already known?
 		ClassMetaModel cmm = m_classMap.get(type);
+		if(null != cmm)
+			return cmm;
+		cmm = m_completedMap.get(type);
 		if(null != cmm)
 			return cmm;
 
@@ -213,11 +219,22 @@ final public class MetaInitContext {
 				//-- All actions completed -> register class.
 				m_todoProviderClassList.remove(ci);			// Nothing to be done anymore
 				m_constructionMap.remove(ci.getType());		// No longer under construction.
-				m_classMap.put(ci.getType(), ci.getModel());// Store in final classmap
+				m_completedMap.put(ci.getType(), ci.getModel());
 			}
 		}
 	}
 
+	/**
+	 * Called when the initialization loop has finished: all models are complete, so they can
+	 * be stored in the class map where other threads can see them.
+	 */
+	void publish() {
+		if(m_todoProviderClassList.size() > 0 || m_constructionMap.size() > 0)
+			throw new IllegalStateException("Publishing metamodels while initialization is not complete");
+		m_classMap.putAll(m_completedMap);
+		m_completedMap.clear();
+	}
+
 	private boolean handleClassProvider(IClassMetaProvider<ClassMetaModel> provider, ClassInfo ci) throws Exception {
 		try {
 			if(provider.getModelClass().isAssignableFrom(ci.getModel().getClass())) {
@@ -14,10 +14,10 @@ import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
 /**
@@ -28,9 +28,14 @@ public final class MetaInitializer {
 	static private List<IClassMetaModelFactory> m_modelList = new ArrayList<IClassMetaModelFactory>();
 
 	/**
-	 * Map indexed by Class<?> or IMetaClass returning the {@link ClassMetaModel} for that instance.
+	 * Map indexed by Class<?> or IMetaClass returning the {@link ClassMetaModel} for that instance. Models
+	 * are only added after their initialization has completed, so it is read without locking. It is only
+	 * ever changed while holding the lock on MetaManager.class.
 	 */
-	static private Map<Object, ClassMetaModel> m_classMap = new HashMap<>();
+	static private final Map<Object, ClassMetaModel> m_classMap = new ConcurrentHashMap<>();
+
+	/** The packages containing entity classes, for {@link MetaPrecomputer}. */
+	static private List<String> m_entityPackageList = Collections.emptyList();
 
 	/** While a metamodel is being initialized this keeps track of recursive init's */
 	final static private Stack<Object> m_initStack = new Stack<Object>();
@@ -122,15 +127,42 @@ public final class MetaInitializer {
 	 * hence only ever called while developing never in
 	 * production. <b>INTERNAL USE ONLY, DO NOT USE</b>
 	 */
-	public synchronized static void internalClear() {
-		m_classMap.clear();
+	public static void internalClear() {
+		synchronized(MetaManager.class) {
+			m_classMap.clear();
+		}
+	}
+
+	/**
+	 * Register a package whose classes (and those of its subpackages) are entities, so that
+	 * {@link MetaPrecomputer} can build their metamodels at startup.
+	 */
+	static public synchronized void registerEntityPackage(@Nonnull String packageName) {
+		if(m_entityPackageList.contains(packageName))
+			return;
+		List<String> list = new ArrayList<>(m_entityPackageList);
+		list.add(packageName);
+		m_entityPackageList = Collections.unmodifiableList(list);
 	}
 
+	@Nonnull
+	static public synchronized List<String> getEntityPackageList() {
+		return m_entityPackageList;
+	}
+
+	/**
+	 * Return the metamodel for a class or IMetaClass, creating it if needed. Models that are known are
+	 * returned without locking; creating a model happens while holding the lock on MetaManager.class.
+	 */
 	@Nonnull
 	static public ClassMetaModel findAndInitialize(@Nonnull Object mc) {
+		ClassMetaModel cmm = m_classMap.get(mc);
+		if(cmm != null)
+			return cmm;
+
 		//-- We need some factory to create it.
 		synchronized(MetaManager.class) {
-			ClassMetaModel cmm = m_classMap.get(mc);
+			cmm = m_classMap.get(mc);						// Another thread might have created it while we waited
 			if(cmm != null)
 				return cmm;
 
@@ -148,6 +180,7 @@ public final class MetaInitializer {
 		try {
 			context.getModel(mc);
 			context.initializationLoop();
+			context.publish();
 			//
 			////checkInitStack(mc, "primary initialization");      	// Signal any ordering problems
 			//IClassMetaModelFactory best = findModelFactory(mc);
@@ -260,7 +293,7 @@ public final class MetaInitializer {
 	 *
 	 * @return
 	 */
-	public static synchronized List<ClassMetaModel> getAllMetaClasses() {
+	public static List<ClassMetaModel> getAllMetaClasses() {
 		return new ArrayList<>(m_classMap.values());
 	}
 
@@ -0,0 +1,171 @@
+package to.etc.domui.component.meta.init;
+
+import to.etc.domui.component.meta.MetaManager;
+import to.etc.util.ClassUtil;
+import to.etc.util.StringTool;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.lang.annotation.Annotation;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Builds the metamodels for all entity classes in the packages registered with
+ * {@link MetaInitializer#registerEntityPackage(String)}, so that the first user of an entity
+ * does not have to wait for it. The classes are found on the classpath (directories and jars)
+ * and are loaded and reflected over by multiple threads. Only the last step, creating the model
+ * itself, is serialized by the lock on MetaManager.class, because models refer to each other.
+ *
+ * <p>A class is an entity if it is annotated with javax.persistence.Entity, Embeddable or Table.</p>
+ */
+final public class MetaPrecomputer {
+	@Nonnull
+	final private ClassLoader m_loader;
+
+	public MetaPrecomputer(@Nonnull ClassLoader loader) {
+		m_loader = loader;
+	}
+
+	/**
+	 * Build the metamodels for all entities in the registered packages using the specified
+	 * number of threads, and return the #of entities that failed.
+	 */
+	public int precompute(int threads) throws Exception {
+		long ts = System.nanoTime();
+		List<String> nameList = new ArrayList<>();
+		for(String packageName : MetaInitializer.getEntityPackageList())
+			nameList.addAll(findClassNames(packageName));
+		if(nameList.isEmpty())
+			return 0;
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, nameList.size())), r -> {
+			Thread t = new Thread(r, "meta-precompute");
+			t.setDaemon(true);
+			return t;
+		});
+		List<Future<Boolean>> list = new ArrayList<>();
+		try {
+			for(String name : nameList) {
+				list.add(executor.submit(() -> precompute(name)));
+			}
+
+			int failed = 0;
+			int count = 0;
+			for(int i = 0; i < list.size(); i++) {
+				try {
+					if(list.get(i).get().booleanValue())
+						count++;
+				} catch(ExecutionException x) {
+					failed++;
+					System.err.println("meta: precomputing the metamodel for " + nameList.get(i) + " failed: " + x.getCause());
+				}
+			}
+			System.out.println("meta: precomputed " + count + " entity metamodels from " + nameList.size() + " classes in " + StringTool.strNanoTime(System.nanoTime() - ts));
+			return failed;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Load the class and, if it is an entity, create its metamodel. Loading the class, reading its
+	 * annotations and its properties happens outside any lock; the JVM caches the reflection data
+	 * so that the model initialization needs less time inside the lock.
+	 */
+	private boolean precompute(@Nonnull String className) throws Exception {
+		Class<?> clz = Class.forName(className, false, m_loader);
+		if(!isEntity(clz))
+			return false;
+		ClassUtil.calculateProperties(clz, false).forEach(pi -> pi.getGetter().getAnnotations());
+		MetaManager.findClassMeta(clz);
+		return true;
+	}
+
+	static private boolean isEntity(@Nonnull Class<?> clz) {
+		if(clz.isAnonymousClass() || clz.isSynthetic())
+			return false;
+		for(Annotation an : clz.getAnnotations()) {
+			switch(an.annotationType().getName()) {
+				case "javax.persistence.Entity":
+				case "javax.persistence.Embeddable":
+				case "javax.persistence.Table":
+					return true;
+			}
+		}
+		return false;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Finding the classes in a package.					*/
+	/*--------------------------------------------------------------*/
+	/**
+	 * Find the names of all classes in the package and its subpackages, in all classpath
+	 * directories and jars that contain the package.
+	 */
+	@Nonnull
+	private Set<String> findClassNames(@Nonnull String packageName) throws Exception {
+		String path = packageName.replace('.', '/');
+		Set<String> res = new TreeSet<>();
+		Enumeration<URL> en = m_loader.getResources(path);
+		while(en.hasMoreElements()) {
+			URL url = en.nextElement();
+			if("file".equals(url.getProtocol())) {
+				scanDirectory(res, new File(URLDecoder.decode(url.getFile(), "UTF-8")), packageName);
+			} else {
+				URLConnection conn = url.openConnection();
+				if(conn instanceof JarURLConnection) {
+					conn.setUseCaches(false);
+					try(JarFile jar = ((JarURLConnection) conn).getJarFile()) {
+						scanJar(res, jar, path + "/");
+					}
+				} else {
+					System.err.println("meta: cannot scan " + url + " for entity classes");
+				}
+			}
+		}
+		return res;
+	}
+
+	static private void scanDirectory(@Nonnull Set<String> res, @Nonnull File dir, @Nonnull String packageName) {
+		File[] ar = dir.listFiles();
+		if(null == ar)
+			return;
+		for(File f : ar) {
+			String name = f.getName();
+			if(f.isDirectory())
+				scanDirectory(res, f, packageName + "." + name);
+			else
+				addClassName(res, packageName + "." + name);
+		}
+	}
+
+	static private void scanJar(@Nonnull Set<String> res, @Nonnull JarFile jar, @Nonnull String prefix) {
+		Enumeration<JarEntry> en = jar.entries();
+		while(en.hasMoreElements()) {
+			JarEntry je = en.nextElement();
+			String name = je.getName();
+			if(!je.isDirectory() && name.startsWith(prefix))
+				addClassName(res, name.replace('/', '.'));
+		}
+	}
+
+	static private void addClassName(@Nonnull Set<String> res, @Nonnull String fileName) {
+		if(!fileName.endsWith(".class") || fileName.endsWith("package-info.class"))
+			return;
+		res.add(fileName.substring(0, fileName.length() - 6));
+	}
+}
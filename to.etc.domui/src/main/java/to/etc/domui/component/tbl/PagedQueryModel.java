@@ -0,0 +1,330 @@
+/*
+ * DomUI Java User Interface library
+ * Copyright (c) 2010 by Frits Jalvingh, Itris B.V.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * See the "sponsors" file for a list of supporters.
+ *
+ * The latest version of DomUI and related code, support and documentation
+ * can be found at http://www.domui.org/
+ * The contact for the project is Frits Jalvingh <jal@etc.to>.
+ */
+package to.etc.domui.component.tbl;
+
+import java.util.*;
+
+import javax.annotation.*;
+
+import org.slf4j.*;
+
+import to.etc.domui.component.meta.*;
+import to.etc.domui.dom.html.*;
+import to.etc.domui.util.*;
+import to.etc.util.*;
+import to.etc.webapp.query.*;
+
+/**
+ * A table model for a {@link QCriteria} query that never loads the whole result. Instead of
+ * fetching up to {@link ITableModel#DEFAULT_MAX_SIZE} rows into memory like {@link SimpleSearchModel}
+ * this model:
+ * <ul>
+ *	<li>gets the #of rows with a separate count query;</li>
+ *	<li>fetches the rows in blocks of {@link #getBlockSize()} rows using the query's start and limit,
+ *		only when a block is needed;</li>
+ *	<li>keeps at most {@link #getMaxCachedBlocks()} blocks, dropping the least recently used one;</li>
+ *	<li>sorts in the database, by replacing the order of the block queries when {@link #sortOn(String, boolean)} is called.</li>
+ * </ul>
+ * Because the result is not truncated the model can page through all rows of the query. The rows
+ * are queried in separate database calls, so if the data changes between them rows can shift
+ * between blocks; call {@link #refresh()} to start over.
+ */
+public class PagedQueryModel<T> extends TableModelBase<T> implements ISortableTableModel {
+	private static final Logger LOG = LoggerFactory.getLogger(PagedQueryModel.class);
+
+	/** Thingy to get a database session from, if needed, */
+	@Nullable
+	final private QDataContextFactory m_sessionSource;
+
+	@Nullable
+	final private NodeBase m_contextSourceNode;
+
+	@Nonnull
+	final private QCriteria<T> m_query;
+
+	private int m_blockSize = 100;
+
+	private int m_maxCachedBlocks = 5;
+
+	/** The #of rows in the result, or -1 if not yet counted. */
+	private int m_rowCount = -1;
+
+	/** The cached blocks by block number, in least-recently-used order. */
+	@Nonnull
+	final private LinkedHashMap<Integer, List<T>> m_blockMap = new LinkedHashMap<>(16, 0.75f, true);
+
+	/** If we sort on property name this is the property name to sort on. */
+	@Nullable
+	private String m_sort;
+
+	/** If sorting, this is T if the sort should be descending. */
+	private boolean m_desc;
+
+	public PagedQueryModel(@Nonnull QDataContextFactory ss, @Nonnull QCriteria<T> qc) {
+		m_query = qc;
+		m_sessionSource = ss;
+		m_contextSourceNode = null;
+	}
+
+	public PagedQueryModel(@Nonnull NodeBase contextSourceNode, @Nonnull QCriteria<T> qc) {
+		m_query = qc;
+		m_contextSourceNode = contextSourceNode;
+		m_sessionSource = null;
+	}
+
+	@Nonnull
+	public QCriteria<T> getQuery() {
+		return m_query;
+	}
+
+	/**
+	 * The #of rows fetched in a single query. Defaults to 100.
+	 */
+	public int getBlockSize() {
+		return m_blockSize;
+	}
+
+	public void setBlockSize(int blockSize) {
+		if(blockSize <= 0)
+			throw new IllegalArgumentException("Block size must be > 0");
+		if(m_blockSize == blockSize)
+			return;
+		m_blockSize = blockSize;
+		m_blockMap.clear();
+	}
+
+	/**
+	 * The max #of blocks kept in memory. Defaults to 5.
+	 */
+	public int getMaxCachedBlocks() {
+		return m_maxCachedBlocks;
+	}
+
+	public void setMaxCachedBlocks(int maxCachedBlocks) {
+		if(maxCachedBlocks <= 0)
+			throw new IllegalArgumentException("The max #of cached blocks must be > 0");
+		m_maxCachedBlocks = maxCachedBlocks;
+		trimCache();
+	}
+
+	/**
+	 * Allocate and return a datacontext.
+	 */
+	@Nonnull
+	private QDataContext getQueryContext() throws Exception {
+		if(m_sessionSource != null) {
+			return m_sessionSource.getDataContext(); // Create/get session
+		} else if(m_contextSourceNode != null) {
+			return m_contextSourceNode.getSharedContext();
+		}
+		throw new IllegalStateException("No sessionSource and no contextSourceNode present - I do not know how to allocate a QDataContext");
+	}
+
+	private void closeContext(@Nonnull QDataContext dc) {
+		if(m_sessionSource != null) {
+			try {
+				dc.close();
+			} catch(Exception x) {}
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	ITableModel implementation.							*/
+	/*--------------------------------------------------------------*/
+	/**
+	 * Returns the #of rows in the query result, using a count query the first time.
+	 */
+	@Override
+	public int getRows() throws Exception {
+		if(m_rowCount < 0) {
+			QDataContext dc = getQueryContext();
+			try {
+				m_rowCount = queryCount(dc, m_query);
+			} finally {
+				closeContext(dc);
+			}
+		}
+		return m_rowCount;
+	}
+
+	/**
+	 * Count the #of rows that the query returns, taking its start and limit into account. The default
+	 * implementation counts the primary key of the queried type using the query's restrictions; override
+	 * when the type has no primary key.
+	 */
+	protected int queryCount(@Nonnull QDataContext dc, @Nonnull QCriteria<T> query) throws Exception {
+		Class<T> baseClass = query.getBaseClass();
+		if(null == baseClass)
+			throw new IllegalStateException("Cannot count a query without a base class; override queryCount()");
+		PropertyMetaModel<?> pk = MetaManager.findClassMeta(baseClass).getPrimaryKey();
+		if(null == pk)
+			throw new IllegalStateException("Cannot count " + baseClass.getName() + ": it has no primary key; override queryCount()");
+		return QQueryUtils.queryResultCount(dc, query, pk.getName());
+	}
+
+	@Nonnull
+	@Override
+	public List<T> getItems(int start, int end) throws Exception {
+		int rows = getRows();
+		if(start < 0)
+			start = 0;
+		if(end > rows)
+			end = rows;
+		if(end <= start)
+			return Collections.EMPTY_LIST;
+
+		int blockSize = m_blockSize;
+		int firstBlock = start / blockSize;
+		int lastBlock = (end - 1) / blockSize;
+		if(firstBlock == lastBlock) {
+			List<T> block = getBlock(firstBlock);
+			int base = firstBlock * blockSize;
+			int bend = Math.min(end - base, block.size());
+			if(start - base >= bend)
+				return Collections.EMPTY_LIST;
+			return block.subList(start - base, bend);
+		}
+
+		List<T> res = new ArrayList<T>(end - start);
+		for(int bn = firstBlock; bn <= lastBlock; bn++) {
+			List<T> block = getBlock(bn);
+			int base = bn * blockSize;
+			int from = Math.max(start - base, 0);
+			int to = Math.min(end - base, block.size());
+			for(int i = from; i < to; i++)
+				res.add(block.get(i));
+		}
+		return res;
+	}
+
+	@Override
+	protected T getItem(int ix) throws Exception {
+		List<T> block = getBlock(ix / m_blockSize);
+		return block.get(ix % m_blockSize);
+	}
+
+	/**
+	 * Get a block from the cache, or query it when it is not there.
+	 */
+	@Nonnull
+	private List<T> getBlock(int blockNumber) throws Exception {
+		Integer key = Integer.valueOf(blockNumber);
+		List<T> block = m_blockMap.get(key);
+		if(null == block) {
+			block = queryBlock(blockNumber * m_blockSize, m_blockSize);
+			m_blockMap.put(key, block);
+			trimCache();
+		}
+		return block;
+	}
+
+	private void trimCache() {
+		Iterator<Integer> it = m_blockMap.keySet().iterator();
+		while(m_blockMap.size() > m_maxCachedBlocks && it.hasNext()) {
+			it.next();
+			it.remove();
+		}
+	}
+
+	/**
+	 * Query a single block of rows, starting at the specified row within the query's result. This
+	 * queries a copy of the criteria, so that the model's query itself is never changed.
+	 */
+	@Nonnull
+	private List<T> queryBlock(int start, int count) throws Exception {
+		long ts = System.nanoTime();
+		QCriteria<T> qc = m_query.copyForQuery();
+		String sort = m_sort;
+		if(null != sort) {
+			qc.getOrder().clear();
+			if(m_desc)
+				qc.descending(sort);
+			else
+				qc.ascending(sort);
+		}
+		int limit = m_query.getLimit();
+		if(limit > 0 && start + count > limit)
+			count = limit - start;
+		qc.start(Math.max(m_query.getStart(), 0) + start);
+		qc.limit(count);
+		QDataContext dc = getQueryContext();
+		try {
+			List<T> res = dc.query(qc);
+			if(LOG.isDebugEnabled())
+				LOG.debug("db: paged query for rows " + start + ".." + (start + res.size()) + " took " + StringTool.strNanoTime(System.nanoTime() - ts));
+			return res;
+		} finally {
+			closeContext(dc);
+		}
+	}
+
+	/**
+	 * Discard the row count and all cached rows, so that they are queried again when needed.
+	 */
+	public void clear() {
+		m_rowCount = -1;
+		m_blockMap.clear();
+	}
+
+	/**
+	 * Discards the cached result, and tells all listeners that the model changed.
+	 */
+	@Override
+	public void refresh() {
+		clear();
+		try {
+			fireModelChanged();
+		} catch(Exception x) {
+			throw WrappedException.wrap(x);
+		}
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	SortableTableModel implementation.					*/
+	/*--------------------------------------------------------------*/
+	/**
+	 * Sort on the specified property, in the database. This only drops the cached rows; the count remains valid.
+	 */
+	@Override
+	public void sortOn(String key, boolean descending) throws Exception {
+		if(DomUtil.isEqual(key, m_sort) && descending == m_desc) // Nothing changed, get lost.
+			return;
+		m_blockMap.clear();
+		m_desc = descending;
+		m_sort = key;
+		fireModelChanged();
+	}
+
+	@Override
+	@Nullable
+	public String getSortKey() {
+		return m_sort;
+	}
+
+	@Override
+	public boolean isSortDescending() {
+		return m_desc;
+	}
+}
@@ -47,6 +47,23 @@ final public class ScrollableDataTable<T> extends SelectableTabularComponent<T>
 
 	private boolean m_allRendered;
 
+	/** When T only a sliding window of rows is rendered, see {@link #setVirtualScrolling(boolean)}. */
+	private boolean m_virtualScrolling;
+
+	/** The estimated height of a row in pixels, used to size the spacer rows in virtual scrolling mode. */
+	private int m_rowHeight = 24;
+
+	/** The model index of the first rendered row; always 0 when not in virtual scrolling mode. */
+	private int m_windowStart;
+
+	/** In virtual scrolling mode, the row taking the space of all model rows before the rendered window. */
+	@Nullable
+	private TR m_topSpacer;
+
+	/** In virtual scrolling mode, the row taking the space of all model rows after the rendered window. */
+	@Nullable
+	private TR m_bottomSpacer;
+
 	@Nonnull
 	final private IClicked<TH> m_headerSelectClickHandler = new IClicked<TH>() {
 		@Override
@@ -90,6 +107,10 @@ final public class ScrollableDataTable<T> extends SelectableTabularComponent<T>
 		m_dataBody = null;
 		m_errorDiv = null;
 		m_allRendered = false;
+		m_topSpacer = null;
+		m_bottomSpacer = null;
+		m_windowStart = 0;
+		m_visibleItemList.clear();
 		addCssClass("ui-dt");
 		setOverflow(Overflow.AUTO);
 		m_nextIndexToLoad = 0;
@@ -115,11 +136,17 @@ final public class ScrollableDataTable<T> extends SelectableTabularComponent<T>
 		}
 
 		setResults();
-		loadMoreData();
+		if(m_virtualScrolling)
+			moveWindow(0, 0, true);
+		else
+			loadMoreData();
 		if(isDisableClipboardSelection())
 			appendCreateJS(JavascriptUtil.disableSelection(this)); // Needed to prevent ctrl+click in IE doing clipboard-select, because preventDefault does not work there of course.
 		if(m_redrawn) {
 			appendJavascript("WebUI.scrollableTableReset('" + getActualID() + "','" + tbl().getActualID() + "');");
+		} else if(m_virtualScrolling) {
+			appendCreateJS("WebUI.initVirtualScrollableTable('" + getActualID() + "','" + tbl().getActualID() + "'," + m_rowHeight + ");");
+			m_redrawn = true;
 		} else {
 			appendCreateJS("WebUI.initScrollableTable('" + getActualID() + "','" + tbl().getActualID() + "');");
 			m_redrawn = true;
@@ -176,6 +203,15 @@ final public class ScrollableDataTable<T> extends SelectableTabularComponent<T>
 	private void rerender() throws Exception {
 		if(! isBuilt() || m_dataBody == null)
 			return;
+		if(m_virtualScrolling) {
+			if(getModel().getRows() == 0) {
+				setNoResults();
+				return;
+			}
+			moveWindow(0, 0, true);
+			appendJavascript("WebUI.scrollableTableReset('" + getActualID() + "','" + tbl().getActualID() + "');");
+			return;
+		}
 		m_nextIndexToLoad = 0;
 		m_dataBody.removeAllChildren();
 		m_allRendered = false;
@@ -196,6 +232,188 @@ final public class ScrollableDataTable<T> extends SelectableTabularComponent<T>
 		m_allRendered = true;
 	}
 
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Virtual scrolling.									*/
+	/*--------------------------------------------------------------*/
+	/**
+	 * Virtual scrolling: make the window of rendered rows cover the model rows starting at
+	 * first, with some rows before and after the visible ones. Rows that stay inside the window
+	 * are kept as-is; only the rows that enter the window are fetched from the model, and they
+	 * are rendered in the row nodes of the rows that left it.
+	 *
+	 * @param first		The index of the first visible row.
+	 * @param visible	The #of rows visible in the browser, or 0 if unknown.
+	 * @param reload	When T all rows are reloaded from the model.
+	 */
+	private void moveWindow(int first, int visible, boolean reload) throws Exception {
+		TBody body = m_dataBody;
+		if(null == body)
+			return;
+		int rows = getModel().getRows();
+		int size = Math.max(m_batchSize, visible * 3);
+		int start = first - (size - visible) / 2;
+		if(start + size > rows)
+			start = rows - size;
+		if(start < 0)
+			start = 0;
+		int end = Math.min(rows, start + size);
+
+		int oldStart = m_windowStart;
+		int oldEnd = oldStart + m_visibleItemList.size();
+		if(!reload && start == oldStart && end == oldEnd)
+			return;
+		List<TR> free = new ArrayList<TR>();
+		if(reload || end <= oldStart || start >= oldEnd) {
+			//-- No overlap with the current window: replace all rows.
+			detachRows(free, 0, m_visibleItemList.size());
+			m_windowStart = start;
+			insertRows(free, 0, start, end);
+		} else {
+			//-- Remove the rows that scrolled out of the window at the bottom and the top
+			if(end < oldEnd)
+				detachRows(free, end - oldStart, oldEnd - oldStart);
+			if(oldStart < start) {
+				detachRows(free, 0, start - oldStart);
+				m_windowStart = start;
+			}
+
+			//-- Add the rows that scrolled into it
+			if(start < oldStart) {
+				insertRows(free, 0, start, oldStart);
+				m_windowStart = start;
+			}
+			if(end > oldEnd)
+				insertRows(free, m_visibleItemList.size(), oldEnd, end);
+		}
+		m_nextIndexToLoad = m_windowStart + m_visibleItemList.size();
+		m_allRendered = true;
+		updateSpacers();
+		if(DEBUG)
+			System.out.println("virtual window " + m_windowStart + ".." + m_nextIndexToLoad + " of " + rows);
+	}
+
+	/**
+	 * Remove the rows between the local indexes from the window, and add their row nodes to the free list.
+	 */
+	private void detachRows(@Nonnull List<TR> free, int from, int to) {
+		for(int i = to; --i >= from;) {
+			TR tr = getRowNode(i);
+			tr.remove();
+			free.add(tr);
+			m_visibleItemList.remove(i);
+		}
+	}
+
+	/**
+	 * Render the model rows [six, eix&gt; at the local index, reusing the free row nodes if possible.
+	 */
+	private void insertRows(@Nonnull List<TR> free, int localIndex, int six, int eix) throws Exception {
+		TBody body = m_dataBody;
+		if(null == body)
+			throw new IllegalStateException("No data body?");
+		List<T> list = getModel().getItems(six, eix);
+		ColumnContainer<T> cc = new ColumnContainer<T>(this);
+		int ix = six;
+		int lix = localIndex;
+		for(T o : list) {
+			TR tr;
+			if(free.size() > 0) {
+				tr = free.remove(free.size() - 1);
+				tr.removeAllChildren();
+				tr.setCssClass(null);
+				tr.setClicked(null);
+			} else {
+				tr = new TR();
+			}
+			body.add(bodyIndex(lix), tr);
+			m_visibleItemList.add(lix, o);
+			tr.setTestRepeatID("r" + ix);
+			cc.setParent(tr);
+			renderRow(tr, cc, ix, o);
+			ix++;
+			lix++;
+		}
+	}
+
+	@Nonnull
+	private TR createSpacer() {
+		TR tr = new TR();
+		tr.setCssClass("ui-dt-vspacer");
+		TD td = new TD();
+		td.setPadding("0px");									// Theme independent: the height must be exact
+		td.setBorderStyle("none");
+		tr.add(td);
+		return tr;
+	}
+
+	/**
+	 * Size the spacer rows so that the scroll height of the table matches the model's row count, and
+	 * tell the browser which rows are rendered.
+	 */
+	private void updateSpacers() throws Exception {
+		TBody body = m_dataBody;
+		TR top = m_topSpacer;
+		TR bottom = m_bottomSpacer;
+		if(null == body || null == top || null == bottom)
+			return;
+		int rows = getModel().getRows();
+		sizeSpacer(top, m_windowStart);
+		sizeSpacer(bottom, rows - m_nextIndexToLoad);
+		body.setSpecialAttribute("vstart", Integer.toString(m_windowStart));
+		body.setSpecialAttribute("vend", Integer.toString(m_nextIndexToLoad));
+		body.setSpecialAttribute("vrows", Integer.toString(rows));
+	}
+
+	private void sizeSpacer(@Nonnull TR spacer, int rowCount) {
+		if(rowCount <= 0) {
+			spacer.setDisplay(DisplayType.NONE);
+			return;
+		}
+		spacer.setDisplay(null);
+		TD td = (TD) spacer.getChild(0);
+		td.setHeight(rowCount * m_rowHeight + "px");
+		td.setColspan(getColumnCount());
+	}
+
+	/**
+	 * Let the spacer rows span all columns, after the #of columns changed.
+	 */
+	private void updateSpacerColumns() {
+		TR top = m_topSpacer;
+		if(null != top)
+			((TD) top.getChild(0)).setColspan(getColumnCount());
+		TR bottom = m_bottomSpacer;
+		if(null != bottom)
+			((TD) bottom.getChild(0)).setColspan(getColumnCount());
+	}
+
+	/**
+	 * The #of columns in the table, as rendered in the header or else in the first row.
+	 */
+	private int getColumnCount() {
+		THead head = tbl().getHead();
+		if(null != head && head.getChildCount() > 0)
+			return Math.max(1, ((TR) head.getChild(0)).getChildCount());
+		if(m_visibleItemList.size() > 0)
+			return Math.max(1, getRowNode(0).getChildCount());
+		return 1;
+	}
+
+	/**
+	 * The index in the body of the row node at the specified index in the visible item list.
+	 */
+	private int bodyIndex(int lrow) {
+		return m_topSpacer == null ? lrow : lrow + 1;
+	}
+
+	@Nonnull
+	private TR getRowNode(int lrow) {
+		TBody body = m_dataBody;
+		if(null == body)
+			throw new IllegalStateException("No data body?");
+		return (TR) body.getChild(bodyIndex(lrow));
+	}
+
 	private List<T> getPageItems() throws Exception {
 		return getModel().getItems(0, m_nextIndexToLoad);
 	}
@@ -224,6 +442,12 @@ final public class ScrollableDataTable<T> extends SelectableTabularComponent<T>
 
 		m_dataBody = new TBody();
 		dataTable.add(m_dataBody);
+		if(m_virtualScrolling) {
+			TR top = m_topSpacer = createSpacer();
+			m_dataBody.add(top);
+			TR bottom = m_bottomSpacer = createSpacer();
+			m_dataBody.add(bottom);
+		}
 	}
 
 	/**
@@ -265,6 +489,10 @@ final public class ScrollableDataTable<T> extends SelectableTabularComponent<T>
 			dataTable.remove();
 			m_dataBody = null;
 			m_dataTable = null;
+			m_topSpacer = null;
+			m_bottomSpacer = null;
+			m_windowStart = 0;
+			m_nextIndexToLoad = 0;
 		}
 
 		m_errorDiv = new Div();
@@ -412,6 +640,7 @@ final public class ScrollableDataTable<T> extends SelectableTabularComponent<T>
 		}
 		if(itemindex == -1) 						// Ignore when thingy not found
 			return;
+		itemindex += m_windowStart;					// Model index
 
 		//-- Is a previous location set? If not: just toggle the current and retain the location.
 		if(m_lastSelectionLocation == -1) {
@@ -462,7 +691,7 @@ final public class ScrollableDataTable<T> extends SelectableTabularComponent<T>
 		ISelectionModel<T> sm = getSelectionModel();
 		if(sm == null)
 			throw new IllegalStateException("No selection model!?");
-		TR row = (TR) m_dataBody.getChild(lrow);
+		TR row = getRowNode(lrow);
 		THead head = tbl().getHead();
 		if(null == head)
 			throw new IllegalStateException("I've lost my head!?");
@@ -519,9 +748,9 @@ final public class ScrollableDataTable<T> extends SelectableTabularComponent<T>
 		th.setCssClass("ui-clickable");
 
 		//-- 2. Insert a checkbox in all rows.
-		for(int i = 0; i < m_dataBody.getChildCount(); i++) {
+		for(int i = 0; i < m_visibleItemList.size(); i++) {
 			final T instance = m_visibleItemList.get(i);
-			TR tr = (TR) m_dataBody.getChild(i);
+			TR tr = getRowNode(i);
 			TD td = new TD();
 			tr.add(0, td);
 
@@ -533,6 +762,7 @@ final public class ScrollableDataTable<T> extends SelectableTabularComponent<T>
 			cb.setChecked(false);
 		}
 
+		updateSpacerColumns();
 		fireSelectionUIChanged();
 	}
 
@@ -577,6 +807,11 @@ final public class ScrollableDataTable<T> extends SelectableTabularComponent<T>
 	public void rowAdded(@Nonnull ITableModel<T> model, int index, @Nonnull T value) throws Exception {
 		if(!isBuilt())
 			return;
+		if(m_virtualScrolling) {
+			setResults();
+			windowRowsChanged(index);
+			return;
+		}
 		calcIndices(); 								// Calculate visible nodes
 		if(DEBUG)
 			System.out.println("dd: add@ "+index+", eix="+ m_nextIndexToLoad);
@@ -625,6 +860,15 @@ final public class ScrollableDataTable<T> extends SelectableTabularComponent<T>
 	public void rowDeleted(@Nonnull ITableModel<T> model, int index, @Nonnull T value) throws Exception {
 		if(!isBuilt())
 			return;
+		if(m_virtualScrolling) {
+			if(getModel().getRows() == 0) {
+				setNoResults();
+				firePageChanged();
+				return;
+			}
+			windowRowsChanged(index);
+			return;
+		}
 
 		//-- We need the indices of the OLD data, so DO NOT RECALCULATE - the model size has changed.
 		if(DEBUG)
@@ -675,6 +919,19 @@ final public class ScrollableDataTable<T> extends SelectableTabularComponent<T>
 
 	private void calcIndices() {}
 
+	/**
+	 * Virtual scrolling: a row was added or deleted at the model index. If that is before the end
+	 * of the window the rows in the window have shifted, so reload them; otherwise only the size of
+	 * the bottom spacer changes.
+	 */
+	private void windowRowsChanged(int index) throws Exception {
+		if(index < m_nextIndexToLoad || m_visibleItemList.size() < m_batchSize)
+			moveWindow(m_windowStart, 0, true);
+		else
+			updateSpacers();
+		firePageChanged();
+	}
+
 	private void handleOddEven(int index) {
 		for(int ix = index; ix < m_dataBody.getChildCount(); ix++) {
 			TR tr = (TR) m_dataBody.getChild(ix);
@@ -698,10 +955,10 @@ final public class ScrollableDataTable<T> extends SelectableTabularComponent<T>
 	public void rowModified(@Nonnull ITableModel<T> model, int index, @Nonnull T value) throws Exception {
 		if(!isBuilt())
 			return;
-		if(index < 0 || index >= m_nextIndexToLoad) 	// Outside visible bounds
+		if(index < m_windowStart || index >= m_nextIndexToLoad) 	// Outside visible bounds
 			return;
-		int rrow = index; 								// This is the location within the child array
-		TR tr = (TR) m_dataBody.getChild(rrow); 		// The visible row there
+		int rrow = index - m_windowStart;				// This is the location within the visible items
+		TR tr = getRowNode(rrow); 						// The visible row there
 		tr.removeAllChildren(); 						// Discard current contents.
 		m_visibleItemList.set(rrow, value);
 
@@ -796,7 +1053,16 @@ final public class ScrollableDataTable<T> extends SelectableTabularComponent<T>
 
 	@Override public void componentHandleWebAction(@Nonnull RequestContextImpl ctx, @Nonnull String action) throws Exception {
 		if("LOADMORE".equals(action)) {
-			loadMoreData();
+			if(!m_virtualScrolling)
+				loadMoreData();
+			return;
+		}
+		if("SCROLLTO".equals(action)) {
+			if(m_virtualScrolling) {
+				String first = ctx.getParameter("first");
+				String count = ctx.getParameter("count");
+				moveWindow(first == null ? 0 : Integer.parseInt(first), count == null ? 0 : Integer.parseInt(count), false);
+			}
 			return;
 		}
 
@@ -814,4 +1080,38 @@ final public class ScrollableDataTable<T> extends SelectableTabularComponent<T>
 	public void setBatchSize(int batchSize) {
 		m_batchSize = batchSize;
 	}
+
+	/**
+	 * When T the table does not keep adding rows while the user scrolls down, but renders only a
+	 * sliding window of {@link #getBatchSize()} rows around the visible part. Spacer rows before and
+	 * after the window give the table the scroll height of all rows, estimated using {@link #getRowHeight()}.
+	 * When the user scrolls the browser asks for the window to move; only the rows entering the window are
+	 * fetched from the model and they reuse the row nodes of the rows that left it, so the page does
+	 * not grow with the #of rows scrolled through. A reused row node loses its content, css classes
+	 * and click handler before the new row is rendered in it.
+	 */
+	public boolean isVirtualScrolling() {
+		return m_virtualScrolling;
+	}
+
+	public void setVirtualScrolling(boolean virtualScrolling) {
+		if(m_virtualScrolling == virtualScrolling)
+			return;
+		m_virtualScrolling = virtualScrolling;
+		forceRebuild();
+	}
+
+	/**
+	 * The estimated height of a row, in pixels, used in virtual scrolling mode. Defaults to 24.
+	 */
+	public int getRowHeight() {
+		return m_rowHeight;
+	}
+
+	public void setRowHeight(int rowHeight) {
+		if(m_rowHeight == rowHeight)
+			return;
+		m_rowHeight = rowHeight;
+		forceRebuild();
+	}
 }
@@ -26,6 +26,10 @@ package to.etc.domui.dom;
 
 import java.io.*;
 
+/**
+ * Compact output renderer for production use: it never indents, so the output is smaller
+ * and cheaper to generate than that of {@link PrettyXmlOutputWriter}.
+ */
 public class FastXmlOutputWriter extends XmlOutputWriterBase implements IBrowserOutput {
 	public FastXmlOutputWriter(Writer w) {
 		super(w);
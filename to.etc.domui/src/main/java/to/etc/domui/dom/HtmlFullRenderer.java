@@ -285,7 +285,7 @@ public class HtmlFullRenderer extends NodeVisitorBase {
 	}
 
 	public void renderLoadCSS(String path) throws Exception {
-		String rurl = m_page.getBody().getThemedResourceRURL(path);
+		String rurl = ctx().getApplication().internalGetThemeManager().getCacheableThemedResourceRURL(ctx(), path);
 		path = ctx().getRelativePath(rurl);
 
 		//-- render an app-relative url
@@ -300,7 +300,7 @@ public class HtmlFullRenderer extends NodeVisitorBase {
 
 	public void renderLoadJavascript(@Nonnull String path) throws Exception {
 		if(!path.startsWith("http")) {
-			String rurl = m_page.getBody().getThemedResourceRURL(path);
+			String rurl = ctx().getApplication().internalGetThemeManager().getCacheableThemedResourceRURL(ctx(), path);
 			path = ctx().getRelativePath(rurl);
 		}
 
@@ -410,9 +410,9 @@ public class HtmlFullRenderer extends NodeVisitorBase {
 		/*
 		 * We need polling if we have any of the keep alive options on, or when there is an async request.
 		 */
-		int pollinterval = application.calculatePollInterval(page.getConversation().isPollCallbackRequired());
-		if(pollinterval > 0) {
-			o().writeRaw("WebUI.startPolling(" + pollinterval + ");");
+		String pollcmd = application.getStartPollingJavascript(page.getConversation().isPollCallbackRequired());
+		if(pollcmd != null) {
+			o().writeRaw(pollcmd);
 		}
 		int autorefresh = application.getAutoRefreshPollInterval();
 		if(autorefresh > 0) {
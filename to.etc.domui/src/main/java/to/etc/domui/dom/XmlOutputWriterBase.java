@@ -27,6 +27,26 @@ package to.etc.domui.dom;
 import java.io.*;
 
 public class XmlOutputWriterBase {
+	/** Entities for chars in text content; null means the char is written as-is. A newline is written by {@link #println()}. */
+	static private final String[] TEXT_ENTITIES = new String[128];
+
+	/** Entities for chars in attribute values; null means the char is written as-is. */
+	static private final String[] ATTR_ENTITIES = new String[128];
+
+	static {
+		TEXT_ENTITIES['<'] = "&lt;";
+		TEXT_ENTITIES['>'] = "&gt;";
+		TEXT_ENTITIES['&'] = "&amp;";
+		TEXT_ENTITIES['\n'] = "\n";
+
+		ATTR_ENTITIES['<'] = "&lt;";
+		ATTR_ENTITIES['>'] = "&gt;";
+		ATTR_ENTITIES['&'] = "&amp;";
+		ATTR_ENTITIES['"'] = "&quot;";
+		ATTR_ENTITIES['\n'] = "&#0010;";
+		ATTR_ENTITIES['\r'] = "&#0013;";
+	}
+
 	private Writer m_w;
 
 	protected boolean m_intag;
@@ -48,45 +68,35 @@ public class XmlOutputWriterBase {
 		if(s == null)
 			throw new IllegalStateException("Attempt to write null cdata.");
 		closePrevious(); // If a tag was unclosed close it now before writing it's body
+		writeEscaped(s, TEXT_ENTITIES);
+	}
 
-		//-- Start writing strings...
-		int ix = 0;
-		int sl = s.length();
-		while(ix < sl) {
-			//-- Collect a run of chars that don't need to be escaped
-			int runstart = ix;
-			char c = 0;
-			while(ix < sl) {
-				c = s.charAt(ix);
-				if(c == '<' || c == '>' || c == '&' || c == '\n')
-					break;
-				ix++;
-			}
-
-			//-- If we have a run output it
-			if(ix > runstart) {
-				writeRaw(s, runstart, ix - runstart);
-				if(ix >= sl)
-					return;
-			}
-
-			//-- Now handle the character we've found
-			switch(c){
-				case '>':
-					writeRaw("&gt;");
-					break;
-				case '<':
-					writeRaw("&lt;");
-					break;
-				case '&':
-					writeRaw("&amp;");
-					break;
-				case '\n':
-					println();
-					break;
+	/**
+	 * Write the string, replacing all characters that have an entity in the table. Runs of
+	 * characters without an entity are written in a single call.
+	 */
+	private void writeEscaped(String s, String[] entities) throws IOException {
+		int len = s.length();
+		int runstart = 0;
+		for(int ix = 0; ix < len; ix++) {
+			char c = s.charAt(ix);
+			if(c < 128) {
+				String entity = entities[c];
+				if(null != entity) {
+					if(ix > runstart)
+						writeRaw(s, runstart, ix - runstart);
+					if(c == '\n' && entities == TEXT_ENTITIES)
+						println();
+					else
+						writeRaw(entity);
+					runstart = ix + 1;
+				}
 			}
-			ix++;
 		}
+		if(runstart == 0)
+			writeRaw(s);
+		else if(runstart < len)
+			writeRaw(s, runstart, len - runstart);
 	}
 
 	protected void println() throws IOException {
@@ -124,7 +134,7 @@ public class XmlOutputWriterBase {
 	 * If we're in an open tag this closes that tag. The tag gets closed using a >, so the next thing will
 	 * be contained in the tag.
 	 */
-	private void closePrevious() throws IOException {
+	protected void closePrevious() throws IOException {
 		if(!m_intag)
 			return;
 		m_intag = false;
@@ -181,7 +191,7 @@ public class XmlOutputWriterBase {
 		writeRaw(" ");
 		writeRaw(name);
 		writeRaw("=\"");
-		writeAttrValue(value);
+		writeEscaped(value, ATTR_ENTITIES);
 		writeRaw("\"");
 	}
 
@@ -195,56 +205,6 @@ public class XmlOutputWriterBase {
 		writeRaw("\"");
 	}
 
-	private void writeAttrValue(String value) throws IOException {
-		//-- Write the quoted string, quickly, by using runs.
-		int len = value.length();
-		int pos = 0;
-		String entity = null;
-		while(pos < len) {
-			int spos = pos;
-
-			//-- Find 1st character we have trouble with
-			while(pos < len) {
-				entity = null;
-				char c = value.charAt(pos);
-				switch(c){
-					default:
-						pos++;
-						break;
-					case '&':
-						entity = "&amp;";
-						break;
-					case '<':
-						entity = "&lt;";
-						break;
-					case '>':
-						entity = "&gt;";
-						break;
-					case '\n':
-						entity = "&#0010;";
-						break;
-					case '\r':
-						entity = "&#0013;";
-						break;
-					case '\"':
-						entity = "&quot;";
-						break;
-				}
-				if(entity != null)
-					break;
-			}
-
-			//-- First handle the run upto the failed char
-			if(pos > spos) {
-				writeRaw(value, spos, pos - spos); // Write the fragment upto the char,
-			}
-			if(entity != null) {
-				writeRaw(entity);
-				pos++;
-			}
-		}
-	}
-
 	/**
 	 * Write a simple numeric attribute thingy.
 	 *
@@ -267,7 +227,10 @@ public class XmlOutputWriterBase {
 
 
 	public void writeRaw(CharSequence s) throws IOException {
-		m_w.append(s);
+		if(s instanceof String)
+			m_w.write((String) s);
+		else
+			m_w.append(s);
 	}
 
 	protected void writeRaw(String s, int off, int len) throws IOException {
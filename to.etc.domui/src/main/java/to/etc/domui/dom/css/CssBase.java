@@ -29,128 +29,97 @@ import to.etc.domui.util.DomUtil;
 /**
  * Base class for all remote DOM nodes containing only CSS properties && change management for those.
  *
+ * <p>Most nodes have only a few, if any, style properties set. To keep the per-node memory small the
+ * properties are not stored in fields but in a sparse array: each property has a slot number, a bitmask
+ * tells which slots have a value, and the array holds only the values that are set, in slot order. The
+ * array is allocated when the first property gets a value.</p>
+ *
  * @author <a href="mailto:jal@etc.to">Frits Jalvingh</a>
  * Created on Aug 17, 2007
  */
 public class CssBase {
 	private String m_cachedStyle;
 
-	/*-- CSS Background properties --*/
-	private BackgroundAttachment m_backgroundAttachment;
-
-	private String m_backgroundColor;
-
-	private String m_backgroundImage;
+	/** Bitmask of the property slots that have a value. */
+	private long m_styleMask;
 
-	private String m_backgroundPosition;
+	/** The values of the properties that are set, ordered by slot number. Null if no property is set. */
+	private Object[] m_styleValues;
 
-	private String m_backgroundRepeat;
+	/*-- CSS Background properties --*/
+	static private final int P_BACKGROUND_ATTACHMENT = 0;
+	static private final int P_BACKGROUND_COLOR = 1;
+	static private final int P_BACKGROUND_IMAGE = 2;
+	static private final int P_BACKGROUND_POSITION = 3;
+	static private final int P_BACKGROUND_REPEAT = 4;
 
 	/*-- CSS Border properties --*/
-	private int m_borderLeftWidth = -1;
-
-	private int m_borderRightWidth = -1;
-
-	private int m_borderTopWidth = -1;
-
-	private int m_borderBottomWidth = -1;
-
-	private String m_borderTopColor;
-
-	private String m_borderBottomColor;
-
-	private String m_borderLeftColor;
-
-	private String m_borderRightColor;
-
-	private String m_borderTopStyle;
-
-	private String m_borderBottomStyle;
-
-	private String m_borderLeftStyle;
-
-	private String m_borderRightStyle;
+	static private final int P_BORDER_LEFT_WIDTH = 5;
+	static private final int P_BORDER_RIGHT_WIDTH = 6;
+	static private final int P_BORDER_TOP_WIDTH = 7;
+	static private final int P_BORDER_BOTTOM_WIDTH = 8;
+	static private final int P_BORDER_TOP_COLOR = 9;
+	static private final int P_BORDER_BOTTOM_COLOR = 10;
+	static private final int P_BORDER_LEFT_COLOR = 11;
+	static private final int P_BORDER_RIGHT_COLOR = 12;
+	static private final int P_BORDER_TOP_STYLE = 13;
+	static private final int P_BORDER_BOTTOM_STYLE = 14;
+	static private final int P_BORDER_LEFT_STYLE = 15;
+	static private final int P_BORDER_RIGHT_STYLE = 16;
 
 	/*-- CSS Classification. --*/
-	private ClearType m_clear;
+	static private final int P_CLEAR = 17;
 
 //	private String m_cursor;
 
-	private DisplayType m_display;
-
-	private FloatType m_float;
-
-	private PositionType m_position;
-
-	private VisibilityType m_visibility;
+	static private final int P_DISPLAY = 18;
+	static private final int P_FLOAT = 19;
+	static private final int P_POSITION = 20;
+	static private final int P_VISIBILITY = 21;
 
 	/*-- CSS Dimension properties --*/
-	private String m_height;
-
-	private String m_lineHeight;
-
-	private String m_maxHeight;
-
-	private String m_maxWidth;
-
-	private String m_minHeight;
-
-	private String m_minWidth;
-
-	private String m_width;
+	static private final int P_HEIGHT = 22;
+	static private final int P_LINE_HEIGHT = 23;
+	static private final int P_MAX_HEIGHT = 24;
+	static private final int P_MAX_WIDTH = 25;
+	static private final int P_MIN_HEIGHT = 26;
+	static private final int P_MIN_WIDTH = 27;
+	static private final int P_WIDTH = 28;
 
 	/*-- CSS Font properties. --*/
-	private String m_fontFamily;
-
-	private String m_fontSize;
-
-	private String m_fontSizeAdjust;
-
-	private FontStyle m_fontStyle;
-
-	private FontVariant m_fontVariant;
-
-	private String m_fontWeight;
-
-	private String m_color;
+	static private final int P_FONT_FAMILY = 29;
+	static private final int P_FONT_SIZE = 30;
+	static private final int P_FONT_SIZE_ADJUST = 31;
+	static private final int P_FONT_STYLE = 32;
+	static private final int P_FONT_VARIANT = 33;
+	static private final int P_FONT_WEIGHT = 34;
+	static private final int P_COLOR = 35;
 
 	/*-- Positioning --*/
-	private Overflow m_overflow;
-
-	private int m_zIndex = Integer.MIN_VALUE;
-
-	private String m_top;
-
-	private String m_bottom;
-
-	private String m_left;
-
-	private String m_right;
+	static private final int P_OVERFLOW = 36;
+	static private final int P_Z_INDEX = 37;
+	static private final int P_TOP = 38;
+	static private final int P_BOTTOM = 39;
+	static private final int P_LEFT = 40;
+	static private final int P_RIGHT = 41;
 
 	/*--- TEXT properties -----*/
-	private TextAlign m_textAlign;
-
-	private VerticalAlignType m_verticalAlign;
+	static private final int P_TEXT_ALIGN = 42;
+	static private final int P_VERTICAL_ALIGN = 43;
 
 	/*-- CSS Margin properties --*/
-	private String m_marginLeft;
-
-	private String m_marginRight;
-
-	private String m_marginTop;
-
-	private String m_marginBottom;
+	static private final int P_MARGIN_LEFT = 44;
+	static private final int P_MARGIN_RIGHT = 45;
+	static private final int P_MARGIN_TOP = 46;
+	static private final int P_MARGIN_BOTTOM = 47;
 
 	/*-- CSS Padding properties --*/
-	private String m_paddingLeft;
-
-	private String m_paddingRight;
-
-	private String m_paddingTop;
-
-	private String m_paddingBottom;
+	static private final int P_PADDING_LEFT = 48;
+	static private final int P_PADDING_RIGHT = 49;
+	static private final int P_PADDING_TOP = 50;
+	static private final int P_PADDING_BOTTOM = 51;
 	
-	private TextTransformType m_transform;
+	static private final int P_TRANSFORM = 52;
 
 	public String getCachedStyle() {
 		return m_cachedStyle;
@@ -160,6 +129,73 @@ public class CssBase {
 		m_cachedStyle = cachedStyle;
 	}
 
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Sparse property storage.							*/
+	/*--------------------------------------------------------------*/
+	/**
+	 * Get the value for a property slot, or null if the property is not set.
+	 */
+	private Object get(int slot) {
+		long bit = 1L << slot;
+		if((m_styleMask & bit) == 0)
+			return null;
+		return m_styleValues[Long.bitCount(m_styleMask & (bit - 1))];
+	}
+
+	/**
+	 * Set or remove (when null) the value for a property slot.
+	 */
+	private void put(int slot, Object value) {
+		long bit = 1L << slot;
+		long mask = m_styleMask;
+		int index = Long.bitCount(mask & (bit - 1));
+		int count = Long.bitCount(mask);
+		Object[] values = m_styleValues;
+		if((mask & bit) != 0) {
+			if(value != null) {
+				values[index] = value;
+				return;
+			}
+
+			//-- Remove the value
+			mask &= ~bit;
+			m_styleMask = mask;
+			if(mask == 0) {
+				m_styleValues = null;
+				return;
+			}
+			System.arraycopy(values, index + 1, values, index, count - index - 1);
+			values[count - 1] = null;
+			return;
+		}
+		if(value == null)
+			return;
+
+		//-- Insert a new value, growing the array by a few slots when full
+		if(values == null) {
+			values = m_styleValues = new Object[2];
+		} else if(count == values.length) {
+			Object[] nv = new Object[count + 4];
+			System.arraycopy(values, 0, nv, 0, count);
+			values = m_styleValues = nv;
+		}
+		System.arraycopy(values, index, values, index + 1, count - index);
+		values[index] = value;
+		m_styleMask = mask | bit;
+	}
+
+	private int getInt(int slot, int dflt) {
+		Object v = get(slot);
+		return v == null ? dflt : ((Integer) v).intValue();
+	}
+
+	/**
+	 * Set an int property; the default value is not stored.
+	 */
+	private void putInt(int slot, int value, int dflt) {
+		put(slot, value == dflt ? null : Integer.valueOf(value));
+	}
+
 	/**
 	 * Called as soon as a property of <i>this</i> object changes. This dirties this
 	 * object.
@@ -169,173 +205,173 @@ public class CssBase {
 	}
 
 	public BackgroundAttachment getBackgroundAttachment() {
-		return m_backgroundAttachment;
+		return (BackgroundAttachment) get(P_BACKGROUND_ATTACHMENT);
 	}
 
 	public void setBackgroundAttachment(final BackgroundAttachment backgroundAttachment) {
-		if(!DomUtil.isEqual(backgroundAttachment, m_backgroundAttachment))
+		if(!DomUtil.isEqual(backgroundAttachment, get(P_BACKGROUND_ATTACHMENT)))
 			changed();
-		m_backgroundAttachment = backgroundAttachment;
+		put(P_BACKGROUND_ATTACHMENT, backgroundAttachment);
 	}
 
 	public String getBackgroundColor() {
-		return m_backgroundColor;
+		return (String) get(P_BACKGROUND_COLOR);
 	}
 
 	public void setBackgroundColor(final String backgroundColor) {
-		if(!DomUtil.isEqual(backgroundColor, m_backgroundColor))
+		if(!DomUtil.isEqual(backgroundColor, get(P_BACKGROUND_COLOR)))
 			changed();
-		m_backgroundColor = backgroundColor;
+		put(P_BACKGROUND_COLOR, backgroundColor);
 	}
 
 	public String getBackgroundImage() {
-		return m_backgroundImage;
+		return (String) get(P_BACKGROUND_IMAGE);
 	}
 
 	public void setBackgroundImage(final String backgroundImage) {
-		if(!DomUtil.isEqual(backgroundImage, m_backgroundImage))
+		if(!DomUtil.isEqual(backgroundImage, get(P_BACKGROUND_IMAGE)))
 			changed();
-		m_backgroundImage = backgroundImage;
+		put(P_BACKGROUND_IMAGE, backgroundImage);
 	}
 
 	public String getBackgroundPosition() {
-		return m_backgroundPosition;
+		return (String) get(P_BACKGROUND_POSITION);
 	}
 
 	public void setBackgroundPosition(final String backgroundPosition) {
-		if(!DomUtil.isEqual(backgroundPosition, m_backgroundPosition))
+		if(!DomUtil.isEqual(backgroundPosition, get(P_BACKGROUND_POSITION)))
 			changed();
-		m_backgroundPosition = backgroundPosition;
+		put(P_BACKGROUND_POSITION, backgroundPosition);
 	}
 
 	public String getBackgroundRepeat() {
-		return m_backgroundRepeat;
+		return (String) get(P_BACKGROUND_REPEAT);
 	}
 
 	public void setBackgroundRepeat(final String backgroundRepeat) {
-		if(!DomUtil.isEqual(backgroundRepeat, m_backgroundRepeat))
+		if(!DomUtil.isEqual(backgroundRepeat, get(P_BACKGROUND_REPEAT)))
 			changed();
-		m_backgroundRepeat = backgroundRepeat;
+		put(P_BACKGROUND_REPEAT, backgroundRepeat);
 	}
 
 	public int getBorderLeftWidth() {
-		return m_borderLeftWidth;
+		return getInt(P_BORDER_LEFT_WIDTH, -1);
 	}
 
 	public void setBorderLeftWidth(final int borderLeftWidth) {
-		if(borderLeftWidth != m_borderLeftWidth)
+		if(borderLeftWidth != getInt(P_BORDER_LEFT_WIDTH, -1))
 			changed();
-		m_borderLeftWidth = borderLeftWidth;
+		putInt(P_BORDER_LEFT_WIDTH, borderLeftWidth, -1);
 	}
 
 	public int getBorderRightWidth() {
-		return m_borderRightWidth;
+		return getInt(P_BORDER_RIGHT_WIDTH, -1);
 	}
 
 	public void setBorderRightWidth(final int borderRightWidth) {
-		if(m_borderRightWidth != borderRightWidth)
+		if(getInt(P_BORDER_RIGHT_WIDTH, -1) != borderRightWidth)
 			changed();
-		m_borderRightWidth = borderRightWidth;
+		putInt(P_BORDER_RIGHT_WIDTH, borderRightWidth, -1);
 	}
 
 	public int getBorderTopWidth() {
-		return m_borderTopWidth;
+		return getInt(P_BORDER_TOP_WIDTH, -1);
 	}
 
 	public void setBorderTopWidth(final int borderTopWidth) {
-		if(m_borderTopWidth != borderTopWidth)
+		if(getInt(P_BORDER_TOP_WIDTH, -1) != borderTopWidth)
 			changed();
-		m_borderTopWidth = borderTopWidth;
+		putInt(P_BORDER_TOP_WIDTH, borderTopWidth, -1);
 	}
 
 	public int getBorderBottomWidth() {
-		return m_borderBottomWidth;
+		return getInt(P_BORDER_BOTTOM_WIDTH, -1);
 	}
 
 	public void setBorderBottomWidth(final int borderBottomWidth) {
-		if(m_borderBottomWidth != borderBottomWidth)
+		if(getInt(P_BORDER_BOTTOM_WIDTH, -1) != borderBottomWidth)
 			changed();
-		m_borderBottomWidth = borderBottomWidth;
+		putInt(P_BORDER_BOTTOM_WIDTH, borderBottomWidth, -1);
 	}
 
 	public String getBorderTopColor() {
-		return m_borderTopColor;
+		return (String) get(P_BORDER_TOP_COLOR);
 	}
 
 	public void setBorderTopColor(final String borderTopColor) {
-		if(!DomUtil.isEqual(borderTopColor, m_borderTopColor))
+		if(!DomUtil.isEqual(borderTopColor, get(P_BORDER_TOP_COLOR)))
 			changed();
-		m_borderTopColor = borderTopColor;
+		put(P_BORDER_TOP_COLOR, borderTopColor);
 	}
 
 	public String getBorderBottomColor() {
-		return m_borderBottomColor;
+		return (String) get(P_BORDER_BOTTOM_COLOR);
 	}
 
 	public void setBorderBottomColor(final String borderBottomColor) {
-		if(!DomUtil.isEqual(borderBottomColor, m_borderBottomColor))
+		if(!DomUtil.isEqual(borderBottomColor, get(P_BORDER_BOTTOM_COLOR)))
 			changed();
-		m_borderBottomColor = borderBottomColor;
+		put(P_BORDER_BOTTOM_COLOR, borderBottomColor);
 	}
 
 	public String getBorderLeftColor() {
-		return m_borderLeftColor;
+		return (String) get(P_BORDER_LEFT_COLOR);
 	}
 
 	public void setBorderLeftColor(final String borderLeftColor) {
-		if(!DomUtil.isEqual(borderLeftColor, m_borderLeftColor))
+		if(!DomUtil.isEqual(borderLeftColor, get(P_BORDER_LEFT_COLOR)))
 			changed();
-		m_borderLeftColor = borderLeftColor;
+		put(P_BORDER_LEFT_COLOR, borderLeftColor);
 	}
 
 	public String getBorderRightColor() {
-		return m_borderRightColor;
+		return (String) get(P_BORDER_RIGHT_COLOR);
 	}
 
 	public void setBorderRightColor(final String borderRightColor) {
-		if(!DomUtil.isEqual(borderRightColor, m_borderRightColor))
+		if(!DomUtil.isEqual(borderRightColor, get(P_BORDER_RIGHT_COLOR)))
 			changed();
-		m_borderRightColor = borderRightColor;
+		put(P_BORDER_RIGHT_COLOR, borderRightColor);
 	}
 
 	public String getBorderTopStyle() {
-		return m_borderTopStyle;
+		return (String) get(P_BORDER_TOP_STYLE);
 	}
 
 	public void setBorderTopStyle(final String borderTopStyle) {
-		if(!DomUtil.isEqual(borderTopStyle, m_borderTopStyle))
+		if(!DomUtil.isEqual(borderTopStyle, get(P_BORDER_TOP_STYLE)))
 			changed();
-		m_borderTopStyle = borderTopStyle;
+		put(P_BORDER_TOP_STYLE, borderTopStyle);
 	}
 
 	public String getBorderBottomStyle() {
-		return m_borderBottomStyle;
+		return (String) get(P_BORDER_BOTTOM_STYLE);
 	}
 
 	public void setBorderBottomStyle(final String borderBottomStyle) {
-		if(!DomUtil.isEqual(borderBottomStyle, m_borderBottomStyle))
+		if(!DomUtil.isEqual(borderBottomStyle, get(P_BORDER_BOTTOM_STYLE)))
 			changed();
-		m_borderBottomStyle = borderBottomStyle;
+		put(P_BORDER_BOTTOM_STYLE, borderBottomStyle);
 	}
 
 	public String getBorderLeftStyle() {
-		return m_borderLeftStyle;
+		return (String) get(P_BORDER_LEFT_STYLE);
 	}
 
 	public void setBorderLeftStyle(final String borderLeftStyle) {
-		if(!DomUtil.isEqual(borderLeftStyle, m_borderLeftStyle))
+		if(!DomUtil.isEqual(borderLeftStyle, get(P_BORDER_LEFT_STYLE)))
 			changed();
-		m_borderLeftStyle = borderLeftStyle;
+		put(P_BORDER_LEFT_STYLE, borderLeftStyle);
 	}
 
 	public String getBorderRightStyle() {
-		return m_borderRightStyle;
+		return (String) get(P_BORDER_RIGHT_STYLE);
 	}
 
 	public void setBorderRightStyle(final String borderRightStyle) {
-		if(!DomUtil.isEqual(borderRightStyle, m_borderRightStyle))
+		if(!DomUtil.isEqual(borderRightStyle, get(P_BORDER_RIGHT_STYLE)))
 			changed();
-		m_borderRightStyle = borderRightStyle;
+		put(P_BORDER_RIGHT_STYLE, borderRightStyle);
 	}
 
 	/*-- Border shortcut calls. --*/
@@ -372,13 +408,13 @@ public class CssBase {
 	}
 
 	public ClearType getClear() {
-		return m_clear;
+		return (ClearType) get(P_CLEAR);
 	}
 
 	public void setClear(final ClearType clear) {
-		if(!DomUtil.isEqual(clear, m_clear))
+		if(!DomUtil.isEqual(clear, get(P_CLEAR)))
 			changed();
-		m_clear = clear;
+		put(P_CLEAR, clear);
 	}
 
 //	public String getCursor() {
@@ -392,13 +428,13 @@ public class CssBase {
 //	}
 
 	public DisplayType getDisplay() {
-		return m_display;
+		return (DisplayType) get(P_DISPLAY);
 	}
 
 	public void setDisplay(final DisplayType display) {
-		if(!DomUtil.isEqual(display, m_display))
+		if(!DomUtil.isEqual(display, get(P_DISPLAY)))
 			changed();
-		m_display = display;
+		put(P_DISPLAY, display);
 	}
 
 	/**
@@ -407,218 +443,218 @@ public class CssBase {
 	 * @return
 	 */
 	public boolean internalSetDisplay(final DisplayType dt) {
-		if(m_display == dt)
+		if(get(P_DISPLAY) == dt)
 			return false;
-		m_display = dt;
+		put(P_DISPLAY, dt);
 		setCachedStyle(null);
 		return true;
 	}
 
 	public Overflow getOverflow() {
-		return m_overflow;
+		return (Overflow) get(P_OVERFLOW);
 	}
 
 	public void setOverflow(final Overflow overflow) {
-		if(m_overflow != overflow)
+		if(get(P_OVERFLOW) != overflow)
 			changed();
-		m_overflow = overflow;
+		put(P_OVERFLOW, overflow);
 	}
 
 	public FloatType getFloat() {
-		return m_float;
+		return (FloatType) get(P_FLOAT);
 	}
 
 	public void setFloat(final FloatType f) {
-		if(m_float == f)
+		if(get(P_FLOAT) == f)
 			return;
 		changed();
-		m_float = f;
+		put(P_FLOAT, f);
 	}
 
 	public PositionType getPosition() {
-		return m_position;
+		return (PositionType) get(P_POSITION);
 	}
 
 	public void setPosition(final PositionType position) {
-		if(m_position == position)
+		if(get(P_POSITION) == position)
 			return;
 		changed();
-		m_position = position;
+		put(P_POSITION, position);
 	}
 
 	public VisibilityType getVisibility() {
-		return m_visibility;
+		return (VisibilityType) get(P_VISIBILITY);
 	}
 
 	public void setVisibility(final VisibilityType visibility) {
-		if(m_visibility == visibility)
+		if(get(P_VISIBILITY) == visibility)
 			return;
 		changed();
-		m_visibility = visibility;
+		put(P_VISIBILITY, visibility);
 	}
 
 	public String getHeight() {
-		return m_height;
+		return (String) get(P_HEIGHT);
 	}
 
 	public void setHeight(final String height) {
-		if(DomUtil.isEqual(height, m_height))
+		if(DomUtil.isEqual(height, get(P_HEIGHT)))
 			return;
 		changed();
-		m_height = height;
+		put(P_HEIGHT, height);
 	}
 
 	public String getLineHeight() {
-		return m_lineHeight;
+		return (String) get(P_LINE_HEIGHT);
 	}
 
 	public void setLineHeight(final String lineHeight) {
-		if(DomUtil.isEqual(m_lineHeight, lineHeight))
+		if(DomUtil.isEqual(get(P_LINE_HEIGHT), lineHeight))
 			return;
 		changed();
-		m_lineHeight = lineHeight;
+		put(P_LINE_HEIGHT, lineHeight);
 	}
 
 	public String getMaxHeight() {
-		return m_maxHeight;
+		return (String) get(P_MAX_HEIGHT);
 	}
 
 	public void setMaxHeight(final String maxHeight) {
-		if(DomUtil.isEqual(m_maxHeight, maxHeight))
+		if(DomUtil.isEqual(get(P_MAX_HEIGHT), maxHeight))
 			return;
 		changed();
-		m_maxHeight = maxHeight;
+		put(P_MAX_HEIGHT, maxHeight);
 	}
 
 	public String getMaxWidth() {
-		return m_maxWidth;
+		return (String) get(P_MAX_WIDTH);
 	}
 
 	public void setMaxWidth(final String maxWidth) {
-		if(DomUtil.isEqual(m_maxWidth, maxWidth))
+		if(DomUtil.isEqual(get(P_MAX_WIDTH), maxWidth))
 			return;
 		changed();
-		m_maxWidth = maxWidth;
+		put(P_MAX_WIDTH, maxWidth);
 	}
 
 	public String getMinHeight() {
-		return m_minHeight;
+		return (String) get(P_MIN_HEIGHT);
 	}
 
 	public void setMinHeight(final String minHeight) {
-		if(DomUtil.isEqual(m_minHeight, minHeight))
+		if(DomUtil.isEqual(get(P_MIN_HEIGHT), minHeight))
 			return;
 		changed();
-		m_minHeight = minHeight;
+		put(P_MIN_HEIGHT, minHeight);
 	}
 
 	public String getMinWidth() {
-		return m_minWidth;
+		return (String) get(P_MIN_WIDTH);
 	}
 
 	public void setMinWidth(final String minWidth) {
-		if(DomUtil.isEqual(m_minWidth, minWidth))
+		if(DomUtil.isEqual(get(P_MIN_WIDTH), minWidth))
 			return;
 		changed();
-		m_minWidth = minWidth;
+		put(P_MIN_WIDTH, minWidth);
 	}
 
 	public String getWidth() {
-		return m_width;
+		return (String) get(P_WIDTH);
 	}
 
 	public void setWidth(final String width) {
-		if(DomUtil.isEqual(m_width, width))
+		if(DomUtil.isEqual(get(P_WIDTH), width))
 			return;
 		changed();
-		m_width = width;
+		put(P_WIDTH, width);
 	}
 
 	public String getFontFamily() {
-		return m_fontFamily;
+		return (String) get(P_FONT_FAMILY);
 	}
 
 	public void setFontFamily(final String fontFamily) {
-		if(DomUtil.isEqual(m_fontFamily, fontFamily))
+		if(DomUtil.isEqual(get(P_FONT_FAMILY), fontFamily))
 			return;
 		changed();
-		m_fontFamily = fontFamily;
+		put(P_FONT_FAMILY, fontFamily);
 	}
 
 	public String getFontSize() {
-		return m_fontSize;
+		return (String) get(P_FONT_SIZE);
 	}
 
 	public void setFontSize(final String fontSize) {
-		if(DomUtil.isEqual(m_fontSize, fontSize))
+		if(DomUtil.isEqual(get(P_FONT_SIZE), fontSize))
 			return;
 		changed();
-		m_fontSize = fontSize;
+		put(P_FONT_SIZE, fontSize);
 	}
 
 	public String getFontSizeAdjust() {
-		return m_fontSizeAdjust;
+		return (String) get(P_FONT_SIZE_ADJUST);
 	}
 
 	public void setFontSizeAdjust(final String fontSizeAdjust) {
-		if(DomUtil.isEqual(m_fontSizeAdjust, fontSizeAdjust))
+		if(DomUtil.isEqual(get(P_FONT_SIZE_ADJUST), fontSizeAdjust))
 			return;
 		changed();
-		m_fontSizeAdjust = fontSizeAdjust;
+		put(P_FONT_SIZE_ADJUST, fontSizeAdjust);
 	}
 
 	public FontStyle getFontStyle() {
-		return m_fontStyle;
+		return (FontStyle) get(P_FONT_STYLE);
 	}
 
 	public void setFontStyle(final FontStyle fontStyle) {
-		if(DomUtil.isEqual(m_fontStyle, fontStyle))
+		if(DomUtil.isEqual(get(P_FONT_STYLE), fontStyle))
 			return;
 		changed();
-		m_fontStyle = fontStyle;
+		put(P_FONT_STYLE, fontStyle);
 	}
 
 	public FontVariant getFontVariant() {
-		return m_fontVariant;
+		return (FontVariant) get(P_FONT_VARIANT);
 	}
 
 	public void setFontVariant(final FontVariant fontVariant) {
-		if(DomUtil.isEqual(m_fontVariant, fontVariant))
+		if(DomUtil.isEqual(get(P_FONT_VARIANT), fontVariant))
 			return;
 		changed();
-		m_fontVariant = fontVariant;
+		put(P_FONT_VARIANT, fontVariant);
 	}
 
 	public String getFontWeight() {
-		return m_fontWeight;
+		return (String) get(P_FONT_WEIGHT);
 	}
 
 	public void setFontWeight(final String fontWeight) {
-		if(DomUtil.isEqual(m_fontWeight, fontWeight))
+		if(DomUtil.isEqual(get(P_FONT_WEIGHT), fontWeight))
 			return;
 		changed();
-		m_fontWeight = fontWeight;
+		put(P_FONT_WEIGHT, fontWeight);
 	}
 
 	public int getZIndex() {
-		return m_zIndex;
+		return getInt(P_Z_INDEX, Integer.MIN_VALUE);
 	}
 
 	public void setZIndex(final int index) {
-		if(m_zIndex != index)
+		if(getInt(P_Z_INDEX, Integer.MIN_VALUE) != index)
 			changed();
-		m_zIndex = index;
+		putInt(P_Z_INDEX, index, Integer.MIN_VALUE);
 	}
 
 	public String getTop() {
-		return m_top;
+		return (String) get(P_TOP);
 	}
 
 	public void setTop(final String top) {
-		if(DomUtil.isEqual(top, m_top))
+		if(DomUtil.isEqual(top, get(P_TOP)))
 			return;
 		changed();
-		m_top = top;
+		put(P_TOP, top);
 	}
 
 	public void setTop(int px) {
@@ -627,14 +663,14 @@ public class CssBase {
 	}
 
 	public String getBottom() {
-		return m_bottom;
+		return (String) get(P_BOTTOM);
 	}
 
 	public void setBottom(final String bottom) {
-		if(DomUtil.isEqual(bottom, m_bottom))
+		if(DomUtil.isEqual(bottom, get(P_BOTTOM)))
 			return;
 		changed();
-		m_bottom = bottom;
+		put(P_BOTTOM, bottom);
 	}
 
 	public void setBottom(int px) {
@@ -643,14 +679,14 @@ public class CssBase {
 	}
 
 	public String getLeft() {
-		return m_left;
+		return (String) get(P_LEFT);
 	}
 
 	public void setLeft(final String left) {
-		if(DomUtil.isEqual(left, m_left))
+		if(DomUtil.isEqual(left, get(P_LEFT)))
 			return;
 		changed();
-		m_left = left;
+		put(P_LEFT, left);
 	}
 
 	public void setLeft(final int px) {
@@ -659,14 +695,14 @@ public class CssBase {
 	}
 
 	public String getRight() {
-		return m_right;
+		return (String) get(P_RIGHT);
 	}
 
 	public void setRight(final String right) {
-		if(DomUtil.isEqual(right, m_right))
+		if(DomUtil.isEqual(right, get(P_RIGHT)))
 			return;
 		changed();
-		m_right = right;
+		put(P_RIGHT, right);
 	}
 
 	public void setRight(final int px) {
@@ -675,80 +711,80 @@ public class CssBase {
 	}
 
 	public String getColor() {
-		return m_color;
+		return (String) get(P_COLOR);
 	}
 
 	public void setColor(final String color) {
-		if(DomUtil.isEqual(color, m_color))
+		if(DomUtil.isEqual(color, get(P_COLOR)))
 			return;
 		changed();
-		m_color = color;
+		put(P_COLOR, color);
 	}
 
 	public TextAlign getTextAlign() {
-		return m_textAlign;
+		return (TextAlign) get(P_TEXT_ALIGN);
 	}
 
 	public void setTextAlign(final TextAlign textAlign) {
-		if(m_textAlign == textAlign)
+		if(get(P_TEXT_ALIGN) == textAlign)
 			return;
 		changed();
-		m_textAlign = textAlign;
+		put(P_TEXT_ALIGN, textAlign);
 	}
 
 	public VerticalAlignType getVerticalAlign() {
-		return m_verticalAlign;
+		return (VerticalAlignType) get(P_VERTICAL_ALIGN);
 	}
 
 	public void setVerticalAlign(final VerticalAlignType verticalAlign) {
-		if(m_verticalAlign == verticalAlign)
+		if(get(P_VERTICAL_ALIGN) == verticalAlign)
 			return;
 		changed();
-		m_verticalAlign = verticalAlign;
+		put(P_VERTICAL_ALIGN, verticalAlign);
 	}
 
 	public String getMarginLeft() {
-		return m_marginLeft;
+		return (String) get(P_MARGIN_LEFT);
 	}
 
 	public void setMarginLeft(String marginLeft) {
-		if(DomUtil.isEqual(m_marginLeft, marginLeft))
+		if(DomUtil.isEqual(get(P_MARGIN_LEFT), marginLeft))
 			return;
 		changed();
-		m_marginLeft = marginLeft;
+		put(P_MARGIN_LEFT, marginLeft);
 	}
 
 	public String getMarginRight() {
-		return m_marginRight;
+		return (String) get(P_MARGIN_RIGHT);
 	}
 
 	public void setMarginRight(String marginRight) {
-		if(DomUtil.isEqual(m_marginRight, marginRight))
+		if(DomUtil.isEqual(get(P_MARGIN_RIGHT), marginRight))
 			return;
 		changed();
-		m_marginRight = marginRight;
+		put(P_MARGIN_RIGHT, marginRight);
 	}
 
 	public String getMarginTop() {
-		return m_marginTop;
+		return (String) get(P_MARGIN_TOP);
 	}
 
 	public void setMarginTop(String marginTop) {
-		if(DomUtil.isEqual(m_marginTop, marginTop))
+		if(DomUtil.isEqual(get(P_MARGIN_TOP), marginTop))
 			return;
 		changed();
-		m_marginTop = marginTop;
+		put(P_MARGIN_TOP, marginTop);
 	}
 
 	public String getMarginBottom() {
-		return m_marginBottom;
+		return (String) get(P_MARGIN_BOTTOM);
 	}
 
 	public void setMarginBottom(String marginBottom) {
-		if(DomUtil.isEqual(m_marginBottom, marginBottom))
+		if(DomUtil.isEqual(get(P_MARGIN_BOTTOM), marginBottom))
 			return;
 		changed();
-		m_marginBottom = marginBottom;
+		put(P_MARGIN_BOTTOM, marginBottom);
 	}
 
 	public void setMargin(String... margin) {
@@ -783,47 +819,47 @@ public class CssBase {
 	}
 
 	public String getPaddingLeft() {
-		return m_paddingLeft;
+		return (String) get(P_PADDING_LEFT);
 	}
 
 	public void setPaddingLeft(String paddingLeft) {
-		if(DomUtil.isEqual(m_paddingLeft, paddingLeft))
+		if(DomUtil.isEqual(get(P_PADDING_LEFT), paddingLeft))
 			return;
 		changed();
-		m_paddingLeft = paddingLeft;
+		put(P_PADDING_LEFT, paddingLeft);
 	}
 
 	public String getPaddingRight() {
-		return m_paddingRight;
+		return (String) get(P_PADDING_RIGHT);
 	}
 
 	public void setPaddingRight(String paddingRight) {
-		if(DomUtil.isEqual(m_paddingRight, paddingRight))
+		if(DomUtil.isEqual(get(P_PADDING_RIGHT), paddingRight))
 			return;
 		changed();
-		m_paddingRight = paddingRight;
+		put(P_PADDING_RIGHT, paddingRight);
 	}
 
 	public String getPaddingTop() {
-		return m_paddingTop;
+		return (String) get(P_PADDING_TOP);
 	}
 
 	public void setPaddingTop(String paddingTop) {
-		if(DomUtil.isEqual(m_paddingTop, paddingTop))
+		if(DomUtil.isEqual(get(P_PADDING_TOP), paddingTop))
 			return;
 		changed();
-		m_paddingTop = paddingTop;
+		put(P_PADDING_TOP, paddingTop);
 	}
 
 	public String getPaddingBottom() {
-		return m_paddingBottom;
+		return (String) get(P_PADDING_BOTTOM);
 	}
 
 	public void setPaddingBottom(String paddingBottom) {
-		if(DomUtil.isEqual(m_paddingBottom, paddingBottom))
+		if(DomUtil.isEqual(get(P_PADDING_BOTTOM), paddingBottom))
 			return;
 		changed();
-		m_paddingBottom = paddingBottom;
+		put(P_PADDING_BOTTOM, paddingBottom);
 	}
 
 	public void setPadding(String... padding) {
@@ -858,13 +894,13 @@ public class CssBase {
 	}
 	
 	public TextTransformType getTransform() {
-		return m_transform;
+		return (TextTransformType) get(P_TRANSFORM);
 	}
 
 	public void setTransform(TextTransformType transform) {
-		if(!DomUtil.isEqual(m_transform, transform))
+		if(!DomUtil.isEqual(get(P_TRANSFORM), transform))
 			changed();
-		m_transform = transform;
+		put(P_TRANSFORM, transform);
 	}
 
 }
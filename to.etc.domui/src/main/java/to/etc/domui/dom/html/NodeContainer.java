@@ -280,7 +280,7 @@ abstract public class NodeContainer extends NodeBase implements Iterable<NodeBas
 
 		//-- Copy all of my children and save me as their current parent
 		if(isAttached())
-			getPage().copyIdMap(); // Tell my parent I've changed.
+			getPage().startChangeJournal(); // Tell my page the tree changes.
 
 		m_oldChildren = m_children.toArray(new NodeBase[m_children.size()]);
 		for(int i = m_oldChildren.length; --i >= 0;) {
@@ -188,15 +188,7 @@ public class OptimalDeltaRenderer {
 		m_page.internalSetPhase(PagePhase.DELTARENDER);
 		if(DEBUG) {
 			DumpDirtyStateRenderer.dump(m_page.getBody());
-			System.out.println("--- BEFORE node map: ----");
-			Map<String, NodeBase> beforeMap = m_page.getBeforeMap();
-			if(beforeMap == null) {
-				System.out.println("No before map - no tree changes");
-			} else {
-				for(String k : beforeMap.keySet()) {
-					System.out.println(k + ": " + beforeMap.get(k));
-				}
-			}
+			System.out.println(m_page.internalHasTreeChanges() ? "Tree changed - full tree delta" : "No tree changes");
 		}
 
 		o().writeRaw("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n");
@@ -251,9 +243,9 @@ public class OptimalDeltaRenderer {
 		}
 
 		//-- Handle delayed stuff...
-		int pollinterval = DomApplication.get().calculatePollInterval(m_page.getConversation().isPollCallbackRequired());
-		if(pollinterval > 0) {
-			o().writeRaw("WebUI.startPolling(" + pollinterval + ");");
+		String pollcmd = DomApplication.get().getStartPollingJavascript(m_page.getConversation().isPollCallbackRequired());
+		if(pollcmd != null) {
+			o().writeRaw(pollcmd);
 		} else {
 			o().writeRaw("WebUI.cancelPolling();");
 		}
@@ -278,13 +270,13 @@ public class OptimalDeltaRenderer {
 	}
 
 	public void renderLoadCSS(@Nonnull String path) throws Exception {
-		String rurl = m_page.getBody().getThemedResourceRURL(path);
+		String rurl = ctx().getApplication().internalGetThemeManager().getCacheableThemedResourceRURL(ctx(), path);
 		path = ctx().getRelativePath(rurl);
 		o().writeRaw("WebUI.loadStylesheet(" + StringTool.strToJavascriptString(path, false) + ");\n");
 	}
 
 	public void renderLoadJavascript(@Nonnull String path) throws Exception {
-		String rurl = m_page.getBody().getThemedResourceRURL(path);
+		String rurl = ctx().getApplication().internalGetThemeManager().getCacheableThemedResourceRURL(ctx(), path);
 		path = ctx().getRelativePath(rurl);
 		o().writeRaw("WebUI.loadJavascript(" + StringTool.strToJavascriptString(path, false) + ");\n");
 	}
@@ -557,12 +549,9 @@ public class OptimalDeltaRenderer {
 			 * There is a tree delta; this is valid ONLY if this node existed earlier. If the node did not exist
 			 * earlier we have a logic error: the "upper" node should have seen this node as NEW, so abort.
 			 */
-			Map<String, NodeBase> beforeMap = m_page.getBeforeMap();
-			if(null == beforeMap)
-				throw new IllegalStateException("Before map is null inside delta?");
-			if(!beforeMap.containsKey(n.getActualID())) {
-				for(String s : beforeMap.keySet())
-					System.out.println("before key=" + s);
+			if(!m_page.internalHasTreeChanges())
+				throw new IllegalStateException("Before image is missing inside delta?");
+			if(!m_page.internalExistedBefore(n.getActualID())) {
 				throw new IllegalStateException("Rotary device exception: delta exists on NEW node, and we're trying to render the new node as a delta!? Node=" + n.getActualID());
 			}
 
@@ -663,10 +652,7 @@ public class OptimalDeltaRenderer {
 			nn.m_origNewIndex = i; // The actual index for the new node.
 
 			//-- Is this an addition from somewhere else? If so handle it here && remove from the working list
-			Map<String, NodeBase> beforeMap = m_page.getBeforeMap();
-			if(null == beforeMap)
-				throw new IllegalStateException("Before map is null inside delta??");
-			if(nn.internalGetOldParent() == null || nn.internalGetOldParent() != nc || !beforeMap.containsKey(nn.getActualID())) {
+			if(nn.internalGetOldParent() == null || nn.internalGetOldParent() != nc || !m_page.internalExistedBefore(nn.getActualID())) {
 				//-- Came from somewhere else or is new -> render.
 				/*
 				 * This node is NEW in this tree. We're pretty sure we need to ADD it then. This has
@@ -73,8 +73,19 @@ final public class Page implements IQContextContainer {
 	@Nonnull
 	private final Map<String, NodeBase> m_nodeMap = new HashMap<String, NodeBase>(127);
 
-	@Nullable
-	private Map<String, NodeBase> m_beforeMap;
+	/**
+	 * T as soon as the tree has changed in this request; from then on the change journal below
+	 * records the differences between the current ID map and the before-image.
+	 */
+	private boolean m_treeChanged;
+
+	/** The IDs registered after the tree started changing that were not in the before-image. */
+	@Nonnull
+	private Set<String> m_addedIdSet = Collections.EMPTY_SET;
+
+	/** The nodes in the before-image whose ID was unregistered after the tree started changing. */
+	@Nonnull
+	private Map<String, NodeBase> m_removedIdMap = Collections.EMPTY_MAP;
 
 	/**
 	 * Contains the header contributors in the order that they were added.
@@ -368,6 +379,8 @@ final public class Page implements IQContextContainer {
 		}
 		if(null != m_nodeMap.put(id, n))
 			throw new IllegalStateException("Duplicate node ID '" + id + "'!?!?");
+		if(m_treeChanged)
+			journalRegistered(id);
 		n.setPage(this);
 		n.onHeaderContributors(this);					// Ask the node for it's header contributors.
 		n.internalOnAddedToPage(this);
@@ -400,6 +413,8 @@ final public class Page implements IQContextContainer {
 		n.setPage(null);
 		if(m_nodeMap.remove(n.getActualID()) == null)
 			throw new IllegalStateException("The node with ID=" + n.getActualID() + " was not found!?");
+		if(m_treeChanged)
+			journalUnregistered(n);
 		m_pendingBuildSet.remove(n); // ?? Needed?
 	}
 
@@ -419,26 +434,73 @@ final public class Page implements IQContextContainer {
 	 * This code handles case 2. To prevent us from always having to create a before
 	 * image all calls that change the tree (removeComponent, addComponent) call
 	 * a signal function here. Only when that function gets called (the 1st time) will
-	 * a copy of the before-tree be made. This copy only encapsulates the structure;
-	 * the components themselves are not copied.
-	 * The existence of the before-structure will indicate that a full tree delta is
+	 * the page start to keep a journal of the IDs that are registered and unregistered
+	 * from then on. The journal together with the current ID map describes the before-image
+	 * of the structure, so its cost depends on the size of the change, not on the size of
+	 * the page. The components themselves are not copied.
+	 * The existence of the journal will indicate that a full tree delta is
 	 * to be done at response time.
 	 */
 
 	/**
 	 * Called by all methods that change this tree. As soon as this gets called
-	 * it checks to see if a before-image is present. If not then it gets created
-	 * so that the structure before the changes is maintained.
+	 * the page starts journaling ID changes, so that the structure before the
+	 * changes is maintained.
 	 */
-	final protected void copyIdMap() {
-		if(m_beforeMap != null)
+	final protected void startChangeJournal() {
+		m_treeChanged = true;
+	}
+
+	private void journalRegistered(@Nonnull String id) {
+		if(m_removedIdMap.remove(id) != null)				// Was in the before-image, then removed and now back?
+			return;
+		if(m_addedIdSet == Collections.EMPTY_SET)
+			m_addedIdSet = new HashSet<String>();
+		m_addedIdSet.add(id);
+	}
+
+	private void journalUnregistered(@Nonnull NodeBase n) {
+		String id = n.getActualID();
+		if(m_addedIdSet.remove(id))							// Added in this request, so not in the before-image
 			return;
-		m_beforeMap = new HashMap<String, NodeBase>(m_nodeMap);
+		if(m_removedIdMap == Collections.EMPTY_MAP)
+			m_removedIdMap = new HashMap<String, NodeBase>();
+		m_removedIdMap.put(id, n);
 	}
 
+	/**
+	 * T if the tree structure has changed since the last delta was rendered.
+	 */
+	final public boolean internalHasTreeChanges() {
+		return m_treeChanged;
+	}
+
+	/**
+	 * Used by the delta renderer: returns T if a node with the specified ID was part of the
+	 * page before the tree started to change.
+	 */
+	final public boolean internalExistedBefore(@Nonnull String id) {
+		if(!m_treeChanged)
+			throw new IllegalStateException("The tree has not changed: there is no before-image");
+		if(m_removedIdMap.containsKey(id))
+			return true;
+		return m_nodeMap.containsKey(id) && !m_addedIdSet.contains(id);
+	}
+
+	/**
+	 * Reconstructs the ID map as it was before the tree started to change, or returns null if the tree
+	 * did not change. This creates a copy of the whole map, so it should only be used for debugging.
+	 * @deprecated Use {@link #internalHasTreeChanges()} and {@link #internalExistedBefore(String)}.
+	 */
+	@Deprecated
 	@Nullable
 	final public Map<String, NodeBase> getBeforeMap() {
-		return m_beforeMap;
+		if(!m_treeChanged)
+			return null;
+		Map<String, NodeBase> map = new HashMap<String, NodeBase>(m_nodeMap);
+		map.keySet().removeAll(m_addedIdSet);
+		map.putAll(m_removedIdMap);
+		return map;
 	}
 
 	public void internalClearDeltaFully() {
@@ -448,7 +510,9 @@ final public class Page implements IQContextContainer {
 		m_removeAfterRenderList.clear();
 
 		getBody().internalClearDeltaFully();
-		m_beforeMap = null;
+		m_treeChanged = false;
+		m_addedIdSet = Collections.EMPTY_SET;
+		m_removedIdMap = Collections.EMPTY_MAP;
 		m_sb = null;
 	}
 
@@ -3,6 +3,7 @@ package to.etc.domui.sass;
 import to.etc.domui.parts.ParameterInfoImpl;
 import to.etc.domui.server.DomApplication;
 import to.etc.domui.trouble.ThingyNotFoundException;
+import to.etc.domui.util.resources.IModifyableResource;
 import to.etc.domui.util.resources.IResourceDependencyList;
 import to.etc.domui.util.resources.IResourceRef;
 import to.etc.util.FileTool;
@@ -188,7 +189,8 @@ abstract public class AbstractSassResolver<O> {
 			try(InputStream is = ref.getInputStream()) {
 				content = FileTool.readStreamAsString(is, "utf-8");
 			}
-			O imp = createInput(name, content);
+			long version = ref instanceof IModifyableResource ? ((IModifyableResource) ref).getLastModified() : 0;
+			O imp = createInput(name, content, version);
 			m_map.put(name, new Line<>(name, imp));
 			return imp;
 		} catch(ThingyNotFoundException tnf) {				// Normal exception if resource cannot be located.
@@ -201,6 +203,14 @@ abstract public class AbstractSassResolver<O> {
 
 	abstract protected O createInput(String path, String data);
 
+	/**
+	 * Create the input for a resource, passing the resource's last modification time (or 0 if
+	 * it cannot change) so that the result can be cached across compilations.
+	 */
+	protected O createInput(String path, String data, long version) {
+		return createInput(path, data);
+	}
+
 	@Nonnull private O calculateParameterFile() {
 		O pf = m_parameterFile;
 		if(null == pf) {
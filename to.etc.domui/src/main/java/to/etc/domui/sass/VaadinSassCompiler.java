@@ -1,5 +1,6 @@
 package to.etc.domui.sass;
 
+import com.vaadin.sass.internal.ParsedStylesheetCache;
 import com.vaadin.sass.internal.ScssContext;
 import com.vaadin.sass.internal.ScssContext.UrlMode;
 import com.vaadin.sass.internal.ScssStylesheet;
@@ -21,6 +22,14 @@ import java.io.Writer;
  * Created on 29-10-17.
  */
 public class VaadinSassCompiler implements ISassCompiler {
+	/** The parsed scss files, shared by all compilations so that common imports are parsed only once. */
+	static private final ParsedStylesheetCache m_parsedCache = new ParsedStylesheetCache();
+
+	@Nonnull
+	static public ParsedStylesheetCache getParsedStylesheetCache() {
+		return m_parsedCache;
+	}
+
 	@Override
 	public void compiler(String rurl, Writer output, @Nonnull ParameterInfoImpl params, @Nonnull IResourceDependencyList rdl) throws Exception {
 		SassCapturingErrorHandler errorHandler = new SassCapturingErrorHandler();
@@ -39,6 +48,7 @@ public class VaadinSassCompiler implements ISassCompiler {
 		ScssStylesheet parent = new ScssStylesheet();
 		VaadinSassResolver resolver = new VaadinSassResolver(rdl, basePath, params);
 		parent.addResolver(resolver);
+		parent.setParsedStylesheetCache(m_parsedCache);
 		parent.setCharset("utf-8");
 		parent.setFile(new File(rurl));				// jal 20170702 So bad, but there is no other reliable way to present parentage
 
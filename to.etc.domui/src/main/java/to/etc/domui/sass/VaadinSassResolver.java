@@ -2,6 +2,7 @@ package to.etc.domui.sass;
 
 import com.vaadin.sass.internal.ScssStylesheet;
 import com.vaadin.sass.internal.resolver.ScssStylesheetResolver;
+import com.vaadin.sass.internal.resolver.VersionedInputSource;
 import org.w3c.css.sac.InputSource;
 import to.etc.domui.parts.ParameterInfoImpl;
 import to.etc.domui.util.resources.IResourceDependencyList;
@@ -17,8 +18,15 @@ final class VaadinSassResolver extends AbstractSassResolver<InputSource> impleme
 		super(params, dependencyList);
 	}
 
+	/**
+	 * Generated content like the parameter file is never cached.
+	 */
 	@Override protected InputSource createInput(String path, String data) {
-		return new InputSource(data);
+		return new VersionedInputSource(path, data, VersionedInputSource.UNVERSIONED);
+	}
+
+	@Override protected InputSource createInput(String path, String data, long version) {
+		return new VersionedInputSource(path, data, version);
 	}
 
 	/**
@@ -237,6 +237,8 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 		WindowSession cm = null;
 		if(cida != null) {
 			cm = ctx.getSession().findWindowSession(cida.getWindowId());
+			if(cm != null)
+				ctx.internalSetWindowSession(cm);					// Lock the window before it is used
 		}
 
 		if(cm == null) {
@@ -261,6 +263,7 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 
 			//-- We explicitly need to create a new Window and need to send a redirect back
 			cm = ctx.getSession().createWindowSession();
+			ctx.internalSetWindowSession(cm);
 			String newmsg = "$cid: input windowid=" + cid + " not found - created wid=" + cm.getWindowID();
 			if(LOG.isDebugEnabled())
 				LOG.debug(newmsg);
@@ -342,6 +345,14 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 		ctx.internalSetWindowSession(cm);
 		cm.clearGoto();
 
+		//-- A long-poll request waits here, without holding any lock, until there is something to send.
+		if(Constants.ACMD_ASYPOLL.equals(action) && m_application.isLongPolling() && ctx.getParameter(Constants.PARAM_LONG_POLL) != null) {
+			if(!waitForChanges(ctx, cm, cida.getConversationId())) {
+				generateExpiredPollasy(ctx);
+				return;
+			}
+		}
+
 		/*
 		 * Determine if this is an AJAX request or a normal "URL" request. If it is a non-AJAX
 		 * request we'll always respond with a full page re-render, but we must check to see if
@@ -532,7 +543,7 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 			} else {
 				w = ctx.getOutputWriter("text/html; charset=UTF-8", "utf-8");
 			}
-			IBrowserOutput out = new PrettyXmlOutputWriter(w);
+			IBrowserOutput out = m_application.createOutputWriter(w);
 
 			HtmlFullRenderer hr = m_application.findRendererFor(ctx.getBrowserVersion(), out);
 			hr.render(ctx, page);
@@ -926,7 +937,7 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 	 * Sends a redirect as a 304 MOVED command. This should be done for all full-requests.
 	 */
 	static public void generateHttpRedirect(final RequestContextImpl ctx, final String to, final String rsn) throws Exception {
-		IBrowserOutput out = new PrettyXmlOutputWriter(ctx.getOutputWriter("text/html; charset=UTF-8", "utf-8"));
+		IBrowserOutput out = ctx.getApplication().createOutputWriter(ctx.getOutputWriter("text/html; charset=UTF-8", "utf-8"));
 		out.writeRaw("<!DOCTYPE html PUBLIC \"-//W3C//DTD HTML 4.01 Transitional//EN\" \"http://www.w3.org/TR/html4/loose.dtd\">\n" + "<html><head><script language=\"javascript\"><!--\n"
 			+ "location.replace(" + StringTool.strToJavascriptString(to, true) + ");\n" + "--></script>\n" + "</head><body>" + rsn + "</body></html>\n");
 	}
@@ -938,7 +949,7 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 		if(LOG.isInfoEnabled())
 			LOG.info("redirecting to " + url);
 
-		IBrowserOutput out = new PrettyXmlOutputWriter(ctx.getOutputWriter("text/xml; charset=UTF-8", "utf-8"));
+		IBrowserOutput out = ctx.getApplication().createOutputWriter(ctx.getOutputWriter("text/xml; charset=UTF-8", "utf-8"));
 		out.tag("redirect");
 		out.attr("url", url);
 		out.endAndCloseXmltag();
@@ -951,7 +962,7 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 	 */
 	private void generateExpired(final RequestContextImpl ctx, final String message) throws Exception {
 		//-- We stay on the same page. Render tree delta as response
-		IBrowserOutput out = new PrettyXmlOutputWriter(ctx.getOutputWriter("text/xml; charset=UTF-8", "utf-8"));
+		IBrowserOutput out = ctx.getApplication().createOutputWriter(ctx.getOutputWriter("text/xml; charset=UTF-8", "utf-8"));
 		out.tag("expired");
 		out.endtag();
 
@@ -964,19 +975,44 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 
 	private void generateEmptyDelta(final RequestContextImpl ctx) throws Exception {
 		//-- We stay on the same page. Render tree delta as response
-		IBrowserOutput out = new PrettyXmlOutputWriter(ctx.getOutputWriter("text/xml; charset=UTF-8", "utf-8"));
+		IBrowserOutput out = ctx.getApplication().createOutputWriter(ctx.getOutputWriter("text/xml; charset=UTF-8", "utf-8"));
 		out.tag("delta");
 		out.endtag();
 		out.closetag("delta");
 	}
 
+	/**
+	 * Let a long-poll request wait until its conversation has changes to show, or until the long poll timeout
+	 * expires. The request releases its session and window locks while it waits, so the user's other requests
+	 * can run. Returns F if the conversation was destroyed in the meantime.
+	 */
+	private boolean waitForChanges(@Nonnull RequestContextImpl ctx, @Nonnull WindowSession cm, @Nonnull String conversationId) throws Exception {
+		ConversationContext cc = cm.findConversation(conversationId);
+		if(null == cc)
+			return true;											// Let the normal code handle this
+		long maxWait = cc.internalGetLongPollWait(m_application.getLongPollTimeout(), m_application.getDefaultPollInterval());
+		if(maxWait <= 0)
+			return true;
+
+		cm.internalDetachConversations();
+		ctx.internalSuspendLocks();
+		try {
+			cc.internalAwaitChanges(maxWait);
+		} catch(InterruptedException x) {
+			//-- Just return what we have
+		} finally {
+			ctx.internalResumeLocks();
+		}
+		return cm.findConversation(conversationId) == cc;			// Also attaches the conversations again
+	}
+
 	/**
 	 * Generates an 'expiredOnPollasy' message when server receives pollasy call from expired page.
 	 * Since pollasy calls are frequent, expired here means that user has navigated to some other page in meanwhile, and that response should be ignored by browser.
 	 */
 	private void generateExpiredPollasy(final RequestContextImpl ctx) throws Exception {
 		//-- We stay on the same page. Render tree delta as response
-		IBrowserOutput out = new PrettyXmlOutputWriter(ctx.getOutputWriter("text/xml; charset=UTF-8", "utf-8"));
+		IBrowserOutput out = ctx.getApplication().createOutputWriter(ctx.getOutputWriter("text/xml; charset=UTF-8", "utf-8"));
 		out.tag("expiredOnPollasy");
 		out.endtag();
 		out.closetag("expiredOnPollasy");
@@ -1198,7 +1234,7 @@ public class ApplicationRequestHandler implements IFilterRequestHandler {
 		page.internalDeltaBuild();
 		// /ORDERED
 
-		IBrowserOutput out = new PrettyXmlOutputWriter(ctx.getOutputWriter("text/xml; charset=UTF-8", "utf-8"));
+		IBrowserOutput out = ctx.getApplication().createOutputWriter(ctx.getOutputWriter("text/xml; charset=UTF-8", "utf-8"));
 
 		long ts = System.nanoTime();
 		//		String	usag = ctx.getUserAgent();
@@ -0,0 +1,165 @@
+/*
+ * DomUI Java User Interface library
+ * Copyright (c) 2010 by Frits Jalvingh, Itris B.V.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * See the "sponsors" file for a list of supporters.
+ *
+ * The latest version of DomUI and related code, support and documentation
+ * can be found at http://www.domui.org/
+ * The contact for the project is Frits Jalvingh <jal@etc.to>.
+ */
+package to.etc.domui.server;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The content encodings (compression methods) that DomUI can use for a response.
+ */
+public enum ContentEncoding {
+	IDENTITY(null),
+	GZIP("gzip"),
+	DEFLATE("deflate");
+
+	/** Responses smaller than this are not worth compressing. */
+	static public final int MIN_COMPRESS_SIZE = 512;
+
+	@Nullable
+	final private String m_token;
+
+	ContentEncoding(@Nullable String token) {
+		m_token = token;
+	}
+
+	/**
+	 * The value for the Content-Encoding header, or null for {@link #IDENTITY}.
+	 */
+	@Nullable
+	public String getToken() {
+		return m_token;
+	}
+
+	/**
+	 * Wrap the stream in a compressing stream for this encoding. The returned stream must be closed
+	 * to write the compressed trailer.
+	 */
+	@Nonnull
+	public OutputStream wrap(@Nonnull OutputStream os) throws IOException {
+		switch(this) {
+			default:
+				return os;
+			case GZIP:
+				return new GZIPOutputStream(os, 8192);
+			case DEFLATE:
+				return new DeflaterOutputStream(os);
+		}
+	}
+
+	/**
+	 * Compress the specified data using this encoding.
+	 */
+	@Nonnull
+	public byte[] encode(@Nonnull byte[][] data, int size) throws IOException {
+		if(this == IDENTITY)
+			throw new IllegalStateException("Identity encoding does not encode");
+		ByteArrayOutputStream bos = new ByteArrayOutputStream(size / 3 + 64);
+		try(OutputStream os = wrap(bos)) {
+			for(byte[] buf : data)
+				os.write(buf);
+		}
+		return bos.toByteArray();
+	}
+
+	/**
+	 * Add the Content-Encoding and Vary headers for this encoding to the response.
+	 */
+	public void addHeaders(@Nonnull IRequestResponse rr) {
+		String token = m_token;
+		if(null != token) {
+			rr.addHeader("Content-Encoding", token);
+			rr.addHeader("Vary", "Accept-Encoding");
+		}
+	}
+
+	/**
+	 * Decide on the encoding to use from the request's Accept-Encoding header. Gzip is preferred
+	 * over deflate as some browsers handle deflate incorrectly; encodings with q=0 are not used.
+	 */
+	@Nonnull
+	static public ContentEncoding select(@Nullable String acceptEncoding) {
+		if(null == acceptEncoding)
+			return IDENTITY;
+		boolean deflate = false;
+		for(String part : acceptEncoding.split(",")) {
+			String name = part;
+			int pos = part.indexOf(';');
+			if(pos != -1) {
+				name = part.substring(0, pos);
+				if(isZeroQuality(part.substring(pos + 1)))
+					continue;
+			}
+			name = name.trim();
+			if("gzip".equalsIgnoreCase(name) || "x-gzip".equalsIgnoreCase(name))
+				return GZIP;
+			if("deflate".equalsIgnoreCase(name))
+				deflate = true;
+		}
+		return deflate ? DEFLATE : IDENTITY;
+	}
+
+	/**
+	 * Select the encoding for the specified request.
+	 */
+	@Nonnull
+	static public ContentEncoding select(@Nonnull IRequestResponse rr) {
+		return select(rr.getRequestHeader("Accept-Encoding"));
+	}
+
+	static private boolean isZeroQuality(@Nonnull String params) {
+		for(String param : params.split(";")) {
+			param = param.trim();
+			if(param.startsWith("q=")) {
+				try {
+					return Double.parseDouble(param.substring(2).trim()) <= 0.0;
+				} catch(NumberFormatException x) {
+					return false;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns T if content of the specified mime type is worth compressing: text and script, but
+	 * not images, archives and the like which are already compressed.
+	 */
+	static public boolean isCompressible(@Nullable String contentType) {
+		if(null == contentType)
+			return false;
+		String ct = contentType.toLowerCase();
+		return ct.startsWith("text/")
+			|| ct.contains("javascript")
+			|| ct.contains("json")
+			|| ct.contains("xml")
+			|| ct.contains("svg");
+	}
+}
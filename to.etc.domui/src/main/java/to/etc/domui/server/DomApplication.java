@@ -39,11 +39,13 @@ import to.etc.domui.component.layout.title.AppPageTitleBar;
 import to.etc.domui.component.layout.title.BasePageTitleBar;
 import to.etc.domui.component.lookup.ILookupControlFactory;
 import to.etc.domui.component2.controlfactory.ControlCreatorRegistry;
+import to.etc.domui.dom.FastXmlOutputWriter;
 import to.etc.domui.dom.HtmlFullRenderer;
 import to.etc.domui.dom.HtmlTagRenderer;
 import to.etc.domui.dom.IBrowserOutput;
 import to.etc.domui.dom.IHtmlRenderFactory;
 import to.etc.domui.dom.MsCrapwareRenderFactory;
+import to.etc.domui.dom.PrettyXmlOutputWriter;
 import to.etc.domui.dom.StandardHtmlFullRenderer;
 import to.etc.domui.dom.StandardHtmlTagRenderer;
 import to.etc.domui.dom.errors.IExceptionListener;
@@ -61,6 +63,7 @@ import to.etc.domui.injector.IPageInjector;
 import to.etc.domui.login.AccessDeniedPage;
 import to.etc.domui.login.ILoginAuthenticator;
 import to.etc.domui.login.ILoginDialogFactory;
+import to.etc.domui.parts.ExtendedParameterInfoImpl;
 import to.etc.domui.parts.SvgPartFactory;
 import to.etc.domui.sass.SassPartFactory;
 import to.etc.domui.server.parts.IPartFactory;
@@ -71,6 +74,7 @@ import to.etc.domui.server.parts.PartService;
 import to.etc.domui.state.AppSession;
 import to.etc.domui.state.ConversationContext;
 import to.etc.domui.state.DelayedActivitiesManager;
+import to.etc.domui.state.DelayedActivityExecutor;
 import to.etc.domui.state.PageParameters;
 import to.etc.domui.state.UIGoto;
 import to.etc.domui.state.WindowSession;
@@ -83,6 +87,7 @@ import to.etc.domui.themes.ThemeManager;
 import to.etc.domui.themes.ThemePartFactory;
 import to.etc.domui.themes.ThemeResourceFactory;
 import to.etc.domui.themes.fragmented.FragmentedThemeFactory;
+import to.etc.domui.themes.sass.SassTheme;
 import to.etc.domui.themes.sass.SassThemeFactory;
 import to.etc.domui.themes.simple.SimpleThemeFactory;
 import to.etc.domui.trouble.DataAccessViolationException;
@@ -119,6 +124,7 @@ import javax.annotation.Nullable;
 import javax.annotation.OverridingMethodsMustInvokeSuper;
 import javax.servlet.http.HttpServletRequest;
 import java.io.File;
+import java.io.Writer;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
@@ -131,6 +137,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  *
@@ -157,7 +164,7 @@ public abstract class DomApplication {
 	private final PartRequestHandler m_partHandler = new PartRequestHandler(m_partService);
 
 	@Nonnull
-	private Set<IAppSessionListener> m_appSessionListeners = new HashSet<IAppSessionListener>();
+	private volatile Set<IAppSessionListener> m_appSessionListeners = Collections.emptySet();
 
 	@Nullable
 	private File m_webFilePath;
@@ -195,60 +202,108 @@ public abstract class DomApplication {
 	@Nonnull
 	private ControlCreatorRegistry m_controlCreatorRegistry = new ControlCreatorRegistry();
 
-	private boolean m_developmentMode;
+	private volatile boolean m_developmentMode;
 
 	/** When T the UI will try to generate test ID's and helper thingies to easily show those IDs */
-	private boolean m_uiTestMode;
+	private volatile boolean m_uiTestMode;
 
 	/** When > 0, this defines that pages are automatically reloaded when changed */
-	private int m_autoRefreshPollInterval;
+	private volatile int m_autoRefreshPollInterval;
 
 	/** When > 0, this defines the #of milliseconds for doing page keepalive. */
-	private int m_keepAliveInterval;
+	private volatile int m_keepAliveInterval;
 
 	/** The default poll interval time for pages containing Async objects (see {@link DelayedActivitiesManager}). */
-	private int m_defaultPollInterval = 2500;
+	private volatile int m_defaultPollInterval = 2500;
 
 	/** When set, problem reports have a "mail" button and send mail here, */
-	private String m_problemMailAddress;
+	private volatile String m_problemMailAddress;
 
-	private String m_problemMailSubject;
+	private volatile String m_problemMailSubject;
 
-	private boolean m_showProblemTemplate;
+	private volatile boolean m_showProblemTemplate;
 
-	static private DomApplication m_application;
+	static private volatile DomApplication m_application;
 
-	static private int m_nextPageTag = (int) (System.nanoTime() & 0x7fffffff);
+	static private final AtomicInteger m_nextPageTag = new AtomicInteger((int) (System.nanoTime() & 0x7fffffff));
 
 	private final boolean m_logOutput = DeveloperOptions.getBool("domui.log", false);
 
+	/** When T, page and delta output is streamed to the client through a bounded buffer instead of being fully buffered. */
+	private volatile boolean m_streamingOutput;
+
+	/** The size of the byte buffer used for streaming output, see {@link StreamingOutputWriter}. */
+	private volatile int m_outputBufferSize = StreamingOutputWriter.DEFAULT_BUFFER_SIZE;
+
+	/** When T, pages and deltas are rendered without indentation using {@link FastXmlOutputWriter}. */
+	private volatile boolean m_compactOutput;
+
+	/** When T, pages and deltas are compressed by DomUI when the browser accepts that. */
+	private volatile boolean m_compressOutput;
+
+	/** When T, stylesheet and script URLs in pages contain the content hash of the resource. */
+	private volatile boolean m_contentHashedResources;
+
+	/*
+	 * The lists and sets of listeners, factories and the like below are all copy-on-write: they are never
+	 * changed after they have been assigned, and a change assigns a new, unmodifiable, copy while holding
+	 * the lock on this. This allows them to be read without locking.
+	 */
 	@Nonnull
-	private List<IRequestInterceptor> m_interceptorList = new ArrayList<IRequestInterceptor>();
+	private volatile List<IRequestInterceptor> m_interceptorList = Collections.emptyList();
 
 	/**
 	 * Contains the header contributors in the order that they were added.
 	 */
 	@Nonnull
-	private List<HeaderContributorEntry> m_orderedContributorList = Collections.EMPTY_LIST;
+	private volatile List<HeaderContributorEntry> m_orderedContributorList = Collections.EMPTY_LIST;
 
 	@Nonnull
-	private List<INewPageInstantiated> m_newPageInstListeners = Collections.EMPTY_LIST;
+	private volatile List<INewPageInstantiated> m_newPageInstListeners = Collections.EMPTY_LIST;
 
 	/** Timeout for a window session, in minutes. */
 	private int m_windowSessionTimeout = 15;
 
+	/** When T, requests lock the WindowSession they work on instead of the whole AppSession. */
+	private volatile boolean m_windowRequestLocking;
+
+	/** The time in milliseconds a request can wait for the session or window lock before a warning is logged; 0 means never. */
+	private volatile int m_requestLockWarnTime = 10 * 1000;
+
+	/** The time in milliseconds a request can wait for the session or window lock before it fails; 0 means wait forever. */
+	private volatile int m_requestLockTimeout;
+
+	/** When T, pages with delayed activities or polled nodes use long polling instead of interval polling. */
+	private volatile boolean m_longPolling;
+
+	/** The max time in milliseconds a long-poll request waits at the server for changes. */
+	private volatile int m_longPollTimeout = 25 * 1000;
+
+	/** The max #of threads running delayed activities for all conversations. */
+	private volatile int m_delayedActivityThreads = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+	/** When T, delayed activities run on virtual threads, if the JDK supports them. */
+	private volatile boolean m_delayedActivityVirtualThreads;
+
+	/** The max #of activities a single conversation can have waiting for execution; 0 means no limit. */
+	private volatile int m_maxPendingActivities;
+
+	/** The executor running all delayed activities, created when first needed. */
+	@Nullable
+	private DelayedActivityExecutor m_delayedActivityExecutor;
+
 	/** The default expiry time for resources, in seconds. */
-	private int m_defaultExpiryTime = 1 * 24 * 60 * 60;
+	private volatile int m_defaultExpiryTime = 1 * 24 * 60 * 60;
 
-	private ILoginAuthenticator m_loginAuthenticator;
+	private volatile ILoginAuthenticator m_loginAuthenticator;
 
-	private ILoginDialogFactory m_loginDialogFactory;
+	private volatile ILoginDialogFactory m_loginDialogFactory;
 
 	@Nonnull
-	private List<ILoginListener> m_loginListenerList = Collections.EMPTY_LIST;
+	private volatile List<ILoginListener> m_loginListenerList = Collections.EMPTY_LIST;
 
 	@Nonnull
-	private IPageInjector m_injector = new DefaultPageInjector();
+	private volatile IPageInjector m_injector = new DefaultPageInjector();
 
 	@Nonnull
 	private ResourceInfoCache	m_resourceInfoCache = new ResourceInfoCache(this);
@@ -281,13 +336,13 @@ public abstract class DomApplication {
 	 * Render factories for different browser versions.
 	 */
 	@Nonnull
-	private List<IHtmlRenderFactory> m_renderFactoryList = new ArrayList<IHtmlRenderFactory>();
+	private volatile List<IHtmlRenderFactory> m_renderFactoryList = Collections.emptyList();
 
 	@Nonnull
-	private List<IResourceFactory> m_resourceFactoryList = Collections.EMPTY_LIST;
+	private volatile List<IResourceFactory> m_resourceFactoryList = Collections.EMPTY_LIST;
 
 	@Nonnull
-	private List<FilterRef> m_requestHandlerList = Collections.emptyList();
+	private volatile List<FilterRef> m_requestHandlerList = Collections.emptyList();
 
 	@Nonnull
 	private Map<String, Object> m_attributeMap = new ConcurrentHashMap<>();
@@ -307,13 +362,14 @@ public abstract class DomApplication {
 	};
 
 	@Nonnull
-	private List<IAsyncListener< ? >> m_asyncListenerList = Collections.emptyList();
+	private volatile List<IAsyncListener< ? >> m_asyncListenerList = Collections.emptyList();
 
 	@Nonnull
 	private final WebActionRegistry m_webActionRegistry = new WebActionRegistry();
 
 	/** The ORDERED list of [exception.class, handler] pairs. Exception SUPERCLASSES are ordered AFTER their subclasses. */
-	private List<ExceptionEntry> m_exceptionListeners = new ArrayList<ExceptionEntry>();
+	@Nonnull
+	private volatile List<ExceptionEntry> m_exceptionListeners = Collections.emptyList();
 
 	/*--------------------------------------------------------------*/
 	/*	CODING:	Initialization and session management.				*/
@@ -439,7 +495,7 @@ public abstract class DomApplication {
 		registerUrlPart(new InternalResourcePart(), InternalResourcePart.MATCHER);
 	}
 
-	static private synchronized void setCurrentApplication(DomApplication da) {
+	static private void setCurrentApplication(DomApplication da) {
 		m_application = da;
 	}
 
@@ -448,7 +504,7 @@ public abstract class DomApplication {
 	 * @return
 	 */
 	@Nonnull
-	static synchronized public DomApplication get() {
+	static public DomApplication get() {
 		DomApplication da = m_application;
 		if(da == null)
 			throw new IllegalStateException("The 'current application' is unset!?");
@@ -456,16 +512,18 @@ public abstract class DomApplication {
 	}
 
 	public synchronized void addSessionListener(final IAppSessionListener l) {
-		m_appSessionListeners = new HashSet<IAppSessionListener>(m_appSessionListeners);
-		m_appSessionListeners.add(l);
+		Set<IAppSessionListener> set = new HashSet<IAppSessionListener>(m_appSessionListeners);
+		set.add(l);
+		m_appSessionListeners = Collections.unmodifiableSet(set);
 	}
 
 	public synchronized void removeSessionListener(final IAppSessionListener l) {
-		m_appSessionListeners = new HashSet<IAppSessionListener>(m_appSessionListeners);
-		m_appSessionListeners.remove(l);
+		Set<IAppSessionListener> set = new HashSet<IAppSessionListener>(m_appSessionListeners);
+		set.remove(l);
+		m_appSessionListeners = Collections.unmodifiableSet(set);
 	}
 
-	private synchronized Set<IAppSessionListener> getAppSessionListeners() {
+	private Set<IAppSessionListener> getAppSessionListeners() {
 		return m_appSessionListeners;
 	}
 
@@ -516,7 +574,7 @@ public abstract class DomApplication {
 	 * @return
 	 */
 	@Nonnull
-	private synchronized List<FilterRef> getRequestHandlerList() {
+	private List<FilterRef> getRequestHandlerList() {
 		return m_requestHandlerList;
 	}
 
@@ -525,9 +583,10 @@ public abstract class DomApplication {
 	 * @param fh
 	 */
 	public synchronized void addRequestHandler(@Nonnull IFilterRequestHandler fh, int priority) {
-		m_requestHandlerList = new ArrayList<>(m_requestHandlerList);
-		m_requestHandlerList.add(new FilterRef(fh, priority));
-		Collections.sort(m_requestHandlerList, C_HANDLER_DESCPRIO);			// Leave the list ordered by descending priority.
+		List<FilterRef> list = new ArrayList<>(m_requestHandlerList);
+		list.add(new FilterRef(fh, priority));
+		Collections.sort(list, C_HANDLER_DESCPRIO);							// Leave the list ordered by descending priority.
+		m_requestHandlerList = Collections.unmodifiableList(list);
 	}
 
 	/**
@@ -592,6 +651,14 @@ public abstract class DomApplication {
 		} catch(Throwable x) {
 			AppFilter.LOG.error("Exception when destroying Application", x);
 		}
+		m_partService.destroy();
+		DelayedActivityExecutor dx;
+		synchronized(this) {
+			dx = m_delayedActivityExecutor;
+			m_delayedActivityExecutor = null;
+		}
+		if(null != dx)
+			dx.shutdown();
 	}
 
 	/**
@@ -716,12 +783,8 @@ public abstract class DomApplication {
 		m_applicationContext = rest;
 	}
 
-	static public synchronized final int internalNextPageTag() {
-		int id = ++m_nextPageTag;
-		if(id <= 0) {
-			id = m_nextPageTag = 1;
-		}
-		return id;
+	static public final int internalNextPageTag() {
+		return m_nextPageTag.updateAndGet(id -> id == Integer.MAX_VALUE ? 1 : id + 1);
 	}
 
 	@Nonnull
@@ -812,6 +875,29 @@ public abstract class DomApplication {
 		//		return new HtmlFullRenderer(base, o);
 	}
 
+	/**
+	 * Create the output writer used to render pages and deltas. This returns a {@link FastXmlOutputWriter}
+	 * when compact output is enabled, and an indenting {@link PrettyXmlOutputWriter} otherwise.
+	 */
+	@Nonnull
+	public IBrowserOutput createOutputWriter(@Nonnull Writer w) {
+		if(m_compactOutput)
+			return new FastXmlOutputWriter(w);
+		return new PrettyXmlOutputWriter(w);
+	}
+
+	/**
+	 * When T all page and delta output is rendered without indentation, which is smaller and
+	 * cheaper to generate. This is meant for production; it defaults to false.
+	 */
+	public boolean isCompactOutput() {
+		return m_compactOutput;
+	}
+
+	public void setCompactOutput(boolean compactOutput) {
+		m_compactOutput = compactOutput;
+	}
+
 	public HtmlTagRenderer findTagRendererFor(BrowserVersion bv, final IBrowserOutput o) {
 		boolean tm = isUiTestMode();
 		for(IHtmlRenderFactory f : getRenderFactoryList()) {
@@ -822,15 +908,16 @@ public abstract class DomApplication {
 		return new StandardHtmlTagRenderer(bv, o, tm);
 	}
 
-	private synchronized List<IHtmlRenderFactory> getRenderFactoryList() {
+	private List<IHtmlRenderFactory> getRenderFactoryList() {
 		return m_renderFactoryList;
 	}
 
 	public synchronized void addRenderFactory(IHtmlRenderFactory f) {
 		if(m_renderFactoryList.contains(f))
 			throw new IllegalStateException("Don't be silly, this one is already added");
-		m_renderFactoryList = new ArrayList<IHtmlRenderFactory>(m_renderFactoryList);
-		m_renderFactoryList.add(0, f);
+		List<IHtmlRenderFactory> list = new ArrayList<IHtmlRenderFactory>(m_renderFactoryList);
+		list.add(0, f);
+		m_renderFactoryList = Collections.unmodifiableList(list);
 	}
 
 	/*--------------------------------------------------------------*/
@@ -841,11 +928,11 @@ public abstract class DomApplication {
 	 * reloadable classes.
 	 * @return
 	 */
-	public synchronized boolean inDevelopmentMode() {
+	public boolean inDevelopmentMode() {
 		return m_developmentMode;
 	}
 
-	public synchronized boolean isUiTestMode() {
+	public boolean isUiTestMode() {
 		return m_uiTestMode;
 	}
 
@@ -860,7 +947,7 @@ public abstract class DomApplication {
 	 * refresh time in milliseconds.
 	 * @return
 	 */
-	public synchronized int getAutoRefreshPollInterval() {
+	public int getAutoRefreshPollInterval() {
 		return m_autoRefreshPollInterval;
 	}
 
@@ -868,31 +955,123 @@ public abstract class DomApplication {
 	 * The default poll interval time for pages containing Async objects (see {@link DelayedActivitiesManager}), defaulting
 	 * to 2500 (2.5 seconds).
 	 */
-	synchronized public int getDefaultPollInterval() {
+	public int getDefaultPollInterval() {
 		return m_defaultPollInterval;
 	}
 
-	synchronized public void setDefaultPollInterval(int defaultPollInterval) {
+	public void setDefaultPollInterval(int defaultPollInterval) {
 		m_defaultPollInterval = defaultPollInterval;
 	}
 
-	public synchronized int calculatePollInterval(boolean pollCallbackRequired) {
+	public int calculatePollInterval(boolean pollCallbackRequired) {
 		int pollinterval = Integer.MAX_VALUE;
-		if(m_keepAliveInterval > 0)
-			pollinterval = m_keepAliveInterval;
-		if(m_autoRefreshPollInterval > 0) {
-			if(m_autoRefreshPollInterval < pollinterval)
-				pollinterval = m_autoRefreshPollInterval;
+		int keepAliveInterval = m_keepAliveInterval;
+		if(keepAliveInterval > 0)
+			pollinterval = keepAliveInterval;
+		int autoRefreshPollInterval = m_autoRefreshPollInterval;
+		if(autoRefreshPollInterval > 0) {
+			if(autoRefreshPollInterval < pollinterval)
+				pollinterval = autoRefreshPollInterval;
 		}
 		if(pollCallbackRequired) {
-			if(m_defaultPollInterval < pollinterval)
-				pollinterval = m_defaultPollInterval;
+			int defaultPollInterval = m_defaultPollInterval;
+			if(defaultPollInterval < pollinterval)
+				pollinterval = defaultPollInterval;
 		}
 		if(pollinterval == Integer.MAX_VALUE)
 			return 0;
 		return pollinterval;
 	}
 
+	/**
+	 * Return the Javascript that makes the client poll for changes on a page, or null when the page needs no polling.
+	 */
+	@Nullable
+	public String getStartPollingJavascript(boolean pollCallbackRequired) {
+		if(pollCallbackRequired && m_longPolling)
+			return "WebUI.startLongPolling();";
+		int pollinterval = calculatePollInterval(pollCallbackRequired);
+		if(pollinterval > 0)
+			return "WebUI.startPolling(" + pollinterval + ");";
+		return null;
+	}
+
+	/**
+	 * When T, a page that needs callbacks for delayed activities or {@link to.etc.domui.state.IPolledForUpdate} nodes
+	 * uses long polling: the client sends a single poll request that waits at the server until there are changes, or
+	 * until the {@link #getLongPollTimeout()} expires. When F (the default) the client polls every poll interval.
+	 * A waiting request uses a server thread but holds no session or window lock.
+	 */
+	public boolean isLongPolling() {
+		return m_longPolling;
+	}
+
+	public void setLongPolling(boolean longPolling) {
+		m_longPolling = longPolling;
+	}
+
+	/**
+	 * The max time, in milliseconds, that a long-poll request waits for changes. Defaults to 25 seconds,
+	 * which is below the idle timeout of most proxies.
+	 */
+	public int getLongPollTimeout() {
+		return m_longPollTimeout;
+	}
+
+	public void setLongPollTimeout(int longPollTimeout) {
+		m_longPollTimeout = longPollTimeout;
+	}
+
+	/**
+	 * The max #of threads that run delayed activities, for all conversations together. Defaults to
+	 * the #of processors with a minimum of 2. Must be set before the first activity is started.
+	 */
+	public int getDelayedActivityThreads() {
+		return m_delayedActivityThreads;
+	}
+
+	public void setDelayedActivityThreads(int delayedActivityThreads) {
+		if(delayedActivityThreads <= 0)
+			throw new IllegalArgumentException("The #of threads must be > 0");
+		m_delayedActivityThreads = delayedActivityThreads;
+	}
+
+	/**
+	 * When T, delayed activities run on virtual threads when the JDK supports them, still limited to
+	 * {@link #getDelayedActivityThreads()} at the same time. Must be set before the first activity is started.
+	 */
+	public boolean isDelayedActivityVirtualThreads() {
+		return m_delayedActivityVirtualThreads;
+	}
+
+	public void setDelayedActivityVirtualThreads(boolean delayedActivityVirtualThreads) {
+		m_delayedActivityVirtualThreads = delayedActivityVirtualThreads;
+	}
+
+	/**
+	 * The max #of activities that a single conversation can have waiting for execution; scheduling
+	 * more fails with an IllegalStateException. Defaults to 0, meaning no limit.
+	 */
+	public int getMaxPendingActivities() {
+		return m_maxPendingActivities;
+	}
+
+	public void setMaxPendingActivities(int maxPendingActivities) {
+		m_maxPendingActivities = maxPendingActivities;
+	}
+
+	/**
+	 * Returns the executor that runs the delayed activities of all conversations.
+	 */
+	@Nonnull
+	public synchronized DelayedActivityExecutor getDelayedActivityExecutor() {
+		DelayedActivityExecutor dx = m_delayedActivityExecutor;
+		if(null == dx) {
+			dx = m_delayedActivityExecutor = new DelayedActivityExecutor(m_delayedActivityThreads, m_delayedActivityVirtualThreads);
+		}
+		return dx;
+	}
+
 	/**
 	 * The #of minutes that a WindowSession remains valid; defaults to 15 minutes.
 	 *
@@ -910,6 +1089,45 @@ public abstract class DomApplication {
 		m_windowSessionTimeout = windowSessionTimeout;
 	}
 
+	/**
+	 * When T, a request only locks the {@link WindowSession} it works on, so that requests for
+	 * different browser windows of the same user run in parallel. When F (the default) every
+	 * request that touches the session locks the whole {@link AppSession}. Only enable this when
+	 * the application's own session data (the AppSession subclass, session attributes) is
+	 * thread safe.
+	 */
+	public boolean isWindowRequestLocking() {
+		return m_windowRequestLocking;
+	}
+
+	public void setWindowRequestLocking(boolean windowRequestLocking) {
+		m_windowRequestLocking = windowRequestLocking;
+	}
+
+	/**
+	 * The time, in milliseconds, a request can wait for its session or window lock before a warning
+	 * with the stack of the request holding the lock is logged. Defaults to 10 seconds; 0 disables the warning.
+	 */
+	public int getRequestLockWarnTime() {
+		return m_requestLockWarnTime;
+	}
+
+	public void setRequestLockWarnTime(int requestLockWarnTime) {
+		m_requestLockWarnTime = requestLockWarnTime;
+	}
+
+	/**
+	 * The time, in milliseconds, a request can wait for its session or window lock before it fails
+	 * with a {@link to.etc.domui.state.RequestLockTimeoutException}. Defaults to 0, meaning wait forever.
+	 */
+	public int getRequestLockTimeout() {
+		return m_requestLockTimeout;
+	}
+
+	public void setRequestLockTimeout(int requestLockTimeout) {
+		m_requestLockTimeout = requestLockTimeout;
+	}
+
 	/**
 	 * Returns the default browser cache resource expiry time in seconds. When
 	 * running in production mode all "static" resources are sent to the browser
@@ -917,7 +1135,7 @@ public abstract class DomApplication {
 	 * until the expiry time has been reached. This is important for performance.
 	 * @return
 	 */
-	public synchronized int getDefaultExpiryTime() {
+	public int getDefaultExpiryTime() {
 		return m_defaultExpiryTime;
 	}
 
@@ -925,7 +1143,7 @@ public abstract class DomApplication {
 	 * Set the static resource browser cache expiry time, in seconds.
 	 * @param defaultExpiryTime
 	 */
-	public synchronized void setDefaultExpiryTime(final int defaultExpiryTime) {
+	public void setDefaultExpiryTime(final int defaultExpiryTime) {
 		m_defaultExpiryTime = defaultExpiryTime;
 	}
 
@@ -942,7 +1160,7 @@ public abstract class DomApplication {
 	}
 
 	@Nullable
-	public synchronized String getProblemMailAddress() {
+	public String getProblemMailAddress() {
 		return m_problemMailAddress;
 	}
 
@@ -958,15 +1176,15 @@ public abstract class DomApplication {
 	}
 
 	@Nullable
-	public synchronized String getProblemMailSubject() {
+	public String getProblemMailSubject() {
 		return m_problemMailSubject;
 	}
 
-	public synchronized boolean isShowProblemTemplate() {
+	public boolean isShowProblemTemplate() {
 		return m_showProblemTemplate;
 	}
 
-	public synchronized void setShowProblemTemplate(boolean showProblemTemplate) {
+	public void setShowProblemTemplate(boolean showProblemTemplate) {
 		m_showProblemTemplate = showProblemTemplate;
 	}
 
@@ -1038,11 +1256,12 @@ public abstract class DomApplication {
 				throw new IllegalArgumentException("The header contributor " + hc + " has already been added.");
 		}
 
-		m_orderedContributorList = new ArrayList<HeaderContributorEntry>(m_orderedContributorList); // Dup the original list,
-		m_orderedContributorList.add(new HeaderContributorEntry(hc, order)); // And add the new'un
+		List<HeaderContributorEntry> list = new ArrayList<HeaderContributorEntry>(m_orderedContributorList); // Dup the original list,
+		list.add(new HeaderContributorEntry(hc, order)); 	// And add the new'un
+		m_orderedContributorList = Collections.unmodifiableList(list);
 	}
 
-	public synchronized List<HeaderContributorEntry> getHeaderContributorList() {
+	public List<HeaderContributorEntry> getHeaderContributorList() {
 		return m_orderedContributorList;
 	}
 
@@ -1174,12 +1393,13 @@ public abstract class DomApplication {
 
 
 	public synchronized void registerResourceFactory(@Nonnull IResourceFactory f) {
-		m_resourceFactoryList = new ArrayList<IResourceFactory>(m_resourceFactoryList);
-		m_resourceFactoryList.add(f);
+		List<IResourceFactory> list = new ArrayList<IResourceFactory>(m_resourceFactoryList);
+		list.add(f);
+		m_resourceFactoryList = Collections.unmodifiableList(list);
 	}
 
 	@Nonnull
-	public synchronized List<IResourceFactory> getResourceFactories() {
+	public List<IResourceFactory> getResourceFactories() {
 		return m_resourceFactoryList;
 	}
 
@@ -1220,7 +1440,7 @@ public abstract class DomApplication {
 	//	/** Cache for application resources containing all resources we have checked existence for */
 	//	private final Map<String, IResourceRef> m_resourceSet = new HashMap<String, IResourceRef>();
 
-	private final Map<String, Boolean> m_knownResourceSet = new HashMap<String, Boolean>();
+	private final Map<String, Boolean> m_knownResourceSet = new ConcurrentHashMap<String, Boolean>();
 
 	/**
 	 * Create a resource ref to a class based resource. If we are running in DEBUG mode this will
@@ -1276,11 +1496,9 @@ public abstract class DomApplication {
 	 * @throws Exception
 	 */
 	public boolean hasApplicationResource(final String name) throws Exception {
-		synchronized(this) {
-			Boolean k = m_knownResourceSet.get(name);
-			if(k != null)
-				return k.booleanValue();
-		}
+		Boolean known = m_knownResourceSet.get(name);
+		if(known != null)
+			return known.booleanValue();
 
 
 		//-- Determine existence out-of-lock (single init is unimportant)
@@ -1289,9 +1507,7 @@ public abstract class DomApplication {
 		Boolean k = Boolean.valueOf(ref.exists());
 		//		System.out.println("hasAppResource: locate " + ref + ", exists=" + k);
 		if(!inDevelopmentMode() || ref instanceof IModifyableResource) {
-			synchronized(this) {
-				m_knownResourceSet.put(name, k);
-			}
+			m_knownResourceSet.put(name, k);
 		}
 		return k.booleanValue();
 	}
@@ -1457,13 +1673,70 @@ public abstract class DomApplication {
 		return m_logOutput;
 	}
 
+	/**
+	 * When T, pages and deltas are not fully buffered in memory before being sent, but are encoded
+	 * once into a bounded byte buffer which is sent to the client every time it fills up (see
+	 * {@link StreamingOutputWriter}). Errors that occur before the first buffer is sent are still
+	 * rendered normally; errors after that point abort the response. Output logging (domui.log)
+	 * always uses fully buffered output.
+	 */
+	public boolean isStreamingOutput() {
+		return m_streamingOutput;
+	}
+
+	public void setStreamingOutput(boolean streamingOutput) {
+		m_streamingOutput = streamingOutput;
+	}
+
+	/**
+	 * The size, in bytes, of the buffer used for streaming output. This is also the amount of output
+	 * that can be discarded when an error occurs while rendering.
+	 */
+	public int getOutputBufferSize() {
+		return m_outputBufferSize;
+	}
+
+	public void setOutputBufferSize(int outputBufferSize) {
+		if(outputBufferSize < 1024)
+			throw new IllegalArgumentException("The output buffer size must be at least 1024 bytes");
+		m_outputBufferSize = outputBufferSize;
+	}
+
+	/**
+	 * When T, page and delta responses are gzip (or deflate) compressed by DomUI itself if the browser
+	 * accepts that; with streaming output they are compressed while streaming. Leave this off when the
+	 * container or a proxy already compresses responses. Buffered parts are always served in compressed
+	 * form when the browser accepts it, see {@link to.etc.domui.server.parts.PartData#getEncodedData(ContentEncoding)}.
+	 */
+	public boolean isCompressOutput() {
+		return m_compressOutput;
+	}
+
+	public void setCompressOutput(boolean compressOutput) {
+		m_compressOutput = compressOutput;
+	}
+
+	/**
+	 * When T, the URLs for stylesheets and scripts loaded by pages get the content hash of the
+	 * resource appended. Such URLs are served with a "cache forever" header, because the URL
+	 * changes as soon as the content does. This only works for resources served as a buffered
+	 * part, i.e. those starting with $.
+	 */
+	public boolean isContentHashedResources() {
+		return m_contentHashedResources;
+	}
+
+	public void setContentHashedResources(boolean contentHashedResources) {
+		m_contentHashedResources = contentHashedResources;
+	}
+
 	public synchronized void addInterceptor(final IRequestInterceptor r) {
 		List<IRequestInterceptor> l = new ArrayList<IRequestInterceptor>(m_interceptorList);
 		l.add(r);
-		m_interceptorList = l;
+		m_interceptorList = Collections.unmodifiableList(l);
 	}
 
-	public synchronized List<IRequestInterceptor> getInterceptorList() {
+	public List<IRequestInterceptor> getInterceptorList() {
 		return m_interceptorList;
 	}
 
@@ -1496,7 +1769,7 @@ public abstract class DomApplication {
 	 * Return the current, immutable, threadsafe copy of the list-of-listeners.
 	 * @return
 	 */
-	private synchronized List<ExceptionEntry> getExceptionListeners() {
+	private List<ExceptionEntry> getExceptionListeners() {
 		return m_exceptionListeners;
 	}
 
@@ -1509,22 +1782,27 @@ public abstract class DomApplication {
 	 * @param l
 	 */
 	public synchronized void addExceptionListener(final Class< ? extends Exception> xclass, final IExceptionListener l) {
-		m_exceptionListeners = new ArrayList<ExceptionEntry>(m_exceptionListeners);
+		List<ExceptionEntry> list = new ArrayList<ExceptionEntry>(m_exceptionListeners);
+		m_exceptionListeners = Collections.unmodifiableList(insertExceptionListener(list, xclass, l));
+	}
 
+	@Nonnull
+	static private List<ExceptionEntry> insertExceptionListener(@Nonnull List<ExceptionEntry> list, final Class< ? extends Exception> xclass, final IExceptionListener l) {
 		//-- Do a sortish insert.
-		for(int i = 0; i < m_exceptionListeners.size(); i++) {
-			ExceptionEntry ee = m_exceptionListeners.get(i);
+		for(int i = 0; i < list.size(); i++) {
+			ExceptionEntry ee = list.get(i);
 			if(ee.getExceptionClass() == xclass) {
 				//-- Same class-> replace the handler with the new one.
-				m_exceptionListeners.set(i, new ExceptionEntry(xclass, l));
-				return;
+				list.set(i, new ExceptionEntry(xclass, l));
+				return list;
 			} else if(ee.getExceptionClass().isAssignableFrom(xclass)) {
 				//-- Class [ee] is a SUPERCLASS of [xclass]; you can do [ee] = [xclass]. We need to add this handler BEFORE this superclass!
-				m_exceptionListeners.add(i, new ExceptionEntry(xclass, l));
-				return;
+				list.add(i, new ExceptionEntry(xclass, l));
+				return list;
 			}
 		}
-		m_exceptionListeners.add(new ExceptionEntry(xclass, l));
+		list.add(new ExceptionEntry(xclass, l));
+		return list;
 	}
 
 	/**
@@ -1543,43 +1821,46 @@ public abstract class DomApplication {
 	}
 
 	public synchronized void addNewPageInstantiatedListener(final INewPageInstantiated l) {
-		m_newPageInstListeners = new ArrayList<INewPageInstantiated>(m_newPageInstListeners);
-		m_newPageInstListeners.add(l);
+		List<INewPageInstantiated> list = new ArrayList<INewPageInstantiated>(m_newPageInstListeners);
+		list.add(l);
+		m_newPageInstListeners = Collections.unmodifiableList(list);
 	}
 
 	public synchronized void removeNewPageInstantiatedListener(final INewPageInstantiated l) {
-		m_newPageInstListeners = new ArrayList<INewPageInstantiated>(m_newPageInstListeners);
-		m_newPageInstListeners.remove(l);
+		List<INewPageInstantiated> list = new ArrayList<INewPageInstantiated>(m_newPageInstListeners);
+		list.remove(l);
+		m_newPageInstListeners = Collections.unmodifiableList(list);
 	}
 
-	public synchronized List<INewPageInstantiated> getNewPageInstantiatedListeners() {
+	public List<INewPageInstantiated> getNewPageInstantiatedListeners() {
 		return m_newPageInstListeners;
 	}
 
-	public synchronized ILoginAuthenticator getLoginAuthenticator() {
+	public ILoginAuthenticator getLoginAuthenticator() {
 		return m_loginAuthenticator;
 	}
 
-	public synchronized void setLoginAuthenticator(final ILoginAuthenticator loginAuthenticator) {
+	public void setLoginAuthenticator(final ILoginAuthenticator loginAuthenticator) {
 		m_loginAuthenticator = loginAuthenticator;
 	}
 
-	public synchronized ILoginDialogFactory getLoginDialogFactory() {
+	public ILoginDialogFactory getLoginDialogFactory() {
 		return m_loginDialogFactory;
 	}
 
-	public synchronized void setLoginDialogFactory(final ILoginDialogFactory loginDialogFactory) {
+	public void setLoginDialogFactory(final ILoginDialogFactory loginDialogFactory) {
 		m_loginDialogFactory = loginDialogFactory;
 	}
 
 	public synchronized void addLoginListener(final ILoginListener l) {
 		if(m_loginListenerList.contains(l))
 			return;
-		m_loginListenerList = new ArrayList<ILoginListener>(m_loginListenerList);
-		m_loginListenerList.add(l);
+		List<ILoginListener> list = new ArrayList<ILoginListener>(m_loginListenerList);
+		list.add(l);
+		m_loginListenerList = Collections.unmodifiableList(list);
 	}
 
-	public synchronized List<ILoginListener> getLoginListenerList() {
+	public List<ILoginListener> getLoginListenerList() {
 		return m_loginListenerList;
 	}
 
@@ -1588,17 +1869,19 @@ public abstract class DomApplication {
 	 * @param l
 	 */
 	public synchronized <T> void addAsyncListener(@Nonnull IAsyncListener<T> l) {
-		m_asyncListenerList = new ArrayList<IAsyncListener< ? >>(m_asyncListenerList);
-		m_asyncListenerList.add(l);
+		List<IAsyncListener< ? >> list = new ArrayList<IAsyncListener< ? >>(m_asyncListenerList);
+		list.add(l);
+		m_asyncListenerList = Collections.unmodifiableList(list);
 	}
 
 	public synchronized <T> void removeAsyncListener(@Nonnull IAsyncListener<T> l) {
-		m_asyncListenerList = new ArrayList<IAsyncListener< ? >>(m_asyncListenerList);
-		m_asyncListenerList.remove(l);
+		List<IAsyncListener< ? >> list = new ArrayList<IAsyncListener< ? >>(m_asyncListenerList);
+		list.remove(l);
+		m_asyncListenerList = Collections.unmodifiableList(list);
 	}
 
 	@Nonnull
-	public synchronized List<IAsyncListener< ? >> getAsyncListenerList() {
+	public List<IAsyncListener< ? >> getAsyncListenerList() {
 		return m_asyncListenerList;
 	}
 
@@ -1629,11 +1912,11 @@ public abstract class DomApplication {
 	 * Get the page injector.
 	 * @return
 	 */
-	public synchronized IPageInjector getInjector() {
+	public IPageInjector getInjector() {
 		return m_injector;
 	}
 
-	public synchronized void setInjector(IPageInjector injector) {
+	public void setInjector(IPageInjector injector) {
 		m_injector = injector;
 	}
 
@@ -1783,6 +2066,7 @@ public abstract class DomApplication {
 	 */
 	final public void setThemeProperty(@Nonnull String name, @Nullable String value) {
 		m_themeApplicationProperties.put(name, value);
+		m_themeManager.clearExpandedCache();
 	}
 
 	@Nullable
@@ -1810,6 +2094,24 @@ public abstract class DomApplication {
 		return m_themeManager.getTheme(getDefaultThemeName(), DefaultThemeVariant.INSTANCE, null);
 	}
 
+	/**
+	 * Compile the stylesheet of the default theme for all of the variants passed, in parallel, and
+	 * cache the results so that the first users do not have to wait for them. Call this at startup,
+	 * after the theme has been set; it returns when all stylesheets are done. Only SASS themes
+	 * have a precompilable stylesheet; other themes are skipped.
+	 */
+	public void precompileThemeVariants(@Nonnull List<IThemeVariant> variants) throws Exception {
+		BrowserVersion bv = BrowserVersion.parseUserAgent("");			// SASS stylesheets do not depend on the browser
+		List<ExtendedParameterInfoImpl> parts = new ArrayList<>();
+		for(IThemeVariant variant : variants) {
+			ITheme theme = getTheme(getDefaultThemeName(), variant, null);
+			if(theme instanceof SassTheme) {
+				parts.add(new ExtendedParameterInfoImpl(theme.getThemeName(), bv, ((SassTheme) theme).getStyleSheetPath(), ""));
+			}
+		}
+		m_partService.precompile(parts, Runtime.getRuntime().availableProcessors());
+	}
+
 	/**
 	 * Get the theme store representing the specified theme name. This is the name as obtained
 	 * from the resource name which is the part between $THEME/ and the actual filename.
@@ -1848,7 +2150,7 @@ public abstract class DomApplication {
 	/*	CODING:	DomUI state listener handling.						*/
 	/*--------------------------------------------------------------*/
 
-	public synchronized int getKeepAliveInterval() {
+	public int getKeepAliveInterval() {
 		return m_keepAliveInterval;
 	}
 
@@ -1856,20 +2158,22 @@ public abstract class DomApplication {
 	 * Set the keep-alive interval for DomUI screens, in milliseconds.
 	 * @param keepAliveInterval
 	 */
-	public synchronized void setKeepAliveInterval(int keepAliveInterval) {
+	public void setKeepAliveInterval(int keepAliveInterval) {
 		if(!DeveloperOptions.getBool("domui.log", false) && (DeveloperOptions.getBool("domui.autorefresh", true) || DeveloperOptions.getBool("domui.keepalive", false)))				// If "autorefresh" has been disabled do not use keepalive either.
 			m_keepAliveInterval = keepAliveInterval;
 	}
 
-	private List<IDomUIStateListener> m_uiStateListeners = Collections.EMPTY_LIST;
+	@Nonnull
+	private volatile List<IDomUIStateListener> m_uiStateListeners = Collections.EMPTY_LIST;
 
 	/**
 	 * Register a listener for internal DomUI events.
 	 * @param sl
 	 */
 	public synchronized void addUIStateListener(IDomUIStateListener sl) {
-		m_uiStateListeners = new ArrayList<IDomUIStateListener>(m_uiStateListeners); // Dup list;
-		m_uiStateListeners.add(sl);
+		List<IDomUIStateListener> list = new ArrayList<IDomUIStateListener>(m_uiStateListeners); // Dup list;
+		list.add(sl);
+		m_uiStateListeners = Collections.unmodifiableList(list);
 	}
 
 	/**
@@ -1877,11 +2181,12 @@ public abstract class DomApplication {
 	 * @param sl
 	 */
 	public synchronized void removeUIStateListener(IDomUIStateListener sl) {
-		m_uiStateListeners = new ArrayList<IDomUIStateListener>(m_uiStateListeners); // Dup list;
-		m_uiStateListeners.remove(sl);
+		List<IDomUIStateListener> list = new ArrayList<IDomUIStateListener>(m_uiStateListeners); // Dup list;
+		list.remove(sl);
+		m_uiStateListeners = Collections.unmodifiableList(list);
 	}
 
-	private synchronized List<IDomUIStateListener> getUIStateListeners() {
+	private List<IDomUIStateListener> getUIStateListeners() {
 		return m_uiStateListeners;
 	}
 
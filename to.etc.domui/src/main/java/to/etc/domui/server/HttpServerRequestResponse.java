@@ -102,6 +102,12 @@ public class HttpServerRequestResponse implements IRequestResponse {
 		return m_request.getHeader("user-agent");
 	}
 
+	@Override
+	@Nullable
+	public String getRequestHeader(@Nonnull String name) {
+		return m_request.getHeader(name);
+	}
+
 	@Override
 	@Nonnull
 	public String getApplicationURL() {
@@ -227,6 +233,11 @@ public class HttpServerRequestResponse implements IRequestResponse {
 		getResponse().sendRedirect(newUrl);
 	}
 
+	@Override
+	public void sendNotModified() throws Exception {
+		getResponse().setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+	}
+
 	@Override
 	public void sendError(int httpErrorCode, @Nonnull String message) throws Exception {
 		getResponse().sendError(httpErrorCode, message);
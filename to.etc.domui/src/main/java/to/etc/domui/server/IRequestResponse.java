@@ -30,6 +30,13 @@ public interface IRequestResponse {
 
 	@Nonnull String getUserAgent();
 
+	/**
+	 * Return the value of the specified request header, or null if the request does not contain it.
+	 * @param name
+	 * @return
+	 */
+	@Nullable String getRequestHeader(@Nonnull String name);
+
 	/**
 	 * The "remote" user ID from a server request, if present. This does <b>not</b> need to represent the
 	 * real logged-in user; it will however be filled if JSDK declarative security is used. This field is
@@ -99,6 +106,12 @@ public interface IRequestResponse {
 	 */
 	void redirect(@Nonnull String newUrl) throws Exception;
 
+	/**
+	 * Respond with "304 Not Modified", telling the client that its cached copy is still valid. No
+	 * content must be written after this.
+	 */
+	void sendNotModified() throws Exception;
+
 	/**
 	 * Send an error back to the client.
 	 * @param httpErrorCode
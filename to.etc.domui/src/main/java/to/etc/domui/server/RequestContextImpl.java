@@ -24,6 +24,8 @@
  */
 package to.etc.domui.server;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import to.etc.domui.state.AppSession;
 import to.etc.domui.state.CidPair;
 import to.etc.domui.state.WindowSession;
@@ -39,6 +41,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.util.Collections;
@@ -46,6 +49,8 @@ import java.util.HashMap;
 import java.util.Map;
 
 public class RequestContextImpl implements IRequestContext, IAttributeContainer {
+	static private final Logger LOG = LoggerFactory.getLogger(RequestContextImpl.class);
+
 	@Nonnull
 	final private DomApplication m_application;
 
@@ -59,6 +64,10 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 
 	private StringWriter m_sw;
 
+	/** When streaming output is used, this is the writer streaming to the response. */
+	@Nullable
+	private StreamingOutputWriter m_streamWriter;
+
 	private Writer m_outWriter;
 
 	private BrowserVersion m_browserVersion;
@@ -73,6 +82,20 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 
 	private boolean m_amLockingSession;
 
+	/** T when this request has checked the session for expired windows. */
+	private boolean m_sessionChecked;
+
+	/** When window request locking is used, the WindowSession locked by this request. */
+	@Nullable
+	private WindowSession m_lockedWindow;
+
+	/** T if the session lock was released by {@link #internalSuspendLocks()}. */
+	private boolean m_suspendedSessionLock;
+
+	/** The window lock released by {@link #internalSuspendLocks()}, if any. */
+	@Nullable
+	private WindowSession m_suspendedWindowLock;
+
 	private String m_outputContentType;
 
 	private String m_outputEncoding;
@@ -132,10 +155,14 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 	 */
 	@Override
 	final public @Nonnull AppSession getSession() {
-		m_session.internalLockSession(); 						// Someone uses session -> lock it for use by CURRENT-THREAD.
-		if(!m_amLockingSession)
+		if(!m_application.isWindowRequestLocking()) {
+			m_session.internalLockSession(); 					// Someone uses session -> lock it for use by CURRENT-THREAD.
+			m_amLockingSession = true;
+		}
+		if(!m_sessionChecked) {
+			m_sessionChecked = true;
 			m_session.internalCheckExpiredWindowSessions();
-		m_amLockingSession = true;
+		}
 		return m_session;
 	}
 
@@ -151,6 +178,27 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 	 */
 	final public void internalSetWindowSession(WindowSession cm) {
 		m_windowSession = cm;
+		lockWindow(cm);
+	}
+
+	/**
+	 * When window request locking is used, this locks the window session for this request. A request
+	 * only ever holds a single window lock, so any other window locked before is released first.
+	 */
+	private void lockWindow(@Nullable WindowSession cm) {
+		if(cm == null || cm == m_lockedWindow || !m_application.isWindowRequestLocking())
+			return;
+		unlockWindow();
+		cm.internalLockWindow();
+		m_lockedWindow = cm;
+	}
+
+	private void unlockWindow() {
+		WindowSession cm = m_lockedWindow;
+		if(null != cm) {
+			m_lockedWindow = null;
+			cm.internalUnlockWindow();
+		}
 	}
 
 	/**
@@ -169,21 +217,45 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 		String cid = getParameter(Constants.PARAM_CONVERSATION_ID);
 		if(cid != null) {
 			CidPair cida = CidPair.decode(cid);
-			m_windowSession = getSession().findWindowSession(cida.getWindowId());
-			if(m_windowSession != null)
-				return m_windowSession;
+			WindowSession cm = getSession().findWindowSession(cida.getWindowId());
+			if(cm != null) {
+				internalSetWindowSession(cm);
+				return cm;
+			}
 
 		}
 		throw new IllegalStateException("WindowSession is not known!!");
 	}
 
 	void internalUnlockSession() {
+		unlockWindow();
 		if(m_amLockingSession) {
 			m_session.internalUnlockSession();
 			m_amLockingSession = false;
 		}
 	}
 
+	/**
+	 * Release the session and window locks held by this request, so that other requests can run
+	 * while this one waits. {@link #internalResumeLocks()} claims them again.
+	 */
+	void internalSuspendLocks() {
+		m_suspendedSessionLock = m_amLockingSession;
+		m_suspendedWindowLock = m_lockedWindow;
+		internalUnlockSession();
+	}
+
+	void internalResumeLocks() {
+		if(m_suspendedSessionLock) {
+			m_session.internalLockSession();
+			m_amLockingSession = true;
+			m_suspendedSessionLock = false;
+		}
+		WindowSession cm = m_suspendedWindowLock;
+		m_suspendedWindowLock = null;
+		lockWindow(cm);
+	}
+
 	/**
 	 * If this context has caused the conversations to become attached detach 'm.
 	 */
@@ -289,6 +361,14 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 	}
 
 	public void flush() throws Exception {
+		StreamingOutputWriter stw = m_streamWriter;
+		if(null != stw) {
+			stw.finish();
+			if(LOG.isDebugEnabled())
+				LOG.debug("output: " + m_urlin + " sent " + stw.getByteCount() + " bytes in " + stw.getFlushCount() + " writes");
+			return;
+		}
+
 		if(m_sw != null) {
 			if(getApplication().logOutput()) {
 				String res = m_sw.getBuffer().toString();
@@ -304,14 +384,30 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 			String outputContentType = m_outputContentType;
 			if(null == outputContentType)
 				throw new IllegalStateException("The content type for buffered output is not set.");
-			Writer ow = getRequestResponse().getOutputWriter(outputContentType, m_outputEncoding);
-			ow.append(m_sw.getBuffer());
+			ContentEncoding encoding = getOutputContentEncoding(outputContentType);
+			String outputEncoding = m_outputEncoding;
+			if(encoding != ContentEncoding.IDENTITY && null != outputEncoding && m_sw.getBuffer().length() >= ContentEncoding.MIN_COMPRESS_SIZE) {
+				byte[] data = m_sw.getBuffer().toString().getBytes(outputEncoding);
+				byte[] encoded = encoding.encode(new byte[][] {data}, data.length);
+				encoding.addHeaders(getRequestResponse());
+				OutputStream os = getRequestResponse().getOutputStream(outputContentType, outputEncoding, encoded.length);
+				os.write(encoded);
+				os.flush();
+			} else {
+				Writer ow = getRequestResponse().getOutputWriter(outputContentType, m_outputEncoding);
+				ow.append(m_sw.getBuffer());
+			}
 			m_sw = null;
 		}
 	}
 
 
 	public void discard() throws IOException {
+		StreamingOutputWriter stw = m_streamWriter;
+		if(null != stw) {
+			stw.discard();
+			m_streamWriter = null;
+		}
 	//		if(m_sw != null) {
 	//			String res = m_sw.getBuffer().toString();
 	//			System.out.println("---- rendered output:");
@@ -321,6 +417,22 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 	//		}
 	}
 
+	/**
+	 * The #of bytes sent through streaming output for this request, or -1 if the output is not streamed.
+	 */
+	public long getOutputByteCount() {
+		StreamingOutputWriter stw = m_streamWriter;
+		return stw == null ? -1 : stw.getByteCount() + stw.getBufferedSize();
+	}
+
+	/**
+	 * The #of times streamed output was written to the response for this request, or -1 if the output is not streamed.
+	 */
+	public int getOutputFlushCount() {
+		StreamingOutputWriter stw = m_streamWriter;
+		return stw == null ? -1 : stw.getFlushCount();
+	}
+
 	/**
 	 * @see to.etc.domui.server.IRequestContext#getRelativePath(java.lang.String)
 	 */
@@ -336,6 +448,10 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 	 * This returns a fully buffered output writer. Calling it twice is explicitly
 	 * allowed, but clears the data written before as it's assumed that another route
 	 * to output will be chosen.
+	 * <p>When the application uses streaming output (see {@link DomApplication#isStreamingOutput()}) and
+	 * the encoding is utf-8 the writer only buffers up to {@link DomApplication#getOutputBufferSize()} bytes
+	 * before it starts sending data to the client. Calling this again after that point is an error, as the
+	 * output sent cannot be retracted anymore.</p>
 	 */
 	@Override
 	@Nonnull
@@ -346,14 +462,41 @@ public class RequestContextImpl implements IRequestContext, IAttributeContainer
 				System.out.println("domui warning: outputwriter reallocated after writing " + sw.getBuffer().length() + " characters of data already");
 			}
 		}
+		StreamingOutputWriter stw = m_streamWriter;
+		if(null != stw) {
+			if(stw.isCommitted())
+				throw new IllegalStateException("Output writer reallocated after " + stw.getByteCount() + " bytes were already sent to the client");
+			if(stw.getBufferedSize() > PAGE_HEADER_BUFFER_LENGTH) {
+				System.out.println("domui warning: outputwriter reallocated after writing " + stw.getBufferedSize() + " bytes of data already");
+			}
+			stw.discard();
+			m_streamWriter = null;
+		}
 
 		m_outputContentType = contentType;
 		m_outputEncoding = encoding;
+		if(m_application.isStreamingOutput() && !m_application.logOutput() && "utf-8".equalsIgnoreCase(encoding)) {
+			m_sw = null;
+			m_outWriter = m_streamWriter = new StreamingOutputWriter(m_requestResponse, contentType, m_application.getOutputBufferSize(), getOutputContentEncoding(contentType));
+			return m_outWriter;
+		}
+
 		m_sw = new StringWriter(8192);
 		m_outWriter = m_sw;
 		return m_outWriter;
 	}
 
+	/**
+	 * Determine whether page output should be compressed, and how: this is only done when the application has
+	 * compressed output enabled (see {@link DomApplication#isCompressOutput()}) and the browser accepts it.
+	 */
+	@Nonnull
+	private ContentEncoding getOutputContentEncoding(@Nonnull String contentType) {
+		if(!m_application.isCompressOutput() || !ContentEncoding.isCompressible(contentType))
+			return ContentEncoding.IDENTITY;
+		return ContentEncoding.select(m_requestResponse);
+	}
+
 	/**
 	 * Send a redirect response to the client.
 	 * @param newUrl
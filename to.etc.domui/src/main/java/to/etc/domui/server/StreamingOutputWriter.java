@@ -0,0 +1,341 @@
+/*
+ * DomUI Java User Interface library
+ * Copyright (c) 2010 by Frits Jalvingh, Itris B.V.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * See the "sponsors" file for a list of supporters.
+ *
+ * The latest version of DomUI and related code, support and documentation
+ * can be found at http://www.domui.org/
+ * The contact for the project is Frits Jalvingh <jal@etc.to>.
+ */
+package to.etc.domui.server;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * A Writer which encodes everything written to it as UTF-8 into a bounded byte buffer, and
+ * which sends that buffer to the response's output stream every time it fills up. This
+ * prevents a full page or delta from being materialized in memory as a String first.
+ *
+ * <p>As long as the buffer has not been sent for the first time the response is not committed,
+ * and {@link #reset()} can discard everything written so far. This keeps the "render error
+ * instead" logic of the request handlers working for all output that fits in the buffer. Once
+ * the first buffer has been sent the output can no longer be retracted.</p>
+ *
+ * <p>The byte buffer is kept per thread and reused by the next request on that thread.</p>
+ *
+ * <p>When a compressing {@link ContentEncoding} is passed the output is compressed while it is
+ * streamed, unless the whole response fits in the buffer and is too small to be worth it.</p>
+ */
+final public class StreamingOutputWriter extends Writer {
+	/** The default size of the byte buffer, and so the amount of output that can still be discarded. */
+	static public final int DEFAULT_BUFFER_SIZE = 32 * 1024;
+
+	static private final ThreadLocal<byte[]> BUFFER = new ThreadLocal<>();
+
+	@Nonnull
+	final private IRequestResponse m_requestResponse;
+
+	@Nonnull
+	final private String m_contentType;
+
+	@Nonnull
+	final private ContentEncoding m_encoding;
+
+	@Nonnull
+	private byte[] m_buffer;
+
+	private int m_bufferIndex;
+
+	/** The response stream, set as soon as the first buffer is sent (the response is committed). */
+	@Nullable
+	private OutputStream m_os;
+
+	/** When compressing, this is the compressing stream wrapped around the response stream. */
+	@Nullable
+	private OutputStream m_compressor;
+
+	/** When the last char written was the 1st part of a surrogate pair this holds it, else it is 0. */
+	private char m_highSurrogate;
+
+	/** The #of bytes sent to the output stream. */
+	private long m_byteCount;
+
+	/** The #of times the buffer was written to the output stream. */
+	private int m_flushCount;
+
+	private boolean m_closed;
+
+	public StreamingOutputWriter(@Nonnull IRequestResponse requestResponse, @Nonnull String contentType, int bufferSize, @Nonnull ContentEncoding encoding) {
+		m_requestResponse = requestResponse;
+		m_contentType = contentType;
+		m_encoding = encoding;
+		m_buffer = allocateBuffer(bufferSize);
+	}
+
+	public StreamingOutputWriter(@Nonnull IRequestResponse requestResponse, @Nonnull String contentType, int bufferSize) {
+		this(requestResponse, contentType, bufferSize, ContentEncoding.IDENTITY);
+	}
+
+	@Nonnull
+	static private byte[] allocateBuffer(int size) {
+		byte[] buffer = BUFFER.get();
+		if(null != buffer && buffer.length == size) {
+			BUFFER.set(null);								// Owned by this writer until released
+			return buffer;
+		}
+		return new byte[size];
+	}
+
+	/**
+	 * Returns the buffer for reuse by the next writer on this thread.
+	 */
+	private void releaseBuffer() {
+		BUFFER.set(m_buffer);
+	}
+
+	/**
+	 * T if the first buffer has been sent to the client, which means the output can no longer be discarded.
+	 */
+	public boolean isCommitted() {
+		return m_os != null;
+	}
+
+	/**
+	 * The #of uncompressed bytes written to the output stream.
+	 */
+	public long getByteCount() {
+		return m_byteCount;
+	}
+
+	/**
+	 * The #of times a buffer was written to the output stream.
+	 */
+	public int getFlushCount() {
+		return m_flushCount;
+	}
+
+	/**
+	 * The #of bytes currently buffered, i.e. not yet sent.
+	 */
+	public int getBufferedSize() {
+		return m_bufferIndex;
+	}
+
+	/**
+	 * Discard all output written until now. This is only possible as long as the
+	 * response has not been committed.
+	 */
+	public void reset() {
+		if(isCommitted())
+			throw new IllegalStateException("The response has already been committed after " + m_byteCount + " bytes; the output cannot be discarded anymore");
+		m_bufferIndex = 0;
+		m_highSurrogate = 0;
+		m_closed = false;
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Writer implementation.								*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public void write(int c) throws IOException {
+		put((char) c);
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		if(m_closed)
+			throw new IOException("Writer is closed");
+		int end = off + len;
+		while(off < end) {
+			char c = cbuf[off++];
+			if(c < 0x80 && m_highSurrogate == 0 && m_bufferIndex < m_buffer.length)
+				m_buffer[m_bufferIndex++] = (byte) c;
+			else
+				put(c);
+		}
+	}
+
+	@Override
+	public void write(String str, int off, int len) throws IOException {
+		if(m_closed)
+			throw new IOException("Writer is closed");
+		int end = off + len;
+		while(off < end) {
+			char c = str.charAt(off++);
+			if(c < 0x80 && m_highSurrogate == 0 && m_bufferIndex < m_buffer.length)
+				m_buffer[m_bufferIndex++] = (byte) c;
+			else
+				put(c);
+		}
+	}
+
+	@Override
+	public Writer append(CharSequence csq) throws IOException {
+		if(null == csq)
+			csq = "null";
+		int len = csq.length();
+		for(int i = 0; i < len; i++)
+			put(csq.charAt(i));
+		return this;
+	}
+
+	/**
+	 * Does nothing: sending output is controlled by the buffer filling up, so that
+	 * the response is not committed too early.
+	 */
+	@Override
+	public void flush() throws IOException {
+	}
+
+	/**
+	 * Does not close the response stream but only marks this as done; the remaining
+	 * output is sent by {@link #finish()}.
+	 */
+	@Override
+	public void close() throws IOException {
+		m_closed = true;
+	}
+
+	/**
+	 * Encode a single character as UTF-8, handling surrogate pairs that can be split over write calls.
+	 */
+	private void put(char c) throws IOException {
+		if(m_closed)
+			throw new IOException("Writer is closed");
+		char hs = m_highSurrogate;
+		if(hs != 0) {
+			m_highSurrogate = 0;
+			if(Character.isLowSurrogate(c)) {
+				int cp = Character.toCodePoint(hs, c);
+				ensure(4);
+				byte[] b = m_buffer;
+				int ix = m_bufferIndex;
+				b[ix++] = (byte) (0xf0 | (cp >> 18));
+				b[ix++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+				b[ix++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+				b[ix++] = (byte) (0x80 | (cp & 0x3f));
+				m_bufferIndex = ix;
+				return;
+			}
+			ensure(1);
+			m_buffer[m_bufferIndex++] = '?';				// Unpaired high surrogate
+		}
+
+		if(c < 0x80) {
+			ensure(1);
+			m_buffer[m_bufferIndex++] = (byte) c;
+		} else if(c < 0x800) {
+			ensure(2);
+			m_buffer[m_bufferIndex++] = (byte) (0xc0 | (c >> 6));
+			m_buffer[m_bufferIndex++] = (byte) (0x80 | (c & 0x3f));
+		} else if(Character.isHighSurrogate(c)) {
+			m_highSurrogate = c;
+		} else if(Character.isLowSurrogate(c)) {
+			ensure(1);
+			m_buffer[m_bufferIndex++] = '?';				// Unpaired low surrogate
+		} else {
+			ensure(3);
+			m_buffer[m_bufferIndex++] = (byte) (0xe0 | (c >> 12));
+			m_buffer[m_bufferIndex++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+			m_buffer[m_bufferIndex++] = (byte) (0x80 | (c & 0x3f));
+		}
+	}
+
+	private void ensure(int bytes) throws IOException {
+		if(m_bufferIndex + bytes > m_buffer.length)
+			sendBuffer();
+	}
+
+	/**
+	 * Send the buffer to the client, committing the response if that has not yet been done.
+	 */
+	private void sendBuffer() throws IOException {
+		OutputStream os = m_os;
+		if(null == os)
+			os = openStream(m_encoding, -1);
+		if(m_bufferIndex > 0) {
+			os.write(m_buffer, 0, m_bufferIndex);
+			m_byteCount += m_bufferIndex;
+			m_flushCount++;
+			m_bufferIndex = 0;
+		}
+	}
+
+	/**
+	 * Commit the response by getting its output stream, and wrap it in a compressor if needed.
+	 */
+	@Nonnull
+	private OutputStream openStream(@Nonnull ContentEncoding encoding, int contentLength) throws IOException {
+		OutputStream os;
+		try {
+			encoding.addHeaders(m_requestResponse);
+			os = m_requestResponse.getOutputStream(m_contentType, "utf-8", contentLength);
+		} catch(IOException x) {
+			throw x;
+		} catch(Exception x) {
+			throw new IOException("Cannot get response output stream: " + x, x);
+		}
+		if(encoding != ContentEncoding.IDENTITY)
+			os = m_compressor = encoding.wrap(os);
+		m_os = os;
+		return os;
+	}
+
+	/**
+	 * Send all remaining output to the client, and release the buffer for reuse. When the
+	 * response was not yet committed all output is known at this time, so the content length
+	 * is set too.
+	 */
+	public void finish() throws IOException {
+		if(m_highSurrogate != 0) {
+			m_highSurrogate = 0;
+			ensure(1);
+			m_buffer[m_bufferIndex++] = '?';
+		}
+
+		OutputStream os = m_os;
+		if(null == os) {
+			if(m_encoding == ContentEncoding.IDENTITY || m_bufferIndex < ContentEncoding.MIN_COMPRESS_SIZE)
+				os = openStream(ContentEncoding.IDENTITY, m_bufferIndex);
+			else
+				os = openStream(m_encoding, -1);
+		}
+		sendBuffer();
+		OutputStream compressor = m_compressor;
+		if(null != compressor)
+			compressor.close();							// Writes the trailer and releases the compressor
+		else
+			os.flush();
+		m_closed = true;
+		releaseBuffer();
+	}
+
+	/**
+	 * Release the buffer without sending anything; used when the request ends without output being flushed.
+	 */
+	public void discard() {
+		m_bufferIndex = 0;
+		m_closed = true;
+		releaseBuffer();
+	}
+}
@@ -24,9 +24,13 @@
  */
 package to.etc.domui.server.parts;
 
+import to.etc.domui.server.*;
 import to.etc.domui.util.resources.*;
 import to.etc.util.*;
 
+import javax.annotation.*;
+import java.io.*;
+
 /**
  * Contains a cached instance of some part rendering as created by
  * a buffered part.
@@ -51,6 +55,21 @@ final public class PartData {
 	/** The content hash, or null if as yet uncalculated. */
 	private byte[] m_hash;
 
+	/** The content hash as a hex string, or null if as yet uncalculated. */
+	private String m_hashString;
+
+	/** The time this part was generated, in millis but truncated to whole seconds as that is the resolution of HTTP dates. */
+	final private long m_lastModified = System.currentTimeMillis() / 1000 * 1000;
+
+	/** Marks an encoding that was calculated but that does not make the data smaller. */
+	static private final byte[] NOT_SMALLER = new byte[0];
+
+	/** The last time (in millis) the dependencies of this part were checked for changes. */
+	private volatile long m_lastChecked = System.currentTimeMillis();
+
+	/** Compressed versions of the data, indexed by {@link ContentEncoding} ordinal and calculated on first use. */
+	private final byte[][] m_encodedData = new byte[ContentEncoding.values().length][];
+
 	public PartData(byte[][] data, int size, int cacheTime, String contentType, ResourceDependencies dependencies, Object extra) {
 		m_data = data;
 		m_size = size;
@@ -84,6 +103,14 @@ final public class PartData {
 		return m_extra;
 	}
 
+	long getLastChecked() {
+		return m_lastChecked;
+	}
+
+	void setLastChecked(long lastChecked) {
+		m_lastChecked = lastChecked;
+	}
+
 	/**
 	 * Return the hash of the content.
 	 * @return
@@ -95,4 +122,51 @@ final public class PartData {
 		}
 		return hash;
 	}
+
+	/**
+	 * Returns T if this part's content type is worth compressing.
+	 */
+	public boolean isCompressible() {
+		return m_size >= ContentEncoding.MIN_COMPRESS_SIZE && ContentEncoding.isCompressible(m_contentType);
+	}
+
+	/**
+	 * Return the data compressed with the specified encoding. The compressed version is calculated
+	 * only once for this cached part. This returns null if the part is not compressible or if the
+	 * compressed data is not smaller than the original.
+	 */
+	@Nullable
+	public byte[] getEncodedData(@Nonnull ContentEncoding encoding) throws IOException {
+		if(encoding == ContentEncoding.IDENTITY || !isCompressible())
+			return null;
+		synchronized(m_encodedData) {
+			byte[] data = m_encodedData[encoding.ordinal()];
+			if(null == data) {
+				data = encoding.encode(m_data, m_size);
+				if(data.length >= m_size)
+					data = NOT_SMALLER;
+				m_encodedData[encoding.ordinal()] = data;
+			}
+			return data == NOT_SMALLER ? null : data;
+		}
+	}
+
+	/**
+	 * Return the hash of the content as a hex string, usable as an ETag value or as a version in an URL.
+	 */
+	@Nonnull
+	public String getHashString() {
+		String hs = m_hashString;
+		if(null == hs) {
+			hs = m_hashString = StringTool.toHex(getHash());
+		}
+		return hs;
+	}
+
+	/**
+	 * The time this part was generated, used as its Last-Modified time.
+	 */
+	public long getLastModified() {
+		return m_lastModified;
+	}
 }
@@ -0,0 +1,208 @@
+/*
+ * DomUI Java User Interface library
+ * Copyright (c) 2010 by Frits Jalvingh, Itris B.V.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * See the "sponsors" file for a list of supporters.
+ *
+ * The latest version of DomUI and related code, support and documentation
+ * can be found at http://www.domui.org/
+ * The contact for the project is Frits Jalvingh <jal@etc.to>.
+ */
+package to.etc.domui.server.parts;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import to.etc.domui.util.resources.ResourceDependencies;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Watches the files that cached parts depend on, and invalidates those parts as soon as
+ * such a file changes. This lets the part cache skip (or throttle) the dependency checks
+ * on every cache hit while still picking up changes to files.
+ */
+final class PartFileWatcher implements Runnable {
+	static private final Logger LOG = LoggerFactory.getLogger(PartFileWatcher.class);
+
+	@Nonnull
+	final private PartService m_service;
+
+	@Nonnull
+	final private WatchService m_watchService;
+
+	/** The directories being watched, with their watch registration. */
+	@Nonnull
+	final private Map<Path, WatchKey> m_watchedDirs = new HashMap<>();
+
+	/** Per file, the parts (by key) that depend on it. Entries are removed when the part leaves the cache. */
+	@Nonnull
+	final private Map<Path, Map<Object, PartData>> m_fileMap = new HashMap<>();
+
+	@Nonnull
+	final private Thread m_thread;
+
+	PartFileWatcher(@Nonnull PartService service) throws IOException {
+		m_service = service;
+		m_watchService = FileSystems.getDefault().newWatchService();
+		m_thread = new Thread(this, "PartWatcher");
+		m_thread.setDaemon(true);
+		m_thread.start();
+	}
+
+	/**
+	 * Register the files that the part depends on.
+	 */
+	void register(@Nonnull Object key, @Nonnull PartData part) {
+		List<Path> files = getFiles(part);
+		if(files.isEmpty())
+			return;
+
+		synchronized(this) {
+			for(Path path : files) {
+				Path dir = path.getParent();
+				if(null == dir)
+					continue;
+				if(!m_watchedDirs.containsKey(dir)) {
+					try {
+						m_watchedDirs.put(dir, dir.register(m_watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE));
+					} catch(Exception x) {
+						LOG.info("Cannot watch " + dir + " for part changes: " + x);
+						continue;
+					}
+				}
+				m_fileMap.computeIfAbsent(path, a -> new HashMap<>()).put(key, part);
+			}
+		}
+	}
+
+	/**
+	 * Forget the part, because it left the cache. Directories that no longer contain
+	 * a watched file are not watched anymore.
+	 */
+	void unregister(@Nonnull Object key, @Nonnull PartData part) {
+		List<Path> files = getFiles(part);
+		if(files.isEmpty())
+			return;
+
+		synchronized(this) {
+			Set<Path> dirs = new HashSet<>();
+			for(Path path : files) {
+				dirs.add(path.getParent());
+				Map<Object, PartData> parts = m_fileMap.get(path);
+				if(null == parts || parts.get(key) != part)
+					continue;
+				parts.remove(key);
+				if(parts.isEmpty())
+					m_fileMap.remove(path);
+			}
+			for(Path path : m_fileMap.keySet())
+				dirs.remove(path.getParent());
+			for(Path dir : dirs) {
+				WatchKey wk = m_watchedDirs.remove(dir);
+				if(null != wk)
+					wk.cancel();
+			}
+		}
+	}
+
+	@Nonnull
+	static private List<Path> getFiles(@Nonnull PartData part) {
+		List<Path> res = new ArrayList<>();
+		ResourceDependencies deps = part.getDependencies();
+		if(null != deps) {
+			List<File> files = new ArrayList<>();
+			deps.collectFiles(files);
+			for(File file : files)
+				res.add(file.getAbsoluteFile().toPath());
+		}
+		return res;
+	}
+
+	synchronized int getWatchedFileCount() {
+		return m_fileMap.size();
+	}
+
+	synchronized int getWatchedDirCount() {
+		return m_watchedDirs.size();
+	}
+
+	@Override
+	public void run() {
+		try {
+			for(;;) {
+				WatchKey wk = m_watchService.take();
+				Path dir = (Path) wk.watchable();
+				List<Map<Object, PartData>> changed = new ArrayList<>();
+				synchronized(this) {
+					for(WatchEvent<?> event : wk.pollEvents()) {
+						if(event.kind() == StandardWatchEventKinds.OVERFLOW) {
+							//-- Events were lost: invalidate everything in this directory
+							for(Map.Entry<Path, Map<Object, PartData>> me : new ArrayList<>(m_fileMap.entrySet())) {
+								if(dir.equals(me.getKey().getParent()))
+									changed.add(m_fileMap.remove(me.getKey()));
+							}
+						} else {
+							Map<Object, PartData> parts = m_fileMap.remove(dir.resolve((Path) event.context()));
+							if(null != parts)
+								changed.add(parts);
+						}
+					}
+				}
+				if(!wk.reset()) {
+					synchronized(this) {
+						m_watchedDirs.remove(dir, wk);
+					}
+				}
+
+				for(Map<Object, PartData> parts : changed) {
+					for(Map.Entry<Object, PartData> me : parts.entrySet()) {
+						if(m_service.internalInvalidate(me.getKey(), me.getValue()))
+							LOG.info("part " + me.getKey() + " invalidated because a file it depends on changed");
+					}
+				}
+			}
+		} catch(InterruptedException | ClosedWatchServiceException x) {
+			//-- Terminated.
+		} catch(Exception x) {
+			LOG.error("Part file watcher terminated", x);
+		}
+	}
+
+	void close() {
+		try {
+			m_watchService.close();
+		} catch(Exception x) {
+			//-- Ignore
+		}
+		m_thread.interrupt();
+	}
+}
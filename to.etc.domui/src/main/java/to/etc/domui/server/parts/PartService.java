@@ -1,16 +1,19 @@
 package to.etc.domui.server.parts;
 
+import to.etc.domui.parts.ExtendedParameterInfoImpl;
 import to.etc.domui.parts.ParameterInfoProxy;
 import to.etc.domui.server.*;
 import to.etc.domui.trouble.*;
 import to.etc.domui.util.*;
-import to.etc.domui.util.LRUHashMap;
 import to.etc.domui.util.resources.*;
 import to.etc.util.*;
 
 import javax.annotation.*;
 import java.io.*;
+import java.time.*;
+import java.time.format.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * @author <a href="mailto:jal@etc.to">Frits Jalvingh</a>
@@ -21,12 +24,36 @@ public class PartService {
 
 	public static final String PART_SUFFIX = ".part";
 
+	/** The cache time, in seconds, for parts requested with their content hash in the URL: one year. */
+	static private final int IMMUTABLE_CACHE_TIME = 365 * 24 * 60 * 60;
+
+	static private final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
 	private final DomApplication m_application;
 
 	private final boolean m_allowExpires;
 
 	@Nonnull
-	private final LRUHashMap<Object, PartData> m_cache;
+	private final ConcurrentLRUCache<Object, PartData> m_cache;
+
+	/**
+	 * Parts that are being generated right now. The first thread that needs a part that is not
+	 * in the cache registers a task here and generates it; all other threads that need the same
+	 * part wait for that task's result instead of generating the part themselves.
+	 */
+	@Nonnull
+	private final ConcurrentHashMap<Object, FutureTask<PartData>> m_pendingMap = new ConcurrentHashMap<>();
+
+	/** How cached parts are checked for changes in their dependencies. */
+	@Nonnull
+	private volatile PartModificationCheck m_modificationCheck = PartModificationCheck.ALWAYS;
+
+	/** For {@link PartModificationCheck#THROTTLED}, the minimal time between two checks of a part, in millis. */
+	private volatile long m_recheckInterval = 5000;
+
+	/** When set, this watches the files parts depend on and invalidates those parts when files change. */
+	@Nullable
+	private volatile PartFileWatcher m_fileWatcher;
 
 	/**
 	 * Registers URL matchers connected to parts.
@@ -74,7 +101,7 @@ public class PartService {
 	public PartService(DomApplication application) {
 		m_application = application;
 
-		m_cache = new LRUHashMap<>(item -> item == null ? 4 : item.getSize() + 32, 16 * 1024 * 1024); 			// Accept 16MB of resources FIXME Must be parameterized
+		m_cache = new ConcurrentLRUCache<>(item -> item == null ? 4 : item.getSize() + 32, 16 * 1024 * 1024, this::partRemoved); 			// Accept 16MB of resources FIXME Must be parameterized
 		m_allowExpires = DeveloperOptions.getBool("domui.expires", true);
 	}
 
@@ -235,23 +262,40 @@ public class PartService {
 	/*	CODING:	Buffered parts cache and code.						*/
 	/*--------------------------------------------------------------*/
 	/**
-	 * Helper which handles possible cached buffered parts.
+	 * Helper which handles possible cached buffered parts. Every part is sent with a strong ETag
+	 * derived from its content hash and a Last-Modified date, and conditional requests that
+	 * match the cached copy of the browser get a 304 without any content.
 	 * @param pf
 	 * @param ctx
 	 * @throws Exception
 	 */
 	private <K> void generate(IBufferedPartFactory<K> pf, RequestContextImpl ctx, IExtendedParameterInfo parameters) throws Exception {
 		PartData cp = getCachedInstance2(pf, parameters);
+		IRequestResponse rr = ctx.getRequestResponse();
+
+		ContentEncoding encoding = cp.isCompressible() ? ContentEncoding.select(rr) : ContentEncoding.IDENTITY;
+		byte[] encoded = cp.getEncodedData(encoding);
+		if(null == encoded)
+			encoding = ContentEncoding.IDENTITY;
+
+		addCacheHeaders(rr, cp, encoding, parameters, m_allowExpires);
+		if(isNotModified(rr, cp)) {
+			rr.sendNotModified();
+			return;
+		}
 
 		//-- Generate the part
 		OutputStream os = null;
-		if(cp.getCacheTime() > 0 && m_allowExpires) {
-			ctx.getRequestResponse().setExpiry(cp.getCacheTime());
-		}
 		try {
-			os = ctx.getRequestResponse().getOutputStream(cp.getContentType(), null, cp.getSize());
-			for(byte[] data : cp.getData())
-				os.write(data);
+			if(null != encoded) {
+				encoding.addHeaders(rr);
+				os = rr.getOutputStream(cp.getContentType(), null, encoded.length);
+				os.write(encoded);
+			} else {
+				os = rr.getOutputStream(cp.getContentType(), null, cp.getSize());
+				for(byte[] data : cp.getData())
+					os.write(data);
+			}
 		} finally {
 			try {
 				if(os != null)
@@ -260,6 +304,101 @@ public class PartService {
 		}
 	}
 
+	/**
+	 * Checks the conditional request headers against the part. If-None-Match takes precedence over
+	 * If-Modified-Since, as required by RFC 7232.
+	 */
+	private boolean isNotModified(IRequestResponse rr, PartData cp) {
+		String inm = rr.getRequestHeader("If-None-Match");
+		if(null != inm)
+			return matchesETag(inm, cp.getHashString());
+
+		String ims = rr.getRequestHeader("If-Modified-Since");
+		if(null != ims) {
+			try {
+				long since = ZonedDateTime.parse(ims.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+				return cp.getLastModified() <= since;
+			} catch(DateTimeParseException x) {
+				return false;								// Invalid dates must be ignored
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether an If-None-Match header value contains an ETag for the part with the specified
+	 * hash. Weak comparison is used as required for If-None-Match, and the encoding suffix is ignored
+	 * as all encodings of a part have the same content.
+	 */
+	static boolean matchesETag(String header, String hash) {
+		for(String tag : header.split(",")) {
+			tag = tag.trim();
+			if(tag.equals("*"))
+				return true;
+			if(tag.startsWith("W/"))
+				tag = tag.substring(2);
+			if(tag.length() >= 2 && tag.charAt(0) == '"' && tag.charAt(tag.length() - 1) == '"')
+				tag = tag.substring(1, tag.length() - 1);
+			int pos = tag.indexOf('-');
+			if(pos != -1)
+				tag = tag.substring(0, pos);
+			if(tag.equals(hash))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Add the validator and caching headers for a part. When the part was requested with a URL
+	 * containing its content hash (see {@link #getContentHashedUrl(String, PartData)}) the content
+	 * for that URL can never change, so it is marked as immutable.
+	 */
+	static void addCacheHeaders(@Nonnull IRequestResponse rr, @Nonnull PartData cp, @Nonnull ContentEncoding encoding, @Nonnull IParameterInfo parameters, boolean allowExpires) {
+		//-- Validators. Each encoding is a different representation so it needs its own ETag.
+		String hash = cp.getHashString();
+		rr.addHeader("ETag", "\"" + (encoding == ContentEncoding.IDENTITY ? hash : hash + "-" + encoding.getToken()) + "\"");
+		rr.addHeader("Last-Modified", HTTP_DATE.format(Instant.ofEpochMilli(cp.getLastModified())));
+		if(cp.isCompressible())
+			rr.addHeader("Vary", "Accept-Encoding");
+
+		if(hash.equals(parameters.getParameter(Constants.PARAM_CONTENT_HASH))) {
+			//-- The URL contains the content hash, so this URL's content will never change.
+			rr.addHeader("Cache-Control", "public, max-age=" + IMMUTABLE_CACHE_TIME + ", immutable");
+			if(allowExpires)
+				rr.setExpiry(IMMUTABLE_CACHE_TIME);
+		} else if(cp.getCacheTime() > 0 && allowExpires) {
+			rr.setExpiry(cp.getCacheTime());
+		}
+	}
+
+	/**
+	 * Return the URL for the part with its content hash appended, which makes it a URL whose content never changes.
+	 */
+	@Nonnull
+	static public String getContentHashedUrl(@Nonnull String rurl, @Nonnull PartData cp) {
+		return rurl + "?" + Constants.PARAM_CONTENT_HASH + "=" + cp.getHashString();
+	}
+
+	/**
+	 * If the resource URL refers to a buffered part ($ resource) this appends the content hash of
+	 * that part as a parameter, so that the URL changes every time the content changes. Such URLs
+	 * are served with a "cache forever" header. If the part cannot be found or generated the rurl is
+	 * returned unaltered.
+	 */
+	public String appendContentHash(IRequestContext ctx, String rurl) {
+		if(!rurl.startsWith("$") || rurl.indexOf('?') != -1)
+			return rurl;
+		String themeName = ctx.getThemeName();
+		if(null == themeName)
+			return rurl;
+		try {
+			PartData cp = getData(new ExtendedParameterInfoImpl(themeName, ctx.getBrowserVersion(), rurl, ""));
+			return getContentHashedUrl(rurl, cp);
+		} catch(Exception x) {
+			return rurl;
+		}
+	}
+
 	private <K> PartData getCachedInstance2(final IBufferedPartFactory<K> pf, final IExtendedParameterInfo parameters) throws Exception {
 		//-- Convert the data to a key object, then lookup;
 		K key = pf.decodeKey(m_application, parameters);
@@ -269,17 +408,7 @@ public class PartService {
 	}
 
 	public <K> PartData getCachedInstance(final IBufferedPartFactory<K> pf, K key) throws Exception {
-		/*
-		 * Lookup. This part *is* thread-safe but it has a race condition: it may cause multiple
-		 * instances of the SAME resource to be generated at the same time and inserted at the
-		 * same time. In time we must replace this with the MAKER pattern, but for now this
-		 * small problem will be accepted; it will not cause problems since only the last instance
-		 * will be kept and stored.
-		 */
-		PartData cp;
-		synchronized(m_cache) {
-			cp = m_cache.get(key); // Already exists here?
-		}
+		PartData cp = m_cache.get(key);							// Already exists here?
 
 		/*
 		 * jal 20100901 Always check for updated parts, even when in production mode. Part factories themselves will
@@ -288,16 +417,89 @@ public class PartService {
 		 * VP colors are changed.
 		 */
 		if(cp != null /* && m_application.inDevelopmentMode() */) {
-			if(cp.getDependencies() != null) {
-				if(cp.getDependencies().isModified()) {
-					System.out.println("parts: part " + key + " has changed. Reloading..");
-					cp = null;
-				}
+			if(isModified(cp)) {
+				System.out.println("parts: part " + key + " has changed. Reloading..");
+				m_cache.remove(key, cp);
+				cp = null;
 			}
 		}
 		if(cp != null)
 			return cp;
 
+		/*
+		 * Not cached: make sure that only one thread generates the part. If another thread is
+		 * already generating it we wait for its result.
+		 */
+		FutureTask<PartData> task = new FutureTask<>(() -> generatePart(pf, key));
+		FutureTask<PartData> running = m_pendingMap.putIfAbsent(key, task);
+		if(null == running) {
+			try {
+				task.run();
+			} finally {
+				m_pendingMap.remove(key, task);
+			}
+			running = task;
+		}
+		try {
+			return running.get();
+		} catch(ExecutionException x) {
+			Throwable cause = x.getCause();
+			if(cause instanceof Exception)
+				throw (Exception) cause;
+			if(cause instanceof Error)
+				throw (Error) cause;
+			throw x;
+		}
+	}
+
+	/**
+	 * Generate the specified parts in parallel and put them in the cache, so that the first requests
+	 * for them do not have to wait. This blocks until all parts are done. Parts that fail are logged
+	 * and skipped.
+	 *
+	 * @param threads	The max #of parts to generate at the same time.
+	 * @return			The #of parts that could not be generated.
+	 */
+	public int precompile(@Nonnull List<? extends IExtendedParameterInfo> parts, int threads) throws InterruptedException {
+		if(parts.isEmpty())
+			return 0;
+		long ts = System.nanoTime();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, parts.size())), r -> {
+			Thread t = new Thread(r, "part-precompile");
+			t.setDaemon(true);
+			return t;
+		});
+		List<Future<PartData>> list = new ArrayList<>();
+		try {
+			for(IExtendedParameterInfo part : parts) {
+				list.add(executor.submit(() -> getData(part)));
+			}
+
+			int failed = 0;
+			for(int i = 0; i < list.size(); i++) {
+				try {
+					list.get(i).get();
+				} catch(ExecutionException x) {
+					failed++;
+					System.err.println("parts: precompiling " + parts.get(i).getInputPath() + " failed: " + x.getCause());
+				}
+			}
+			System.out.println("parts: precompiled " + (parts.size() - failed) + " of " + parts.size() + " parts in " + StringTool.strNanoTime(System.nanoTime() - ts));
+			return failed;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Generate the part and add it to the cache. This is only ever called by one thread at a time for a given key.
+	 */
+	private <K> PartData generatePart(final IBufferedPartFactory<K> pf, K key) throws Exception {
+		//-- Another thread might have finished generating it just before we registered.
+		PartData cp = m_cache.get(key);
+		if(null != cp)
+			return cp;
+
 		//-- We're going to (re)create the part
 		ResourceDependencyList rdl = new ResourceDependencyList();	// Fix bug# 852: allow resource change checking in production also.
 		ByteBufferOutputStream os = new ByteBufferOutputStream();
@@ -310,12 +512,102 @@ public class PartService {
 		}
 		os.close();
 		cp = new PartData(os.getBuffers(), os.getSize(), pr.getCacheTime(), mime, rdl.createDependencies(), pr.getExtra());
-		synchronized(m_cache) {
-			m_cache.put(key, cp); 								// Store (may be done multiple times due to race condition)
-		}
+
+		//-- Register before adding to the cache, so that an immediate eviction also unregisters it.
+		PartFileWatcher watcher = m_fileWatcher;
+		if(null != watcher)
+			watcher.register(key, cp);
+		m_cache.put(key, cp);
 		return cp;
 	}
 
+	/**
+	 * Check whether the part's dependencies have changed, according to the modification check policy.
+	 */
+	private boolean isModified(@Nonnull PartData cp) {
+		ResourceDependencies deps = cp.getDependencies();
+		if(null == deps)
+			return false;
+		switch(m_modificationCheck) {
+			default:
+				throw new IllegalStateException("Unknown check " + m_modificationCheck);
+
+			case ALWAYS:
+				break;
+
+			case FROZEN:
+				return false;
+
+			case THROTTLED:
+				long now = System.currentTimeMillis();
+				if(now - cp.getLastChecked() < m_recheckInterval)
+					return false;
+				cp.setLastChecked(now);
+				break;
+		}
+		return deps.isModified();
+	}
+
+	/**
+	 * Define how cached parts are checked for changes to the resources they were generated
+	 * from. The default, {@link PartModificationCheck#ALWAYS}, checks every time a part is used.
+	 * In production {@link PartModificationCheck#THROTTLED} or {@link PartModificationCheck#FROZEN}
+	 * remove the file system calls from every part request; combine those with {@link #startFileWatcher()}
+	 * to still pick up changed files quickly.
+	 *
+	 * @param check
+	 * @param recheckInterval	For THROTTLED, the minimum time between checks of a single part, in milliseconds.
+	 */
+	public void setModificationCheck(@Nonnull PartModificationCheck check, long recheckInterval) {
+		if(recheckInterval < 0)
+			throw new IllegalArgumentException("The recheck interval cannot be negative");
+		m_recheckInterval = recheckInterval;
+		m_modificationCheck = check;
+	}
+
+	@Nonnull
+	public PartModificationCheck getModificationCheck() {
+		return m_modificationCheck;
+	}
+
+	/**
+	 * Start watching the files that cached parts depend on, so that parts get invalidated
+	 * as soon as such a file changes. Only file system resources can be watched; other
+	 * dependencies (jars, themes) are still subject to the modification check policy.
+	 * Parts generated before this call are not watched.
+	 */
+	public synchronized void startFileWatcher() throws IOException {
+		if(m_fileWatcher == null)
+			m_fileWatcher = new PartFileWatcher(this);
+	}
+
+	/**
+	 * Remove the part from the cache if it still holds the specified instance.
+	 */
+	boolean internalInvalidate(@Nonnull Object key, @Nonnull PartData part) {
+		return m_cache.remove(key, part);
+	}
+
+	/**
+	 * Called by the cache for every part that leaves it, so that the file watcher drops it too.
+	 */
+	private void partRemoved(@Nonnull Object key, @Nonnull PartData part) {
+		PartFileWatcher watcher = m_fileWatcher;
+		if(null != watcher)
+			watcher.unregister(key, part);
+	}
+
+	/**
+	 * Release all resources held by this service.
+	 */
+	public synchronized void destroy() {
+		PartFileWatcher watcher = m_fileWatcher;
+		if(null != watcher) {
+			watcher.close();
+			m_fileWatcher = null;
+		}
+	}
+
 
 	private DomApplication getApplication() {
 		return m_application;
@@ -47,6 +47,10 @@ import to.etc.domui.util.janitor.*;
  * is free the current request will claim it using a lock in the session object. When a
  * request terminates it is the responsibility of the toplevel request handler to always
  * unlock the request.</p>
+ * <p>When {@link DomApplication#isWindowRequestLocking()} is set requests for different browser windows
+ * run in parallel: a request then only locks the {@link WindowSession} it works on, and the
+ * session itself only synchronizes for the short operations on its own data, like the window map
+ * and the attributes.</p>
  *
  * @author <a href="mailto:jal@etc.to">Frits Jalvingh</a>
  * Created on May 22, 2008
@@ -61,11 +65,11 @@ public class AppSession implements HttpSessionBindingListener, IAttributeContain
 	final private Map<String, Object> m_objCache = new HashMap<String, Object>();
 
 	/**
-	 * Not-null if some other request is executing for this session. Prevent multi-user access
+	 * Owned by the request executing for this session, to prevent multi-user access
 	 * to shared variables.
 	 */
-	@Nullable
-	private Thread m_lockingThread;
+	@Nonnull
+	final private RequestLock m_requestLock = new RequestLock("AppSession");
 
 	private int m_exceptionRetryCount;
 
@@ -122,11 +126,11 @@ public class AppSession implements HttpSessionBindingListener, IAttributeContain
 		internalDestroy();
 	}
 
-	Object findCachedObject(final String classname) {
+	synchronized Object findCachedObject(final String classname) {
 		return m_objCache.get(classname);
 	}
 
-	void putCachedObject(final String classname, final Object o) {
+	synchronized void putCachedObject(final String classname, final Object o) {
 		m_objCache.put(classname, o);
 	}
 
@@ -139,27 +143,11 @@ public class AppSession implements HttpSessionBindingListener, IAttributeContain
 	 * access session-related data. This call can be called multiple times
 	 * for a thread and will not block. But it is not nested: a single call
 	 * to unlockSession() will release the lock.
+	 * When window request locking is enabled (see {@link DomApplication#isWindowRequestLocking()})
+	 * requests do not use this lock but lock the {@link WindowSession} they work on.
 	 */
 	public void internalLockSession() {
-		Thread t = Thread.currentThread();
-
-		synchronized(this) {
-			for(;;) {
-				if(m_lockingThread == null) { // Not claimed at this point?
-					m_lockingThread = t; // Claimed by me.
-					return;
-				}
-				if(m_lockingThread == t) // Already claimed by me?
-					return; // Useless call, then
-
-				//-- Someone else has locked me. Wait until I'm released.
-				try {
-					wait();
-				} catch(InterruptedException ix) {
-					throw new RuntimeException("Waiting for session lock was interrupted.", ix);
-				}
-			}
-		}
+		m_requestLock.lock(m_application.getRequestLockWarnTime(), m_application.getRequestLockTimeout());
 	}
 
 	/**
@@ -167,15 +155,7 @@ public class AppSession implements HttpSessionBindingListener, IAttributeContain
 	 * Leave the session-controlled monitor. THIS CALL DOES NOT NEST!
 	 */
 	public void internalUnlockSession() {
-		Thread t = Thread.currentThread();
-		synchronized(this) {
-			if(m_lockingThread == null)
-				throw new IllegalStateException("Trying to unlock an AppSession while it's not being owned..");
-			if(m_lockingThread != t)
-				throw new IllegalStateException("Trying to unlock an AppSession while it's not being owned BY YOU");
-			m_lockingThread = null;
-			notify();
-		}
+		m_requestLock.unlock();
 	}
 
 	/*--------------------------------------------------------------*/
@@ -201,13 +181,18 @@ public class AppSession implements HttpSessionBindingListener, IAttributeContain
 	 * Walks all WindowSessions and checks to see if they have not been used for more than the window
 	 * session timeout. All WindowSessions that have expired will then be destroyed. This only checks
 	 * the "normal" timestamp. Obituary handling is elsewhere.
+	 * When window request locking is enabled an expired window is only destroyed if no request holds
+	 * its lock; busy windows are skipped and checked again by a later request.
 	 */
 	final public void internalCheckExpiredWindowSessions() {
 		List<WindowSession> droplist = null;
 		long ets = System.currentTimeMillis() - (long) m_application.getWindowSessionTimeout() * 1000 * 60l;
+		boolean windowLocking = m_application.isWindowRequestLocking();
 		synchronized(this) {
 			for(WindowSession cm : m_windowMap.values()) {
 				if(cm.getLastUsed() < ets) {
+					if(windowLocking && !cm.internalTryLockWindow())
+						continue;
 					if(droplist == null)
 						droplist = new ArrayList<WindowSession>(10);
 					droplist.add(cm);
@@ -231,6 +216,9 @@ public class AppSession implements HttpSessionBindingListener, IAttributeContain
 			} catch(Exception x) {
 				logUser(cm.getWindowID(), "Exception in destroyConversations: " + x);
 				LOG.warn("Exception in destroyConversations", x);
+			} finally {
+				if(windowLocking)
+					cm.internalUnlockWindow();
 			}
 		}
 	}
@@ -351,13 +339,21 @@ public class AppSession implements HttpSessionBindingListener, IAttributeContain
 		if(LOG.isInfoEnabled())
 			LOG.info("session: destroying WindowSession=" + cm.getWindowID() + " because it's obituary was received.");
 		logUser(cm.getWindowID(), "session: destroying WindowSession=" + cm.getWindowID() + " because it's obituary was received.");
+		boolean windowLocking = m_application.isWindowRequestLocking();
 		synchronized(this) {
 			if(cm.getObituaryTimer() == -1) 					// Was cancelled?
 				return; 										// Do not drop it then.
+			if(windowLocking && !cm.internalTryLockWindow())	// A request is still using it: leave it to the expiry check
+				return;
 			m_windowMap.remove(cm.getWindowID()); 				// Atomically remove the thingy.
 		}
-		cm.destroyWindow(false);								// Discard all of it's contents.
-		m_application.internalCallWindowSessionDestroyed(cm);
+		try {
+			cm.destroyWindow(false);							// Discard all of it's contents.
+			m_application.internalCallWindowSessionDestroyed(cm);
+		} finally {
+			if(windowLocking)
+				cm.internalUnlockWindow();
+		}
 	}
 
 	/**
@@ -381,12 +377,12 @@ public class AppSession implements HttpSessionBindingListener, IAttributeContain
 	 */
 	@Override
 	@Nullable
-	public Object getAttribute(@Nonnull String name) {
+	public synchronized Object getAttribute(@Nonnull String name) {
 		return m_attributeMap.get(name);
 	}
 
 	@Override
-	public void setAttribute(@Nonnull String name, @Nullable Object value) {
+	public synchronized void setAttribute(@Nonnull String name, @Nullable Object value) {
 		if(m_attributeMap == Collections.EMPTY_MAP)
 			m_attributeMap = new HashMap<String, Object>();
 		if(value == null) {
@@ -468,6 +468,36 @@ public class ConversationContext implements IQContextContainer {
 		getDelayedActivitiesManager().unregisterPoller(nc);
 	}
 
+	/**
+	 * Tell the client that this conversation has changes to show. When the client uses long polling
+	 * this wakes up its waiting poll request, so that the changes are sent immediately. This can
+	 * be called from any thread.
+	 */
+	public void signalChanged() {
+		getDelayedActivitiesManager().signalChanged();
+	}
+
+	/**
+	 * Return how long a long-poll request may wait for changes in this conversation, in milliseconds; 0
+	 * means it must not wait at all.
+	 */
+	public long internalGetLongPollWait(long longPollTimeout, long pollInterval) {
+		DelayedActivitiesManager delayManager = m_delayManager;
+		if(delayManager == null || !delayManager.callbackRequired())
+			return 0;
+		return delayManager.hasUnsignalledPollers() ? Math.min(pollInterval, longPollTimeout) : longPollTimeout;
+	}
+
+	/**
+	 * Wait for changes in this conversation, for at most maxWait milliseconds. Must be called without
+	 * holding the session or window lock.
+	 */
+	public void internalAwaitChanges(long maxWait) throws InterruptedException {
+		DelayedActivitiesManager delayManager = m_delayManager;
+		if(null != delayManager)
+			delayManager.awaitChanges(maxWait);
+	}
+
 	//	/**
 	//	 * Forces the activity manager to enable continuous polling by the client system, at least every interval millis.
 	//	 */
@@ -27,15 +27,17 @@ package to.etc.domui.state;
 import org.slf4j.*;
 import to.etc.domui.component.delayed.*;
 import to.etc.domui.dom.html.*;
+import to.etc.domui.server.*;
 import to.etc.domui.util.*;
 
 import javax.annotation.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * This helper class does all of the handling for delayed activities for
  * a conversation. It contains all activity queues plus all handling of
- * the executor thread.
+ * the execution, which is done by the application's shared {@link DelayedActivityExecutor}.
  *
  * @author <a href="mailto:jal@etc.to">Frits Jalvingh</a>
  * Created on Oct 7, 2008
@@ -44,7 +46,19 @@ public class DelayedActivitiesManager implements Runnable {
 	private static final Logger LOG = LoggerFactory.getLogger(DelayedActivitiesManager.class);
 
 	//	private ConversationContext			m_conversation;
-	private Thread m_executorThread;
+	/** The shared executor running the activities. */
+	@Nonnull
+	final private DelayedActivityExecutor m_executor;
+
+	/** The max #of activities that can be pending, or 0 for no limit. */
+	final private int m_maxPending;
+
+	/** T while this manager is queued in or running on the executor. */
+	private boolean m_scheduled;
+
+	/** The thread running the current activity, used to interrupt it when the activity is cancelled. */
+	@Nullable
+	private Thread m_runningThread;
 
 	private List<DelayedActivityInfo> m_pendingQueue = new ArrayList<DelayedActivityInfo>();
 
@@ -63,8 +77,14 @@ public class DelayedActivitiesManager implements Runnable {
 	 */
 	private Set<NodeContainer> m_pollSet = new HashSet<NodeContainer>();
 
+	/** Wakes up a long-poll request waiting for changes. */
+	final private PushSignal m_pushSignal = new PushSignal();
+
 	protected DelayedActivitiesManager(ConversationContext conversation) {
 	//		m_conversation = conversation;
+		DomApplication da = DomApplication.get();
+		m_executor = da.getDelayedActivityExecutor();
+		m_maxPending = da.getMaxPendingActivities();
 	}
 
 	/**
@@ -81,6 +101,8 @@ public class DelayedActivitiesManager implements Runnable {
 				if(tdai.getActivity() == a)
 					throw new IllegalStateException("The same activity instance is ALREADY scheduled!!");
 			}
+			if(m_maxPending > 0 && m_pendingQueue.size() >= m_maxPending)
+				throw new IllegalStateException("Too many activities are waiting to be executed (max " + m_maxPending + ")");
 		}
 		DelayedActivityInfo dai = new DelayedActivityInfo(this, a, ac);
 
@@ -114,8 +136,6 @@ public class DelayedActivitiesManager implements Runnable {
 	 * @param dai
 	 */
 	public boolean cancelActivity(DelayedActivityInfo dai) {
-		Thread tr;
-
 		synchronized(this) {
 			if(m_pendingQueue.remove(dai)) {
 				dai.getContainer().confirmCancelled();
@@ -126,21 +146,58 @@ public class DelayedActivitiesManager implements Runnable {
 			if(m_runningActivity != dai)
 				return false;
 
-			//-- The activity is currently running. Try to abort the task && thread.
-			tr = m_executorThread;
+			//-- The activity is currently running. Try to abort the task && thread. Interrupt while locked, so that the thread is still running this activity.
 			m_runningActivity.getMonitor().cancel(); // Force cancel indication.
+			Thread tr = m_runningThread;
+			if(null != tr)
+				tr.interrupt();
 		}
-		tr.interrupt();
 		return true;
 	}
 
-	private void wakeupListeners(int lingertime) {}
+	private void wakeupListeners(int lingertime) {
+		m_pushSignal.signal();
+	}
 
 	void completionStateChanged(DelayedActivityInfo dai, int pct, String statusMsg) {
 		synchronized(this) {
+			if(pct == dai.getPercentageComplete() && DomUtil.isEqual(statusMsg, dai.getStatusMessage()))
+				return;
 			dai.setPercentageComplete(pct);
 			dai.setStatusMessage(statusMsg);
 		}
+		m_pushSignal.signal();
+	}
+
+	/**
+	 * Wake up a waiting long-poll request, because something changed that must be shown.
+	 */
+	public void signalChanged() {
+		m_pushSignal.signal();
+	}
+
+	/**
+	 * Wait until there are changes to report, for at most maxWait milliseconds. This must be called
+	 * without holding the session or window lock.
+	 */
+	public boolean awaitChanges(long maxWait) throws InterruptedException {
+		synchronized(this) {
+			if(m_terminated || m_completionQueue.size() > 0)
+				return true;
+		}
+		return m_pushSignal.await(maxWait);
+	}
+
+	/**
+	 * T if nodes are registered that must be checked for changes every poll interval, because they
+	 * do not signal their changes themselves.
+	 */
+	public boolean hasUnsignalledPollers() {
+		for(NodeContainer nc : m_pollSet) {
+			if(!((IPolledForUpdate) nc).isSignallingChanges())
+				return true;
+		}
+		return false;
 	}
 
 
@@ -184,26 +241,33 @@ public class DelayedActivitiesManager implements Runnable {
 	 * when data is present in the completion queue.
 	 */
 	public boolean start() {
-		Thread t;
 		synchronized(this) {
-			if(m_executorThread != null) // Active thread?
-				return true; // Begone.
-
-			//-- Must a thread be started?
-			if(m_pendingQueue.size() == 0) // Pending requests?
-				return false; // Nope -> begone
-
-			//-- Prepare to start the executor.
-			m_executorThread = new Thread(this);
-			m_executorThread.setName("xc");
-			m_executorThread.setDaemon(true);
-			m_executorThread.setPriority(Thread.MIN_PRIORITY);
-			t = m_executorThread; // Prevent naked access to m_ variable even though it is untouched by other code.
+			if(m_scheduled) 						// Already queued or running?
+				return true; 						// Begone.
+
+			//-- Must execution be started?
+			if(m_pendingQueue.size() == 0 || m_terminated) // Pending requests?
+				return false; 						// Nope -> begone
+			m_scheduled = true;
 		}
-		t.start();
+		submit();
 		return true;
 	}
 
+	/**
+	 * Queue this manager on the executor, to run its next activity.
+	 */
+	private void submit() {
+		try {
+			m_executor.execute(this);
+		} catch(RejectedExecutionException x) {
+			synchronized(this) {
+				m_scheduled = false;
+			}
+			throw x;
+		}
+	}
+
 	//	/**
 	//	 * Returns whether the client needs to use it's polltimer again and poll for changes. It returns 0 if there is no need to poll.
 	//	 * @return
@@ -248,23 +312,23 @@ public class DelayedActivitiesManager implements Runnable {
 	 * trying to fondle a dead body and throw (up).
 	 */
 	public void terminate() {
-		Thread killme = null;
 		DelayedActivityInfo pendingcorpse = null;
 
 		synchronized(this) {
 			if(m_terminated)
 				return;
 			m_terminated = true;
-			if(m_executorThread != null) {
-				killme = m_executorThread;
-				m_executorThread = null;
-			}
 			pendingcorpse = m_runningActivity;
 			m_runningActivity = null;
 
 			m_completionQueue.clear();
 			m_pendingQueue.clear();
 			wakeupListeners(100); // Wakeup anything that's listening quickly
+
+			//-- Signal the thread while locked, so that it is still running our activity.
+			Thread killme = m_runningThread;
+			if(killme != null)
+				killme.interrupt();
 		}
 
 		//-- Do our utmost to kill the task, not gently.
@@ -274,64 +338,54 @@ public class DelayedActivitiesManager implements Runnable {
 		} catch(Exception x) {
 			x.printStackTrace();
 		}
-
-		//-- Signal the thread
-		try {
-			if(killme != null) {
-				killme.interrupt();
-			}
-		} catch(Exception x) {
-			x.printStackTrace();
-		}
 	}
 
 	/*--------------------------------------------------------------*/
 	/*	CODING:	Executor thread.									*/
 	/*--------------------------------------------------------------*/
 	/**
-	 * Main action runnert. This is the thread's executor function. While the manager is
-	 * active this will execute activities in the PENDING queue one by one until the queue
-	 * is empty. If that happens it will commit suicide. This suicidal act will not invalidate
-	 * the manager; at any time can new actions be posted and a new thread be started.
+	 * Main action runner, called by the shared executor. This runs the first activity in the
+	 * PENDING queue, then queues this manager on the executor again if more activities are
+	 * pending, so that other conversations get their turn in between.
 	 *
 	 * @see java.lang.Runnable#run()
 	 */
 	@Override
 	public void run() {
-		try {
-			for(;;) {
-				//-- Are we attempting to die?
-				DelayedActivityInfo dai;
-				synchronized(this) {
-					if(m_terminated) 				// Manager is deadish?
-						return; 					// Just quit immediately (nothing is currently running)
-
-					//-- Anything to do?
-					if(m_pendingQueue.size() == 0) {	// Something queued still?
-						//-- Nope. We can stop properly.
-						return;
-					}
-
-					//-- Schedule for a new execute.
-					dai = m_pendingQueue.remove(0); 	// Get and remove from pending queue
-					m_runningActivity = dai; 			// Make this the running dude
-				}
-				execute(dai);
+		DelayedActivityInfo dai;
+		synchronized(this) {
+			if(m_terminated || m_pendingQueue.size() == 0) {	// Manager is deadish, or nothing to do?
+				m_scheduled = false;
+				return;
 			}
+
+			//-- Schedule for a new execute.
+			dai = m_pendingQueue.remove(0); 					// Get and remove from pending queue
+			m_runningActivity = dai; 							// Make this the running dude
+			m_runningThread = Thread.currentThread();
+		}
+
+		boolean again;
+		long ts = System.nanoTime();
+		m_executor.activityStarted();
+		try {
+			execute(dai);
 		} catch(Exception x) {
 			//-- Do not report trouble if the manager is in the process of dying
-			if(!isTerminated()) {
-				System.err.println("FATAL Exception in DelayedActivitiesManager.run()!??!?!?!?\nAsy tasks WILL NOT COMPLETE anymore.");
-				x.printStackTrace();
-			}
+			if(!isTerminated())
+				LOG.error("FATAL Exception in DelayedActivitiesManager.run()", x);
 		} finally {
-			/*
-			 * Be very, very certain that we handle state @ thread termination properly.
-			 */
+			m_executor.activityFinished(System.nanoTime() - ts);
 			synchronized(this) {
-				m_executorThread = null; // I'm gone...
+				m_runningThread = null;
+				Thread.interrupted();							// Do not leave a cancel interrupt on the pool thread
+				again = !m_terminated && m_pendingQueue.size() > 0;
+				if(!again)
+					m_scheduled = false;
 			}
 		}
+		if(again)
+			submit();
 	}
 
 	/**
@@ -418,6 +472,7 @@ public class DelayedActivitiesManager implements Runnable {
 	 */
 	public <T extends NodeContainer & IPolledForUpdate> void registerPoller(T nc) {
 		m_pollSet.add(nc);
+		m_pushSignal.signal();							// A waiting long poll must return so that polling can be adjusted
 	}
 
 	/**
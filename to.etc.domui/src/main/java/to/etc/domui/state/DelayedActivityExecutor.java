@@ -0,0 +1,165 @@
+/*
+ * DomUI Java User Interface library
+ * Copyright (c) 2010 by Frits Jalvingh, Itris B.V.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * See the "sponsors" file for a list of supporters.
+ *
+ * The latest version of DomUI and related code, support and documentation
+ * can be found at http://www.domui.org/
+ * The contact for the project is Frits Jalvingh <jal@etc.to>.
+ */
+package to.etc.domui.state;
+
+import org.slf4j.*;
+
+import javax.annotation.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * The application-wide executor that runs the delayed activities of all conversations, replacing
+ * the thread that every {@link DelayedActivitiesManager} used to start for itself. It has a fixed
+ * max #of threads, so the #of activities running at the same time is bounded regardless of the
+ * #of users.
+ *
+ * <p>A conversation runs its activities one at a time, and each execution runs only a single
+ * activity before the conversation goes to the back of the queue again. This way a conversation
+ * with many activities cannot starve the others.</p>
+ *
+ * <p>When virtual threads are requested and the JDK supports them (JDK 21+) the activities run on
+ * virtual threads; the #of threads is still bounded.</p>
+ */
+final public class DelayedActivityExecutor {
+	private static final Logger LOG = LoggerFactory.getLogger(DelayedActivityExecutor.class);
+
+	@Nonnull
+	final private ThreadPoolExecutor m_executor;
+
+	final private boolean m_virtual;
+
+	/** The #of activities running right now. */
+	final private AtomicInteger m_runningCount = new AtomicInteger();
+
+	final private AtomicLong m_completedCount = new AtomicLong();
+
+	/** The total time spent running activities, in nanoseconds. */
+	final private AtomicLong m_runNanos = new AtomicLong();
+
+	/** The longest time a single activity ran, in nanoseconds. */
+	final private AtomicLong m_maxRunNanos = new AtomicLong();
+
+	public DelayedActivityExecutor(int maxThreads, boolean useVirtualThreads) {
+		if(maxThreads <= 0)
+			throw new IllegalArgumentException("The #of threads must be > 0");
+		ThreadFactory tf = useVirtualThreads ? createVirtualThreadFactory() : null;
+		m_virtual = tf != null;
+		if(null == tf) {
+			AtomicInteger count = new AtomicInteger();
+			tf = r -> {
+				Thread t = new Thread(r, "xc-" + count.incrementAndGet());
+				t.setDaemon(true);
+				t.setPriority(Thread.MIN_PRIORITY);
+				return t;
+			};
+		}
+		m_executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), tf);
+		m_executor.allowCoreThreadTimeOut(true);
+		LOG.info("Delayed activities run on max " + maxThreads + (m_virtual ? " virtual" : "") + " threads");
+	}
+
+	/**
+	 * Get a factory for virtual threads through reflection, as this code must also run on JDKs without them.
+	 */
+	@Nullable
+	static private ThreadFactory createVirtualThreadFactory() {
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class< ? > bc = Class.forName("java.lang.Thread$Builder");
+			builder = bc.getMethod("name", String.class, long.class).invoke(builder, "xc-", Long.valueOf(1));
+			return (ThreadFactory) bc.getMethod("factory").invoke(builder);
+		} catch(Exception x) {
+			LOG.info("Virtual threads are not available, using platform threads for delayed activities");
+			return null;
+		}
+	}
+
+	void execute(@Nonnull Runnable r) {
+		m_executor.execute(r);
+	}
+
+	void activityStarted() {
+		m_runningCount.incrementAndGet();
+	}
+
+	void activityFinished(long nanos) {
+		m_runningCount.decrementAndGet();
+		m_completedCount.incrementAndGet();
+		m_runNanos.addAndGet(nanos);
+		long max;
+		while(nanos > (max = m_maxRunNanos.get())) {
+			if(m_maxRunNanos.compareAndSet(max, nanos))
+				break;
+		}
+	}
+
+	/**
+	 * Stop all threads, interrupting running activities. Called when the application is destroyed.
+	 */
+	public void shutdown() {
+		m_executor.shutdownNow();
+	}
+
+	public boolean isVirtual() {
+		return m_virtual;
+	}
+
+	public int getMaxThreads() {
+		return m_executor.getMaximumPoolSize();
+	}
+
+	/**
+	 * The #of conversations waiting for a thread to run their next activity.
+	 */
+	public int getQueueDepth() {
+		return m_executor.getQueue().size();
+	}
+
+	/**
+	 * The #of activities running right now.
+	 */
+	public int getRunningCount() {
+		return m_runningCount.get();
+	}
+
+	public long getCompletedCount() {
+		return m_completedCount.get();
+	}
+
+	/**
+	 * The total time spent running activities, in nanoseconds.
+	 */
+	public long getTotalRunNanos() {
+		return m_runNanos.get();
+	}
+
+	/**
+	 * The longest time a single activity ran, in nanoseconds.
+	 */
+	public long getMaxRunNanos() {
+		return m_maxRunNanos.get();
+	}
+}
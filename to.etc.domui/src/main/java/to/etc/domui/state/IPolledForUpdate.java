@@ -26,4 +26,13 @@ package to.etc.domui.state;
 
 public interface IPolledForUpdate {
 	void checkForChanges() throws Exception;
+
+	/**
+	 * Return T if this node calls {@link ConversationContext#signalChanged()} as soon as it has changes to
+	 * show. With long polling such nodes do not need to be checked every poll interval, so the poll request
+	 * can wait for the signal. The default, F, means the node is checked at every poll interval.
+	 */
+	default boolean isSignallingChanges() {
+		return false;
+	}
 }
@@ -0,0 +1,123 @@
+/*
+ * DomUI Java User Interface library
+ * Copyright (c) 2010 by Frits Jalvingh, Itris B.V.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * See the "sponsors" file for a list of supporters.
+ *
+ * The latest version of DomUI and related code, support and documentation
+ * can be found at http://www.domui.org/
+ * The contact for the project is Frits Jalvingh <jal@etc.to>.
+ */
+package to.etc.domui.state;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * The signal used to wake up a long-poll request that waits for changes in a conversation. Delayed
+ * activities signal it when they make progress or complete, and {@link IPolledForUpdate} nodes or
+ * other background code can signal it through {@link ConversationContext#signalChanged()}.
+ *
+ * <p>A signal that arrives while no request waits is remembered, so the next wait returns at once.
+ * Only one request waits at a time: a new wait releases the request that waited before it.</p>
+ */
+final public class PushSignal {
+	/** The #of requests waiting right now, over all conversations. */
+	static private final AtomicInteger m_parkedCount = new AtomicInteger();
+
+	static private final AtomicLong m_parkTotal = new AtomicLong();
+
+	static private final AtomicLong m_wakeupTotal = new AtomicLong();
+
+	static private final AtomicLong m_timeoutTotal = new AtomicLong();
+
+	/** T when there was a signal that has not yet been seen by a wait. */
+	private boolean m_signalled;
+
+	/** Incremented by every wait, so that a waiting request knows it was replaced by a newer one. */
+	private int m_generation;
+
+	/**
+	 * Mark that there are changes, and wake up the waiting request if there is one.
+	 */
+	public synchronized void signal() {
+		m_signalled = true;
+		notifyAll();
+	}
+
+	/**
+	 * Wait for a signal, for at most the specified time. Returns T if there was a signal, F when
+	 * the time expired or when this wait was replaced by a newer one.
+	 */
+	synchronized boolean await(long maxWait) throws InterruptedException {
+		if(m_signalled) {
+			m_signalled = false;
+			return true;
+		}
+		int generation = ++m_generation;
+		notifyAll();												// Release an earlier waiter
+		m_parkedCount.incrementAndGet();
+		m_parkTotal.incrementAndGet();
+		try {
+			long end = System.currentTimeMillis() + maxWait;
+			for(;;) {
+				if(m_signalled) {
+					m_signalled = false;
+					m_wakeupTotal.incrementAndGet();
+					return true;
+				}
+				if(generation != m_generation)
+					return false;
+				long left = end - System.currentTimeMillis();
+				if(left <= 0) {
+					m_timeoutTotal.incrementAndGet();
+					return false;
+				}
+				wait(left);
+			}
+		} finally {
+			m_parkedCount.decrementAndGet();
+		}
+	}
+
+	/**
+	 * The #of long-poll requests that are waiting right now.
+	 */
+	static public int getParkedCount() {
+		return m_parkedCount.get();
+	}
+
+	/**
+	 * The total #of times a long-poll request had to wait.
+	 */
+	static public long getParkTotal() {
+		return m_parkTotal.get();
+	}
+
+	/**
+	 * The total #of waiting requests that were woken up by a signal.
+	 */
+	static public long getWakeupTotal() {
+		return m_wakeupTotal.get();
+	}
+
+	/**
+	 * The total #of waiting requests that returned because their wait time expired.
+	 */
+	static public long getTimeoutTotal() {
+		return m_timeoutTotal.get();
+	}
+}
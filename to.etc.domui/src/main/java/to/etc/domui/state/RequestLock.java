@@ -0,0 +1,153 @@
+/*
+ * DomUI Java User Interface library
+ * Copyright (c) 2010 by Frits Jalvingh, Itris B.V.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * See the "sponsors" file for a list of supporters.
+ *
+ * The latest version of DomUI and related code, support and documentation
+ * can be found at http://www.domui.org/
+ * The contact for the project is Frits Jalvingh <jal@etc.to>.
+ */
+package to.etc.domui.state;
+
+import javax.annotation.*;
+
+import org.slf4j.*;
+
+/**
+ * The lock that serializes the requests for a single user resource: the whole {@link AppSession}, or
+ * a single {@link WindowSession} when window request locking is enabled. The lock is owned by a
+ * thread; it can be claimed multiple times by its owner but it does not nest: a single unlock
+ * releases it.
+ *
+ * <p>When a request has to wait longer than the warning time a warning is logged, containing the
+ * stack of the thread that holds the lock. When the timeout (if set) expires the waiting request
+ * fails with a {@link RequestLockTimeoutException}.</p>
+ */
+final class RequestLock {
+	static private final Logger LOG = LoggerFactory.getLogger(RequestLock.class);
+
+	@Nonnull
+	final private String m_name;
+
+	/** The thread owning the lock, or null if the lock is free. */
+	@Nullable
+	private Thread m_owner;
+
+	/** The time the current owner obtained the lock. */
+	private long m_ownedSince;
+
+	RequestLock(@Nonnull String name) {
+		m_name = name;
+	}
+
+	/**
+	 * Claim the lock for the current thread, waiting for the current owner to release it.
+	 *
+	 * @param warnMillis	When &gt; 0, log a warning with the owner's stack when waiting longer than this.
+	 * @param timeoutMillis	When &gt; 0, stop waiting after this time and throw {@link RequestLockTimeoutException}.
+	 */
+	synchronized void lock(long warnMillis, long timeoutMillis) {
+		Thread t = Thread.currentThread();
+		if(m_owner == t)
+			return;												// Useless call, then
+		long start = System.currentTimeMillis();
+		boolean warned = false;
+		while(m_owner != null) {
+			long now = System.currentTimeMillis();
+			long waited = now - start;
+			if(timeoutMillis > 0 && waited >= timeoutMillis) {
+				String msg = describe(waited);
+				LOG.error(msg + "; giving up");
+				throw new RequestLockTimeoutException(msg);
+			}
+			if(warnMillis > 0 && !warned && waited >= warnMillis) {
+				warned = true;
+				LOG.warn(describe(waited) + "\n" + ownerStack());
+			}
+
+			//-- Wait until released or until the next deadline passes.
+			long sleep = 0;
+			if(warnMillis > 0 && !warned)
+				sleep = warnMillis - waited;
+			if(timeoutMillis > 0 && (sleep == 0 || timeoutMillis - waited < sleep))
+				sleep = timeoutMillis - waited;
+			try {
+				wait(sleep);
+			} catch(InterruptedException ix) {
+				throw new RuntimeException("Waiting for the " + m_name + " lock was interrupted.", ix);
+			}
+		}
+		m_owner = t;
+		m_ownedSince = System.currentTimeMillis();
+		if(warned)
+			LOG.info(m_name + ": lock obtained by " + t.getName() + " after " + (m_ownedSince - start) + "ms");
+	}
+
+	/**
+	 * Claim the lock for the current thread only if it is free. Returns false if any thread, including
+	 * the current one, already owns it.
+	 */
+	synchronized boolean tryLock() {
+		if(m_owner != null)
+			return false;
+		m_owner = Thread.currentThread();
+		m_ownedSince = System.currentTimeMillis();
+		return true;
+	}
+
+	/**
+	 * Release the lock, which must be owned by the current thread.
+	 */
+	synchronized void unlock() {
+		Thread owner = m_owner;
+		if(owner == null)
+			throw new IllegalStateException("Trying to unlock " + m_name + " while it's not being owned..");
+		if(owner != Thread.currentThread())
+			throw new IllegalStateException("Trying to unlock " + m_name + " while it's not being owned BY YOU");
+		m_owner = null;
+		notify();
+	}
+
+	synchronized boolean isHeldByCurrentThread() {
+		return m_owner == Thread.currentThread();
+	}
+
+	@Nonnull
+	private String describe(long waited) {
+		Thread owner = m_owner;
+		return m_name + ": thread " + Thread.currentThread().getName() + " waited " + waited + "ms for the lock held by "
+			+ (owner == null ? "nobody" : owner.getName()) + " since " + (System.currentTimeMillis() - m_ownedSince) + "ms";
+	}
+
+	@Nonnull
+	private String ownerStack() {
+		Thread owner = m_owner;
+		if(null == owner)
+			return "";
+		StringBuilder sb = new StringBuilder();
+		sb.append("Stack of lock owner ").append(owner.getName()).append(":\n");
+		for(StackTraceElement ste : owner.getStackTrace())
+			sb.append("\tat ").append(ste).append('\n');
+		return sb.toString();
+	}
+
+	@Override
+	public String toString() {
+		return m_name;
+	}
+}
@@ -0,0 +1,11 @@
+package to.etc.domui.state;
+
+/**
+ * Thrown when a request waited longer than the configured request lock timeout for the
+ * session or window it needs.
+ */
+final public class RequestLockTimeoutException extends RuntimeException {
+	public RequestLockTimeoutException(String message) {
+		super(message);
+	}
+}
@@ -111,9 +111,14 @@ final public class WindowSession {
 	/** The map of all attribute objects added to this window session. */
 	private Map<String, Object> m_map = Collections.EMPTY_MAP;
 
+	/** Serializes the requests for this window when window request locking is enabled. */
+	@Nonnull
+	final private RequestLock m_requestLock;
+
 	public WindowSession(@Nonnull final AppSession session) {
 		m_appSession = session;
 		m_windowID = DomUtil.generateGUID();
+		m_requestLock = new RequestLock("WindowSession " + m_windowID);
 		m_id = nextID();
 		m_developerMode = session.getApplication().inDevelopmentMode();
 	}
@@ -132,6 +137,37 @@ final public class WindowSession {
 		return m_windowID;
 	}
 
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Request locking.									*/
+	/*--------------------------------------------------------------*/
+	/**
+	 * INTERNAL USE ONLY.
+	 * Claim this window for the current request, when window request locking is enabled. Only one
+	 * request at a time can work on the pages of a window, but requests for other windows in the
+	 * same session run in parallel. Like {@link AppSession#internalLockSession()} this does not nest.
+	 */
+	public void internalLockWindow() {
+		DomApplication app = getApplication();
+		m_requestLock.lock(app.getRequestLockWarnTime(), app.getRequestLockTimeout());
+	}
+
+	/**
+	 * INTERNAL USE ONLY.
+	 * Claim this window only if no request is using it, so that it can be destroyed. Returns false
+	 * if a request, possibly the current one, holds the window.
+	 */
+	boolean internalTryLockWindow() {
+		return m_requestLock.tryLock();
+	}
+
+	/**
+	 * INTERNAL USE ONLY.
+	 * Release the window. THIS CALL DOES NOT NEST!
+	 */
+	public void internalUnlockWindow() {
+		m_requestLock.unlock();
+	}
+
 	/*--------------------------------------------------------------*/
 	/*	CODING:	Conversation stack management.						*/
 	/*--------------------------------------------------------------*/
@@ -24,13 +24,17 @@
  */
 package to.etc.domui.themes;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import to.etc.domui.server.BrowserVersion;
 import to.etc.domui.server.DomApplication;
 import to.etc.domui.server.IRequestContext;
 import to.etc.domui.trouble.ThingyNotFoundException;
 import to.etc.domui.util.js.IScriptScope;
+import to.etc.domui.util.js.RhinoTemplate;
 import to.etc.domui.util.js.RhinoTemplateCompiler;
 import to.etc.domui.util.resources.IIsModified;
+import to.etc.domui.util.resources.IModifyableResource;
 import to.etc.domui.util.resources.IResourceDependencyList;
 import to.etc.domui.util.resources.IResourceRef;
 import to.etc.domui.util.resources.ResourceDependencies;
@@ -44,8 +48,10 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This is used by DomApplication to manage themes. It exists to reduce the code in DomApplication; it
@@ -55,8 +61,12 @@ import java.util.Map;
  * Created on Apr 27, 2011
  */
 final public class ThemeManager {
+	static private final Logger LOG = LoggerFactory.getLogger(ThemeManager.class);
+
 	static private final long OLD_THEME_TIME = 5 * 60 * 1000;
 
+	static private final int MAX_EXPANDED_OUTPUTS = 256;
+
 	final private DomApplication m_application;
 
 	/** Map of themes by theme name, as implemented by the current engine. */
@@ -66,6 +76,29 @@ final public class ThemeManager {
 
 	private long m_themeNextReapTS;
 
+	/** Compiled theme templates by resource URL. */
+	private final Map<String, CompiledTemplate> m_templateMap = new HashMap<>();
+
+	/** Expanded theme templates by theme, resource URL and browser type; the least recently used ones are dropped. */
+	private final Map<String, ExpandedOutput> m_outputMap = new LinkedHashMap<String, ExpandedOutput>(64, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, ExpandedOutput> eldest) {
+			return size() > MAX_EXPANDED_OUTPUTS;
+		}
+	};
+
+	final private AtomicLong m_templateHits = new AtomicLong();
+
+	final private AtomicLong m_templateMisses = new AtomicLong();
+
+	final private AtomicLong m_compileNanos = new AtomicLong();
+
+	final private AtomicLong m_outputHits = new AtomicLong();
+
+	final private AtomicLong m_outputMisses = new AtomicLong();
+
+	final private AtomicLong m_expandNanos = new AtomicLong();
+
 	static private class ThemeRef {
 		final private ITheme m_theme;
 
@@ -95,6 +128,52 @@ final public class ThemeManager {
 		}
 	}
 
+	static private final class CompiledTemplate {
+		final private RhinoTemplate m_template;
+
+		/** The resource's modification time when compiled. */
+		final private long m_timestamp;
+
+		public CompiledTemplate(RhinoTemplate template, long timestamp) {
+			m_template = template;
+			m_timestamp = timestamp;
+		}
+
+		public RhinoTemplate getTemplate() {
+			return m_template;
+		}
+
+		public long getTimestamp() {
+			return m_timestamp;
+		}
+	}
+
+	static private final class ExpandedOutput {
+		final private ITheme m_theme;
+
+		final private RhinoTemplate m_template;
+
+		final private String m_output;
+
+		public ExpandedOutput(ITheme theme, RhinoTemplate template, String output) {
+			m_theme = theme;
+			m_template = template;
+			m_output = output;
+		}
+
+		public ITheme getTheme() {
+			return m_theme;
+		}
+
+		public RhinoTemplate getTemplate() {
+			return m_template;
+		}
+
+		public String getOutput() {
+			return m_output;
+		}
+	}
+
 	public ThemeManager(DomApplication application) {
 		m_application = application;
 	}
@@ -191,10 +270,13 @@ final public class ThemeManager {
 	 * current theme's variable map. This map is either a "style.properties" file
 	 * inside the theme's folder, or can be configured dynamically using a IThemeMapFactory.
 	 *
+	 * The compiled template is cached by resource URL, and recompiled only when the resource's
+	 * timestamp changes. The expanded result is cached per theme, resource and browser type, and
+	 * reused as long as the theme and the template have not been reloaded.
+	 *
 	 * The result is returned as a string.
 	 */
 	public String getThemeReplacedString(@Nonnull IResourceDependencyList rdl, @Nonnull String resourceURL, @Nullable BrowserVersion bv) throws Exception {
-		long ts = System.nanoTime();
 		IResourceRef ires = m_application.getResource(resourceURL, rdl);			// Get the template source file
 		if(!ires.exists()) {
 			System.out.println(">>>> RESOURCE ERROR: " + resourceURL + ", ref=" + ires);
@@ -203,6 +285,20 @@ final public class ThemeManager {
 
 		String[] spl = ThemeResourceFactory.splitThemeResourceURL(resourceURL);
 		ITheme theme = getTheme(spl[0], null);					// Dependencies already added by get-resource call.
+		RhinoTemplate template = getCompiledTemplate(ires, resourceURL);
+
+		//-- Do we have an expansion for this theme, template and browser type already?
+		String outputKey = spl[0] + "|" + resourceURL + "|" + (bv == null ? "*" : bv.getBrowserName() + "/" + bv.getMajorVersion());
+		synchronized(this) {
+			ExpandedOutput eo = m_outputMap.get(outputKey);
+			if(eo != null && eo.getTheme() == theme && eo.getTemplate() == template) {
+				m_outputHits.incrementAndGet();
+				return eo.getOutput();
+			}
+		}
+		m_outputMisses.incrementAndGet();
+
+		long ts = System.nanoTime();
 		IScriptScope ss = theme.getPropertyScope();
 		ss = ss.newScope();
 
@@ -211,24 +307,50 @@ final public class ThemeManager {
 		}
 		m_application.augmentThemeMap(ss); // Provide a hook to let user code add stuff to the theme map
 
-		//-- 2. Get a reader.
+		StringBuilder sb = new StringBuilder(65536);
+		template.execute(sb, ss);
+		String output = sb.toString();
+		ts = System.nanoTime() - ts;
+		m_expandNanos.addAndGet(ts);
+		if(LOG.isDebugEnabled()) {
+			if(bv != null)
+				LOG.debug("theme-replace: " + resourceURL + " for " + bv.getBrowserName() + ":" + bv.getMajorVersion() + " took " + StringTool.strNanoTime(ts));
+			else
+				LOG.debug("theme-replace: " + resourceURL + " for all browsers took " + StringTool.strNanoTime(ts));
+		}
+
+		synchronized(this) {
+			m_outputMap.put(outputKey, new ExpandedOutput(theme, template, output));
+		}
+		return output;
+	}
+
+	/**
+	 * Get the compiled template for a resource, from the cache if its timestamp has not changed.
+	 */
+	@Nonnull
+	private RhinoTemplate getCompiledTemplate(@Nonnull IResourceRef ires, @Nonnull String resourceURL) throws Exception {
+		long stamp = ires instanceof IModifyableResource ? ((IModifyableResource) ires).getLastModified() : 0;
+		synchronized(this) {
+			CompiledTemplate ct = m_templateMap.get(resourceURL);
+			if(ct != null && ct.getTimestamp() == stamp) {
+				m_templateHits.incrementAndGet();
+				return ct.getTemplate();
+			}
+		}
+		m_templateMisses.incrementAndGet();
+
+		//-- Compile outside the lock; a concurrent compile of the same resource just does double work.
+		long ts = System.nanoTime();
 		InputStream is = ires.getInputStream();
 		if(is == null) {
 			System.out.println(">>>> RESOURCE ERROR: " + resourceURL + ", ref=" + ires);
 			throw new ThingyNotFoundException("Unexpected: cannot get input stream for IResourceRef rurl=" + resourceURL + ", ref=" + ires);
 		}
+		RhinoTemplate template;
 		try {
 			Reader r = new InputStreamReader(is, "utf-8");
-			StringBuilder sb = new StringBuilder(65536);
-
-			RhinoTemplateCompiler rtc = new RhinoTemplateCompiler();
-			rtc.execute(sb, r, resourceURL, ss);
-			ts = System.nanoTime() - ts;
-			if(bv != null)
-				System.out.println("theme-replace: " + resourceURL + " for " + bv.getBrowserName() + ":" + bv.getMajorVersion() + " took " + StringTool.strNanoTime(ts));
-			else
-				System.out.println("theme-replace: " + resourceURL + " for all browsers took " + StringTool.strNanoTime(ts));
-			return sb.toString();
+			template = new RhinoTemplateCompiler().compile(r, resourceURL);
 		} finally {
 			try {
 				is.close();
@@ -236,6 +358,101 @@ final public class ThemeManager {
 				// Ignore close exception.
 			}
 		}
+		ts = System.nanoTime() - ts;
+		m_compileNanos.addAndGet(ts);
+		if(LOG.isDebugEnabled())
+			LOG.debug("theme-replace: compiled " + resourceURL + " in " + StringTool.strNanoTime(ts));
+
+		synchronized(this) {
+			m_templateMap.put(resourceURL, new CompiledTemplate(template, stamp));
+		}
+		return template;
+	}
+
+	/**
+	 * Discard all expanded theme resources, so that they get expanded again on next use. Called
+	 * when application-wide theme properties change.
+	 */
+	public synchronized void clearExpandedCache() {
+		m_outputMap.clear();
+	}
+
+	/**
+	 * Returns a snapshot of the template and expansion cache counters.
+	 */
+	@Nonnull
+	public TemplateCacheStatistics getTemplateCacheStatistics() {
+		return new TemplateCacheStatistics(m_templateHits.get(), m_templateMisses.get(), m_compileNanos.get(), m_outputHits.get(), m_outputMisses.get(), m_expandNanos.get());
+	}
+
+	/**
+	 * Counters for the compiled template and expanded output caches used by {@link #getThemeReplacedString(IResourceDependencyList, String, BrowserVersion)}.
+	 */
+	static public final class TemplateCacheStatistics {
+		final private long m_templateHits;
+
+		final private long m_templateMisses;
+
+		final private long m_compileNanos;
+
+		final private long m_outputHits;
+
+		final private long m_outputMisses;
+
+		final private long m_expandNanos;
+
+		TemplateCacheStatistics(long templateHits, long templateMisses, long compileNanos, long outputHits, long outputMisses, long expandNanos) {
+			m_templateHits = templateHits;
+			m_templateMisses = templateMisses;
+			m_compileNanos = compileNanos;
+			m_outputHits = outputHits;
+			m_outputMisses = outputMisses;
+			m_expandNanos = expandNanos;
+		}
+
+		public long getTemplateHits() {
+			return m_templateHits;
+		}
+
+		/** The #of template compilations. */
+		public long getTemplateMisses() {
+			return m_templateMisses;
+		}
+
+		/** The total time spent compiling templates, in nanoseconds. */
+		public long getCompileNanos() {
+			return m_compileNanos;
+		}
+
+		public long getOutputHits() {
+			return m_outputHits;
+		}
+
+		/** The #of template expansions. */
+		public long getOutputMisses() {
+			return m_outputMisses;
+		}
+
+		/** The total time spent expanding templates, in nanoseconds. */
+		public long getExpandNanos() {
+			return m_expandNanos;
+		}
+
+		public double getTemplateHitRate() {
+			long total = m_templateHits + m_templateMisses;
+			return total == 0 ? 0.0 : (double) m_templateHits / total;
+		}
+
+		public double getOutputHitRate() {
+			long total = m_outputHits + m_outputMisses;
+			return total == 0 ? 0.0 : (double) m_outputHits / total;
+		}
+
+		@Override
+		public String toString() {
+			return "templates: " + m_templateHits + " hits, " + m_templateMisses + " compiles in " + StringTool.strNanoTime(m_compileNanos)
+				+ "; output: " + m_outputHits + " hits, " + m_outputMisses + " expansions in " + StringTool.strNanoTime(m_expandNanos);
+		}
 	}
 
 	/**
@@ -270,6 +487,20 @@ final public class ThemeManager {
 		}
 	}
 
+	/**
+	 * Like {@link #getThemedResourceRURL(IRequestContext, String)}, but when content hashed resources
+	 * are enabled in the application the resulting URL contains the content hash of the resource,
+	 * so that it can be cached by the browser forever. Use this for URLs that are rendered in a page;
+	 * the result must not be used to look up the resource itself.
+	 */
+	@Nonnull
+	public String getCacheableThemedResourceRURL(@Nonnull IRequestContext context, @Nonnull String path) {
+		String rurl = getThemedResourceRURL(context, path);
+		if(!m_application.isContentHashedResources())
+			return rurl;
+		return m_application.getPartService().appendContentHash(context, rurl);
+	}
+
 	/**
 	 * This checks to see if the RURL passed is a theme-relative URL. These URLs start
 	 * with THEME/. If not the RURL is returned as-is; otherwise the URL is translated
@@ -56,14 +56,20 @@ final public class SassTheme implements ITheme {
 		return name;
 	}
 
+	/**
+	 * The resource name of the theme's main stylesheet, without the content hash.
+	 */
+	@Nonnull
+	public String getStyleSheetPath() {
+		return ThemeResourceFactory.PREFIX + m_themeName + "/style.scss";
+	}
+
 	@Nonnull @Override public String getStyleSheetName() throws Exception {
 		BrowserVersion version = UIContext.getRequestContext().getBrowserVersion();	// FIXME Fugly!!
-		String css = ThemeResourceFactory.PREFIX + m_themeName + "/style.scss";
+		String css = getStyleSheetPath();
 		ExtendedParameterInfoImpl pi = new ExtendedParameterInfoImpl(getThemeName(), version, css, "");
 		PartData data = DomApplication.get().getPartService().getData(pi);
-		String hash = StringTool.toHex(data.getHash());
-
-		return css + "?$hash=" + hash;
+		return PartService.getContentHashedUrl(css, data);
 	}
 
 	@Nonnull
@@ -0,0 +1,220 @@
+/*
+ * DomUI Java User Interface library
+ * Copyright (c) 2010 by Frits Jalvingh, Itris B.V.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ *
+ * See the "sponsors" file for a list of supporters.
+ *
+ * The latest version of DomUI and related code, support and documentation
+ * can be found at http://www.domui.org/
+ * The contact for the project is Frits Jalvingh <jal@etc.to>.
+ */
+package to.etc.domui.util;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A size-bounded cache which, unlike {@link LRUHashMap}, can be used by many threads
+ * without a global lock. Lookups only touch a concurrent map and set the entry's
+ * access tick. When an insert makes the cache too big the least recently used entries
+ * are removed; only that eviction is serialized.
+ *
+ * <p>The eviction order is approximate: entries accessed at the same time as the eviction
+ * runs can be evicted even though they were just used.</p>
+ */
+final public class ConcurrentLRUCache<K, V> {
+	@Nonnull
+	final private ConcurrentHashMap<K, Entry<V>> m_map = new ConcurrentHashMap<>();
+
+	@Nonnull
+	final private LRUHashMap.SizeCalculator<V> m_sizeCalculator;
+
+	final private long m_maxSize;
+
+	/** The current "size" of the entries in the cache. */
+	@Nonnull
+	final private AtomicLong m_objectSize = new AtomicLong();
+
+	/** The access clock; every access gets the next tick. */
+	@Nonnull
+	final private AtomicLong m_clock = new AtomicLong();
+
+	@Nonnull
+	final private Object m_evictionLock = new Object();
+
+	@Nullable
+	final private IRemovalListener<K, V> m_removalListener;
+
+	/**
+	 * Gets called for every value that leaves the cache: when it is evicted, removed or replaced.
+	 */
+	public interface IRemovalListener<K, V> {
+		void removed(@Nonnull K key, @Nonnull V value);
+	}
+
+	static private final class Entry<V> {
+		@Nonnull
+		final V m_value;
+
+		final int m_size;
+
+		volatile long m_lastUsed;
+
+		Entry(@Nonnull V value, int size, long lastUsed) {
+			m_value = value;
+			m_size = size;
+			m_lastUsed = lastUsed;
+		}
+	}
+
+	static private final class Candidate<K, V> {
+		@Nonnull
+		final K m_key;
+
+		@Nonnull
+		final Entry<V> m_entry;
+
+		final long m_lastUsed;
+
+		Candidate(@Nonnull K key, @Nonnull Entry<V> entry) {
+			m_key = key;
+			m_entry = entry;
+			m_lastUsed = entry.m_lastUsed;
+		}
+	}
+
+	public ConcurrentLRUCache(@Nonnull LRUHashMap.SizeCalculator<V> sizeCalculator, long maxSize) {
+		this(sizeCalculator, maxSize, null);
+	}
+
+	public ConcurrentLRUCache(@Nonnull LRUHashMap.SizeCalculator<V> sizeCalculator, long maxSize, @Nullable IRemovalListener<K, V> removalListener) {
+		m_sizeCalculator = sizeCalculator;
+		m_maxSize = maxSize;
+		m_removalListener = removalListener;
+	}
+
+	/**
+	 * Retrieve a value by key, marking it as most recently used.
+	 */
+	@Nullable
+	public V get(@Nonnull K key) {
+		Entry<V> e = m_map.get(key);
+		if(null == e)
+			return null;
+		e.m_lastUsed = m_clock.incrementAndGet();
+		return e.m_value;
+	}
+
+	/**
+	 * Store a value, replacing any earlier one. If the cache becomes too big the least
+	 * recently used entries are removed.
+	 */
+	public void put(@Nonnull K key, @Nonnull V value) {
+		Entry<V> e = new Entry<>(value, m_sizeCalculator.getObjectSize(value), m_clock.incrementAndGet());
+		Entry<V> old = m_map.put(key, e);
+		long size = m_objectSize.addAndGet(e.m_size - (old == null ? 0 : old.m_size));
+		if(null != old && old.m_value != value)
+			removed(key, old.m_value);
+		if(size > m_maxSize)
+			evict();
+	}
+
+	/**
+	 * Remove the entry for the key.
+	 */
+	@Nullable
+	public V remove(@Nonnull K key) {
+		Entry<V> e = m_map.remove(key);
+		if(null == e)
+			return null;
+		m_objectSize.addAndGet(-e.m_size);
+		removed(key, e.m_value);
+		return e.m_value;
+	}
+
+	/**
+	 * Remove the entry for the key only if it still holds the specified value.
+	 */
+	public boolean remove(@Nonnull K key, @Nonnull V value) {
+		Entry<V> e = m_map.get(key);
+		if(null == e || e.m_value != value)
+			return false;
+		if(!m_map.remove(key, e))
+			return false;
+		m_objectSize.addAndGet(-e.m_size);
+		removed(key, value);
+		return true;
+	}
+
+	public void clear() {
+		for(K key : new ArrayList<>(m_map.keySet()))
+			remove(key);
+	}
+
+	/**
+	 * The #of entries in the cache.
+	 */
+	public int size() {
+		return m_map.size();
+	}
+
+	/**
+	 * The total "size" of all entries, as calculated by the size calculator.
+	 */
+	public long getObjectSize() {
+		return m_objectSize.get();
+	}
+
+	public long getMaxSize() {
+		return m_maxSize;
+	}
+
+	/**
+	 * Remove least recently used entries until the cache is within its size limit.
+	 */
+	private void evict() {
+		synchronized(m_evictionLock) {
+			if(m_objectSize.get() <= m_maxSize)
+				return;
+			//-- Snapshot the access ticks, as they change while sorting
+			List<Candidate<K, V>> list = new ArrayList<>(m_map.size());
+			for(Map.Entry<K, Entry<V>> me : m_map.entrySet())
+				list.add(new Candidate<>(me.getKey(), me.getValue()));
+			Collections.sort(list, (a, b) -> Long.compare(a.m_lastUsed, b.m_lastUsed));
+			for(Candidate<K, V> c : list) {
+				if(m_objectSize.get() <= m_maxSize)
+					break;
+				if(m_map.remove(c.m_key, c.m_entry)) {
+					m_objectSize.addAndGet(-c.m_entry.m_size);
+					removed(c.m_key, c.m_entry.m_value);
+				}
+			}
+		}
+	}
+
+	private void removed(@Nonnull K key, @Nonnull V value) {
+		IRemovalListener<K, V> listener = m_removalListener;
+		if(null != listener)
+			listener.removed(key, value);
+	}
+}
@@ -43,8 +43,14 @@ public class Constants {
 
 	static public final String PARAM_PAGE_TAG = "$pt";
 
+	/** The content hash appended to resource URLs when content-hashed resource URLs are used. */
+	static public final String PARAM_CONTENT_HASH = "$h";
+
 	static public final String ACMD_ASYPOLL = "pollasy";
 
+	/** Present on a pollasy request that may wait at the server until there are changes (long polling). */
+	static public final String PARAM_LONG_POLL = "$lp";
+
 	static public final String ACMD_OBITUARY = "OBITUARY";
 
 	static public final String ACMD_PAGEDATA = "$pagedata";
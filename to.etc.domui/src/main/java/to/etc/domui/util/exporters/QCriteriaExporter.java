@@ -1,9 +1,12 @@
 package to.etc.domui.util.exporters;
 
 import to.etc.domui.component.delayed.IProgress;
+import to.etc.domui.component.meta.MetaManager;
+import to.etc.domui.component.meta.PropertyMetaModel;
 import to.etc.domui.component.meta.impl.ExpandedDisplayProperty;
 import to.etc.webapp.query.QCriteria;
 import to.etc.webapp.query.QDataContext;
+import to.etc.webapp.query.QQueryUtils;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -15,6 +18,9 @@ import java.util.stream.Collectors;
  * Created on 26-10-17.
  */
 public class QCriteriaExporter<T> {
+	/** The #of rows read from the database per roundtrip. */
+	static private final int FETCH_SIZE = 500;
+
 	private final QDataContext m_dc;
 
 	private final QCriteria<T> m_query;
@@ -52,21 +58,41 @@ public class QCriteriaExporter<T> {
 		if(limit > rowLimit || limit <= 0)
 			m_query.limit(rowLimit + 1);
 
-		List<T> list = m_dc.query(m_query);
+		//-- The rows are streamed, so count them first to know the total work.
+		int total = queryCount();
+		if(total >= 0)
+			p.setTotalWork(total + (total / 100));
 		m_exportWriter.startExport(m_columnList);
 		try {
-			int count = 0;
-			p.setTotalWork(list.size() + (list.size() / 100));
-			for(T t : list) {
-				if(++count >= rowLimit) {
-					break;
-				}
+			int[] count = new int[1];
+			m_dc.visit(m_query, FETCH_SIZE, t -> {
+				if(++count[0] >= rowLimit)
+					return false;
 				m_exportWriter.exportRow(t);
-				p.setCompleted(count);
+				if(total >= 0)
+					p.setCompleted(count[0]);
+				return true;
+			});
+			if(total < 0) {
+				p.setTotalWork(count[0]);
+				p.setCompleted(count[0]);
 			}
-			return list.size() >= rowLimit ? ExportResult.TRUNCATED : ExportResult.COMPLETED;
+			return count[0] >= rowLimit ? ExportResult.TRUNCATED : ExportResult.COMPLETED;
 		} finally {
 			//m_exportWriter.close();					// We do not own exportWriter, this leads to double close.
 		}
 	}
+
+	/**
+	 * Count the rows that the query will return, or return -1 when the query has no base class or its type has no primary key to count.
+	 */
+	private int queryCount() throws Exception {
+		Class<?> baseClass = m_query.getBaseClass();
+		if(null == baseClass)
+			return -1;
+		PropertyMetaModel<?> pk = MetaManager.findClassMeta(baseClass).getPrimaryKey();
+		if(null == pk)
+			return -1;
+		return QQueryUtils.queryResultCount(m_dc, m_query, pk.getName());
+	}
 }
@@ -32,7 +32,7 @@ import java.io.*;
  * @author <a href="mailto:jal@etc.to">Frits Jalvingh</a>
  * Created on Jul 28, 2009
  */
-final class ClasspathFileRef implements IModifyableResource {
+final class ClasspathFileRef implements IModifyableResource, IFileResource {
 	private File m_src;
 
 	public ClasspathFileRef(File src) {
@@ -50,6 +50,11 @@ final class ClasspathFileRef implements IModifyableResource {
 		}
 	}
 
+	@Override
+	public File getFile() {
+		return m_src;
+	}
+
 	@Override
 	public String toString() {
 		return "[ClasspathFile " + m_src.toString() + "]";
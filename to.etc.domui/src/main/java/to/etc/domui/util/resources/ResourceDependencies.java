@@ -24,6 +24,7 @@
  */
 package to.etc.domui.util.resources;
 
+import java.io.*;
 import java.util.*;
 
 import javax.annotation.*;
@@ -56,4 +57,25 @@ final public class ResourceDependencies implements IIsModified {
 		}
 		return false;
 	}
+
+	/**
+	 * Add all dependencies that are files on the file system to the collection.
+	 * @return	T if all dependencies are files, F if some dependency can only be checked by polling.
+	 */
+	public boolean collectFiles(@Nonnull Collection<File> into) {
+		boolean allFiles = true;
+		for(IIsModified m : m_deplist) {
+			if(m instanceof ResourceDependencies) {
+				if(!((ResourceDependencies) m).collectFiles(into))
+					allFiles = false;
+			} else if(m instanceof ResourceTimestamp && ((ResourceTimestamp) m).getRef() instanceof IFileResource) {
+				into.add(((IFileResource) ((ResourceTimestamp) m).getRef()).getFile());
+			} else if(m instanceof IFileResource) {
+				into.add(((IFileResource) m).getFile());
+			} else {
+				allFiles = false;
+			}
+		}
+		return allFiles;
+	}
 }
@@ -34,7 +34,7 @@ import javax.annotation.*;
  * @author <a href="mailto:jal@etc.to">Frits Jalvingh</a>
  * Created on Oct 19, 2009
  */
-public class WebappResourceRef implements IResourceRef, IModifyableResource {
+public class WebappResourceRef implements IResourceRef, IModifyableResource, IFileResource {
 	@Nonnull
 	private File m_resource;
 
@@ -47,6 +47,12 @@ public class WebappResourceRef implements IResourceRef, IModifyableResource {
 		return m_resource.exists();
 	}
 
+	@Override
+	@Nonnull
+	public File getFile() {
+		return m_resource;
+	}
+
 	@Override
 	public long getLastModified() {
 		if(!m_resource.exists())
@@ -344,6 +344,34 @@ var WebUI;
         });
     }
     WebUI.poll = poll;
+    var _longPollActive = false;
+    function startLongPolling() {
+        if (_longPollActive)
+            return;
+        cancelPolling();
+        _longPollActive = true;
+        var fields = {};
+        fields["webuia"] = "pollasy";
+        fields["$pt"] = window.DomUIpageTag;
+        fields["$cid"] = window.DomUICID;
+        fields["$lp"] = "1";
+        $.ajax({
+            url: window.location.href,
+            dataType: "*",
+            data: fields,
+            cache: false,
+            global: false,
+            success: function (data, state) {
+                _longPollActive = false;
+                handleResponse(data, state);
+            },
+            error: function (request, status, exc) {
+                _longPollActive = false;
+                handleErrorAsy(request, status, exc);
+            }
+        });
+    }
+    WebUI.startLongPolling = startLongPolling;
     function pingServer(timeout) {
         var url = window.DomUIappURL + "to.etc.domui.parts.PollInfo.part";
         var fields = {};
@@ -1001,9 +1029,7 @@ var WebUI;
         container.scrollTop(0);
     }
     WebUI.scrollableTableReset = scrollableTableReset;
-    function initScrollableTable(id, tblid) {
-        var container = $('#' + id);
-        var tbl = $('#' + tblid);
+    function floatTableHeader(container, tbl) {
         WebUI.doCustomUpdates();
         tbl.floatThead({
             scrollContainer: function () {
@@ -1031,6 +1057,10 @@ var WebUI;
                 }
             }
         });
+    }
+    function initScrollableTable(id, tblid) {
+        var container = $('#' + id);
+        floatTableHeader(container, $('#' + tblid));
         container.scroll(function () {
             var bh = $(container).height();
             var st = $(container).scrollTop();
@@ -1049,6 +1079,59 @@ var WebUI;
         });
     }
     WebUI.initScrollableTable = initScrollableTable;
+    function initVirtualScrollableTable(id, tblid, rowHeight) {
+        var container = $('#' + id);
+        floatTableHeader(container, $('#' + tblid));
+        var timer = 0;
+        container.scroll(function () {
+            if (timer)
+                window.clearTimeout(timer);
+            timer = window.setTimeout(function () {
+                timer = 0;
+                virtualScrollCheck(id, tblid, rowHeight);
+            }, 100);
+        });
+    }
+    WebUI.initVirtualScrollableTable = initVirtualScrollableTable;
+    function virtualScrollCheck(id, tblid, rowHeight) {
+        var container = $('#' + id);
+        var body = $('#' + tblid + ' > tbody');
+        var start = Number(body.attr('vstart'));
+        var end = Number(body.attr('vend'));
+        var total = Number(body.attr('vrows'));
+        var rows = body.children('tr:not(.ui-dt-vspacer)').get();
+        if (rows.length == 0)
+            return;
+        var top = container[0].getBoundingClientRect().top;
+        var firstRect = rows[0].getBoundingClientRect();
+        var lastRect = rows[rows.length - 1].getBoundingClientRect();
+        var index = start;
+        if (top < firstRect.top) {
+            index = start - Math.ceil((firstRect.top - top) / rowHeight);
+        }
+        else if (top > lastRect.bottom) {
+            index = end + Math.floor((top - lastRect.bottom) / rowHeight);
+        }
+        else {
+            for (var i = 0; i < rows.length; i++) {
+                if (rows[i].getBoundingClientRect().bottom > top) {
+                    index = start + i;
+                    break;
+                }
+            }
+        }
+        if (index < 0)
+            index = 0;
+        var visible = Math.ceil(container.height() / rowHeight);
+        var margin = Math.floor(visible / 2);
+        if ((start == 0 || index - margin >= start) && (end >= total || index + visible + margin <= end))
+            return;
+        var request = start + ":" + index;
+        if (container.data('vrequest') === request)
+            return;
+        container.data('vrequest', request);
+        WebUI.scall(id, "SCROLLTO", { first: index, count: visible });
+    }
     var closeOnClick = (function () {
         function closeOnClick(id) {
             this._id = id;
@@ -2637,6 +2720,7 @@ var WebUI;
     }
     WebUI.onLookupTypingReturnKeyHandler = onLookupTypingReturnKeyHandler;
     var scheduledOnLookupTypingTimerID = null;
+    var lookupTypingBusy = {};
     function scheduleOnLookupTypingEvent(id, event) {
         var node = document.getElementById(id);
         if (!node || node.tagName.toLowerCase() != 'input')
@@ -2857,6 +2941,11 @@ var WebUI;
     function lookupTyping(id) {
         var lookupField = document.getElementById(id);
         if (lookupField) {
+            if (lookupTypingBusy[id] !== undefined) {
+                lookupTypingBusy[id] = true;
+                return;
+            }
+            lookupTypingBusy[id] = false;
             var fields = {};
             WebUI.getInputFields(fields);
             fields["webuia"] = "lookupTyping";
@@ -2889,6 +2978,10 @@ var WebUI;
                     }
                     showLookupTypingPopupIfStillFocusedAndFixZIndex(id);
                     WebUI.doCustomUpdates();
+                    var again = lookupTypingBusy[id];
+                    delete lookupTypingBusy[id];
+                    if (again)
+                        lookupTyping(id);
                 },
                 success: WebUI.handleResponse,
                 error: WebUI.handleError
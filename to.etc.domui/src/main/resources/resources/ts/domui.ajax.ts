@@ -448,6 +448,45 @@ namespace WebUI {
 		});
 	}
 
+	/**
+	 * T while a long-poll request is waiting at the server.
+	 */
+	let _longPollActive = false;
+
+	/**
+	 * Start long polling: send a single pollasy request which the server holds until the page has
+	 * changes to show, or until the server's long poll timeout expires. The delta returned starts
+	 * the next long poll if the page still needs it. Only one long poll runs at a time.
+	 */
+	export function startLongPolling(): void {
+		if(_longPollActive)
+			return;
+		cancelPolling();
+		_longPollActive = true;
+
+		let fields = {};
+		fields["webuia"] = "pollasy";
+		fields["$pt"] = (window as any).DomUIpageTag;
+		fields["$cid"] = (window as any).DomUICID;
+		fields["$lp"] = "1";
+
+		$.ajax({
+			url: window.location.href,
+			dataType: "*",
+			data: fields,
+			cache: false,
+			global: false,
+			success: function(data, state) {
+				_longPollActive = false;				// Before handling, so that the response can start the next one
+				handleResponse(data, state);
+			},
+			error: function(request, status, exc) {
+				_longPollActive = false;
+				handleErrorAsy(request, status, exc);
+			}
+		});
+	}
+
 	/**
 	 * Send Ajax request to the server every 2 minutes. This keeps the session
 	 * alive. The response can contain commands to execute which will indicate
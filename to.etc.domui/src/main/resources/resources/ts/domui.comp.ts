@@ -452,9 +452,10 @@ namespace WebUI {
 		container.scrollTop(0);
 	}
 
-	export function initScrollableTable(id, tblid) {
-		let container = $('#' + id);
-		let tbl = $('#' + tblid);
+	/**
+	 * Make the header of a scrollable table stay on top while its container scrolls.
+	 */
+	function floatTableHeader(container, tbl): void {
 		WebUI.doCustomUpdates();
 
 		(tbl as any).floatThead({
@@ -482,6 +483,11 @@ namespace WebUI {
 				}
 			}
 		});
+	}
+
+	export function initScrollableTable(id, tblid) {
+		let container = $('#' + id);
+		floatTableHeader(container, $('#' + tblid));
 		container.scroll(function() {
 			let bh = $(container).height();
 			let st = $(container).scrollTop();
@@ -505,6 +511,67 @@ namespace WebUI {
 
 	}
 
+	/**
+	 * Virtual scrolling for ScrollableDataTable: the server renders only a window of the rows, with
+	 * spacer rows before and after it. When the visible part of the table gets near or outside the
+	 * edges of the rendered window the server is asked to move the window.
+	 */
+	export function initVirtualScrollableTable(id: string, tblid: string, rowHeight: number): void {
+		let container = $('#' + id);
+		floatTableHeader(container, $('#' + tblid));
+		let timer = 0;
+		container.scroll(function() {
+			if(timer)
+				window.clearTimeout(timer);
+			timer = window.setTimeout(function() {
+				timer = 0;
+				virtualScrollCheck(id, tblid, rowHeight);
+			}, 100);
+		});
+	}
+
+	function virtualScrollCheck(id: string, tblid: string, rowHeight: number): void {
+		let container = $('#' + id);
+		let body = $('#' + tblid + ' > tbody');
+		let start = Number(body.attr('vstart'));
+		let end = Number(body.attr('vend'));
+		let total = Number(body.attr('vrows'));
+		let rows = body.children('tr:not(.ui-dt-vspacer)').get();
+		if(rows.length == 0)
+			return;
+
+		//-- Find the index of the first visible row; estimate it when the top is inside a spacer.
+		let top = container[0].getBoundingClientRect().top;
+		let firstRect = rows[0].getBoundingClientRect();
+		let lastRect = rows[rows.length - 1].getBoundingClientRect();
+		let index = start;
+		if(top < firstRect.top) {
+			index = start - Math.ceil((firstRect.top - top) / rowHeight);
+		} else if(top > lastRect.bottom) {
+			index = end + Math.floor((top - lastRect.bottom) / rowHeight);
+		} else {
+			for(let i = 0; i < rows.length; i++) {
+				if(rows[i].getBoundingClientRect().bottom > top) {
+					index = start + i;
+					break;
+				}
+			}
+		}
+		if(index < 0)
+			index = 0;
+
+		//-- Do we still have enough rows before and after the visible ones?
+		let visible = Math.ceil(container.height() / rowHeight);
+		let margin = Math.floor(visible / 2);
+		if((start == 0 || index - margin >= start) && (end >= total || index + visible + margin <= end))
+			return;
+		let request = start + ":" + index;
+		if(container.data('vrequest') === request)				// Already asked for this one
+			return;
+		container.data('vrequest', request);
+		WebUI.scall(id, "SCROLLTO", {first: index, count: visible});
+	}
+
 	class closeOnClick {
 		_id: string;
 		private _clickHandler: () => void;
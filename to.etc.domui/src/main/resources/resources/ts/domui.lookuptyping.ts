@@ -68,6 +68,14 @@ namespace WebUI {
 	 */
 	let scheduledOnLookupTypingTimerID : number = null;
 
+	/**
+	 * The lookup inputs that have a lookupTyping request running, by id. The value is true when the
+	 * user typed again while the request was running, so that a new request must be sent when it
+	 * completes. This makes sure only one quick search runs at a time for an input, and that the
+	 * intermediate values typed while it ran are never searched.
+	 */
+	let lookupTypingBusy = {};
+
 	/*
 	 * Executed as onkeyup event on input field that has implemented listener for onLookupTyping event.
 	 * In case of return key call lookupTypingDone ajax that is transformed into onLookupTyping(done=true).
@@ -320,6 +328,12 @@ namespace WebUI {
 		let lookupField = document.getElementById(id);
 		//check for existence, since it is delayed action component can be removed when action is executed.
 		if (lookupField){
+			if(lookupTypingBusy[id] !== undefined) {
+				lookupTypingBusy[id] = true;						// Search again when the running one completes
+				return;
+			}
+			lookupTypingBusy[id] = false;
+
 			// FIXME reuse domui-ajax call handler
 
 			// Collect all input, then create input.
@@ -362,6 +376,11 @@ namespace WebUI {
 					//handle received lookupTyping component content
 					showLookupTypingPopupIfStillFocusedAndFixZIndex(id);
 					WebUI.doCustomUpdates();
+
+					let again = lookupTypingBusy[id];
+					delete lookupTypingBusy[id];
+					if(again)
+						lookupTyping(id);
 				},
 
 				success :WebUI.handleResponse,
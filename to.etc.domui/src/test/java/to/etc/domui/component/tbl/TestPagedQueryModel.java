@@ -0,0 +1,165 @@
+package to.etc.domui.component.tbl;
+
+import java.lang.reflect.*;
+import java.util.*;
+
+import org.junit.*;
+
+import to.etc.webapp.qsql.*;
+import to.etc.webapp.query.*;
+
+/**
+ * Checks the block loading, block cache and count query of {@link PagedQueryModel}, using a fake data context.
+ */
+public class TestPagedQueryModel {
+	static public class Row {
+		private final Long m_key;
+
+		public Row(long key) {
+			m_key = Long.valueOf(key);
+		}
+
+		@QJdbcId
+		public Long getKey() {
+			return m_key;
+		}
+
+		public String getName() {
+			return "row " + m_key;
+		}
+	}
+
+	/** All rows the fake database returns. */
+	private final List<Row> m_rows = new ArrayList<>();
+
+	/** Per executed criteria query, its start, limit and order. */
+	private final List<String> m_queries = new ArrayList<>();
+
+	/** The properties counted by count queries. */
+	private final List<String> m_counted = new ArrayList<>();
+
+	@Before
+	public void setUp() {
+		for(int i = 0; i < 250; i++)
+			m_rows.add(new Row(i));
+	}
+
+	private QDataContext createContext() {
+		return (QDataContext) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{QDataContext.class}, (proxy, method, args) -> {
+			switch(method.getName()) {
+				default:
+					throw new UnsupportedOperationException(method.toString());
+
+				case "close":
+					return null;
+
+				case "query":
+					QCriteria<?> q = (QCriteria<?>) args[0];
+					StringBuilder sb = new StringBuilder();
+					sb.append(q.getStart()).append(',').append(q.getLimit());
+					for(QOrder o : q.getOrder())
+						sb.append(',').append(o.getProperty()).append(' ').append(o.getDirection());
+					m_queries.add(sb.toString());
+					int end = q.getLimit() > 0 ? Math.min(q.getStart() + q.getLimit(), m_rows.size()) : m_rows.size();
+					return new ArrayList<>(m_rows.subList(Math.min(q.getStart(), end), end));
+
+				case "queryOne":
+					QSelection<?> sel = (QSelection<?>) args[0];
+					m_counted.add(((QPropertySelection) sel.getColumnList().get(0).getItem()).getProperty());
+					return new Object[]{Long.valueOf(m_rows.size())};
+			}
+		});
+	}
+
+	private PagedQueryModel<Row> createModel(QCriteria<Row> q) {
+		QDataContext dc = createContext();
+		QDataContextFactory factory = (QDataContextFactory) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{QDataContextFactory.class}, (proxy, method, args) -> {
+			if(method.getName().equals("getDataContext"))
+				return dc;
+			throw new UnsupportedOperationException(method.toString());
+		});
+		PagedQueryModel<Row> model = new PagedQueryModel<>(factory, q);
+		model.setBlockSize(100);
+		return model;
+	}
+
+	static private void assertKeys(List<Row> list, int from, int to) {
+		Assert.assertEquals(to - from, list.size());
+		for(int i = 0; i < list.size(); i++)
+			Assert.assertEquals(Long.valueOf(from + i), list.get(i).getKey());
+	}
+
+	@Test
+	public void testCountUsesPrimaryKey() throws Exception {
+		PagedQueryModel<Row> model = createModel(QCriteria.create(Row.class));
+		Assert.assertEquals(250, model.getRows());
+		Assert.assertEquals(250, model.getRows());
+		Assert.assertEquals(Collections.singletonList("key"), m_counted);
+	}
+
+	@Test
+	public void testCountHonoursStartAndLimit() throws Exception {
+		Assert.assertEquals(100, createModel(QCriteria.create(Row.class).start(10).limit(100)).getRows());
+		Assert.assertEquals(40, createModel(QCriteria.create(Row.class).start(210).limit(100)).getRows());
+	}
+
+	@Test
+	public void testBlockLoading() throws Exception {
+		PagedQueryModel<Row> model = createModel(QCriteria.create(Row.class));
+		assertKeys(model.getItems(95, 105), 95, 105);
+		Assert.assertEquals(Arrays.asList("0,100", "100,100"), m_queries);
+
+		//-- Both blocks are cached now
+		assertKeys(model.getItems(0, 10), 0, 10);
+		assertKeys(model.getItems(150, 200), 150, 200);
+		Assert.assertEquals(2, m_queries.size());
+
+		//-- The last block is partial
+		assertKeys(model.getItems(240, 300), 240, 250);
+		Assert.assertEquals("200,100", m_queries.get(2));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedBlockIsDropped() throws Exception {
+		PagedQueryModel<Row> model = createModel(QCriteria.create(Row.class));
+		model.setMaxCachedBlocks(2);
+		model.getItems(0, 10);
+		model.getItems(100, 110);
+		model.getItems(0, 10);								// Block 1 is now the least recently used
+		model.getItems(200, 210);							// Drops block 1
+		Assert.assertEquals(3, m_queries.size());
+
+		model.getItems(0, 10);
+		Assert.assertEquals(3, m_queries.size());
+		model.getItems(100, 110);
+		Assert.assertEquals(4, m_queries.size());
+		Assert.assertEquals("100,100", m_queries.get(3));
+	}
+
+	/**
+	 * Blocks are relative to the query's own start, and never go beyond its limit.
+	 */
+	@Test
+	public void testBlocksWithinStartAndLimit() throws Exception {
+		PagedQueryModel<Row> model = createModel(QCriteria.create(Row.class).start(10).limit(130));
+		assertKeys(model.getItems(0, 130), 10, 140);
+		Assert.assertEquals(Arrays.asList("10,100", "110,30"), m_queries);
+	}
+
+	/**
+	 * Sorting and paging must not change the criteria passed to the model.
+	 */
+	@Test
+	public void testQueryIsNotChanged() throws Exception {
+		QCriteria<Row> q = QCriteria.create(Row.class).start(5).limit(200);
+		q.ascending("key");
+		PagedQueryModel<Row> model = createModel(q);
+		model.sortOn("name", true);
+		model.getItems(100, 120);
+		Assert.assertEquals("105,100,name " + QSortOrderDirection.DESC, m_queries.get(0));
+
+		Assert.assertEquals(5, q.getStart());
+		Assert.assertEquals(200, q.getLimit());
+		Assert.assertEquals(Collections.singletonList(QOrder.ascending("key")), q.getOrder());
+	}
+}
@@ -0,0 +1,68 @@
+package to.etc.domui.server.parts;
+
+import java.lang.reflect.*;
+import java.util.*;
+
+import org.junit.*;
+
+import to.etc.domui.parts.*;
+import to.etc.domui.server.*;
+import to.etc.domui.util.*;
+import to.etc.domui.util.resources.*;
+
+/**
+ * Checks that parts requested through their content-hashed URL, like the theme stylesheet, are
+ * marked as immutable, and that other requests are not.
+ */
+public class TestPartCacheHeaders {
+	/** The headers added to the fake response. */
+	private final Map<String, String> m_headers = new HashMap<>();
+
+	private IRequestResponse createResponse() {
+		return (IRequestResponse) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{IRequestResponse.class}, (proxy, method, args) -> {
+			if(method.getName().equals("addHeader"))
+				m_headers.put((String) args[0], (String) args[1]);
+			return null;
+		});
+	}
+
+	private PartData createPart() {
+		byte[] data = "body { color: red; }".getBytes();
+		return new PartData(new byte[][]{data}, data.length, 0, "text/css", new ResourceDependencies(new ArrayList<>()), null);
+	}
+
+	/**
+	 * Send the headers for the part, requested with the specified URL.
+	 */
+	private void request(PartData cp, String url) {
+		int pos = url.indexOf('?');
+		IParameterInfo pi = pos == -1
+			? new ParameterInfoImpl(url, "")
+			: new ParameterInfoImpl(url.substring(0, pos), url.substring(pos + 1));
+		PartService.addCacheHeaders(createResponse(), cp, ContentEncoding.IDENTITY, pi, true);
+	}
+
+	/**
+	 * The URL as generated by SassTheme.getStyleSheetName().
+	 */
+	@Test
+	public void testThemeStylesheetIsImmutable() throws Exception {
+		PartData cp = createPart();
+		request(cp, PartService.getContentHashedUrl("$THEME/domui/style.scss", cp));
+		String cc = m_headers.get("Cache-Control");
+		Assert.assertNotNull("No Cache-Control header", cc);
+		Assert.assertTrue(cc, cc.contains("immutable"));
+	}
+
+	@Test
+	public void testWithoutHashNotImmutable() throws Exception {
+		request(createPart(), "$THEME/domui/style.scss");
+		Assert.assertNull(m_headers.get("Cache-Control"));
+	}
+
+	@Test
+	public void testWrongHashNotImmutable() throws Exception {
+		request(createPart(), "$THEME/domui/style.scss?" + Constants.PARAM_CONTENT_HASH + "=0123");
+		Assert.assertNull(m_headers.get("Cache-Control"));
+	}
+}
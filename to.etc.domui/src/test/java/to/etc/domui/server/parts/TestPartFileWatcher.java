@@ -0,0 +1,97 @@
+package to.etc.domui.server.parts;
+
+import java.io.*;
+import java.util.*;
+
+import org.junit.*;
+
+import to.etc.domui.util.resources.*;
+
+/**
+ * Checks that the file watcher forgets parts that left the cache, so that it does not keep them alive.
+ */
+public class TestPartFileWatcher {
+	private File m_dir;
+
+	private PartFileWatcher m_watcher;
+
+	static private final class FileDependency implements IIsModified, IFileResource {
+		final private File m_file;
+
+		FileDependency(File file) {
+			m_file = file;
+		}
+
+		@Override
+		public boolean isModified() {
+			return false;
+		}
+
+		@Override
+		public File getFile() {
+			return m_file;
+		}
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		m_dir = File.createTempFile("parts", ".dir");
+		m_dir.delete();
+		m_dir.mkdirs();
+		m_watcher = new PartFileWatcher(new PartService(null));
+	}
+
+	@After
+	public void tearDown() {
+		m_watcher.close();
+		File[] ar = m_dir.listFiles();
+		if(null != ar) {
+			for(File f : ar)
+				f.delete();
+		}
+		m_dir.delete();
+	}
+
+	private PartData createPart(String... names) throws Exception {
+		List<IIsModified> deps = new ArrayList<>();
+		for(String name : names) {
+			File f = new File(m_dir, name);
+			f.createNewFile();
+			deps.add(new FileDependency(f));
+		}
+		byte[] data = "data".getBytes();
+		return new PartData(new byte[][]{data}, data.length, 0, "text/plain", new ResourceDependencies(deps), null);
+	}
+
+	@Test
+	public void testUnregisterRemovesFiles() throws Exception {
+		PartData a = createPart("a.css", "common.css");
+		PartData b = createPart("b.css", "common.css");
+		m_watcher.register("a", a);
+		m_watcher.register("b", b);
+		Assert.assertEquals(3, m_watcher.getWatchedFileCount());
+		Assert.assertEquals(1, m_watcher.getWatchedDirCount());
+
+		m_watcher.unregister("a", a);
+		Assert.assertEquals(2, m_watcher.getWatchedFileCount());
+		Assert.assertEquals(1, m_watcher.getWatchedDirCount());
+
+		m_watcher.unregister("b", b);
+		Assert.assertEquals(0, m_watcher.getWatchedFileCount());
+		Assert.assertEquals(0, m_watcher.getWatchedDirCount());
+	}
+
+	/**
+	 * When a part was replaced by a new version, removing the old version must keep the new one.
+	 */
+	@Test
+	public void testUnregisterOldVersion() throws Exception {
+		PartData old = createPart("a.css");
+		PartData current = createPart("a.css");
+		m_watcher.register("a", old);
+		m_watcher.register("a", current);
+		m_watcher.unregister("a", old);
+		Assert.assertEquals(1, m_watcher.getWatchedFileCount());
+		Assert.assertEquals(1, m_watcher.getWatchedDirCount());
+	}
+}
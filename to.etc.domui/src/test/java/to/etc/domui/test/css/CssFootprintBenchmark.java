@@ -0,0 +1,71 @@
+package to.etc.domui.test.css;
+
+import to.etc.domui.dom.css.*;
+import to.etc.domui.dom.html.*;
+
+/**
+ * Measures the heap used per DOM node, to check the effect of the style property storage
+ * in {@link CssBase}. This is not a unit test: run it as a main program,
+ * preferably with a fixed heap (-Xms1g -Xmx1g), on the revisions to compare. It reports the
+ * bytes per node for nodes without style properties and with a few and with many of them set.
+ */
+public class CssFootprintBenchmark {
+	static private final int NODES = 200000;
+
+	static private final int ROUNDS = 5;
+
+	private interface IStyler {
+		void style(Div d);
+	}
+
+	public static void main(String[] args) {
+		measure("no style properties", d -> {});
+		measure("2 style properties", d -> {
+			d.setWidth("100%");
+			d.setDisplay(DisplayType.BLOCK);
+		});
+		measure("8 style properties", d -> {
+			d.setWidth("100%");
+			d.setHeight("20px");
+			d.setDisplay(DisplayType.BLOCK);
+			d.setMarginTop("1px");
+			d.setMarginBottom("1px");
+			d.setColor("black");
+			d.setFontSize("12px");
+			d.setTextAlign(TextAlign.LEFT);
+		});
+	}
+
+	static private void measure(String what, IStyler styler) {
+		long best = Long.MAX_VALUE;
+		for(int round = 0; round < ROUNDS; round++) {
+			Div[] nodes = new Div[NODES];
+			long before = usedHeap();
+			for(int i = 0; i < NODES; i++) {
+				Div d = new Div();
+				styler.style(d);
+				nodes[i] = d;
+			}
+			long after = usedHeap();
+			long perNode = (after - before) / NODES;
+			if(perNode < best)
+				best = perNode;
+			if(nodes[NODES - 1] == null)						// Keep the nodes reachable until measured
+				throw new IllegalStateException();
+		}
+		System.out.println(what + ": " + best + " bytes per Div");
+	}
+
+	static private long usedHeap() {
+		Runtime rt = Runtime.getRuntime();
+		for(int i = 0; i < 4; i++) {
+			System.gc();
+			try {
+				Thread.sleep(50);
+			} catch(InterruptedException x) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return rt.totalMemory() - rt.freeMemory();
+	}
+}
@@ -141,6 +141,44 @@ public class TestDelta {
 		//System.out.println("\n\n---- Render after adding node@5 in child list ----\n" + render);
 	}
 
+	/**
+	 * The change journal must describe the before-image: removed-and-readded nodes existed
+	 * before, nodes added in this request did not.
+	 */
+	@Test
+	public void testChangeJournal() throws Exception {
+		Page p = createRenderedPage();
+		assertFalse(p.internalHasTreeChanges());
+
+		NodeBase moved = getIntDiv(p).getChild(5);
+		NodeBase deleted = getIntDiv(p).getChild(2);
+		String movedId = moved.getActualID();
+		String deletedId = deleted.getActualID();
+		moved.remove();
+		getIntDiv(p).add(7, moved);
+		deleted.remove();
+
+		Div d = new Div();
+		d.setText("new");
+		getIntDiv(p).add(d);
+		Div gone = new Div();
+		getIntDiv(p).add(gone);
+		String goneId = gone.getActualID();
+		gone.remove();
+
+		assertTrue(p.internalHasTreeChanges());
+		assertTrue(p.internalExistedBefore(movedId));
+		assertEquals(movedId, moved.getActualID());
+		assertTrue(p.internalExistedBefore(deletedId));
+		assertTrue(p.internalExistedBefore(getIntDiv(p).getActualID()));
+		assertFalse(p.internalExistedBefore(d.getActualID()));
+		assertFalse(p.internalExistedBefore(goneId));
+
+		getDeltaRenderText(p);
+		p.internalClearDeltaFully();
+		assertFalse(p.internalHasTreeChanges());
+	}
+
 	/**
 	 * Testcase for Jo's problem with "Hell Freezeth over" exception, pass 1.
 	 */
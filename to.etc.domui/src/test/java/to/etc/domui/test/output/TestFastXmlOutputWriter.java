@@ -0,0 +1,48 @@
+package to.etc.domui.test.output;
+
+import java.io.*;
+
+import org.junit.*;
+
+import to.etc.domui.dom.*;
+
+/**
+ * Checks the escaping and formatting of {@link FastXmlOutputWriter}.
+ */
+public class TestFastXmlOutputWriter {
+	private String render(String text, String attr) throws Exception {
+		StringWriter sw = new StringWriter();
+		IBrowserOutput o = new FastXmlOutputWriter(sw);
+		o.tag("delta");
+		o.endtag();
+		o.tag("div");
+		o.attr("title", attr);
+		o.text(text);
+		o.closetag("div");
+		o.nl();
+		o.tag("br");
+		o.endAndCloseXmltag();
+		o.closetag("delta");
+		return sw.toString();
+	}
+
+	@Test
+	public void testPlain() throws Exception {
+		Assert.assertEquals("<delta><div title=\"abc\">text</div><br/></delta>", render("text", "abc"));
+	}
+
+	@Test
+	public void testTextEscapes() throws Exception {
+		Assert.assertEquals("<delta><div title=\"\">a &lt;b&gt; &amp; \"c\"\nd</div><br/></delta>", render("a <b> & \"c\"\nd", ""));
+	}
+
+	@Test
+	public void testAttrEscapes() throws Exception {
+		Assert.assertEquals("<delta><div title=\"&lt;&quot;x&quot;&amp;&#0010;&#0013;&gt;\"></div><br/></delta>", render("", "<\"x\"&\n\r>"));
+	}
+
+	@Test
+	public void testNonAscii() throws Exception {
+		Assert.assertEquals("<delta><div title=\"\u20ac&amp;\">\u00e9&lt;\u4e2d</div><br/></delta>", render("\u00e9<\u4e2d", "\u20ac&"));
+	}
+}
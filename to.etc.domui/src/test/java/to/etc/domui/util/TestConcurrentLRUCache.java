@@ -0,0 +1,61 @@
+package to.etc.domui.util;
+
+import java.util.*;
+
+import org.junit.*;
+
+public class TestConcurrentLRUCache {
+	private ConcurrentLRUCache<String, String> create(int maxSize) {
+		return new ConcurrentLRUCache<>(item -> item.length(), maxSize);
+	}
+
+	@Test
+	public void testPutGet() {
+		ConcurrentLRUCache<String, String> c = create(100);
+		c.put("a", "aaaa");
+		c.put("b", "bb");
+		Assert.assertEquals("aaaa", c.get("a"));
+		Assert.assertEquals("bb", c.get("b"));
+		Assert.assertNull(c.get("c"));
+		Assert.assertEquals(6, c.getObjectSize());
+
+		c.put("a", "a");
+		Assert.assertEquals(3, c.getObjectSize());
+		Assert.assertEquals(2, c.size());
+	}
+
+	@Test
+	public void testEvictsLeastRecentlyUsed() {
+		ConcurrentLRUCache<String, String> c = create(10);
+		c.put("a", "aaaa");
+		c.put("b", "bbbb");
+		c.get("a");											// b is now the least recently used
+		c.put("c", "cccc");
+		Assert.assertNull(c.get("b"));
+		Assert.assertEquals("aaaa", c.get("a"));
+		Assert.assertEquals("cccc", c.get("c"));
+		Assert.assertEquals(8, c.getObjectSize());
+	}
+
+	@Test
+	public void testConditionalRemove() {
+		ConcurrentLRUCache<String, String> c = create(100);
+		c.put("a", "aaaa");
+		Assert.assertFalse(c.remove("a", "other"));
+		Assert.assertTrue(c.remove("a", c.get("a")));
+		Assert.assertNull(c.get("a"));
+		Assert.assertEquals(0, c.getObjectSize());
+	}
+
+	@Test
+	public void testRemovalListener() {
+		List<String> removed = new ArrayList<>();
+		ConcurrentLRUCache<String, String> c = new ConcurrentLRUCache<>(item -> item.length(), 10, (k, v) -> removed.add(k + "=" + v));
+		c.put("a", "aaaa");
+		c.put("b", "bbbb");
+		c.put("a", "AAAA");									// Replaces a, which also makes b the least recently used
+		c.put("c", "cccc");									// Evicts b
+		c.remove("c");
+		Assert.assertEquals(Arrays.asList("a=aaaa", "b=bbbb", "c=cccc"), removed);
+	}
+}
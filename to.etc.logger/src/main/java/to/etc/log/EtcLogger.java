@@ -18,12 +18,17 @@ public class EtcLogger implements Logger {
 	@Nonnull
 	private final String	m_key;
 
-	@Nullable
-	private Level			m_level;
+	/**
+	 * The code of the lowest level that is logged, or {@link #DISABLED} when nothing is. This is
+	 * recomputed when the configuration changes, so that a level check is a single volatile read.
+	 */
+	private volatile int	m_minimumCode;
+
+	static private final int	DISABLED	= Integer.MAX_VALUE;
 
 	private EtcLogger(@Nonnull String key, @Nullable Level level) {
 		m_key = key;
-		m_level = level;
+		setLevel(level);
 	}
 
 	@Nonnull
@@ -36,8 +41,8 @@ public class EtcLogger implements Logger {
 		EtcLoggerFactory.getSingleton().notifyHandlers(event);
 	}
 
-	private synchronized boolean checkEnabled(@Nonnull Level level) {
-		return m_level != null && m_level.includes(level);
+	private boolean checkEnabled(@Nonnull Level level) {
+		return level.m_code >= m_minimumCode;
 	}
 
 	private boolean checkEnabled(@Nonnull Level level, @Nonnull Marker marker) {
@@ -411,11 +416,11 @@ public class EtcLogger implements Logger {
 		execute(Level.WARN, arg0, arg1, arg2, arg3);
 	}
 
-	synchronized boolean isDisabled() {
-		return m_level == null;
+	boolean isDisabled() {
+		return m_minimumCode == DISABLED;
 	}
 
-	public synchronized void setLevel(@Nullable Level level) {
-		m_level = level;
+	public void setLevel(@Nullable Level level) {
+		m_minimumCode = level == null ? DISABLED : level.getCode();
 	}
 }
@@ -27,9 +27,8 @@ import java.io.Writer;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Implements logger factory. Encapsulates definitions and configuration of loggers used.
@@ -69,11 +68,14 @@ public class EtcLoggerFactory implements ILoggerFactory {
 
 	/** Contains loaded Logger instances. */
 	@Nonnull
-	private final Map<String, EtcLogger> LOGGERS = new HashMap<String, EtcLogger>();
+	private final ConcurrentHashMap<String, EtcLogger> LOGGERS = new ConcurrentHashMap<String, EtcLogger>();
 
-	/** Contains handler instances - logger instances behavior definition. */
+	/** Contains handler instances - logger instances behavior definition. Replaced as a whole (copy-on-write) so that it can be used without locking. */
 	@Nonnull
-	private List<ILogHandler> m_handlers = new ArrayList<ILogHandler>();
+	private volatile ILogHandler[] m_handlers = new ILogHandler[0];
+
+	/** Incremented every time the handlers are replaced; used to detect loggers created with a stale level. */
+	private volatile int m_configGeneration;
 
 	@Nonnull
 	private Object m_handlersLock = new Object();
@@ -115,14 +117,19 @@ public class EtcLoggerFactory implements ILoggerFactory {
 	@Override
 	@Nonnull
 	public EtcLogger getLogger(@Nonnull String key) {
-		EtcLogger logger;
-		synchronized(LOGGERS) {
-			logger = LOGGERS.get(key);
-			if(logger == null) {
-				logger = EtcLogger.create(key, calcLevel(key));
-				LOGGERS.put(key, logger);
-			}
-		}
+		EtcLogger logger = LOGGERS.get(key);
+		if(logger != null)
+			return logger;
+
+		int generation = m_configGeneration;
+		logger = EtcLogger.create(key, calcLevel(key));
+		EtcLogger old = LOGGERS.putIfAbsent(key, logger);
+		if(old != null)
+			return old;
+
+		//-- If the config was replaced while we were busy, recalculateLoggers() might have missed us
+		if(generation != m_configGeneration)
+			logger.setLevel(calcLevel(key));
 		return logger;
 	}
 
@@ -306,10 +313,8 @@ public class EtcLoggerFactory implements ILoggerFactory {
 	}
 
 	private void recalculateLoggers() {
-		synchronized(LOGGERS) {
-			for(EtcLogger logger : LOGGERS.values()) {
-				logger.setLevel(calcLevel(logger.getName()));
-			}
+		for(EtcLogger logger : LOGGERS.values()) {
+			logger.setLevel(calcLevel(logger.getName()));
 		}
 	}
 
@@ -385,10 +390,16 @@ public class EtcLoggerFactory implements ILoggerFactory {
 			ILogHandler handler = LogHandlerRegistry.getSingleton().createDefaultHandler(m_configFile, DEFAULT_LEVEL);
 			loadedHandlers.add(handler);
 		}
+		ILogHandler[] oldHandlers;
 		synchronized(m_handlersLock) {
-			m_handlers = loadedHandlers;
+			oldHandlers = m_handlers;
+			m_handlers = loadedHandlers.toArray(new ILogHandler[loadedHandlers.size()]);
+			m_configGeneration++;
 		}
 		recalculateLoggers();
+		for(ILogHandler handler : oldHandlers) {
+			handler.close();
+		}
 	}
 
 	@Nonnull
@@ -421,10 +432,8 @@ public class EtcLoggerFactory implements ILoggerFactory {
 	}
 
 	@Nonnull
-	private List<ILogHandler> getHandlers() {
-		synchronized(m_handlersLock) {
-			return m_handlers;
-		}
+	private ILogHandler[] getHandlers() {
+		return m_handlers;
 	}
 
 	static {
@@ -0,0 +1,290 @@
+package to.etc.log.handler;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import javax.annotation.*;
+
+import to.etc.log.*;
+
+/**
+ * Writes log lines for a {@link FileLogHandler} in the background. Logging threads only put the
+ * formatted line in a bounded queue; a single writer thread takes the lines out in batches and
+ * writes them to a file that it keeps open. The writer thread switches to a new file when the date
+ * in the log file name changes, and when the file grows beyond the max file size (if set).
+ *
+ * <p>When the queue is full the {@link WhenFull} policy decides whether the logging thread waits
+ * for room or whether the line is dropped. Dropped lines are counted, and the writer reports them
+ * in the log file itself.</p>
+ */
+final class AsyncLogWriter implements Runnable {
+	/**
+	 * What to do with a log line when the queue is full.
+	 */
+	enum WhenFull {
+		/** Wait until the writer has made room. */
+		BLOCK,
+
+		/** Drop the line, and count it. */
+		DROP
+	}
+
+	/** The max #of lines written in one batch, before flushing. */
+	static private final int MAX_BATCH = 512;
+
+	static private final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+	@Nonnull
+	private final File m_logRoot;
+
+	@Nonnull
+	private final String m_out;
+
+	@Nonnull
+	private final WhenFull m_whenFull;
+
+	/** When &gt; 0, the size in bytes after which a new log file is started. */
+	private final long m_maxFileSize;
+
+	@Nonnull
+	private final ArrayBlockingQueue<String> m_queue;
+
+	@Nonnull
+	private final AtomicLong m_droppedCount = new AtomicLong();
+
+	@Nonnull
+	private final AtomicLong m_writtenCount = new AtomicLong();
+
+	@Nonnull
+	private final Thread m_thread;
+
+	@Nonnull
+	private final Thread m_shutdownHook;
+
+	private volatile boolean m_closed;
+
+	/** Set by the writer thread just before its final drain of the queue; lines queued after that are never written. */
+	private volatile boolean m_stopped;
+
+	/*-- The fields below are only used by the writer thread. --*/
+
+	@Nullable
+	private Writer m_writer;
+
+	@Nullable
+	private String m_fileName;
+
+	/** The (approximate) size of the current file. */
+	private long m_fileSize;
+
+	/** The dropped count that has been reported in the log already. */
+	private long m_reportedDropped;
+
+	AsyncLogWriter(@Nonnull File logRoot, @Nonnull String out, int queueSize, @Nonnull WhenFull whenFull, long maxFileSize) {
+		m_logRoot = logRoot;
+		m_out = out;
+		m_whenFull = whenFull;
+		m_maxFileSize = maxFileSize;
+		m_queue = new ArrayBlockingQueue<String>(queueSize);
+		m_thread = new Thread(this, "etclog:" + out);
+		m_thread.setDaemon(true);
+		m_shutdownHook = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				close();
+			}
+		}, "etclog-close:" + out);
+		Runtime.getRuntime().addShutdownHook(m_shutdownHook);
+		m_thread.start();
+	}
+
+	/**
+	 * Queue a line for writing.
+	 */
+	void append(@Nonnull String line) {
+		if(m_closed) {
+			m_droppedCount.incrementAndGet();
+			return;
+		}
+		if(m_whenFull == WhenFull.DROP) {
+			if(!m_queue.offer(line)) {
+				m_droppedCount.incrementAndGet();
+				return;
+			}
+		} else {
+			try {
+				while(!m_queue.offer(line, 100, TimeUnit.MILLISECONDS)) {
+					if(m_closed) {								// Writer stopped while we were waiting
+						m_droppedCount.incrementAndGet();
+						return;
+					}
+				}
+			} catch(InterruptedException x) {
+				m_droppedCount.incrementAndGet();
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+
+		//-- If the writer stopped after we checked, its last drain may have missed the line: take it back and count it.
+		if(m_stopped && m_queue.remove(line))
+			m_droppedCount.incrementAndGet();
+	}
+
+	/**
+	 * Write all queued lines, then stop the writer thread and close the file.
+	 */
+	void close() {
+		if(m_closed)
+			return;
+		m_closed = true;
+		try {
+			m_thread.join(5000);
+		} catch(InterruptedException x) {
+			Thread.currentThread().interrupt();
+		}
+		try {
+			Runtime.getRuntime().removeShutdownHook(m_shutdownHook);
+		} catch(IllegalStateException x) {
+			//-- The VM is shutting down already, and this is probably called by the hook.
+		}
+	}
+
+	/**
+	 * The #of lines that were dropped because the queue was full.
+	 */
+	long getDroppedCount() {
+		return m_droppedCount.get();
+	}
+
+	/**
+	 * The #of lines waiting to be written.
+	 */
+	int getQueueDepth() {
+		return m_queue.size();
+	}
+
+	long getWrittenCount() {
+		return m_writtenCount.get();
+	}
+
+	/*--------------------------------------------------------------*/
+	/*	CODING:	Writer thread.										*/
+	/*--------------------------------------------------------------*/
+
+	@Override
+	public void run() {
+		List<String> batch = new ArrayList<String>(MAX_BATCH);
+		try {
+			for(;;) {
+				String line;
+				try {
+					line = m_queue.poll(500, TimeUnit.MILLISECONDS);
+				} catch(InterruptedException x) {
+					line = null;
+				}
+				if(line == null) {
+					if(m_closed && m_queue.isEmpty())
+						return;
+					continue;
+				}
+				batch.add(line);
+				m_queue.drainTo(batch, MAX_BATCH - 1);
+				write(batch);
+				batch.clear();
+			}
+		} finally {
+			m_stopped = true;
+			m_queue.drainTo(batch);
+			if(batch.size() > 0)
+				write(batch);
+			closeFile();
+		}
+	}
+
+	private void write(@Nonnull List<String> batch) {
+		try {
+			Writer w = open();
+			for(String line : batch) {
+				if(m_maxFileSize > 0 && m_fileSize >= m_maxFileSize)
+					w = roll();
+				w.write(line);
+				w.write(LINE_SEPARATOR);
+				m_fileSize += line.length() + LINE_SEPARATOR.length();
+			}
+			long dropped = m_droppedCount.get();
+			if(dropped != m_reportedDropped) {
+				String msg = "etclogger: " + (dropped - m_reportedDropped) + " log events were dropped because the log queue was full";
+				w.write(msg);
+				w.write(LINE_SEPARATOR);
+				m_reportedDropped = dropped;
+			}
+			w.flush();
+			m_writtenCount.addAndGet(batch.size());
+		} catch(IOException x) {
+			x.printStackTrace();
+			closeFile();										// Retry opening the file with the next batch
+		}
+	}
+
+	/**
+	 * Return the writer for the current log file, switching to a new file when the date has changed.
+	 */
+	@Nonnull
+	private Writer open() throws IOException {
+		String fileName = EtcLoggerFactory.getSingleton().composeFullLogFileName(m_logRoot.getAbsolutePath(), m_out);
+		Writer w = m_writer;
+		if(w != null && fileName.equals(m_fileName))
+			return w;
+		closeFile();
+
+		File outFile = new File(fileName);
+		outFile.getParentFile().mkdirs();
+		w = m_writer = new BufferedWriter(new FileWriter(outFile, true), 64 * 1024);
+		m_fileName = fileName;
+		m_fileSize = outFile.length();
+		return w;
+	}
+
+	/**
+	 * The current file is full: rename it to the first free name.n.log and start a new file.
+	 */
+	@Nonnull
+	private Writer roll() throws IOException {
+		String fileName = m_fileName;
+		closeFile();
+		if(null != fileName) {
+			String base = fileName.endsWith(".log") ? fileName.substring(0, fileName.length() - 4) : fileName;
+			for(int i = 1; ; i++) {
+				File rolled = new File(base + "." + i + ".log");
+				if(!rolled.exists()) {
+					if(!new File(fileName).renameTo(rolled))
+						System.err.println("etclogger: cannot rename " + fileName + " to " + rolled);
+					break;
+				}
+			}
+		}
+		return open();
+	}
+
+	private void closeFile() {
+		Writer w = m_writer;
+		m_writer = null;
+		m_fileName = null;
+		if(null != w) {
+			try {
+				w.close();
+			} catch(IOException x) {
+				x.printStackTrace();
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "async queue " + getQueueDepth() + "/" + (getQueueDepth() + m_queue.remainingCapacity()) + ", " + m_whenFull
+			+ ", written " + getWrittenCount() + ", dropped " + getDroppedCount();
+	}
+}
@@ -2,6 +2,7 @@ package to.etc.log.handler;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 import javax.annotation.*;
 
@@ -34,10 +35,10 @@ class FileLogHandler implements ILogHandler {
 	private List<LogFilter>					m_filters	= Collections.EMPTY_LIST;
 
 	/**
-	 * Keeps list of loggers that are marked as handled by handler.
+	 * Keeps list of loggers that are marked as handled by handler. Concurrent, as handle() is called without locking.
 	 */
 	@Nonnull
-	private final Map<EtcLogger, Boolean[]>	m_loggers	= new HashMap<EtcLogger, Boolean[]>();
+	private final Map<EtcLogger, Boolean[]>	m_loggers	= new ConcurrentHashMap<EtcLogger, Boolean[]>();
 
 	@Nonnull
 	private final Object					m_writeLock	= new Object();
@@ -45,6 +46,21 @@ class FileLogHandler implements ILogHandler {
 	@Nullable
 	private EtcLogFormat					m_format	= null;
 
+	/** When &gt; 0 the handler writes asynchronously, using a queue of this size. */
+	private int								m_queueSize;
+
+	@Nonnull
+	private AsyncLogWriter.WhenFull			m_whenFull	= AsyncLogWriter.WhenFull.BLOCK;
+
+	/** When &gt; 0 and writing asynchronously, start a new file when the log file gets this big. */
+	private long							m_maxFileSize;
+
+	/** The background writer when writing asynchronously, created on first use. */
+	@Nullable
+	private volatile AsyncLogWriter			m_asyncWriter;
+
+	private boolean							m_closed;
+
 	public FileLogHandler(@Nonnull File logRoot, @Nullable String out) {
 		m_logRoot = logRoot;
 		m_out = out;
@@ -63,6 +79,22 @@ class FileLogHandler implements ILogHandler {
 		m_loggers.clear();
 	}
 
+	/**
+	 * Make this handler write asynchronously: log lines are put in a queue of the specified size, and
+	 * written by a background thread that keeps the log file open.
+	 *
+	 * @param queueSize		The max #of lines waiting to be written.
+	 * @param whenFull		What to do with a line when the queue is full.
+	 * @param maxFileSize	When &gt; 0, the size in bytes after which a new log file is started.
+	 */
+	void setAsync(int queueSize, @Nonnull AsyncLogWriter.WhenFull whenFull, long maxFileSize) {
+		if(queueSize <= 0)
+			throw new IllegalArgumentException("The queue size must be > 0");
+		m_queueSize = queueSize;
+		m_whenFull = whenFull;
+		m_maxFileSize = maxFileSize;
+	}
+
 	public void addFilter(@Nonnull LogFilter filter) {
 		if(m_filters == Collections.EMPTY_LIST) {
 			m_filters = new ArrayList<LogFilter>();
@@ -91,6 +123,13 @@ class FileLogHandler implements ILogHandler {
 
 	private void log(@Nonnull EtcLogEvent event) {
 		String line = EtcLogFormatter.format(event, m_format != null ? m_format.getFormat() : EtcLogFormat.DEFAULT, getLogPartFromFilters());
+		if(m_out != null && m_queueSize > 0) {
+			AsyncLogWriter writer = getAsyncWriter();
+			if(null != writer) {
+				writer.append(line);
+				return;
+			}
+		}
 
 		synchronized(m_writeLock) {
 			if(m_out == null) {
@@ -124,6 +163,35 @@ class FileLogHandler implements ILogHandler {
 		}
 	}
 
+	@Nullable
+	private AsyncLogWriter getAsyncWriter() {
+		AsyncLogWriter writer = m_asyncWriter;
+		if(null == writer) {
+			synchronized(m_writeLock) {
+				writer = m_asyncWriter;
+				if(null == writer && !m_closed) {
+					writer = m_asyncWriter = new AsyncLogWriter(m_logRoot, m_out, m_queueSize, m_whenFull, m_maxFileSize);
+				}
+			}
+		}
+		return writer;
+	}
+
+	/**
+	 * Writes all queued lines and stops the background writer, if present.
+	 */
+	@Override
+	public void close() {
+		AsyncLogWriter writer;
+		synchronized(m_writeLock) {
+			m_closed = true;
+			writer = m_asyncWriter;
+			m_asyncWriter = null;
+		}
+		if(null != writer)
+			writer.close();
+	}
+
 	@Nullable
 	private String getLogPartFromFilters() {
 		if(m_filters.isEmpty()) {
@@ -188,9 +256,32 @@ class FileLogHandler implements ILogHandler {
 		}
 		FileLogHandler res = new FileLogHandler(logRoot, file.getNodeValue());
 		res.load(handlerNode);
+		res.loadAsync(handlerNode);
 		return res;
 	}
 
+	/**
+	 * Reads the async attributes: async="true", queueSize (default 8192), whenFull="block|drop" (default block)
+	 * and maxFileSize in bytes.
+	 */
+	private void loadAsync(@Nonnull Node handlerNode) throws LoggerConfigException {
+		NamedNodeMap attributes = handlerNode.getAttributes();
+		Node async = attributes.getNamedItem("async");
+		if(async == null || !"true".equalsIgnoreCase(async.getNodeValue()))
+			return;
+		try {
+			Node node = attributes.getNamedItem("queueSize");
+			int queueSize = node == null ? 8192 : Integer.parseInt(node.getNodeValue().trim());
+			node = attributes.getNamedItem("whenFull");
+			AsyncLogWriter.WhenFull whenFull = node == null ? AsyncLogWriter.WhenFull.BLOCK : AsyncLogWriter.WhenFull.valueOf(node.getNodeValue().trim().toUpperCase());
+			node = attributes.getNamedItem("maxFileSize");
+			long maxFileSize = node == null ? 0 : Long.parseLong(node.getNodeValue().trim());
+			setAsync(queueSize, whenFull, maxFileSize);
+		} catch(IllegalArgumentException x) {
+			throw new EtcLoggerFactory.LoggerConfigException("Invalid async configuration for file handler " + m_out + ": " + x.getMessage());
+		}
+	}
+
 	void load(@Nonnull Node handlerNode) throws LoggerConfigException {
 		NodeList nodes = handlerNode.getChildNodes();
 		for(int i = 0; i < nodes.getLength(); i++) {
@@ -225,6 +316,13 @@ class FileLogHandler implements ILogHandler {
 		handlerNode.setAttribute("type", m_out == null ? "stdout" : "file");
 		if(m_out != null) {
 			handlerNode.setAttribute("file", m_out);
+			if(m_queueSize > 0) {
+				handlerNode.setAttribute("async", "true");
+				handlerNode.setAttribute("queueSize", Integer.toString(m_queueSize));
+				handlerNode.setAttribute("whenFull", m_whenFull.name().toLowerCase());
+				if(m_maxFileSize > 0)
+					handlerNode.setAttribute("maxFileSize", Long.toString(m_maxFileSize));
+			}
 		}
 		if(m_format != null) {
 			Element formatNode = doc.createElement("format");
@@ -249,6 +347,9 @@ class FileLogHandler implements ILogHandler {
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
 		sb.append("handler ").append(m_out != null ? "file: " + m_out : "stdout");
+		AsyncLogWriter writer = m_asyncWriter;
+		if(null != writer)
+			sb.append(" (").append(writer).append(")");
 		if(!m_matchers.isEmpty()) {
 			sb.append("\nmatchers: ");
 			for(LogMatcher matcher : m_matchers) {
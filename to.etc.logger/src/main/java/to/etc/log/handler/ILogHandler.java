@@ -43,4 +43,11 @@ public interface ILogHandler {
 	 * @param event
 	 */
 	boolean isTemporary();
+
+	/**
+	 * Called when the handler is no longer used because the configuration was replaced. Handlers
+	 * that keep resources like open files or threads must release them here.
+	 */
+	default void close() {
+	}
 }
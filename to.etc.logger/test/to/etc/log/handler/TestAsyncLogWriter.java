@@ -0,0 +1,103 @@
+package to.etc.log.handler;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import org.junit.*;
+
+import to.etc.log.handler.AsyncLogWriter.WhenFull;
+
+/**
+ * Checks that the background log writer writes every queued line on close, rolls files when they
+ * become too big, and accounts for every line it does not write.
+ */
+public class TestAsyncLogWriter {
+	private File m_dir;
+
+	@Before
+	public void setUp() throws Exception {
+		m_dir = Files.createTempDirectory("asynclog").toFile();
+	}
+
+	@After
+	public void tearDown() {
+		File[] ar = m_dir.listFiles();
+		if(null != ar) {
+			for(File f : ar)
+				f.delete();
+		}
+		m_dir.delete();
+	}
+
+	/**
+	 * Read the lines in all log files, except the writer's own messages about dropped lines.
+	 */
+	private List<String> readLines() throws Exception {
+		List<String> res = new ArrayList<>();
+		File[] ar = m_dir.listFiles();
+		Assert.assertNotNull(ar);
+		for(File f : ar) {
+			for(String line : Files.readAllLines(f.toPath())) {
+				if(!line.startsWith("etclogger:"))
+					res.add(line);
+			}
+		}
+		return res;
+	}
+
+	@Test
+	public void testCloseWritesQueuedLines() throws Exception {
+		AsyncLogWriter w = new AsyncLogWriter(m_dir, "app", 1000, WhenFull.BLOCK, 0);
+		for(int i = 0; i < 500; i++)
+			w.append("line " + i);
+		w.close();
+
+		List<String> lines = readLines();
+		Assert.assertEquals(500, lines.size());
+		Assert.assertEquals("line 0", lines.get(0));
+		Assert.assertEquals("line 499", lines.get(499));
+		Assert.assertEquals(500, w.getWrittenCount());
+		Assert.assertEquals(0, w.getDroppedCount());
+	}
+
+	@Test
+	public void testRollsBigFiles() throws Exception {
+		AsyncLogWriter w = new AsyncLogWriter(m_dir, "app", 1000, WhenFull.BLOCK, 1000);
+		String text = "01234567890123456789012345678901234567890123456789";
+		for(int i = 0; i < 100; i++)
+			w.append(text);
+		w.close();
+
+		File[] ar = m_dir.listFiles();
+		Assert.assertNotNull(ar);
+		Assert.assertTrue("Expected rolled files, got " + ar.length, ar.length >= 5);
+		for(File f : ar)
+			Assert.assertTrue(f + " is too big: " + f.length(), f.length() <= 1000 + text.length() + 2);
+		Assert.assertEquals(100, readLines().size());
+	}
+
+	/**
+	 * With the DROP policy every line is either written or counted as dropped.
+	 */
+	@Test
+	public void testDroppedLinesAreCounted() throws Exception {
+		AsyncLogWriter w = new AsyncLogWriter(m_dir, "app", 1, WhenFull.DROP, 0);
+		for(int i = 0; i < 10000; i++)
+			w.append("line " + i);
+		w.close();
+
+		Assert.assertEquals(10000, w.getWrittenCount() + w.getDroppedCount());
+		Assert.assertEquals(w.getWrittenCount(), readLines().size());
+	}
+
+	@Test
+	public void testAppendAfterCloseIsDropped() throws Exception {
+		AsyncLogWriter w = new AsyncLogWriter(m_dir, "app", 10, WhenFull.BLOCK, 0);
+		w.append("before");
+		w.close();
+		w.append("after");
+		Assert.assertEquals(1, w.getDroppedCount());
+		Assert.assertEquals(Collections.singletonList("before"), readLines());
+	}
+}
@@ -0,0 +1,131 @@
+package to.etc.log.test;
+
+import java.io.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import javax.annotation.*;
+
+import org.w3c.dom.*;
+
+import to.etc.log.*;
+import to.etc.log.event.*;
+import to.etc.log.handler.*;
+
+/**
+ * Measures logger throughput with many threads logging at the same time: for disabled
+ * debug statements, which should cost next to nothing, and for enabled statements that are
+ * dispatched to a handler. The handler only counts the events, so that the measurement is
+ * not about file I/O. This is not a unit test: run it as a main program on the revisions to
+ * compare, optionally passing the thread counts to use (default 1 4 16).
+ */
+public class LoggerThroughputBenchmark {
+	static private final long RUN_MILLIS = 2000;
+
+	static private final int ROUNDS = 3;
+
+	static private final AtomicLong m_handled = new AtomicLong();
+
+	private interface IAction {
+		void run(EtcLogger log, int i);
+	}
+
+	/**
+	 * A handler that only counts the events it gets.
+	 */
+	static private class CountingHandler implements ILogHandler {
+		@Override
+		public void handle(@Nonnull EtcLogEvent event) {
+			m_handled.incrementAndGet();
+		}
+
+		@Nullable
+		@Override
+		public Level listenAt(@Nonnull String key) {
+			return key.startsWith("bench.enabled") ? Level.INFO : null;
+		}
+
+		@Override
+		public void saveToXml(@Nonnull Document doc, @Nonnull Element handlerNode, boolean includeNonPersistable) {
+		}
+
+		@Override
+		public boolean isTemporary() {
+			return true;
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		LogHandlerRegistry.getSingleton().register("count", new LogHandlerRegistry.ILogHandlerFactory() {
+			@Nonnull
+			@Override
+			public ILogHandler createInstance(@Nonnull File logDir, @Nonnull Node handlerNode) {
+				return new CountingHandler();
+			}
+		});
+		String tmp = System.getProperty("java.io.tmpdir");
+		if(!EtcLoggerFactory.getSingleton().tryLoadConfigFromXml(new File(tmp, "bench-logger.xml"), "<config logLocation=\"" + tmp + "\"><handler type=\"count\"/></config>"))
+			throw new IllegalStateException("Cannot load the logger configuration");
+		EtcLogger disabled = EtcLoggerFactory.getSingleton().getLogger("bench.disabled");
+		EtcLogger enabled = EtcLoggerFactory.getSingleton().getLogger("bench.enabled");
+
+		int[] threadCounts = args.length == 0 ? new int[]{1, 4, 16} : new int[args.length];
+		for(int i = 0; i < args.length; i++)
+			threadCounts[i] = Integer.parseInt(args[i]);
+
+		for(int threads : threadCounts) {
+			measure("disabled debug(msg, arg)", threads, disabled, (log, i) -> log.debug("value {}", Integer.valueOf(i)));
+			measure("isDebugEnabled() guard", threads, disabled, (log, i) -> {
+				if(log.isDebugEnabled())
+					log.debug("value " + i);
+			});
+			measure("enabled info(msg, arg)", threads, enabled, (log, i) -> log.info("value {}", Integer.valueOf(i)));
+			measure("lookup getLogger(name)", threads, enabled, (log, i) -> EtcLoggerFactory.getSingleton().getLogger("bench.enabled"));
+		}
+		System.out.println("(" + m_handled.get() + " events handled)");
+	}
+
+	static private void measure(String what, int threads, EtcLogger log, IAction action) throws Exception {
+		double best = 0;
+		for(int round = 0; round < ROUNDS; round++) {
+			double opsPerSec = run(threads, log, action);
+			if(opsPerSec > best)
+				best = opsPerSec;
+		}
+		System.out.println(String.format("%-28s %3d threads: %,15.0f ops/s", what, Integer.valueOf(threads), Double.valueOf(best)));
+	}
+
+	static private double run(int threads, EtcLogger log, IAction action) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicBoolean stop = new AtomicBoolean();
+		AtomicLong total = new AtomicLong();
+		try {
+			for(int t = 0; t < threads; t++) {
+				executor.execute(() -> {
+					try {
+						start.await();
+					} catch(InterruptedException x) {
+						return;
+					}
+					long count = 0;
+					while(!stop.get()) {
+						for(int i = 0; i < 1000; i++)
+							action.run(log, i);
+						count += 1000;
+					}
+					total.addAndGet(count);
+				});
+			}
+			long ts = System.nanoTime();
+			start.countDown();
+			Thread.sleep(RUN_MILLIS);
+			stop.set(true);
+			executor.shutdown();
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+			return total.get() * 1e9 / (System.nanoTime() - ts);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
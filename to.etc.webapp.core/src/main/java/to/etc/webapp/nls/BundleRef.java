@@ -26,6 +26,7 @@ package to.etc.webapp.nls;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 import javax.annotation.*;
 
@@ -40,6 +41,10 @@ import javax.annotation.*;
  * code you will always get a reference to the same bundle. This prevents the same bundle from being reloaded
  * multiple times.</p>
  *
+ * <p>For every locale the messages of all bundle files that apply (dialect, language, country and variant
+ * specific ones) are merged into a single immutable table, so that looking up a message is a single lock-free
+ * map access.</p>
+ *
  * @author <a href="mailto:jal@etc.to">Frits Jalvingh</a>
  * Created on Sep 18, 2006
  */
@@ -51,9 +56,39 @@ final public class BundleRef extends BundleBase implements IBundle {
 
 	private NlsMessageProvider m_parent;
 
-	static private Map<Class< ? >, Map<String, BundleRef>> m_cachedMap = new HashMap<Class< ? >, Map<String, BundleRef>>();
+	static private final ConcurrentMap<Class< ? >, ConcurrentMap<String, BundleRef>> m_cachedMap = new ConcurrentHashMap<Class< ? >, ConcurrentMap<String, BundleRef>>();
+
+	/** The loaded property files by locale suffix, like "_nl_NL". */
+	private final ConcurrentMap<String, ResourceBundle> m_bundleMap = new ConcurrentHashMap<String, ResourceBundle>();
+
+	/** The resolved message tables by locale. */
+	private final ConcurrentMap<Locale, MessageTable> m_messageMap = new ConcurrentHashMap<Locale, MessageTable>();
+
+	/**
+	 * All messages for a single locale, with the more specific bundle files overriding the less
+	 * specific ones. Immutable once created.
+	 */
+	static private final class MessageTable {
+		/** The #of bundle files that contributed to the table. */
+		final private int m_bundleCount;
+
+		@Nonnull
+		final private Map<String, String> m_messages;
 
-	private final Map<Object, Object> m_map = new HashMap<Object, Object>();
+		MessageTable(int bundleCount, @Nonnull Map<String, String> messages) {
+			m_bundleCount = bundleCount;
+			m_messages = messages;
+		}
+
+		int getBundleCount() {
+			return m_bundleCount;
+		}
+
+		@Nullable
+		String get(@Nonnull String code) {
+			return m_messages.get(code);
+		}
+	}
 
 	static public final BundleRef DUMMY = new BundleRef();
 
@@ -95,21 +130,23 @@ final public class BundleRef extends BundleBase implements IBundle {
 	 * @return
 	 */
 	@Nonnull
-	static public synchronized BundleRef create(@Nonnull final Class< ? > clz, @Nonnull final String name) {
-		Map<String, BundleRef> refMap = m_cachedMap.get(clz);
+	static public BundleRef create(@Nonnull final Class< ? > clz, @Nonnull final String name) {
+		ConcurrentMap<String, BundleRef> refMap = m_cachedMap.get(clz);
 		if(refMap == null) {
-			refMap = new HashMap<String, BundleRef>(3);
-			m_cachedMap.put(clz, refMap);
+			refMap = new ConcurrentHashMap<String, BundleRef>(4);
+			ConcurrentMap<String, BundleRef> old = m_cachedMap.putIfAbsent(clz, refMap);
+			if(null != old)
+				refMap = old;
 		} else {
 			BundleRef ref = refMap.get(name);
 			if(ref != null)
 				return ref;
 		}
 
-		//-- Add new ref
+		//-- Add new ref, unless another thread was first.
 		BundleRef ref = new BundleRef(clz, name);
-		refMap.put(name, ref);
-		return ref;
+		BundleRef old = refMap.putIfAbsent(name, ref);
+		return null == old ? ref : old;
 	}
 
 	static private String calcAbsName(final Class< ? > clz, final String name) {
@@ -127,59 +164,64 @@ final public class BundleRef extends BundleBase implements IBundle {
 	}
 
 	/**
-	 * Returns the bundle for the specified locale from cache, and caches
-	 * it if not found.
-	 * @param loc
-	 * @return
-	 * @throws ResourceNotFoundException if ...
+	 * Returns the message table for the specified locale from cache, and creates
+	 * it if not found. When two threads create the same table concurrently the
+	 * first one stored wins; the tables are equal anyway.
 	 */
-	private synchronized ResourceBundle[] getBundleList(final Locale loc) {
-		ResourceBundle[] r = (ResourceBundle[]) m_map.get(loc);
-		if(r == null) {
-			r = loadBundleList(loc); // Load bundle list from classpath
-			m_map.put(loc, r);
+	@Nonnull
+	private MessageTable getMessageTable(@Nonnull final Locale loc) {
+		MessageTable mt = m_messageMap.get(loc);
+		if(mt == null) {
+			mt = loadMessageTable(loc);
+			MessageTable old = m_messageMap.putIfAbsent(loc, mt);
+			if(null != old)
+				mt = old;
 		}
-		return r;
+		return mt;
 	}
 
 	public boolean exists() {
 		if(m_parent != null)
 			return true;
-		return getBundleList(Locale.US).length != 0;
+		return getMessageTable(Locale.US).getBundleCount() != 0;
 	}
 
 	@Override
 	public String findMessage(final @Nonnull Locale loc, final @Nonnull String code) {
 		if(m_parent != null)
 			return m_parent.findMessage(loc, code);
-
-		ResourceBundle[] b = getBundleList(loc);
-		for(ResourceBundle rb : b) {
-			try {
-				return rb.getString(code);
-			} catch(MissingResourceException x) {}
-		}
-		return null;
+		return getMessageTable(loc).get(code);
 	}
 
 	/**
 	 * Overrides the stupid ResourceBundle resolution mechanism. This ignores the
-	 * default language. In addition, it re-uses existing bundles.
-	 *
-	 * @param loc
-	 * @return
+	 * default language. In addition, it re-uses existing bundles. The messages of all
+	 * bundles found are merged into a single table, where the most specific bundle wins.
 	 */
-	private synchronized ResourceBundle[] loadBundleList(final Locale loc) {
+	@Nonnull
+	private MessageTable loadMessageTable(final Locale loc) {
+		String dialect = NlsContext.getDialect();
 		List<ResourceBundle> rb = new ArrayList<ResourceBundle>();
-		tryKey(rb, mkSubKey(loc.getLanguage(), loc.getCountry(), loc.getVariant(), NlsContext.getDialect()));
+		tryKey(rb, mkSubKey(loc.getLanguage(), loc.getCountry(), loc.getVariant(), dialect));
 		tryKey(rb, mkSubKey(loc.getLanguage(), loc.getCountry(), loc.getVariant(), null));
-		tryKey(rb, mkSubKey(loc.getLanguage(), loc.getCountry(), null, NlsContext.getDialect()));
+		tryKey(rb, mkSubKey(loc.getLanguage(), loc.getCountry(), null, dialect));
 		tryKey(rb, mkSubKey(loc.getLanguage(), loc.getCountry(), null, null));
-		tryKey(rb, mkSubKey(loc.getLanguage(), null, null, NlsContext.getDialect()));
+		tryKey(rb, mkSubKey(loc.getLanguage(), null, null, dialect));
 		tryKey(rb, mkSubKey(loc.getLanguage(), null, null, null));
-		tryKey(rb, mkSubKey(null, null, null, NlsContext.getDialect()));
+		tryKey(rb, mkSubKey(null, null, null, dialect));
 		tryKey(rb, mkSubKey(null, null, null, null));
-		return rb.toArray(new ResourceBundle[rb.size()]);
+
+		//-- Merge, starting with the least specific bundle so that the more specific ones override.
+		Map<String, String> messages = new HashMap<String, String>();
+		for(int i = rb.size(); --i >= 0;) {
+			ResourceBundle b = rb.get(i);
+			for(String key : b.keySet()) {
+				Object value = b.getObject(key);
+				if(value instanceof String)
+					messages.put(key, (String) value);
+			}
+		}
+		return new MessageTable(rb.size(), Collections.unmodifiableMap(messages));
 	}
 
 	/**
@@ -189,8 +231,8 @@ final public class BundleRef extends BundleBase implements IBundle {
 	 * @param res
 	 * @param key
 	 */
-	private synchronized void tryKey(final List<ResourceBundle> res, final String key) {
-		ResourceBundle b = (ResourceBundle) m_map.get(key); // This bundle is mapped?
+	private void tryKey(final List<ResourceBundle> res, final String key) {
+		ResourceBundle b = m_bundleMap.get(key); // This bundle is mapped?
 		if(b != null) {
 			res.add(b);
 			return;
@@ -207,7 +249,7 @@ final public class BundleRef extends BundleBase implements IBundle {
 			PropertyResourceBundle prb = new PropertyResourceBundle(is);
 
 			//-- Add to map, then add to result
-			m_map.put(key, prb);
+			m_bundleMap.put(key, prb);
 			res.add(prb);
 		} catch(IOException x) {
 			System.err.println("Can't load propertyResourceBundle: " + rp);
@@ -240,10 +282,24 @@ final public class BundleRef extends BundleBase implements IBundle {
 		return sb.toString();
 	}
 
+	/**
+	 * Discards all loaded messages of this bundle, so that they are read again from the
+	 * property files on the next lookup. Only meant for development mode.
+	 */
+	public void reload() {
+		m_messageMap.clear();
+		m_bundleMap.clear();
+	}
+
 	/**
 	 * Clears the cache. In use by reloading class mechanism, hence only ever called while developing never in production. Dont use otherwise.
+	 * The bundles that were cached also reload their messages, for the code that still holds on to them.
 	 */
-	public static synchronized void internalClear() {
+	public static void internalClear() {
+		for(Map<String, BundleRef> refMap : m_cachedMap.values()) {
+			for(BundleRef ref : refMap.values())
+				ref.reload();
+		}
 		m_cachedMap.clear();
 	}
 
@@ -197,6 +197,18 @@ public class JdbcDataContext implements QDataContext {
 		return JdbcQuery.query(this, sel);
 	}
 
+	@Override
+	public <T> int visit(@Nonnull QCriteria<T> q, int fetchSize, @Nonnull IQRowVisitor<T> visitor) throws Exception {
+		unclosed();
+		return JdbcQuery.visit(this, q, fetchSize, visitor);
+	}
+
+	@Override
+	public int visit(@Nonnull QSelection< ? > sel, int fetchSize, @Nonnull IQRowVisitor<Object[]> visitor) throws Exception {
+		unclosed();
+		return JdbcQuery.visit(this, sel, fetchSize, visitor);
+	}
+
 	@Override
 	public <T> T queryOne(@Nonnull QCriteria<T> q) throws Exception {
 		unclosed();
@@ -28,6 +28,7 @@ import java.lang.reflect.*;
 import java.sql.*;
 import java.util.*;
 
+import to.etc.dbpool.*;
 import to.etc.util.*;
 import to.etc.webapp.query.*;
 
@@ -44,7 +45,10 @@ public class JdbcQuery<T> {
 
 	final private List<IQValueSetter> m_valList;
 
-	final private int m_start, m_limit;
+	/** The #of rows to skip while reading; 0 when the SQL itself already skips the rows. */
+	final private int m_start;
+
+	final private int m_limit;
 
 	final private int m_timeout;
 
@@ -74,6 +78,8 @@ public class JdbcQuery<T> {
 				vs.assign(ps);
 			if(m_timeout > 0)
 				ps.setQueryTimeout(m_timeout);
+			if(m_limit > 0)
+				ps.setFetchSize(m_start + m_limit);		// Get the whole page in one roundtrip
 			List<Object> res = new ArrayList<Object>();
 			rs = ps.executeQuery();
 			int rownum = 0;
@@ -87,15 +93,7 @@ public class JdbcQuery<T> {
 						throw new IllegalStateException("Your query result has > 10.000 rows. I aborted to prevent OOM.\nThe query was:\n" + m_sql);
 					}
 
-					if(m_rowMaker.size() == 1) {
-						res.add(m_rowMaker.get(0).make(dc, rs));
-					} else {
-						Object[] row = new Object[m_rowMaker.size()];
-						for(int i = 0; i < m_rowMaker.size(); i++) {
-							row[i] = m_rowMaker.get(i).make(dc, rs);
-						}
-						res.add(row);
-					}
+					res.add(makeRow(dc, rs));
 				}
 				rownum++;
 			}
@@ -117,14 +115,89 @@ public class JdbcQuery<T> {
 		}
 	}
 
+	private Object makeRow(QDataContext dc, ResultSet rs) throws Exception {
+		if(m_rowMaker.size() == 1)
+			return m_rowMaker.get(0).make(dc, rs);
+		Object[] row = new Object[m_rowMaker.size()];
+		for(int i = 0; i < m_rowMaker.size(); i++) {
+			row[i] = m_rowMaker.get(i).make(dc, rs);
+		}
+		return row;
+	}
+
+	/**
+	 * Execute the query using a forward-only, read-only result set, and pass every row to the visitor
+	 * as it is read. No rows are kept, so unlike {@link #query(QDataContext)} this has no limit on the
+	 * #of rows. Note that some drivers only stream when in a transaction (PostgreSQL needs autocommit off).
+	 *
+	 * @return	The #of rows passed to the visitor.
+	 */
+	public <R> int visit(QDataContext dc, int fetchSize, IQRowVisitor<R> visitor) throws Exception {
+		if(m_showSQL) {
+			System.out.println("jdbc: " + m_sql);
+		}
+
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		try {
+			ps = dc.getConnection().prepareStatement(m_sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			for(IQValueSetter vs : m_valList)
+				vs.assign(ps);
+			if(m_timeout > 0)
+				ps.setQueryTimeout(m_timeout);
+			if(m_limit > 0 && (fetchSize <= 0 || fetchSize > m_start + m_limit))
+				fetchSize = m_start + m_limit;
+			if(fetchSize > 0)
+				ps.setFetchSize(fetchSize);
+			rs = ps.executeQuery();
+			int rownum = 0;
+			int count = 0;
+			while(rs.next()) {
+				if(rownum++ < m_start)
+					continue;
+				if(m_limit > 0 && count >= m_limit)
+					break;
+				count++;
+				if(!visitor.visit((R) makeRow(dc, rs)))
+					break;
+			}
+			return count;
+		} catch(Exception x) {
+			QDbException dx = QDbException.findTranslation(x);
+			if(dx != null)
+				throw dx;
+			throw x;
+		} finally {
+			try {
+				if(rs != null)
+					rs.close();
+			} catch(Exception x) {}
+			try {
+				if(ps != null)
+					ps.close();
+			} catch(Exception x) {}
+		}
+	}
+
 	static public <T> JdbcQuery<T> create(QCriteria<T> q) throws Exception {
-		JdbcSQLGenerator qg = new JdbcSQLGenerator();
+		return create(q, DbType.ORACLE);
+	}
+
+	static public <T> JdbcQuery<T> create(QSelection<T> q) throws Exception {
+		return create(q, DbType.ORACLE);
+	}
+
+	/**
+	 * Create the query for the specified database type, so that paging is done by the database.
+	 */
+	static public <T> JdbcQuery<T> create(QCriteria<T> q, DbType dbType) throws Exception {
+		JdbcSQLGenerator qg = new JdbcSQLGenerator(dbType);
 		qg.visitCriteria(q);
 		return (JdbcQuery<T>) qg.getQuery();
 	}
 
-	static public <T> JdbcQuery<T> create(QSelection<T> q) throws Exception {
-		JdbcSQLGenerator qg = new JdbcSQLGenerator();
+	static public <T> JdbcQuery<T> create(QSelection<T> q, DbType dbType) throws Exception {
+		JdbcSQLGenerator qg = new JdbcSQLGenerator(dbType);
 		qg.visitSelection(q);
 		return (JdbcQuery<T>) qg.getQuery();
 	}
@@ -185,15 +258,25 @@ public class JdbcQuery<T> {
 	}
 
 	static public <T> List<T> query(QDataContext dc, QCriteria<T> q) throws Exception {
-		JdbcQuery<T> query = JdbcQuery.create(q); // Convert to JDBC query.
+		JdbcQuery<T> query = JdbcQuery.create(q, DbPoolUtil.getDbType(dc.getConnection())); // Convert to JDBC query.
 		return (List<T>) query.query(dc);
 	}
 
 	static public List<Object[]> query(QDataContext dc, QSelection< ? > sel) throws Exception {
-		JdbcQuery< ? > query = JdbcQuery.create(sel); // Convert to JDBC query.
+		JdbcQuery< ? > query = JdbcQuery.create(sel, DbPoolUtil.getDbType(dc.getConnection())); // Convert to JDBC query.
 		return (List<Object[]>) query.query(dc);
 	}
 
+	static public <T> int visit(QDataContext dc, QCriteria<T> q, int fetchSize, IQRowVisitor<T> visitor) throws Exception {
+		JdbcQuery<T> query = JdbcQuery.create(q, DbPoolUtil.getDbType(dc.getConnection()));
+		return query.visit(dc, fetchSize, visitor);
+	}
+
+	static public int visit(QDataContext dc, QSelection< ? > sel, int fetchSize, IQRowVisitor<Object[]> visitor) throws Exception {
+		JdbcQuery< ? > query = JdbcQuery.create(sel, DbPoolUtil.getDbType(dc.getConnection()));
+		return query.visit(dc, fetchSize, visitor);
+	}
+
 	static public <T> T queryOne(QDataContext dc, QCriteria<T> q) throws Exception {
 		List<T> res = query(dc, q);
 		if(res.size() == 0)
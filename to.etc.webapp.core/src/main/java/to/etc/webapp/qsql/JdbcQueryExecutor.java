@@ -103,6 +103,16 @@ public class JdbcQueryExecutor implements IQueryExecutor<QDataContext>, IQueryEx
 		return JdbcQuery.query(root, sel);
 	}
 
+	@Override
+	public <T> int visit(@Nonnull QDataContext root, @Nonnull QCriteria<T> q, int fetchSize, @Nonnull IQRowVisitor<T> visitor) throws Exception {
+		return JdbcQuery.visit(root, q, fetchSize, visitor);
+	}
+
+	@Override
+	public int visit(@Nonnull QDataContext root, @Nonnull QSelection< ? > sel, int fetchSize, @Nonnull IQRowVisitor<Object[]> visitor) throws Exception {
+		return JdbcQuery.visit(root, sel, fetchSize, visitor);
+	}
+
 	@Override
 	public void refresh(@Nonnull QDataContext root, @Nonnull Object o) throws Exception {
 	//-- Noop
@@ -24,6 +24,7 @@
  */
 package to.etc.webapp.qsql;
 
+import to.etc.dbpool.*;
 import to.etc.webapp.query.*;
 
 import javax.annotation.*;
@@ -57,15 +58,34 @@ public class JdbcSQLGenerator extends QRenderingVisitorBase {
 
 	private List<IQValueSetter> m_valList = new ArrayList<IQValueSetter>();
 
-	/** FIXME Need some better way to set this */
-	private boolean m_oracle = true;
+	/** The database the SQL is generated for, which determines how paging is rendered. */
+	@Nonnull
+	final private DbType m_dbType;
 
 	private int m_start, m_limit;
 
+	/** T if the start and limit were rendered in the SQL, so that the query itself need not skip rows. */
+	private boolean m_pagedInSql;
+
 	private int m_timeout = -1;
 
 	private String m_sql;
 
+	/**
+	 * Create a generator for Oracle.
+	 */
+	public JdbcSQLGenerator() {
+		this(DbType.ORACLE);
+	}
+
+	/**
+	 * Create a generator for the specified database type. For {@link DbType#UNKNOWN} no
+	 * database specific paging is rendered; the query then skips rows itself.
+	 */
+	public JdbcSQLGenerator(@Nonnull DbType dbType) {
+		m_dbType = dbType;
+	}
+
 	@Override
 	public void visitCriteria(@Nonnull QCriteria< ? > qc) throws Exception {
 		m_root = new PClassRef(qc.getBaseClass(), "this_");
@@ -85,11 +105,6 @@ public class JdbcSQLGenerator extends QRenderingVisitorBase {
 		 * Generate SQL. Most of this is disgusting and should be replaced by a SN* tree passed to a database-dependent handler.
 		 */
 		StringBuilder sb = new StringBuilder(256);
-		boolean limiting = qc.getLimit() > 0 || qc.getStart() > 0;
-		if(m_oracle && limiting) {
-			sb.append("select * from (");
-		}
-
 		sb.append("select ");
 		sb.append(m_fields);
 		sb.append(" from ");
@@ -107,17 +122,55 @@ public class JdbcSQLGenerator extends QRenderingVisitorBase {
 			sb.append(" order by ");
 			sb.append(m_order);
 		}
-		if(m_oracle && limiting) {
-			sb.append(") where");
-			if(qc.getStart() > 0)
-				sb.append(" rownum >= ").append(qc.getStart());
-			if(qc.getLimit() > 0) {
-				if(qc.getStart() > 0)
-					sb.append(" and");
-				sb.append(" rownum <= ").append(qc.getLimit());
-			}
+		m_sql = renderPaging(sb.toString(), m_start, m_limit);
+	}
+
+	/**
+	 * Wrap the query so that the database only returns the requested page. If the database type has
+	 * no known paging syntax the query is returned as-is, and rows are skipped while reading them.
+	 */
+	@Nonnull
+	private String renderPaging(@Nonnull String sql, int start, int limit) {
+		if(start < 0)
+			start = 0;
+		if(start == 0 && limit <= 0)
+			return sql;
+
+		StringBuilder sb = new StringBuilder(sql.length() + 80);
+		switch(m_dbType) {
+			default:
+				return sql;
+
+			case ORACLE:
+				//-- ROWNUM is assigned before the outer where, so it needs to be selected as a column to skip rows.
+				if(start == 0) {
+					sb.append("select * from (").append(sql).append(") where rownum <= ").append(limit);
+				} else {
+					sb.append("select * from (select q_.*, rownum rn_ from (").append(sql).append(") q_");
+					if(limit > 0)
+						sb.append(" where rownum <= ").append(start + limit);
+					sb.append(") where rn_ > ").append(start);
+				}
+				break;
+
+			case POSTGRES:
+				sb.append(sql);
+				if(limit > 0)
+					sb.append(" limit ").append(limit);
+				if(start > 0)
+					sb.append(" offset ").append(start);
+				break;
+
+			case MYSQL:
+				//-- MySQL has no offset without limit; the documented way is to use the largest possible limit.
+				sb.append(sql).append(" limit ");
+				if(start > 0)
+					sb.append(start).append(',');
+				sb.append(limit > 0 ? Integer.toString(limit) : "18446744073709551615");
+				break;
 		}
-		m_sql = sb.toString();
+		m_pagedInSql = true;
+		return sb.toString();
 	}
 
 	@Override
@@ -232,7 +285,7 @@ public class JdbcSQLGenerator extends QRenderingVisitorBase {
 	}
 
 	public JdbcQuery< ? > getQuery() throws Exception {
-		return new JdbcQuery<Object>(getSQL(), m_retrieverList, m_valList, m_start, m_limit, m_timeout);
+		return new JdbcQuery<Object>(getSQL(), m_retrieverList, m_valList, m_pagedInSql ? 0 : m_start, m_limit, m_timeout);
 	}
 
 	@Override
@@ -270,7 +323,7 @@ public class JdbcSQLGenerator extends QRenderingVisitorBase {
 
 		int oldprec = precedenceOpen(n);
 
-		if(n.getOperation() == QOperation.ILIKE && m_oracle) {
+		if(n.getOperation() == QOperation.ILIKE && m_dbType == DbType.ORACLE) {
 			appendWhere("upper(");
 			appendWhere(getColumnRef(m_root, pm.getColumnName()));
 			appendWhere(") like upper(");
@@ -50,6 +50,23 @@ public interface IQueryExecutor<C extends QDataContext> {
 	@Nonnull
 	List<Object[]> query(@Nonnull C root, @Nonnull QSelection< ? > sel) throws Exception;
 
+	/**
+	 * Execute the query and pass every row to the visitor while it is being read. Executors that cannot
+	 * stream query the list and visit its rows.
+	 * @see QDataContext#visit(QCriteria, int, IQRowVisitor)
+	 */
+	default <T> int visit(@Nonnull C root, @Nonnull QCriteria<T> q, int fetchSize, @Nonnull IQRowVisitor<T> visitor) throws Exception {
+		return QQueryUtils.visitList(query(root, q), visitor);
+	}
+
+	/**
+	 * Execute the selection and pass every row to the visitor while it is being read.
+	 * @see QDataContext#visit(QSelection, int, IQRowVisitor)
+	 */
+	default int visit(@Nonnull C root, @Nonnull QSelection< ? > sel, int fetchSize, @Nonnull IQRowVisitor<Object[]> visitor) throws Exception {
+		return QQueryUtils.visitList(query(root, sel), visitor);
+	}
+
 	/**
 	 * Load the persistent object with the specified type and primary key from the database. This will
 	 * execute an actual select in the database if the object is not yet cached, ensuring that the
@@ -133,6 +133,18 @@ abstract public class QAbstractDataContext implements QDataContext {
 		return getHandlerFactory().getHandler(this, sel).query(this, sel);
 	}
 
+	@Override
+	public <T> int visit(@Nonnull QCriteria<T> q, int fetchSize, @Nonnull IQRowVisitor<T> visitor) throws Exception {
+		getFactory().getEventListeners().callOnBeforeQuery(this, q);
+		return getHandlerFactory().getHandler(this, q).visit(this, q, fetchSize, visitor);
+	}
+
+	@Override
+	public int visit(@Nonnull QSelection< ? > sel, int fetchSize, @Nonnull IQRowVisitor<Object[]> visitor) throws Exception {
+		getFactory().getEventListeners().callOnBeforeQuery(this, sel);
+		return getHandlerFactory().getHandler(this, sel).visit(this, sel, fetchSize, visitor);
+	}
+
 	@Override
 	@Nonnull
 	public <R> List<R> query(@Nonnull Class<R> resultInterface, @Nonnull QSelection< ? > sel) throws Exception {
@@ -82,6 +82,26 @@ public class QCriteria<T> extends QCriteriaQueryBase<T> {
 	//		return new QCriteria<T>(this);
 	//	}
 
+	/**
+	 * Create a copy of this criteria that can be run with another start, limit or order without
+	 * changing this one. The restrictions are shared with this criteria, not copied, so do not
+	 * add restrictions to the copy.
+	 */
+	@Nonnull
+	public QCriteria<T> copyForQuery() {
+		ICriteriaTableDef<T> metaTable = getMetaTable();
+		Class<T> baseClass = getBaseClass();
+		QCriteria<T> q;
+		if(null != metaTable)
+			q = new QCriteria<T>(metaTable);
+		else if(null != baseClass)
+			q = new QCriteria<T>(baseClass);
+		else
+			throw new IllegalStateException("Criteria has neither a base class nor a meta table");
+		q.copyFrom(this);
+		return q;
+	}
+
 	/**
 	 * Visit everything in this QCriteria.
 	 * @param v
@@ -91,6 +91,23 @@ public class QCriteriaQueryBase<T> extends QRestrictor<T> {
 	//		}
 	//	}
 
+	/**
+	 * Copy the selection, paging, ordering and options of another query into this one. The restrictions
+	 * are not deep-copied: both queries share the same restriction tree.
+	 */
+	protected void copyFrom(@Nonnull QCriteriaQueryBase<T> q) {
+		m_itemList = q.m_itemList.isEmpty() ? Collections.EMPTY_LIST : new ArrayList<QSelectionColumn>(q.m_itemList);
+		m_limit = q.m_limit;
+		m_start = q.m_start;
+		m_timeout = q.m_timeout;
+		m_testId = q.m_testId;
+		m_restrictions = q.m_restrictions;
+		m_order = q.m_order.isEmpty() ? Collections.EMPTY_LIST : new ArrayList<QOrder>(q.m_order);
+		Map<String, Object> optionMap = q.m_optionMap;
+		m_optionMap = optionMap == null ? null : new HashMap<String, Object>(optionMap);
+		m_fetchMap = q.m_fetchMap.isEmpty() ? Collections.EMPTY_MAP : new HashMap<String, QFetchStrategy>(q.m_fetchMap);
+	}
+
 	@Nullable
 	@Override
 	public QOperatorNode getRestrictions() {
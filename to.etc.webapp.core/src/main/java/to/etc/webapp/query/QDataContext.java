@@ -129,6 +129,32 @@ public interface QDataContext extends AutoCloseable {
 	 */
 	@Nullable <R> R queryOne(@Nonnull Class<R> resultInterface, @Nonnull QSelection<?> sel) throws Exception;
 
+	/**
+	 * Execute the query specified by q, and pass every result row to the visitor as soon as it is read,
+	 * instead of returning a list of all results. The rows are read using a forward-only cursor that
+	 * fetches fetchSize rows per roundtrip, so that huge results can be handled with constant memory.
+	 * Contexts that hold on to loaded instances (like a Hibernate session) periodically release the
+	 * instances read, so the visitor must not depend on earlier rows staying attached.
+	 *
+	 * <p>The default implementation just queries the list and visits its rows.</p>
+	 *
+	 * @param q			The selection criteria
+	 * @param fetchSize	The #of rows to get from the database per roundtrip; use 0 for the driver's default.
+	 * @param visitor	Receives all rows, and can stop the query by returning false.
+	 * @return			The #of rows passed to the visitor.
+	 */
+	default <T> int visit(@Nonnull QCriteria<T> q, int fetchSize, @Nonnull IQRowVisitor<T> visitor) throws Exception {
+		return QQueryUtils.visitList(query(q), visitor);
+	}
+
+	/**
+	 * Execute a selection query, and pass every result row to the visitor as soon as it is read. See
+	 * {@link #visit(QCriteria, int, IQRowVisitor)}.
+	 */
+	default int visit(@Nonnull QSelection< ? > sel, int fetchSize, @Nonnull IQRowVisitor<Object[]> visitor) throws Exception {
+		return QQueryUtils.visitList(query(sel), visitor);
+	}
+
 	/**
 	 * Load the persistent object with the specified type and primary key from the database. This will
 	 * execute an actual select in the database if the object is not yet cached, ensuring that the
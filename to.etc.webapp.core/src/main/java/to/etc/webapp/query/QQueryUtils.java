@@ -43,6 +43,19 @@ final public class QQueryUtils {
 		return pf.createInstance(resl);
 	}
 
+	/**
+	 * Pass all rows of an already loaded result to a visitor; used by contexts that cannot stream results.
+	 */
+	static public <T> int visitList(@Nonnull List<T> list, @Nonnull IQRowVisitor<T> visitor) throws Exception {
+		int count = 0;
+		for(T row : list) {
+			count++;
+			if(!visitor.visit(row))
+				break;
+		}
+		return count;
+	}
+
 	private static class ProxyFactory<T> {
 		final private ClassLoader m_cl;
 
@@ -107,6 +120,26 @@ final public class QQueryUtils {
 		return 0;
 	}
 
+	/**
+	 * Returns the #of rows that the criteria would return, taking its start and limit into account.
+	 * The rows are counted using a count(keyProperty) selection with the criteria's restrictions;
+	 * keyProperty should be a property that is never null, usually the primary key.
+	 */
+	public static <T> int queryResultCount(@Nonnull QDataContext dc, @Nonnull QCriteria<T> q, @Nonnull String keyProperty) throws Exception {
+		Class<T> baseClass = q.getBaseClass();
+		if(null == baseClass)
+			throw new IllegalStateException("Cannot count the rows of a query without a base class");
+		QSelection<T> rest = QSelection.create(baseClass);
+		rest.setRestrictions(q.getRestrictions());
+		rest.count(keyProperty);
+		Object[] res = dc.queryOne(rest.testId(q.getTestId()));
+		int count = res != null && res.length > 0 && res[0] != null ? ((Number) res[0]).intValue() : 0;
+		count -= Math.max(q.getStart(), 0);
+		if(q.getLimit() > 0 && count > q.getLimit())
+			count = q.getLimit();
+		return Math.max(count, 0);
+	}
+
 //	interface myData {
 //		@QFld(1)
 //		int count();
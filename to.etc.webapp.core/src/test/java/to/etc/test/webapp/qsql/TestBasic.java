@@ -31,6 +31,7 @@ import javax.sql.*;
 
 import org.junit.*;
 
+import to.etc.dbpool.*;
 import to.etc.webapp.qsql.*;
 import to.etc.webapp.query.*;
 import to.etc.webapp.testsupport.*;
@@ -184,5 +185,58 @@ public class TestBasic {
 		Assert.assertEquals(1, gc.getRetrieverList().size());
 		Assert.assertEquals(3, gc.getValList().size());
 	}
-	
+
+	static private final String LEDGER_SQL = "select this_.ID,this_.grbr_code,this_.omschrijving,this_.grbr_type_omschrijving from v_dec_grootboekrekeningen this_";
+
+	static private String pagedSQL(DbType type, int start, int limit) throws Exception {
+		QCriteria<LedgerAccount> qc = QCriteria.create(LedgerAccount.class);
+		qc.start(start);
+		qc.limit(limit);
+		JdbcSQLGenerator gc = new JdbcSQLGenerator(type);
+		gc.visitCriteria(qc);
+		System.out.println(gc.getSQL());
+		return gc.getSQL();
+	}
+
+	@Test
+	public void testPagingOracle() throws Exception {
+		Assert.assertEquals("select * from (" + LEDGER_SQL + ") where rownum <= 10", pagedSQL(DbType.ORACLE, 0, 10));
+		Assert.assertEquals("select * from (select q_.*, rownum rn_ from (" + LEDGER_SQL + ") q_ where rownum <= 30) where rn_ > 20", pagedSQL(DbType.ORACLE, 20, 10));
+		Assert.assertEquals("select * from (select q_.*, rownum rn_ from (" + LEDGER_SQL + ") q_) where rn_ > 20", pagedSQL(DbType.ORACLE, 20, 0));
+	}
+
+	@Test
+	public void testPagingPostgres() throws Exception {
+		Assert.assertEquals(LEDGER_SQL + " limit 10", pagedSQL(DbType.POSTGRES, 0, 10));
+		Assert.assertEquals(LEDGER_SQL + " limit 10 offset 20", pagedSQL(DbType.POSTGRES, 20, 10));
+	}
+
+	@Test
+	public void testPagingMysql() throws Exception {
+		Assert.assertEquals(LEDGER_SQL + " limit 10", pagedSQL(DbType.MYSQL, 0, 10));
+		Assert.assertEquals(LEDGER_SQL + " limit 20,10", pagedSQL(DbType.MYSQL, 20, 10));
+	}
+
+	@Test
+	public void testPagingUnknown() throws Exception {
+		Assert.assertEquals(LEDGER_SQL, pagedSQL(DbType.UNKNOWN, 20, 10));
+	}
+
+	static private String ilikeSQL(DbType type) throws Exception {
+		QCriteria<LedgerAccount> qc = QCriteria.create(LedgerAccount.class).ilike("code", "e%");
+		JdbcSQLGenerator gc = new JdbcSQLGenerator(type);
+		gc.visitCriteria(qc);
+		System.out.println(gc.getSQL());
+		return gc.getSQL();
+	}
+
+	/**
+	 * Only Oracle lacks ilike and renders it as a like on the uppercased values.
+	 */
+	@Test
+	public void testIlike() throws Exception {
+		Assert.assertEquals(LEDGER_SQL + " where upper(this_.grbr_code) like upper(?)", ilikeSQL(DbType.ORACLE));
+		Assert.assertEquals(LEDGER_SQL + " where this_.grbr_code ilike ?", ilikeSQL(DbType.POSTGRES));
+		Assert.assertEquals(LEDGER_SQL + " where this_.grbr_code ilike ?", ilikeSQL(DbType.UNKNOWN));
+	}
 }